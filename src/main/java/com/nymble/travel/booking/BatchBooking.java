@@ -0,0 +1,193 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Signs a manifest of passengers up for a set of activities in one operation, for example
+ * a whole coach booking the same excursions. Instead of N×M individual sign-ups, prices are
+ * quoted once, seats are reserved per activity in bulk and each passenger's wallet is debited
+ * once for the total of their bookings.
+ * <p>
+ * Reserved seats are then assigned to the passengers, so a passenger already enrolled in an
+ * activity is reported as {@link SignUpStatus#ALREADY_ENROLLED} instead of being booked twice.
+ * In all-or-nothing mode either every passenger is booked onto every activity or nothing
+ * changes. Otherwise each (passenger, activity) pair is booked independently in manifest order,
+ * and the result reports the outcome of every pair. The price of every booked pair is recorded
+ * with the passenger, so cancelling it refunds exactly what was charged.
+ */
+public final class BatchBooking {
+
+    private BatchBooking() {
+    }
+
+    /**
+     * Signs every passenger up for every activity.
+     *
+     * @param passengers The passengers to sign up, in manifest order.
+     * @param activities The activities to sign each passenger up for.
+     * @param allOrNothing Whether the batch should fail as a whole if any single sign-up is not possible.
+     * @return the outcome of each (passenger, activity) pair.
+     */
+    public static BatchBookingResult book(List<Passenger> passengers, List<Activity> activities, boolean allOrNothing) {
+        int passengerCount = passengers.size();
+        int activityCount = activities.size();
+        long[] prices = new long[passengerCount * activityCount];
+        long[] totals = new long[passengerCount];
+        for (int p = 0; p < passengerCount; p++) {
+            Passenger passenger = passengers.get(p);
+            for (int a = 0; a < activityCount; a++) {
+                long price = passenger.quoteInCents(activities.get(a));
+                prices[p * activityCount + a] = price;
+                totals[p] += price;
+            }
+        }
+        SignUpStatus[] statuses = new SignUpStatus[prices.length];
+        if (allOrNothing) {
+            bookAll(passengers, activities, prices, totals, statuses);
+        } else {
+            bookEach(passengers, activities, prices, totals, statuses);
+        }
+        return new BatchBookingResult(passengerCount, activityCount, statuses);
+    }
+
+    private static void bookAll(List<Passenger> passengers, List<Activity> activities, long[] prices, long[] totals,
+                                SignUpStatus[] statuses) {
+        int passengerCount = passengers.size();
+        int activityCount = activities.size();
+
+        // Validate capacity and funds in aggregate before touching any shared state
+        boolean feasible = true;
+        for (int p = 0; p < passengerCount; p++) {
+            Passenger passenger = passengers.get(p);
+            boolean funded = passenger.getWallet().getBalanceCents() >= totals[p];
+            for (int a = 0; a < activityCount; a++) {
+                SignUpStatus status;
+                if (activities.get(a).isEnrolled(passenger.getPassengerNumber())) {
+                    status = SignUpStatus.ALREADY_ENROLLED;
+                } else if (activities.get(a).getAvailableSeats() < passengerCount) {
+                    status = SignUpStatus.NO_CAPACITY;
+                } else if (!funded) {
+                    status = SignUpStatus.INSUFFICIENT_BALANCE;
+                } else {
+                    status = SignUpStatus.ABORTED;
+                }
+                statuses[p * activityCount + a] = status;
+                feasible &= status == SignUpStatus.ABORTED;
+            }
+        }
+        if (!feasible || passengerCount == 0) {
+            return;
+        }
+
+        Optional<SeatReservation> reservation = SeatReservation.tryReserve(activities, passengerCount);
+        if (reservation.isEmpty()) {
+            Arrays.fill(statuses, SignUpStatus.NO_CAPACITY); // Seats were taken concurrently after validation
+            return;
+        }
+        for (int pair = 0; pair < statuses.length; pair++) {
+            if (!activities.get(pair % activityCount).assignReservedSeat(passengers.get(pair / activityCount))) {
+                // Enrolled concurrently after validation
+                reservation.get().rollback(unassign(passengers, activities, pair));
+                statuses[pair] = SignUpStatus.ALREADY_ENROLLED;
+                return;
+            }
+        }
+        for (int p = 0; p < passengerCount; p++) {
+            if (!passengers.get(p).getWallet().tryDebit(totals[p])) {
+                for (int refunded = 0; refunded < p; refunded++) {
+                    passengers.get(refunded).getWallet().credit(totals[refunded]);
+                }
+                reservation.get().rollback(unassign(passengers, activities, statuses.length));
+                Arrays.fill(statuses, p * activityCount, (p + 1) * activityCount, SignUpStatus.INSUFFICIENT_BALANCE);
+                return;
+            }
+        }
+        reservation.get().commit();
+        for (int pair = 0; pair < statuses.length; pair++) {
+            passengers.get(pair / activityCount).recordCharge(activities.get(pair % activityCount), prices[pair]);
+        }
+        Arrays.fill(statuses, SignUpStatus.BOOKED);
+    }
+
+    private static void bookEach(List<Passenger> passengers, List<Activity> activities, long[] prices, long[] totals,
+                                 SignUpStatus[] statuses) {
+        int passengerCount = passengers.size();
+        int activityCount = activities.size();
+
+        // Take as many seats as the manifest needs from each activity in one step
+        int[] seatsLeft = new int[activityCount];
+        for (int a = 0; a < activityCount; a++) {
+            seatsLeft[a] = passengerCount == 0 ? 0 : activities.get(a).reserveUpTo(passengerCount);
+        }
+
+        for (int p = 0; p < passengerCount; p++) {
+            Passenger passenger = passengers.get(p);
+            int row = p * activityCount;
+            boolean seatedEverywhere = true;
+            for (int a = 0; a < activityCount; a++) {
+                if (seatsLeft[a] == 0) {
+                    statuses[row + a] = SignUpStatus.NO_CAPACITY;
+                } else if (!activities.get(a).assignReservedSeat(passenger)) {
+                    statuses[row + a] = SignUpStatus.ALREADY_ENROLLED;
+                } else {
+                    seatsLeft[a]--;
+                    continue;
+                }
+                seatedEverywhere = false;
+            }
+            // Common case: a single debit covers all of the passenger's bookings
+            if (seatedEverywhere && passenger.getWallet().tryDebit(totals[p])) {
+                for (int a = 0; a < activityCount; a++) {
+                    passenger.recordCharge(activities.get(a), prices[row + a]);
+                }
+                Arrays.fill(statuses, row, row + activityCount, SignUpStatus.BOOKED);
+                continue;
+            }
+            for (int a = 0; a < activityCount; a++) {
+                if (statuses[row + a] != null) {
+                    continue; // Not seated
+                }
+                if (passenger.getWallet().tryDebit(prices[row + a])) {
+                    passenger.recordCharge(activities.get(a), prices[row + a]);
+                    statuses[row + a] = SignUpStatus.BOOKED;
+                } else {
+                    if (activities.get(a).unassignSeat(passenger)) {
+                        seatsLeft[a]++; // Otherwise a concurrent cancellation already released the seat
+                    }
+                    statuses[row + a] = SignUpStatus.INSUFFICIENT_BALANCE;
+                }
+            }
+        }
+
+        // Hand back the seats that no passenger could pay for
+        for (int a = 0; a < activityCount; a++) {
+            if (seatsLeft[a] > 0) {
+                activities.get(a).releaseSeats(seatsLeft[a]);
+            }
+        }
+    }
+
+    /**
+     * Removes the passengers from the seats assigned to the first pairs, in row-major order.
+     * A passenger who cancelled in the meantime is no longer seated, and the cancellation has
+     * already released that seat.
+     *
+     * @return the number of seats per activity already released by such cancellations.
+     */
+    private static int[] unassign(List<Passenger> passengers, List<Activity> activities, int pairs) {
+        int activityCount = activities.size();
+        int[] released = new int[activityCount];
+        for (int pair = 0; pair < pairs; pair++) {
+            if (!activities.get(pair % activityCount).unassignSeat(passengers.get(pair / activityCount))) {
+                released[pair % activityCount]++;
+            }
+        }
+        return released;
+    }
+}
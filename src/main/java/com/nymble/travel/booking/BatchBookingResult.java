@@ -0,0 +1,69 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.SignUpStatus;
+import lombok.Getter;
+
+/**
+ * The per-item outcome of a {@link BatchBooking}. Statuses are stored in a flat vector
+ * in manifest order: all activities of the first passenger, then of the second, and so on.
+ */
+public final class BatchBookingResult {
+    @Getter
+    private final int passengerCount; // Number of passengers in the manifest
+    @Getter
+    private final int activityCount; // Number of activities each passenger was signed up for
+    private final SignUpStatus[] statuses; // Outcome per (passenger, activity), row-major by passenger
+
+    BatchBookingResult(int passengerCount, int activityCount, SignUpStatus[] statuses) {
+        this.passengerCount = passengerCount;
+        this.activityCount = activityCount;
+        this.statuses = statuses;
+    }
+
+    /**
+     * Returns the outcome for one passenger and activity.
+     *
+     * @param passengerIndex The position of the passenger in the manifest.
+     * @param activityIndex The position of the activity in the activity list.
+     * @return the sign-up status of that pair.
+     */
+    public SignUpStatus getStatus(int passengerIndex, int activityIndex) {
+        if (passengerIndex < 0 || passengerIndex >= passengerCount || activityIndex < 0 || activityIndex >= activityCount) {
+            throw new IndexOutOfBoundsException("No result for passenger " + passengerIndex + ", activity " + activityIndex);
+        }
+        return statuses[passengerIndex * activityCount + activityIndex];
+    }
+
+    /**
+     * Returns a copy of the outcome vector in manifest order.
+     *
+     * @return the statuses of all pairs.
+     */
+    public SignUpStatus[] getStatuses() {
+        return statuses.clone();
+    }
+
+    /**
+     * Returns the number of pairs that were booked.
+     *
+     * @return the number of successful sign-ups.
+     */
+    public int getBookedCount() {
+        int booked = 0;
+        for (SignUpStatus status : statuses) {
+            if (status == SignUpStatus.BOOKED) {
+                booked++;
+            }
+        }
+        return booked;
+    }
+
+    /**
+     * Returns whether every passenger was booked onto every activity.
+     *
+     * @return true if all pairs were booked.
+     */
+    public boolean isFullyBooked() {
+        return getBookedCount() == statuses.length;
+    }
+}
@@ -0,0 +1,430 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.CatalogListener;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.util.TimerWheel;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Books the activities of one travel package for its own passengers. Unlike
+ * {@link Passenger#signUpForActivity(Activity)}, every booking first checks that the passenger
+ * is enrolled in the package and that the activity is offered by one of its destinations, and
+ * is rejected with {@link SignUpStatus#NOT_IN_PACKAGE} otherwise.
+ * <p>
+ * A checkout of several activities runs in two steps. {@link #hold} takes a seat on every
+ * activity without charging the passenger; the activities of each destination are held by their
+ * own task, the first on the calling thread and the others on the executor, so destinations are
+ * served in parallel, and if any activity is full every seat taken is released again. The
+ * passenger then {@link Hold#confirm() confirms} the hold, which enrolls them in every activity
+ * and charges the total at once, or {@link Hold#release() releases} it. A hold neither confirmed
+ * nor released within the hold time expires and gives its seats back, so abandoned checkouts do
+ * not keep activities full. Expiries are kept on a {@link TimerWheel}, making holds cheap to
+ * place and cancel however many are pending.
+ * <p>
+ * The checkout changes the models only and journals nothing. Held seats are transient and are
+ * not recovered after a restart; confirmed holds are persisted by the caller, as
+ * {@link com.nymble.travel.services.TravelService#checkout TravelService} does.
+ */
+public final class PackageCheckout implements CatalogListener, Closeable {
+    private static final int WHEEL_BUCKETS = 512; // Ticks per turn of the expiry wheel
+    private static final int TICKS_PER_HOLD = 64; // Expiry resolution as a fraction of the hold time
+    private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TravelPackage travelPackage;
+    private final long holdNanos; // Time a hold lasts unless confirmed or released
+    private final Executor executor; // Holds the activities of each destination
+    private final ScheduledExecutorService ownedTicker; // The ticker if created here, shut down on close
+    private final TimerWheel expiries; // Expiry of every pending hold
+    private final ScheduledFuture<?> ticks; // Advances the expiry wheel
+    private final Map<Integer, Destination> destinations = new ConcurrentHashMap<>(); // Destination by activity id
+    private final Set<Hold> pending = ConcurrentHashMap.newKeySet(); // Holds neither confirmed, released nor expired
+
+    /**
+     * Creates a checkout holding activities on the common pool, with a daemon thread expiring
+     * holds. Without parallelism in the common pool, which then starts a thread per task, all
+     * destinations are held on the calling thread instead.
+     *
+     * @param travelPackage The package to book.
+     * @param holdTime How long a hold lasts unless it is confirmed or released.
+     */
+    public PackageCheckout(TravelPackage travelPackage, Duration holdTime) {
+        this(travelPackage, holdTime, null, null);
+    }
+
+    /**
+     * Creates a checkout.
+     *
+     * @param travelPackage The package to book.
+     * @param holdTime How long a hold lasts unless it is confirmed or released.
+     * @param executor The executor holding the activities of each destination, or null for the
+     * common pool, or the calling thread if the common pool has no parallelism.
+     * @param ticker The executor expiring holds, or null for a daemon thread owned by the checkout.
+     */
+    public PackageCheckout(TravelPackage travelPackage, Duration holdTime, Executor executor, ScheduledExecutorService ticker) {
+        if (holdTime.isNegative() || holdTime.isZero()) {
+            throw new IllegalArgumentException("Hold time must be positive: " + holdTime);
+        }
+        this.travelPackage = travelPackage;
+        this.holdNanos = holdTime.toNanos();
+        if (executor == null) {
+            executor = ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : Runnable::run;
+        }
+        this.executor = executor;
+        if (ticker == null) {
+            ScheduledThreadPoolExecutor owned = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "hold-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            owned.setRemoveOnCancelPolicy(true);
+            this.ownedTicker = owned;
+            ticker = owned;
+        } else {
+            this.ownedTicker = null;
+        }
+        long tickNanos = Math.max(MIN_TICK_NANOS, holdNanos / TICKS_PER_HOLD);
+        this.expiries = new TimerWheel(tickNanos, WHEEL_BUCKETS);
+        this.ticks = ticker.scheduleAtFixedRate(() -> expiries.advance(System.nanoTime()), tickNanos, tickNanos,
+                TimeUnit.NANOSECONDS);
+        travelPackage.addListener(this);
+        travelPackage.getItinerary().forEach(this::track);
+    }
+
+    /**
+     * Signs a passenger up for an activity of the package, see {@link Passenger#enroll(Activity)}.
+     *
+     * @param passenger The passenger, who must be enrolled in the package.
+     * @param activity The activity, which must be offered by a destination of the package.
+     * @return the outcome of the sign-up, {@link SignUpStatus#NOT_IN_PACKAGE} if the passenger or
+     * the activity does not belong to the package.
+     */
+    public SignUpStatus signUp(Passenger passenger, Activity activity) {
+        if (!isMember(passenger) || !destinations.containsKey(activity.getId())) {
+            BookingMetrics metrics = BookingMetrics.getDefault();
+            metrics.recordSignUp(passenger.getTier(), SignUpStatus.NOT_IN_PACKAGE, metrics.startTime());
+            return SignUpStatus.NOT_IN_PACKAGE;
+        }
+        return passenger.enroll(activity);
+    }
+
+    /**
+     * Holds a seat on every activity for the passenger, or on none. Prices are quoted now and
+     * charged when the hold is confirmed.
+     *
+     * @param passenger The passenger, who must be enrolled in the package.
+     * @param activities The activities, each offered by a destination of the package and listed once.
+     * @return a future completed with the hold once every destination has been served; the hold
+     * is {@link Hold.State#REJECTED rejected} if any activity could not be held.
+     */
+    public CompletableFuture<Hold> hold(Passenger passenger, List<Activity> activities) {
+        Activity[] held = activities.toArray(new Activity[0]);
+        long[] prices = new long[held.length];
+        SignUpStatus[] statuses = new SignUpStatus[held.length];
+        Map<Destination, List<Integer>> byDestination = new LinkedHashMap<>();
+        Set<Integer> ids = new HashSet<>();
+        boolean member = isMember(passenger);
+        long total = 0;
+        for (int i = 0; i < held.length; i++) {
+            if (!ids.add(held[i].getId())) {
+                throw new IllegalArgumentException("Activity listed twice: " + held[i].getName());
+            }
+            Destination destination = destinations.get(held[i].getId());
+            if (!member || destination == null) {
+                statuses[i] = SignUpStatus.NOT_IN_PACKAGE;
+            } else if (passenger.isEnrolledIn(held[i])) {
+                statuses[i] = SignUpStatus.ALREADY_ENROLLED;
+            } else {
+                byDestination.computeIfAbsent(destination, key -> new ArrayList<>()).add(i);
+            }
+            prices[i] = passenger.quoteInCents(held[i]);
+            total += prices[i];
+        }
+        if (byDestination.values().stream().mapToInt(List::size).sum() < held.length) {
+            return CompletableFuture.completedFuture(rejected(passenger, held, prices, statuses));
+        }
+        if (passenger.getWallet().getBalanceCents() < total) {
+            Arrays.fill(statuses, SignUpStatus.INSUFFICIENT_BALANCE); // Cheap pre-check so we do not take seats we cannot pay for
+            return CompletableFuture.completedFuture(rejected(passenger, held, prices, statuses));
+        }
+
+        // Other destinations run on the executor while the caller holds the first one itself
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(byDestination.size());
+        List<List<Integer>> groups = new ArrayList<>(byDestination.values());
+        for (int group = 1; group < groups.size(); group++) {
+            List<Integer> indexes = groups.get(group);
+            tasks.add(CompletableFuture.runAsync(() -> reserve(held, indexes, statuses), executor));
+        }
+        if (!groups.isEmpty()) {
+            reserve(held, groups.get(0), statuses);
+        }
+        long totalCents = total;
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            if (Arrays.stream(statuses).anyMatch(status -> status != null)) {
+                for (int i = 0; i < held.length; i++) {
+                    if (statuses[i] == null) {
+                        held[i].releaseSeats(1); // Held on its own, released with the rest
+                        statuses[i] = SignUpStatus.ABORTED;
+                    }
+                }
+                return rejected(passenger, held, prices, statuses);
+            }
+            Hold hold = new Hold(passenger, held, prices, totalCents, null);
+            pending.add(hold);
+            hold.expiry = expiries.schedule(hold::expire, System.nanoTime() + holdNanos);
+            return hold;
+        });
+    }
+
+    /**
+     * Returns the number of holds neither confirmed, released nor expired.
+     *
+     * @return the number of pending holds.
+     */
+    public int getHoldCount() {
+        return pending.size();
+    }
+
+    /**
+     * Releases every pending hold and stops listening to the package.
+     */
+    @Override
+    public void close() {
+        ticks.cancel(false);
+        if (ownedTicker != null) {
+            ownedTicker.shutdown();
+        }
+        pending.forEach(Hold::release);
+        travelPackage.removeListener(this);
+        travelPackage.getItinerary().forEach(destination -> destination.removeListener(this));
+    }
+
+    @Override
+    public void destinationAdded(TravelPackage travelPackage, Destination destination) {
+        track(destination);
+    }
+
+    @Override
+    public void activityAdded(Destination destination, Activity activity) {
+        destinations.put(activity.getId(), destination);
+    }
+
+    private void track(Destination destination) {
+        destination.addListener(this);
+        destination.getActivities().forEach(activity -> destinations.put(activity.getId(), destination));
+    }
+
+    private boolean isMember(Passenger passenger) {
+        return travelPackage.findPassenger(passenger.getPassengerNumber()).orElse(null) == passenger;
+    }
+
+    /**
+     * Takes a seat on each of the given activities; on the first full one, releases the seats
+     * taken and records the failure. The activities of other destinations are left to their tasks.
+     */
+    private static void reserve(Activity[] activities, List<Integer> indexes, SignUpStatus[] statuses) {
+        for (int taken = 0; taken < indexes.size(); taken++) {
+            int index = indexes.get(taken);
+            if (!activities[index].tryReserveSeats(1)) {
+                for (int i = 0; i < taken; i++) {
+                    int release = indexes.get(i);
+                    activities[release].releaseSeats(1);
+                    statuses[release] = SignUpStatus.ABORTED;
+                }
+                statuses[index] = SignUpStatus.NO_CAPACITY;
+                for (int i = taken + 1; i < indexes.size(); i++) {
+                    statuses[indexes.get(i)] = SignUpStatus.ABORTED;
+                }
+                return;
+            }
+        }
+    }
+
+    private Hold rejected(Passenger passenger, Activity[] activities, long[] prices, SignUpStatus[] statuses) {
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == null) {
+                statuses[i] = SignUpStatus.ABORTED;
+            }
+        }
+        return new Hold(passenger, activities, prices, Arrays.stream(prices).sum(), List.of(statuses));
+    }
+
+    /**
+     * Seats held on several activities for one passenger, confirmed or released together.
+     */
+    public final class Hold {
+        private final Passenger passenger;
+        private final Activity[] activities;
+        private final long[] prices; // Price quoted per activity, in cents
+        private final long totalCents; // Sum of the prices
+        private final List<SignUpStatus> rejections; // Outcome per activity of a rejected hold, null otherwise
+        private State state; // Guarded by this
+        private volatile TimerWheel.Timeout expiry; // Expires the hold, null until scheduled
+
+        private Hold(Passenger passenger, Activity[] activities, long[] prices, long totalCents, List<SignUpStatus> rejections) {
+            this.passenger = passenger;
+            this.activities = activities;
+            this.prices = prices;
+            this.totalCents = totalCents;
+            this.rejections = rejections;
+            this.state = rejections == null ? State.HELD : State.REJECTED;
+        }
+
+        /**
+         * Enrolls the passenger in every held activity and charges the total, or does neither.
+         *
+         * @return {@link SignUpStatus#BOOKED} if the passenger has been enrolled and charged;
+         * {@link SignUpStatus#ABORTED} if the hold is no longer held because it was confirmed,
+         * released, rejected or expired; otherwise the reason the seats were released.
+         */
+        public synchronized SignUpStatus confirm() {
+            if (state != State.HELD) {
+                return SignUpStatus.ABORTED;
+            }
+            finish(State.CONFIRMED);
+            for (int i = 0; i < activities.length; i++) {
+                if (!activities[i].assignReservedSeat(passenger)) {
+                    return releaseAfterFailure(SignUpStatus.ALREADY_ENROLLED, i); // Enrolled through another booking
+                }
+            }
+            if (!passenger.getWallet().tryDebit(totalCents)) {
+                return releaseAfterFailure(SignUpStatus.INSUFFICIENT_BALANCE, activities.length);
+            }
+            for (int i = 0; i < activities.length; i++) {
+                passenger.recordCharge(activities[i], prices[i]); // Refunded on cancellation at the held price
+            }
+            return SignUpStatus.BOOKED;
+        }
+
+        /**
+         * Gives the held seats back.
+         *
+         * @return true if the hold was held and has been released, false otherwise.
+         */
+        public synchronized boolean release() {
+            if (state != State.HELD) {
+                return false;
+            }
+            finish(State.RELEASED);
+            releaseSeats();
+            return true;
+        }
+
+        /**
+         * Returns the state of the hold.
+         *
+         * @return the state.
+         */
+        public synchronized State getState() {
+            return state;
+        }
+
+        /**
+         * Returns the outcome per activity of a rejected hold: the reason for each activity that
+         * could not be held and {@link SignUpStatus#ABORTED} for the others.
+         *
+         * @return the outcomes in the order of the activities, empty unless the hold was rejected.
+         */
+        public List<SignUpStatus> getRejections() {
+            return rejections != null ? rejections : List.of();
+        }
+
+        /**
+         * Returns the activities of the hold, in the order they were requested.
+         *
+         * @return the activities.
+         */
+        public List<Activity> getActivities() {
+            return Collections.unmodifiableList(Arrays.asList(activities));
+        }
+
+        /**
+         * Returns the price quoted for the activity at the given position.
+         *
+         * @param index The position of the activity.
+         * @return the price in cents.
+         */
+        public long getPriceCents(int index) {
+            return prices[index];
+        }
+
+        /**
+         * Returns the amount charged when the hold is confirmed.
+         *
+         * @return the total price in cents.
+         */
+        public long getTotalCents() {
+            return totalCents;
+        }
+
+        private synchronized void expire() {
+            if (state == State.HELD) {
+                finish(State.EXPIRED);
+                releaseSeats();
+            }
+        }
+
+        private void finish(State finished) {
+            state = finished;
+            pending.remove(this);
+            TimerWheel.Timeout timeout = expiry;
+            if (timeout != null && finished != State.EXPIRED) {
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * Unassigns the first {@code assigned} activities and gives back every seat still held.
+         * A seat the passenger no longer occupies was already released by a cancellation that
+         * raced the confirmation, so releasing it again would free a seat twice.
+         */
+        private SignUpStatus releaseAfterFailure(SignUpStatus reason, int assigned) {
+            state = State.RELEASED;
+            for (int i = 0; i < activities.length; i++) {
+                if (i >= assigned || activities[i].unassignSeat(passenger)) {
+                    activities[i].releaseSeats(1);
+                }
+            }
+            return reason;
+        }
+
+        private void releaseSeats() {
+            for (Activity activity : activities) {
+                activity.releaseSeats(1);
+            }
+        }
+
+        /**
+         * The life cycle of a hold.
+         */
+        public enum State {
+            HELD, // Seats are taken and wait to be confirmed
+            CONFIRMED, // The passenger is enrolled and charged
+            RELEASED, // The seats were given back on request or because confirming failed
+            EXPIRED, // The seats were given back because the hold time passed
+            REJECTED // Some activity could not be held, so no seat was taken
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An all-or-nothing reservation of seats across one or more activities. Seats are
+ * taken with the lock-free {@link Activity#tryReserveSeats(int)} so reservations on
+ * different activities never block each other. If any activity cannot supply its seats,
+ * every seat already taken by this reservation is released again before returning.
+ * A reservation is either committed, making the seats permanent, or rolled back.
+ */
+public final class SeatReservation {
+    private final Activity[] activities; // Activities holding seats for this reservation
+    private final int[] seats; // Seats held per activity, parallel to activities
+    private boolean completed; // Set once the reservation has been committed or rolled back
+
+    private SeatReservation(Activity[] activities, int[] seats) {
+        this.activities = activities;
+        this.seats = seats;
+    }
+
+    /**
+     * Reserves the same number of seats on every given activity, or none at all.
+     *
+     * @param activities The activities to reserve seats on.
+     * @param seatsPerActivity The number of seats to reserve on each activity.
+     * @return the reservation if every activity had enough free seats, empty otherwise.
+     */
+    public static Optional<SeatReservation> tryReserve(List<Activity> activities, int seatsPerActivity) {
+        int[] seats = new int[activities.size()];
+        Arrays.fill(seats, seatsPerActivity);
+        return tryReserve(activities, seats);
+    }
+
+    /**
+     * Reserves {@code seats[i]} seats on {@code activities.get(i)} for every i, or none at all.
+     * Entries with zero seats are skipped.
+     *
+     * @param activities The activities to reserve seats on.
+     * @param seats The number of seats to reserve on each activity.
+     * @return the reservation if every activity had enough free seats, empty otherwise.
+     */
+    public static Optional<SeatReservation> tryReserve(List<Activity> activities, int[] seats) {
+        if (activities.size() != seats.length) {
+            throw new IllegalArgumentException("Expected " + activities.size() + " seat counts but got " + seats.length);
+        }
+        Activity[] reserved = activities.toArray(new Activity[0]);
+        int[] held = seats.clone();
+        for (int i = 0; i < reserved.length; i++) {
+            if (held[i] < 0) {
+                throw new IllegalArgumentException("Seat count must not be negative: " + held[i]);
+            }
+            if (held[i] > 0 && !reserved[i].tryReserveSeats(held[i])) {
+                release(reserved, held, i); // Compensate the seats taken so far
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new SeatReservation(reserved, held));
+    }
+
+    /**
+     * Makes the reserved seats permanent. After committing, the reservation can no longer be rolled back.
+     */
+    public synchronized void commit() {
+        checkNotCompleted();
+        completed = true;
+    }
+
+    /**
+     * Releases every seat held by this reservation back to its activity.
+     */
+    public synchronized void rollback() {
+        checkNotCompleted();
+        completed = true;
+        release(activities, seats, activities.length);
+    }
+
+    /**
+     * Releases the seats held by this reservation except those already given back to their
+     * activity, such as the seat of an assigned passenger who cancelled before the rollback.
+     *
+     * @param alreadyReleased The number of seats already released per activity, parallel to the reserved activities.
+     */
+    public synchronized void rollback(int[] alreadyReleased) {
+        checkNotCompleted();
+        completed = true;
+        int[] remaining = seats.clone();
+        for (int i = 0; i < remaining.length; i++) {
+            remaining[i] -= alreadyReleased[i];
+        }
+        release(activities, remaining, activities.length);
+    }
+
+    /**
+     * Returns the number of seats this reservation holds on the activity at the given position.
+     *
+     * @param index The position of the activity in the list the reservation was created from.
+     * @return the number of seats held on that activity.
+     */
+    public int getSeats(int index) {
+        return seats[index];
+    }
+
+    private void checkNotCompleted() {
+        if (completed) {
+            throw new IllegalStateException("Reservation has already been completed");
+        }
+    }
+
+    private static void release(Activity[] activities, int[] seats, int upTo) {
+        for (int i = 0; i < upTo; i++) {
+            if (seats[i] > 0) {
+                activities[i].releaseSeats(seats[i]);
+            }
+        }
+    }
+}
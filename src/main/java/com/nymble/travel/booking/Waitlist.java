@@ -0,0 +1,164 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.PassengerTier;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A queue of attempts waiting for room in a full activity or package. Attempts are served by tier,
+ * from {@link PassengerTier#PREMIUM} to {@link PassengerTier#STANDARD}, and first come, first
+ * served within a tier.
+ * <p>
+ * Instead of retrying, a caller joins the waitlist once and receives a future completed when its
+ * attempt succeeds. Whenever room may have freed up, {@link #promote()} schedules a promotion pass
+ * on the executor, which retries the attempts in order until one finds no room. An attempt returns
+ * empty to keep waiting, or a result to leave the waitlist with it. Closing the waitlist fails
+ * every waiting attempt.
+ *
+ * @param <T> The result of a successful attempt.
+ */
+public final class Waitlist<T> {
+    private static final Comparator<Entry<?>> ORDER = Comparator.<Entry<?>>comparingInt(entry -> entry.tier.ordinal())
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final PriorityBlockingQueue<Entry<T>> queue = new PriorityBlockingQueue<>(11, ORDER);
+    private final AtomicLong sequence = new AtomicLong(); // Arrival order within a tier
+    private final AtomicInteger promotions = new AtomicInteger(); // Promotion requests since the last pass started
+    private final Executor executor; // Runs the promotion passes
+    private volatile boolean closed; // Set once by close, after which nobody waits
+
+    /**
+     * Creates an empty waitlist.
+     *
+     * @param executor The executor running the promotion passes.
+     */
+    public Waitlist(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Makes an attempt, and joins the waitlist if it finds no room. Callers already waiting keep
+     * their place: while the waitlist is not empty, the attempt joins it without being made, and
+     * is promoted in order.
+     *
+     * @param tier The tier of the passenger, which determines the priority.
+     * @param attempt Tries to take a place; returns empty if there is no room.
+     * @return a future completed with the result of the first successful attempt, or exceptionally
+     * if an attempt throws or the waitlist is closed. Cancelling it leaves the waitlist.
+     */
+    public CompletableFuture<T> join(PassengerTier tier, Supplier<Optional<T>> attempt) {
+        if (closed) {
+            return CompletableFuture.failedFuture(closedException());
+        }
+        if (queue.isEmpty()) {
+            Optional<T> result = attempt.get();
+            if (result.isPresent()) {
+                return CompletableFuture.completedFuture(result.get());
+            }
+        }
+        Entry<T> entry = new Entry<>(tier, sequence.getAndIncrement(), attempt);
+        queue.offer(entry);
+        if (closed) {
+            failWaiting(); // Closed while joining, after close drained the queue
+        }
+        promote(); // Room may have freed up since the attempt
+        return entry.future;
+    }
+
+    /**
+     * Schedules a promotion pass, unless one is already pending. Called whenever room may have
+     * freed up; cheap enough to be called from listeners on hot paths, and never throws: if the
+     * executor rejects the pass, the attempts keep waiting for the next call.
+     */
+    public void promote() {
+        if (!closed && !queue.isEmpty() && promotions.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::promoteAll);
+            } catch (RejectedExecutionException e) {
+                promotions.set(0); // No pass is pending, so the next call schedules one
+            }
+        }
+    }
+
+    /**
+     * Closes the waitlist. Waiting attempts are no longer made and their futures complete
+     * exceptionally with an {@link IllegalStateException}, as do later joins.
+     */
+    public void close() {
+        closed = true;
+        failWaiting();
+    }
+
+    /**
+     * Returns the number of waiting attempts, including cancelled ones not yet discarded.
+     *
+     * @return the waitlist length.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    private void promoteAll() {
+        int requests;
+        do {
+            requests = promotions.get();
+            promoteWhileRoom();
+        } while (promotions.addAndGet(-requests) != 0); // Repeat for requests made during the pass
+    }
+
+    private void promoteWhileRoom() {
+        Entry<T> entry;
+        while (!closed && (entry = queue.poll()) != null) {
+            if (entry.future.isDone()) {
+                continue; // Cancelled while waiting
+            }
+            Optional<T> result;
+            try {
+                result = entry.attempt.get();
+            } catch (RuntimeException e) {
+                entry.future.completeExceptionally(e);
+                continue;
+            }
+            if (result.isEmpty()) {
+                queue.offer(entry); // Keeps its place, the sequence is unchanged
+                return;
+            }
+            entry.future.complete(result.get());
+        }
+    }
+
+    private void failWaiting() {
+        Entry<T> entry;
+        while ((entry = queue.poll()) != null) {
+            entry.future.completeExceptionally(closedException());
+        }
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("Waitlist closed");
+    }
+
+    /**
+     * A waiting attempt and the future it completes.
+     */
+    private static final class Entry<T> {
+        private final PassengerTier tier;
+        private final long sequence;
+        private final Supplier<Optional<T>> attempt;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Entry(PassengerTier tier, long sequence, Supplier<Optional<T>> attempt) {
+            this.tier = tier;
+            this.sequence = sequence;
+            this.attempt = attempt;
+        }
+    }
+}
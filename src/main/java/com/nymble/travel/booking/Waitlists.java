@@ -0,0 +1,169 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.CatalogListener;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.Closeable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a {@link Waitlist} per activity and per travel package, created on first use. Each
+ * waitlist listens to its activity or package and is promoted asynchronously as soon as a seat or
+ * a place frees up, so callers wait on a future instead of retrying full activities. Closing
+ * the waitlists removes their listeners and fails every waiting future.
+ */
+public final class Waitlists implements Closeable {
+    private final Executor executor; // Runs the promotion passes of all waitlists
+    private final ExecutorService ownedExecutor; // The executor if created here, shut down on close
+    private final Map<Integer, Waitlist<SignUpStatus>> activityWaitlists = new ConcurrentHashMap<>(); // By activity id
+    private final Map<TravelPackage, Waitlist<Passenger>> packageWaitlists = new IdentityHashMap<>(); // Guarded by itself
+    private final Queue<Runnable> detachers = new ConcurrentLinkedQueue<>(); // Remove the waitlists' listeners
+    private volatile boolean closed; // Set once by close
+
+    /**
+     * Creates the waitlists with a daemon thread running the promotions.
+     */
+    public Waitlists() {
+        this.ownedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-promotion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * Creates the waitlists with the given executor running the promotions.
+     *
+     * @param executor The executor running the promotion passes.
+     */
+    public Waitlists(Executor executor) {
+        this.executor = executor;
+        this.ownedExecutor = null;
+    }
+
+    /**
+     * Returns the waitlist of an activity, promoted whenever one of its seats frees up.
+     *
+     * @param activity The activity.
+     * @return the activity's waitlist.
+     * @throws IllegalStateException if the waitlists are closed.
+     */
+    public Waitlist<SignUpStatus> forActivity(Activity activity) {
+        checkOpen();
+        Waitlist<SignUpStatus> created = activityWaitlists.computeIfAbsent(activity.getId(), id -> {
+            Waitlist<SignUpStatus> waitlist = new Waitlist<>(executor);
+            CatalogListener listener = new CatalogListener() {
+                @Override
+                public void seatsChanged(Activity changed) {
+                    if (changed.getAvailableSeats() > 0) {
+                        waitlist.promote();
+                    }
+                }
+            };
+            activity.addListener(listener);
+            detachers.add(() -> activity.removeListener(listener));
+            return waitlist;
+        });
+        if (closed) {
+            close(); // Closed while the waitlist was created, so detach and close it too
+        }
+        return created;
+    }
+
+    /**
+     * Returns the waitlist of a travel package, promoted whenever a passenger leaves it.
+     *
+     * @param travelPackage The travel package.
+     * @return the package's waitlist.
+     * @throws IllegalStateException if the waitlists are closed.
+     */
+    public Waitlist<Passenger> forPackage(TravelPackage travelPackage) {
+        checkOpen();
+        Waitlist<Passenger> created;
+        synchronized (packageWaitlists) {
+            created = packageWaitlists.computeIfAbsent(travelPackage, key -> {
+                Waitlist<Passenger> waitlist = new Waitlist<>(executor);
+                CatalogListener listener = new CatalogListener() {
+                    @Override
+                    public void passengerRemoved(TravelPackage changed, Passenger passenger) {
+                        waitlist.promote();
+                    }
+                };
+                travelPackage.addListener(listener);
+                detachers.add(() -> travelPackage.removeListener(listener));
+                return waitlist;
+            });
+        }
+        if (closed) {
+            close(); // Closed while the waitlist was created, so detach and close it too
+        }
+        return created;
+    }
+
+    /**
+     * Signs a passenger up for an activity, waiting for a seat if the activity is full.
+     *
+     * @param passenger The passenger to sign up.
+     * @param activity The activity to sign up for.
+     * @return a future completed with the outcome once the passenger got a seat or was rejected
+     * for another reason than capacity.
+     */
+    public CompletableFuture<SignUpStatus> signUp(Passenger passenger, Activity activity) {
+        return forActivity(activity).join(passenger.getTier(), () -> {
+            SignUpStatus status = passenger.enroll(activity);
+            return status == SignUpStatus.NO_CAPACITY ? Optional.empty() : Optional.of(status);
+        });
+    }
+
+    /**
+     * Adds a passenger to a travel package, waiting for a place if the package is full.
+     *
+     * @param travelPackage The travel package.
+     * @param passenger The passenger to add.
+     * @return a future completed with the passenger once added. A passenger whose number is
+     * already taken keeps waiting until that passenger leaves.
+     */
+    public CompletableFuture<Passenger> addPassenger(TravelPackage travelPackage, Passenger passenger) {
+        return forPackage(travelPackage).join(passenger.getTier(),
+                () -> travelPackage.addPassenger(passenger) ? Optional.of(passenger) : Optional.empty());
+    }
+
+    /**
+     * Removes the listeners of every waitlist, so activities and packages no longer promote
+     * them, fails the futures still waiting, and stops the promotion thread if it was created here.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Runnable detacher;
+        while ((detacher = detachers.poll()) != null) {
+            detacher.run();
+        }
+        activityWaitlists.values().forEach(Waitlist::close);
+        synchronized (packageWaitlists) {
+            packageWaitlists.values().forEach(Waitlist::close);
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Waitlists closed");
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.CatalogListener;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.models.Wallet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Answers "which activities at destination Y cost at most X and have at least K free seats"
+ * for a {@link TravelPackage} without scanning the catalog.
+ * <p>
+ * Every destination keeps its activities sorted by cost, with a max segment tree over their free
+ * seat counts. A query binary-searches the cost range and descends only into subtrees that hold an
+ * activity with enough free seats, so it runs in O(log n) plus O(log n) per match. The index listens
+ * to the package, its destinations and their activities: seat changes update one leaf of the tree,
+ * while added activities, added destinations and cost changes rebuild the affected destination.
+ */
+public final class ActivityAvailabilityIndex implements CatalogListener {
+    private static final Comparator<Activity> BY_COST = Comparator.comparingLong(a -> Wallet.toCents(a.getCost()));
+
+    private final TravelPackage travelPackage; // The indexed package
+    private final List<DestinationIndex> destinations = new CopyOnWriteArrayList<>(); // One index per itinerary entry
+    private final Map<String, List<DestinationIndex>> byName = new ConcurrentHashMap<>(); // Destination name lookup
+
+    /**
+     * Builds an index over the current itinerary of the package and keeps it up to date.
+     *
+     * @param travelPackage The package to index.
+     */
+    public ActivityAvailabilityIndex(TravelPackage travelPackage) {
+        this.travelPackage = travelPackage;
+        travelPackage.addListener(this);
+        travelPackage.getItinerary().forEach(this::index);
+    }
+
+    /**
+     * Finds available activities at any destination of the package.
+     *
+     * @param minCost The lowest cost to include.
+     * @param maxCost The highest cost to include.
+     * @param minSeats The minimum number of free seats, at least one.
+     * @return the matching activities, ordered by cost.
+     */
+    public List<Activity> findAvailable(double minCost, double maxCost, int minSeats) {
+        List<Activity> matches = new ArrayList<>();
+        for (DestinationIndex destination : destinations) {
+            destination.collect(Wallet.toCents(minCost), Wallet.toCents(maxCost), Math.max(1, minSeats), matches);
+        }
+        if (destinations.size() > 1) {
+            matches.sort(BY_COST);
+        }
+        return matches;
+    }
+
+    /**
+     * Finds available activities at the destinations with the given name.
+     *
+     * @param destinationName The name of the destination.
+     * @param minCost The lowest cost to include.
+     * @param maxCost The highest cost to include.
+     * @param minSeats The minimum number of free seats, at least one.
+     * @return the matching activities, ordered by cost.
+     */
+    public List<Activity> findAvailable(String destinationName, double minCost, double maxCost, int minSeats) {
+        List<DestinationIndex> named = byName.getOrDefault(destinationName, List.of());
+        List<Activity> matches = new ArrayList<>();
+        for (DestinationIndex destination : named) {
+            destination.collect(Wallet.toCents(minCost), Wallet.toCents(maxCost), Math.max(1, minSeats), matches);
+        }
+        if (named.size() > 1) {
+            matches.sort(BY_COST);
+        }
+        return matches;
+    }
+
+    /**
+     * Stops listening for changes. The index must not be queried afterwards.
+     */
+    public void close() {
+        travelPackage.removeListener(this);
+        destinations.forEach(DestinationIndex::close);
+        destinations.clear();
+        byName.clear();
+    }
+
+    @Override
+    public void destinationAdded(TravelPackage travelPackage, Destination destination) {
+        index(destination);
+    }
+
+    private void index(Destination destination) {
+        DestinationIndex index = new DestinationIndex(destination);
+        destinations.add(index);
+        byName.computeIfAbsent(destination.getName(), name -> new CopyOnWriteArrayList<>()).add(index);
+    }
+
+    /**
+     * The cost-sorted activities of one destination with a max segment tree over free seats.
+     */
+    private static final class DestinationIndex implements CatalogListener {
+        private final Destination destination;
+        private final Map<Activity, Integer> positions = new IdentityHashMap<>(); // Activity to leaf position
+        private Activity[] activities = new Activity[0]; // Activities sorted by cost
+        private long[] costs = new long[0]; // Cost in cents per position
+        private int[] maxFree = new int[0]; // Segment tree, leaf i is at index leaves + i
+        private int leaves; // Number of leaves, a power of two
+
+        DestinationIndex(Destination destination) {
+            this.destination = destination;
+            destination.addListener(this);
+            rebuild();
+        }
+
+        synchronized void collect(long minCost, long maxCost, int minSeats, List<Activity> matches) {
+            int from = lowerBound(minCost);
+            int to = maxCost == Long.MAX_VALUE ? activities.length : lowerBound(maxCost + 1);
+            if (from < to) {
+                collect(1, 0, leaves, from, to, minSeats, matches);
+            }
+        }
+
+        private void collect(int node, int nodeFrom, int nodeTo, int from, int to, int minSeats, List<Activity> matches) {
+            if (maxFree[node] < minSeats || nodeTo <= from || to <= nodeFrom) {
+                return;
+            }
+            if (node >= leaves) {
+                matches.add(activities[node - leaves]);
+                return;
+            }
+            int middle = (nodeFrom + nodeTo) >>> 1;
+            collect(2 * node, nodeFrom, middle, from, to, minSeats, matches);
+            collect(2 * node + 1, middle, nodeTo, from, to, minSeats, matches);
+        }
+
+        private int lowerBound(long cost) {
+            int low = 0;
+            int high = activities.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (costs[middle] < cost) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        public synchronized void seatsChanged(Activity activity) {
+            Integer position = positions.get(activity);
+            if (position != null) {
+                int node = leaves + position;
+                maxFree[node] = activity.getAvailableSeats();
+                for (node >>>= 1; node > 0; node >>>= 1) {
+                    maxFree[node] = Math.max(maxFree[2 * node], maxFree[2 * node + 1]);
+                }
+            }
+        }
+
+        @Override
+        public void costChanged(Activity activity) {
+            rebuild();
+        }
+
+        @Override
+        public void activityAdded(Destination destination, Activity activity) {
+            rebuild();
+        }
+
+        synchronized void close() {
+            destination.removeListener(this);
+            positions.keySet().forEach(activity -> activity.removeListener(this));
+            positions.clear();
+            activities = new Activity[0];
+            costs = new long[0];
+            Arrays.fill(maxFree, 0);
+        }
+
+        private synchronized void rebuild() {
+            positions.keySet().forEach(activity -> activity.removeListener(this));
+            positions.clear();
+            Activity[] sorted = destination.getActivities().toArray(new Activity[0]);
+            Arrays.sort(sorted, BY_COST);
+            leaves = Integer.highestOneBit(Math.max(1, sorted.length - 1)) << 1;
+            costs = new long[sorted.length];
+            maxFree = new int[2 * leaves];
+            for (int i = 0; i < sorted.length; i++) {
+                Activity activity = sorted[i];
+                costs[i] = Wallet.toCents(activity.getCost());
+                maxFree[leaves + i] = activity.getAvailableSeats();
+                if (positions.put(activity, i) == null) {
+                    activity.addListener(this);
+                }
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                maxFree[node] = Math.max(maxFree[2 * node], maxFree[2 * node + 1]);
+            }
+            activities = sorted;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact, column-oriented store for large activity catalogs. Instead of one {@link Activity}
+ * object per activity, with its strings, roster and listener list, the store keeps parallel
+ * primitive columns for cost, capacity and enrolled seats, and encodes names and descriptions as
+ * codes into dictionaries of distinct strings. Activities are addressed by their index in the
+ * store and read through a {@link View}, a flyweight holding nothing but that index.
+ * <p>
+ * Columns are split into fixed-size segments that never move once allocated, so growing the store
+ * copies only the segment directory and never invalidates a concurrent seat reservation. Seats are
+ * reserved with a compare-and-set on the enrolled column, exactly like {@link Activity#tryReserveSeats(int)};
+ * the store counts seats but keeps no passenger rosters. Availability and cost scans run as tight
+ * loops over the contiguous arrays of each segment, which the JIT can unroll and vectorize. Scans
+ * read the seat counts without synchronization and may miss bookings made while they run, so
+ * callers must still reserve through the store.
+ * <p>
+ * Adding activities is serialized; reading, scanning and reserving never lock.
+ */
+public final class ActivityStore {
+    private static final VarHandle SEATS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int SEGMENT_SHIFT = 12; // Activities per segment as a power of two
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final Dictionary names = new Dictionary(); // Distinct activity names
+    private final Dictionary descriptions = new Dictionary(); // Distinct descriptions, code -1 for null
+    private final Object writeLock = new Object(); // Serializes adds
+    private volatile Segment[] segments = new Segment[0]; // Segment directory, replaced when it grows
+    private volatile int size; // Number of activities, written after their columns
+
+    /**
+     * Creates a store holding copies of the given activities, in iteration order.
+     *
+     * @param activities The activities to copy, with their current cost, capacity and enrolled seats.
+     * @return the new store.
+     */
+    public static ActivityStore copyOf(Collection<Activity> activities) {
+        ActivityStore store = new ActivityStore();
+        activities.forEach(store::add);
+        return store;
+    }
+
+    /**
+     * Adds a copy of an activity with its current cost, capacity and enrolled seats.
+     *
+     * @param activity The activity to copy.
+     * @return the index of the stored activity.
+     */
+    public int add(Activity activity) {
+        return add(activity.getName(), activity.getDescription(), activity.getCost(), activity.getCapacity(),
+                activity.getEnrolledPassengers());
+    }
+
+    /**
+     * Adds an activity with no seats taken.
+     *
+     * @param name The name of the activity.
+     * @param description The description, or null.
+     * @param cost The cost to enroll.
+     * @param capacity The maximum number of passengers.
+     * @return the index of the stored activity.
+     */
+    public int add(String name, String description, double cost, int capacity) {
+        return add(name, description, cost, capacity, 0);
+    }
+
+    private int add(String name, String description, double cost, int capacity, int enrolled) {
+        synchronized (writeLock) {
+            int index = size;
+            if ((index & SEGMENT_MASK) == 0) {
+                Segment[] grown = Arrays.copyOf(segments, (index >>> SEGMENT_SHIFT) + 1);
+                grown[grown.length - 1] = new Segment();
+                segments = grown;
+            }
+            Segment segment = segments[index >>> SEGMENT_SHIFT];
+            int slot = index & SEGMENT_MASK;
+            segment.names[slot] = names.encode(name);
+            segment.descriptions[slot] = descriptions.encode(description);
+            segment.costs[slot] = cost;
+            segment.capacities[slot] = capacity;
+            segment.enrolled[slot] = enrolled;
+            size = index + 1; // Publishes the columns written above
+            return index;
+        }
+    }
+
+    /**
+     * Returns the number of activities in the store.
+     *
+     * @return the activity count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct names and descriptions the store encodes.
+     *
+     * @return the dictionary size.
+     */
+    public int getDictionarySize() {
+        return names.size() + descriptions.size();
+    }
+
+    /**
+     * Returns a flyweight view of a stored activity.
+     *
+     * @param index The index of the activity.
+     * @return the view.
+     * @throws IndexOutOfBoundsException if no activity has that index.
+     */
+    public View view(int index) {
+        checkIndex(index);
+        return new View(this, index);
+    }
+
+    public String getName(int index) {
+        return names.decode(segment(index).names[index & SEGMENT_MASK]);
+    }
+
+    public String getDescription(int index) {
+        return descriptions.decode(segment(index).descriptions[index & SEGMENT_MASK]);
+    }
+
+    public double getCost(int index) {
+        return segment(index).costs[index & SEGMENT_MASK];
+    }
+
+    public int getCapacity(int index) {
+        return segment(index).capacities[index & SEGMENT_MASK];
+    }
+
+    public int getEnrolledPassengers(int index) {
+        return (int) SEATS.getVolatile(segment(index).enrolled, index & SEGMENT_MASK);
+    }
+
+    public int getAvailableSeats(int index) {
+        return Math.max(0, getCapacity(index) - getEnrolledPassengers(index));
+    }
+
+    /**
+     * Changes the cost of a stored activity.
+     *
+     * @param index The index of the activity.
+     * @param cost The new cost.
+     */
+    public void setCost(int index, double cost) {
+        segment(index).costs[index & SEGMENT_MASK] = cost;
+    }
+
+    /**
+     * Reserves seats of a stored activity, all or nothing, without ever exceeding its capacity.
+     *
+     * @param index The index of the activity.
+     * @param seats The number of seats to reserve, must be positive.
+     * @return true if the seats were reserved, false if there is not enough free capacity.
+     */
+    public boolean tryReserveSeats(int index, int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Seats to reserve must be positive: " + seats);
+        }
+        Segment segment = segment(index);
+        int slot = index & SEGMENT_MASK;
+        for (;;) {
+            int enrolled = (int) SEATS.getVolatile(segment.enrolled, slot);
+            if (seats > segment.capacities[slot] - enrolled) {
+                return false;
+            }
+            if (SEATS.compareAndSet(segment.enrolled, slot, enrolled, enrolled + seats)) {
+                return true;
+            }
+            BookingMetrics.getDefault().recordSeatRetry(); // Lost to a concurrent update
+        }
+    }
+
+    /**
+     * Releases seats previously reserved with {@link #tryReserveSeats(int, int)}.
+     *
+     * @param index The index of the activity.
+     * @param seats The number of seats to release, must be positive.
+     * @throws IllegalStateException if more seats are released than are currently enrolled.
+     */
+    public void releaseSeats(int index, int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Seats to release must be positive: " + seats);
+        }
+        Segment segment = segment(index);
+        int slot = index & SEGMENT_MASK;
+        for (;;) {
+            int enrolled = (int) SEATS.getVolatile(segment.enrolled, slot);
+            if (seats > enrolled) {
+                throw new IllegalStateException("Cannot release " + seats + " seats, only " + enrolled + " enrolled");
+            }
+            if (SEATS.compareAndSet(segment.enrolled, slot, enrolled, enrolled - seats)) {
+                return;
+            }
+            BookingMetrics.getDefault().recordSeatRetry(); // Lost to a concurrent update
+        }
+    }
+
+    /**
+     * Counts the activities costing at most the given amount with enough free seats.
+     *
+     * @param maxCost The highest cost to include.
+     * @param minSeats The minimum number of free seats.
+     * @return the number of matching activities.
+     */
+    public int countAvailable(double maxCost, int minSeats) {
+        int count = 0;
+        int remaining = size;
+        for (Segment segment : segments) {
+            int length = Math.min(remaining, SEGMENT_SIZE);
+            double[] costs = segment.costs;
+            int[] capacities = segment.capacities;
+            int[] enrolled = segment.enrolled;
+            for (int i = 0; i < length; i++) {
+                count += costs[i] <= maxCost && capacities[i] - enrolled[i] >= minSeats ? 1 : 0;
+            }
+            remaining -= length;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the activities costing at most the given amount with enough free seats.
+     *
+     * @param maxCost The highest cost to include.
+     * @param minSeats The minimum number of free seats.
+     * @return the indexes of the matching activities, in store order.
+     */
+    public int[] findAvailable(double maxCost, int minSeats) {
+        int[] matches = new int[16];
+        int count = 0;
+        int remaining = size;
+        Segment[] directory = segments;
+        for (int s = 0; s < directory.length && remaining > 0; s++) {
+            int length = Math.min(remaining, SEGMENT_SIZE);
+            double[] costs = directory[s].costs;
+            int[] capacities = directory[s].capacities;
+            int[] enrolled = directory[s].enrolled;
+            for (int i = 0; i < length; i++) {
+                if (costs[i] <= maxCost && capacities[i] - enrolled[i] >= minSeats) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = (s << SEGMENT_SHIFT) | i;
+                }
+            }
+            remaining -= length;
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Returns the lowest cost of any activity with enough free seats.
+     *
+     * @param minSeats The minimum number of free seats.
+     * @return the lowest cost, or {@link Double#NaN} if no activity has enough free seats.
+     */
+    public double minAvailableCost(int minSeats) {
+        double min = Double.POSITIVE_INFINITY;
+        int remaining = size;
+        for (Segment segment : segments) {
+            int length = Math.min(remaining, SEGMENT_SIZE);
+            double[] costs = segment.costs;
+            int[] capacities = segment.capacities;
+            int[] enrolled = segment.enrolled;
+            for (int i = 0; i < length; i++) {
+                if (capacities[i] - enrolled[i] >= minSeats) {
+                    min = Math.min(min, costs[i]);
+                }
+            }
+            remaining -= length;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return min == Double.POSITIVE_INFINITY ? Double.NaN : min;
+    }
+
+    private Segment segment(int index) {
+        checkIndex(index);
+        return segments[index >>> SEGMENT_SHIFT];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No activity " + index + " in a store of " + size);
+        }
+    }
+
+    /**
+     * A flyweight over one stored activity. Views hold only the store and the index, so they are
+     * cheap to create and always reflect the current state of the store.
+     */
+    public static final class View {
+        private final ActivityStore store;
+        private final int index;
+
+        private View(ActivityStore store, int index) {
+            this.store = store;
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return store.getName(index);
+        }
+
+        public String getDescription() {
+            return store.getDescription(index);
+        }
+
+        public double getCost() {
+            return store.getCost(index);
+        }
+
+        public int getCapacity() {
+            return store.getCapacity(index);
+        }
+
+        public int getEnrolledPassengers() {
+            return store.getEnrolledPassengers(index);
+        }
+
+        public int getAvailableSeats() {
+            return store.getAvailableSeats(index);
+        }
+
+        public boolean tryReserveSeats(int seats) {
+            return store.tryReserveSeats(index, seats);
+        }
+
+        public void releaseSeats(int seats) {
+            store.releaseSeats(index, seats);
+        }
+
+        /**
+         * Copies the activity into a standalone {@link Activity}, for use with the object model.
+         * The copy has the same enrolled count but does not share seats with the store.
+         *
+         * @return a new activity.
+         */
+        public Activity toActivity() {
+            Activity activity = Activity.builder()
+                    .name(getName())
+                    .description(getDescription())
+                    .cost(getCost())
+                    .capacity(getCapacity())
+                    .build();
+            activity.reserveUpTo(getEnrolledPassengers());
+            return activity;
+        }
+    }
+
+    /**
+     * One fixed-size slice of every column.
+     */
+    private static final class Segment {
+        private final int[] names = new int[SEGMENT_SIZE]; // Name code per activity
+        private final int[] descriptions = new int[SEGMENT_SIZE]; // Description code per activity
+        private final double[] costs = new double[SEGMENT_SIZE];
+        private final int[] capacities = new int[SEGMENT_SIZE];
+        private final int[] enrolled = new int[SEGMENT_SIZE]; // Seats taken, changed through SEATS only
+    }
+
+    /**
+     * Assigns dense codes to distinct strings. Codes are assigned under the store's write lock and
+     * published together with the activity that uses them.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private volatile String[] values = new String[16];
+
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            String[] current = values;
+            if (next == current.length) {
+                current = Arrays.copyOf(current, next * 2);
+            }
+            current[next] = value;
+            values = current;
+            codes.put(value, next);
+            return next;
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : values[code];
+        }
+
+        int size() {
+            return codes.size();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.nymble.travel.catalog;
+
+import java.util.List;
+
+/**
+ * One message of an {@link AvailabilityFeed}: the free seats of the activities that changed since
+ * the previous message to the same subscriber, and the free places of the package. The first
+ * message of a subscription lists every activity.
+ *
+ * @param sequence The number of the message within its subscription, starting at zero.
+ * @param availablePlaces The number of passengers the package can still take.
+ * @param activities The activities whose free seats changed, with their current free seats.
+ */
+public record AvailabilityDelta(long sequence, int availablePlaces, List<SeatUpdate> activities) {
+
+    /**
+     * The free seats of one activity.
+     *
+     * @param destination The name of the activity's destination.
+     * @param activity The name of the activity.
+     * @param availableSeats The number of free seats.
+     */
+    public record SeatUpdate(String destination, String activity, int availableSeats) {
+    }
+}
@@ -0,0 +1,293 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.catalog.AvailabilityDelta.SeatUpdate;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.CatalogListener;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the free seats of a package's activities to subscribers as they change, so clients can
+ * watch availability without polling and rescanning the catalog.
+ * <p>
+ * The feed listens to the package, its destinations and their activities. A seat change only
+ * marks its activity as changed, at most once until the next tick, so the booking path pays a
+ * flag check while anyone is subscribed and a volatile read otherwise. Every tick, changed
+ * activities are collected once into a delta of their current free seats, which is handed to
+ * every subscriber. Rapid changes to one activity thus coalesce into a single update per tick.
+ * <p>
+ * Each subscriber receives its deltas in order on the delivery executor, one at a time. While a
+ * delivery is in progress, further deltas for that subscriber are merged into one pending delta,
+ * keeping the latest free seats per activity. A slow subscriber therefore receives fewer, larger
+ * deltas, holds at most one pending update per activity, and never delays the others. A
+ * subscriber whose delivery fails is unsubscribed.
+ */
+public final class AvailabilityFeed implements CatalogListener {
+    private final TravelPackage travelPackage; // The package whose availability is published
+    private final ScheduledExecutorService ticker; // Runs the ticks collecting changes
+    private final Executor delivery; // Delivers deltas to subscribers
+    private final long intervalNanos; // Time between ticks
+    private final List<Destination> destinations = new CopyOnWriteArrayList<>(); // Destinations listened to
+    private final List<TrackedActivity> activities = new CopyOnWriteArrayList<>(); // Activities in itinerary order
+    private final Queue<TrackedActivity> queued = new ConcurrentLinkedQueue<>(); // Activities changed since the last tick
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean placesChanged; // Whether passengers were added or removed since the last tick
+    private ScheduledFuture<?> ticks; // Scheduled ticks while anyone is subscribed, guarded by this
+
+    /**
+     * Creates a feed for a package and starts listening to it. Ticks run only while the feed
+     * has subscribers.
+     *
+     * @param travelPackage The package whose availability to publish.
+     * @param ticker The executor running the ticks.
+     * @param delivery The executor delivering deltas to subscribers; deliveries may block.
+     * @param interval The time between ticks, bounding how long a change waits before it is sent.
+     */
+    public AvailabilityFeed(TravelPackage travelPackage, ScheduledExecutorService ticker, Executor delivery,
+                            Duration interval) {
+        this.travelPackage = travelPackage;
+        this.ticker = ticker;
+        this.delivery = delivery;
+        this.intervalNanos = interval.toNanos();
+        travelPackage.addListener(this);
+        travelPackage.getItinerary().forEach(this::track);
+    }
+
+    /**
+     * Subscribes to the feed. The first delta lists every activity of the package; later
+     * deltas list the activities that changed since the previous delta.
+     *
+     * @param sink Receives the deltas, one at a time and in order.
+     * @return the subscription, to be closed when the subscriber leaves.
+     */
+    public Subscription subscribe(Sink sink) {
+        Subscriber subscriber = new Subscriber(sink);
+        synchronized (subscriber) { // Ticks offering changes meanwhile wait for the initial delta
+            synchronized (this) {
+                subscribers.add(subscriber);
+                if (ticks == null) {
+                    ticks = ticker.scheduleAtFixedRate(this::tick, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            for (TrackedActivity activity : activities) {
+                subscriber.pending.put(activity, activity.update());
+            }
+            subscriber.availablePlaces = availablePlaces();
+            subscriber.changed = true;
+            subscriber.delivering = true;
+        }
+        delivery.execute(subscriber::deliver);
+        return subscriber;
+    }
+
+    /**
+     * Returns the number of current subscribers.
+     *
+     * @return the subscriber count.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Closes every subscription and stops listening for changes.
+     */
+    public void close() {
+        subscribers.forEach(Subscriber::close);
+        travelPackage.removeListener(this);
+        destinations.forEach(destination -> destination.removeListener(this));
+        activities.forEach(TrackedActivity::close);
+    }
+
+    @Override
+    public void destinationAdded(TravelPackage travelPackage, Destination destination) {
+        track(destination);
+    }
+
+    @Override
+    public void activityAdded(Destination destination, Activity activity) {
+        track(destination, activity);
+    }
+
+    @Override
+    public void passengerAdded(TravelPackage travelPackage, Passenger passenger) {
+        placesChanged = true;
+    }
+
+    @Override
+    public void passengerRemoved(TravelPackage travelPackage, Passenger passenger) {
+        placesChanged = true;
+    }
+
+    private void track(Destination destination) {
+        destinations.add(destination);
+        destination.addListener(this);
+        destination.getActivities().forEach(activity -> track(destination, activity));
+    }
+
+    private void track(Destination destination, Activity activity) {
+        TrackedActivity tracked = new TrackedActivity(destination.getName(), activity);
+        activities.add(tracked);
+        tracked.seatsChanged(activity); // Announces activities added while anyone is subscribed
+    }
+
+    private int availablePlaces() {
+        return Math.max(0, travelPackage.getPassengerCapacity() - travelPackage.getPassengerCount());
+    }
+
+    private void tick() {
+        Map<TrackedActivity, SeatUpdate> updates = new LinkedHashMap<>();
+        for (TrackedActivity activity; (activity = queued.poll()) != null; ) {
+            activity.changed.set(false); // Before reading the seats, so later changes mark it again
+            updates.put(activity, activity.update());
+        }
+        boolean places = placesChanged;
+        placesChanged = false;
+        if (updates.isEmpty() && !places) {
+            return;
+        }
+        int availablePlaces = availablePlaces();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(updates, availablePlaces);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        synchronized (this) {
+            if (subscribers.remove(subscriber) && subscribers.isEmpty() && ticks != null) {
+                ticks.cancel(false);
+                ticks = null;
+            }
+        }
+    }
+
+    /**
+     * Receives the deltas of a subscription.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Delivers a delta. May block; further deltas are coalesced until it returns.
+         *
+         * @param delta The delta.
+         * @throws Exception if the subscriber cannot take the delta; the subscription is then closed.
+         */
+        void send(AvailabilityDelta delta) throws Exception;
+    }
+
+    /**
+     * A subscription to the feed.
+     */
+    public interface Subscription extends AutoCloseable {
+
+        /**
+         * Stops the deltas of this subscription. A delivery in progress completes.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * An activity of the package and whether it changed since the last tick.
+     */
+    private final class TrackedActivity implements CatalogListener {
+        private final String destination; // The name of the activity's destination
+        private final Activity activity;
+        private final AtomicBoolean changed = new AtomicBoolean(); // Whether the activity is queued for the next tick
+
+        TrackedActivity(String destination, Activity activity) {
+            this.destination = destination;
+            this.activity = activity;
+            activity.addListener(this);
+        }
+
+        @Override
+        public void seatsChanged(Activity activity) {
+            if (!subscribers.isEmpty() && !changed.get() && changed.compareAndSet(false, true)) {
+                queued.add(this);
+            }
+        }
+
+        SeatUpdate update() {
+            return new SeatUpdate(destination, activity.getName(), activity.getAvailableSeats());
+        }
+
+        void close() {
+            activity.removeListener(this);
+        }
+    }
+
+    /**
+     * A subscriber and the delta pending for it.
+     */
+    private final class Subscriber implements Subscription {
+        private final Sink sink;
+        private final Map<TrackedActivity, SeatUpdate> pending = new LinkedHashMap<>(); // Latest update per activity, guarded by this
+        private int availablePlaces; // Latest free places of the package, guarded by this
+        private boolean changed; // Whether anything is pending, guarded by this
+        private boolean delivering; // Whether a delivery task is running or queued, guarded by this
+        private boolean closed; // Guarded by this
+        private long sequence; // Number of the next delta, used by the delivery task only
+
+        Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        synchronized void offer(Map<TrackedActivity, SeatUpdate> updates, int places) {
+            if (closed) {
+                return;
+            }
+            pending.putAll(updates);
+            availablePlaces = places;
+            changed = true;
+            if (!delivering) {
+                delivering = true;
+                delivery.execute(this::deliver);
+            }
+        }
+
+        void deliver() {
+            for (;;) {
+                AvailabilityDelta delta;
+                synchronized (this) {
+                    if (closed || !changed) {
+                        delivering = false;
+                        return;
+                    }
+                    delta = new AvailabilityDelta(sequence++, availablePlaces, List.copyOf(pending.values()));
+                    pending.clear();
+                    changed = false;
+                }
+                try {
+                    sink.send(delta);
+                } catch (Exception e) {
+                    close(); // The subscriber went away
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Publishes the catalog structure as a sequence of immutable {@link CatalogSnapshot} versions.
+ * Readers take the current snapshot with a single volatile read and browse it without locking.
+ * Writers batch their edits through an {@link Editor}: each batch is applied to the models with a
+ * single new list per touched package and destination, and becomes visible to readers atomically
+ * as the next version.
+ */
+public final class Catalog {
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    private final Object writeLock = new Object(); // Serializes batches of edits
+
+    /**
+     * Returns the latest published snapshot.
+     *
+     * @return the current snapshot.
+     */
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Applies a batch of edits and publishes them as a new version. Batches run one at a time;
+     * the editor's base snapshot is the latest version when the batch starts. Edits staged
+     * before the batch throws are still applied and published.
+     *
+     * @param edits Stages the edits and computes the result.
+     * @return the result of the edits.
+     */
+    public <T> T edit(Function<Editor, T> edits) {
+        synchronized (writeLock) {
+            Editor editor = new Editor(current.get());
+            try {
+                return edits.apply(editor);
+            } finally {
+                current.set(editor.commit());
+            }
+        }
+    }
+
+    /**
+     * Stages the edits of one batch. Destinations and activities added to the same package or
+     * destination are appended to it together when the batch commits.
+     */
+    public static final class Editor {
+        private final CatalogSnapshot base;
+        private final Map<String, TravelPackage> created = new LinkedHashMap<>(); // New packages by name
+        private final Map<TravelPackage, List<Destination>> destinations = new IdentityHashMap<>(); // Staged per package
+        private final Map<Destination, List<Activity>> activities = new IdentityHashMap<>(); // Staged per destination
+        private final Map<Destination, TravelPackage> owners = new IdentityHashMap<>(); // Package of each touched destination
+
+        private Editor(CatalogSnapshot base) {
+            this.base = base;
+        }
+
+        /**
+         * Returns the snapshot the batch started from.
+         *
+         * @return the base snapshot.
+         */
+        public CatalogSnapshot base() {
+            return base;
+        }
+
+        /**
+         * Adds a package, with whatever itinerary it already has.
+         *
+         * @param travelPackage The package to add.
+         * @return true if the package was staged, false if a package with that name already exists.
+         */
+        public boolean addPackage(TravelPackage travelPackage) {
+            if (base.containsPackage(travelPackage.getName()) || created.containsKey(travelPackage.getName())) {
+                return false;
+            }
+            created.put(travelPackage.getName(), travelPackage);
+            return true;
+        }
+
+        /**
+         * Appends a destination to the itinerary of a package.
+         *
+         * @param travelPackage The package, already in the catalog or added in this batch.
+         * @param destination The destination to append.
+         */
+        public void addDestination(TravelPackage travelPackage, Destination destination) {
+            destinations.computeIfAbsent(travelPackage, key -> new ArrayList<>()).add(destination);
+        }
+
+        /**
+         * Appends an activity to a destination of a package.
+         *
+         * @param travelPackage The package the destination belongs to.
+         * @param destination The destination, already in the itinerary or added in this batch.
+         * @param activity The activity to append.
+         */
+        public void addActivity(TravelPackage travelPackage, Destination destination, Activity activity) {
+            activities.computeIfAbsent(destination, key -> new ArrayList<>()).add(activity);
+            owners.put(destination, travelPackage);
+        }
+
+        /**
+         * Applies the staged edits to the models and builds the next snapshot.
+         */
+        private CatalogSnapshot commit() {
+            if (created.isEmpty() && destinations.isEmpty() && activities.isEmpty()) {
+                return base;
+            }
+            // Activities first, so destinations added in this batch join the itinerary complete
+            activities.forEach(Destination::addActivities);
+            destinations.forEach(TravelPackage::addDestinations);
+            Set<TravelPackage> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+            changed.addAll(destinations.keySet());
+            changed.addAll(owners.values());
+            changed.removeAll(created.values());
+            return base.next(new ArrayList<>(created.values()), new ArrayList<>(changed));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable version of the catalog structure: the packages, their itineraries and the
+ * activities offered at each destination, as published by a {@link Catalog}. The lists held here
+ * never change, so any number of readers can browse a snapshot without locking or copying.
+ * <p>
+ * A new version shares every entry it did not change with the version before it, so publishing
+ * an edit costs time proportional to the edited packages and destinations only. Seat counts and
+ * prices are not part of the structure; they are read live from the {@link Activity} objects.
+ */
+public final class CatalogSnapshot {
+    /** The empty catalog every {@link Catalog} starts from. */
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, Map.of());
+
+    private final long version; // Incremented on every published edit
+    private final Map<String, PackageEntry> packages; // Immutable, in creation order
+
+    CatalogSnapshot(long version, Map<String, PackageEntry> packages) {
+        this.version = version;
+        this.packages = packages;
+    }
+
+    /**
+     * Returns the version of this snapshot, starting at zero for the empty catalog.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns all packages, in creation order.
+     *
+     * @return the packages.
+     */
+    public List<TravelPackage> getPackages() {
+        List<TravelPackage> all = new ArrayList<>(packages.size());
+        packages.values().forEach(entry -> all.add(entry.travelPackage()));
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Returns the entries of all packages, in creation order.
+     *
+     * @return the package entries.
+     */
+    public Iterable<PackageEntry> getEntries() {
+        return packages.values();
+    }
+
+    /**
+     * Looks up a package by name.
+     *
+     * @param name The name of the package.
+     * @return the package's entry, or empty if no package has that name.
+     */
+    public Optional<PackageEntry> findPackage(String name) {
+        return Optional.ofNullable(packages.get(name));
+    }
+
+    /**
+     * Returns whether a package with the given name exists.
+     *
+     * @param name The name of the package.
+     * @return true if the package exists.
+     */
+    public boolean containsPackage(String name) {
+        return packages.containsKey(name);
+    }
+
+    /**
+     * Returns the number of packages.
+     *
+     * @return the package count.
+     */
+    public int size() {
+        return packages.size();
+    }
+
+    /**
+     * A package together with its itinerary as of the snapshot.
+     */
+    public static final class PackageEntry {
+        private final TravelPackage travelPackage;
+        private final List<DestinationEntry> itinerary; // Immutable, in itinerary order
+
+        PackageEntry(TravelPackage travelPackage, List<DestinationEntry> itinerary) {
+            this.travelPackage = travelPackage;
+            this.itinerary = itinerary;
+        }
+
+        public TravelPackage travelPackage() {
+            return travelPackage;
+        }
+
+        public List<DestinationEntry> itinerary() {
+            return itinerary;
+        }
+
+        /**
+         * Finds the position of the first destination with the given name.
+         *
+         * @param name The name of the destination.
+         * @return the index in the itinerary, or -1 if the package has no such destination.
+         */
+        public int indexOfDestination(String name) {
+            for (int i = 0; i < itinerary.size(); i++) {
+                if (itinerary.get(i).destination().getName().equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A destination together with its activities as of the snapshot, indexed by name.
+     */
+    public static final class DestinationEntry {
+        private final Destination destination;
+        private final List<Activity> activities; // Immutable list shared with the destination
+        private final Map<String, Integer> activityIndexes; // First position of each activity name
+
+        DestinationEntry(Destination destination, List<Activity> activities) {
+            this.destination = destination;
+            this.activities = activities;
+            Map<String, Integer> indexes = new HashMap<>(activities.size() * 2);
+            for (int i = 0; i < activities.size(); i++) {
+                indexes.putIfAbsent(activities.get(i).getName(), i);
+            }
+            this.activityIndexes = indexes;
+        }
+
+        public Destination destination() {
+            return destination;
+        }
+
+        public List<Activity> activities() {
+            return activities;
+        }
+
+        /**
+         * Finds the position of the first activity with the given name.
+         *
+         * @param name The name of the activity.
+         * @return the index in the activity list, or -1 if the destination offers no such activity.
+         */
+        public int indexOfActivity(String name) {
+            return activityIndexes.getOrDefault(name, -1);
+        }
+    }
+
+    /**
+     * Builds the next version from this one, reusing the entries of unchanged packages and
+     * destinations.
+     */
+    CatalogSnapshot next(List<TravelPackage> added, List<TravelPackage> changed) {
+        Map<String, PackageEntry> updated = new LinkedHashMap<>(packages);
+        for (TravelPackage travelPackage : added) {
+            updated.put(travelPackage.getName(), entry(travelPackage, null));
+        }
+        for (TravelPackage travelPackage : changed) {
+            updated.put(travelPackage.getName(), entry(travelPackage, packages.get(travelPackage.getName())));
+        }
+        return new CatalogSnapshot(version + 1, Collections.unmodifiableMap(updated));
+    }
+
+    private static PackageEntry entry(TravelPackage travelPackage, PackageEntry previous) {
+        List<Destination> itinerary = travelPackage.getItinerary();
+        if (previous != null && sameDestinations(previous.itinerary(), itinerary)) {
+            return previous; // Nothing in this package changed
+        }
+        List<DestinationEntry> entries = new ArrayList<>(itinerary.size());
+        for (int i = 0; i < itinerary.size(); i++) {
+            Destination destination = itinerary.get(i);
+            DestinationEntry reusable = previous != null && i < previous.itinerary().size()
+                    ? previous.itinerary().get(i) : null;
+            // Activity lists are replaced on every change, so an identical list means an unchanged destination
+            entries.add(reusable != null && reusable.destination() == destination
+                    && reusable.activities() == destination.getActivities()
+                    ? reusable
+                    : new DestinationEntry(destination, destination.getActivities()));
+        }
+        return new PackageEntry(travelPackage, Collections.unmodifiableList(entries));
+    }
+
+    private static boolean sameDestinations(List<DestinationEntry> entries, List<Destination> itinerary) {
+        if (entries.size() != itinerary.size()) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            DestinationEntry entry = entries.get(i);
+            if (entry.destination() != itinerary.get(i) || entry.activities() != itinerary.get(i).getActivities()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
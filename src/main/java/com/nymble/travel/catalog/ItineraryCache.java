@@ -0,0 +1,188 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.CatalogListener;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Caches rendered views of travel packages, such as the itinerary with its availability, so
+ * repeated requests for an unchanged package are served without walking its destinations and
+ * activities again.
+ * <p>
+ * Views are kept until their package changes rather than for a fixed time. The cache listens to
+ * every package it holds views of, its destinations and their activities, and drops all views of
+ * a package as soon as a seat, cost, activity, destination or passenger of it changes. When
+ * nothing is cached for a package, the notification on the booking path costs a single volatile
+ * read. A view rendered while its package changed is returned to its caller but not cached, so
+ * the cache never serves a view older than the last change.
+ * <p>
+ * The number of cached views is bounded; the least recently used view is evicted first. Hits and
+ * misses are recorded in {@link BookingMetrics}.
+ */
+public final class ItineraryCache {
+    private final BookingMetrics metrics; // Records hits and misses
+    private final Map<TravelPackage, Watch> watches = new IdentityHashMap<>(); // Guarded by this
+    private final LinkedHashMap<Key, Object> views; // Cached views in access order, guarded by this
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxViews The maximum number of views to keep, over all packages.
+     * @param metrics The metrics to record hits and misses in.
+     */
+    public ItineraryCache(int maxViews, BookingMetrics metrics) {
+        if (maxViews <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxViews);
+        }
+        this.metrics = metrics;
+        this.views = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() <= maxViews) {
+                    return false;
+                }
+                eldest.getKey().watch().views.remove(eldest.getKey().view());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a view of a package, rendering and caching it if it is not cached.
+     *
+     * @param travelPackage The package.
+     * @param view Identifies the kind of view, for example a render format; compared with equals.
+     * @param render Renders the view from the package; called without holding any lock of the cache.
+     * @param <V> The type of the view.
+     * @return the cached or freshly rendered view.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(TravelPackage travelPackage, Object view, Function<TravelPackage, ? extends V> render) {
+        Watch watch;
+        Key key;
+        long generation;
+        synchronized (this) {
+            watch = watches.computeIfAbsent(travelPackage, Watch::new);
+            key = new Key(watch, view);
+            Object cached = views.get(key);
+            if (cached != null) {
+                metrics.recordViewCacheLookup(true);
+                return (V) cached;
+            }
+            generation = watch.generation;
+            watch.cached = true; // From here on changes invalidate, including changes made while rendering
+        }
+        metrics.recordViewCacheLookup(false);
+        V rendered = render.apply(travelPackage);
+        synchronized (this) {
+            if (watch.generation == generation) {
+                views.put(key, rendered);
+                watch.views.add(view);
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * Drops all cached views of a package.
+     *
+     * @param travelPackage The package.
+     */
+    public synchronized void invalidate(TravelPackage travelPackage) {
+        Watch watch = watches.get(travelPackage);
+        if (watch != null) {
+            invalidate(watch);
+        }
+    }
+
+    /**
+     * Returns the number of cached views.
+     *
+     * @return the number of views.
+     */
+    public synchronized int size() {
+        return views.size();
+    }
+
+    private synchronized void invalidate(Watch watch) {
+        watch.generation++;
+        watch.views.forEach(view -> views.remove(new Key(watch, view)));
+        watch.views.clear();
+        watch.cached = false;
+    }
+
+    /**
+     * Listens to a package, its destinations and their activities, and invalidates the package's
+     * views on every change. Registered on the package before its itinerary is read, so that
+     * destinations and activities added concurrently are either seen or reported.
+     */
+    private final class Watch implements CatalogListener {
+        private final Set<Object> views = new HashSet<>(); // Kinds of views cached for the package, guarded by the cache
+        private long generation; // Number of invalidations, guarded by the cache
+        private volatile boolean cached; // Whether views may be cached or rendering; false skips invalidation
+
+        Watch(TravelPackage travelPackage) {
+            travelPackage.addListener(this);
+            travelPackage.getItinerary().forEach(this::watch);
+        }
+
+        @Override
+        public void seatsChanged(Activity activity) {
+            changed();
+        }
+
+        @Override
+        public void costChanged(Activity activity) {
+            changed();
+        }
+
+        @Override
+        public void activityAdded(Destination destination, Activity activity) {
+            activity.addListener(this);
+            changed();
+        }
+
+        @Override
+        public void destinationAdded(TravelPackage travelPackage, Destination destination) {
+            watch(destination);
+            changed();
+        }
+
+        @Override
+        public void passengerAdded(TravelPackage travelPackage, Passenger passenger) {
+            changed();
+        }
+
+        @Override
+        public void passengerRemoved(TravelPackage travelPackage, Passenger passenger) {
+            changed();
+        }
+
+        private void watch(Destination destination) {
+            destination.addListener(this);
+            destination.getActivities().forEach(activity -> activity.addListener(this));
+        }
+
+        private void changed() {
+            if (cached) {
+                invalidate(this);
+            }
+        }
+    }
+
+    /**
+     * A cached view: the watch of its package and the kind of view.
+     */
+    private record Key(Watch watch, Object view) {
+    }
+}
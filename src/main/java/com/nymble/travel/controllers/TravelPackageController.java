@@ -0,0 +1,290 @@
+package com.nymble.travel.controllers;
+
+import com.nymble.travel.catalog.AvailabilityFeed;
+import com.nymble.travel.importer.ImportFormat;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.render.RenderFormat;
+import com.nymble.travel.render.TravelRenderer;
+import com.nymble.travel.services.TravelService;
+import com.nymble.travel.wire.TravelWireFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * REST endpoints for travel packages, their destinations and activities, enrolled passengers and
+ * activity sign-ups. Requests are served on virtual threads when the application runs on Java 21
+ * or later, see {@code spring.threads.virtual.enabled} in application.properties.
+ */
+@RestController
+@RequestMapping("/packages")
+public class TravelPackageController {
+    private static final String CSV = "text/csv";
+    private static final String JSON_LINES = "application/x-ndjson";
+
+    private final TravelService travelService;
+
+    public TravelPackageController(TravelService travelService) {
+        this.travelService = travelService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public TravelViews.PackageView createPackage(@RequestBody TravelViews.PackageRequest request) {
+        return TravelViews.PackageView.of(travelService.createPackage(request.name(), request.passengerCapacity()));
+    }
+
+    /**
+     * Adds a whole package sent by another service in the compact binary wire format, with its
+     * itinerary, passengers and sign-ups. Responds with the added package.
+     */
+    @PostMapping(consumes = TravelWireFormat.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public TravelViews.PackageView importPackage(@RequestBody TravelPackage travelPackage) {
+        return TravelViews.PackageView.of(travelService.importPackage(travelPackage));
+    }
+
+    @GetMapping
+    public List<TravelViews.PackageView> getPackages() {
+        return travelService.getPackages().stream().map(TravelViews.PackageView::of).collect(Collectors.toList());
+    }
+
+    /**
+     * Imports packages with their itineraries and passengers from a CSV or JSON Lines body. The
+     * body is spooled to a temporary file, which the importer maps and parses in parallel.
+     * Responds with the imported packages and the rows that were skipped.
+     */
+    @PostMapping(value = "/import", consumes = {CSV, JSON_LINES})
+    @ResponseStatus(HttpStatus.CREATED)
+    public TravelViews.ImportView importCatalog(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) throws IOException {
+        ImportFormat format = MediaType.parseMediaType(CSV).isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? ImportFormat.CSV : ImportFormat.JSON;
+        Path file = Files.createTempFile("catalog-import", null);
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            return TravelViews.ImportView.of(travelService.importCatalog(file, format));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Responds with a package, its itinerary and the free seats of every activity. The view is
+     * cached until the package changes; it reads each itinerary and activity list once, so it
+     * needs no lock to be consistent with concurrent edits.
+     */
+    @GetMapping("/{packageName}")
+    public TravelViews.PackageView getPackage(@PathVariable String packageName) {
+        return travelService.getView(packageName, TravelViews.PackageView.class, TravelViews.PackageView::of);
+    }
+
+    /**
+     * Responds with a whole package, passengers and sign-ups included, in the compact binary wire
+     * format, for clients that accept {@value TravelWireFormat#MEDIA_TYPE}.
+     */
+    @GetMapping(value = "/{packageName}", produces = TravelWireFormat.MEDIA_TYPE)
+    public TravelPackage exportPackage(@PathVariable String packageName) {
+        return travelService.getPackage(packageName);
+    }
+
+    /**
+     * Responds with the itinerary of a package rendered as text, JSON or CSV. The rendered bytes
+     * are cached until the package changes.
+     */
+    @GetMapping("/{packageName}/itinerary")
+    public ResponseEntity<byte[]> getItinerary(@PathVariable String packageName,
+                                               @RequestParam(defaultValue = "TEXT") RenderFormat format) {
+        byte[] body = travelService.getView(packageName, format, travelPackage -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                new TravelRenderer(format).renderItinerary(travelPackage, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Not thrown by in-memory streams
+            }
+            return out.toByteArray();
+        });
+        MediaType contentType = switch (format) {
+            case TEXT -> new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+            case JSON -> MediaType.APPLICATION_JSON;
+            case CSV -> new MediaType(MediaType.parseMediaType(CSV), StandardCharsets.UTF_8);
+        };
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    @PostMapping("/{packageName}/destinations")
+    @ResponseStatus(HttpStatus.CREATED)
+    public TravelViews.DestinationView addDestination(@PathVariable String packageName,
+                                                      @RequestBody TravelViews.DestinationRequest request) {
+        return TravelViews.DestinationView.of(travelService.addDestination(packageName, request.name()));
+    }
+
+    @PostMapping("/{packageName}/destinations/{destinationName}/activities")
+    @ResponseStatus(HttpStatus.CREATED)
+    public TravelViews.ActivityView addActivity(@PathVariable String packageName, @PathVariable String destinationName,
+                                                @RequestBody TravelViews.ActivityRequest request) {
+        Activity activity = Activity.builder()
+                .name(request.name())
+                .description(request.description())
+                .cost(request.cost())
+                .capacity(request.capacity())
+                .build();
+        return TravelViews.ActivityView.of(travelService.addActivity(packageName, destinationName, activity));
+    }
+
+    @GetMapping("/{packageName}/activities/available")
+    public List<TravelViews.ActivityView> getAvailableActivities(@PathVariable String packageName,
+                                                                 @RequestParam(required = false) String destination,
+                                                                 @RequestParam(defaultValue = "" + Double.MAX_VALUE) double maxCost,
+                                                                 @RequestParam(defaultValue = "1") int minSeats) {
+        return travelService.findAvailableActivities(packageName, destination, maxCost, minSeats).stream()
+                .map(TravelViews.ActivityView::of)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the free seats of the package's activities as server-sent events. The first event
+     * lists every activity; later events carry the activities that changed, coalesced over a few
+     * milliseconds. The stream stays open until the client disconnects.
+     */
+    @GetMapping(value = "/{packageName}/activities/available/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(@PathVariable String packageName) {
+        SseEmitter emitter = new SseEmitter(0L); // No timeout
+        AvailabilityFeed.Subscription subscription = travelService.subscribeAvailability(packageName,
+                delta -> emitter.send(SseEmitter.event().name("availability").id(Long.toString(delta.sequence())).data(delta)));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    @PostMapping("/{packageName}/passengers")
+    @ResponseStatus(HttpStatus.CREATED)
+    public TravelViews.PassengerView addPassenger(@PathVariable String packageName,
+                                                  @RequestBody TravelViews.PassengerRequest request) {
+        return TravelViews.PassengerView.of(travelService.addPassenger(packageName, request.tier(), request.name(),
+                request.passengerNumber(), request.balance()));
+    }
+
+    @GetMapping("/{packageName}/passengers")
+    public List<TravelViews.PassengerView> getPassengers(@PathVariable String packageName) {
+        return travelService.getPackage(packageName).getPassengers().stream()
+                .map(TravelViews.PassengerView::of)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/{packageName}/passengers/{passengerNumber}")
+    public TravelViews.PassengerView getPassenger(@PathVariable String packageName, @PathVariable int passengerNumber) {
+        return TravelViews.PassengerView.of(travelService.getPassenger(packageName, passengerNumber));
+    }
+
+    /**
+     * Plans the most valuable activities the passenger can afford, optionally with at most
+     * {@code maxPerDestination} activities per destination. Nothing is booked.
+     */
+    @GetMapping("/{packageName}/passengers/{passengerNumber}/plan")
+    public TravelViews.PlanView planItinerary(@PathVariable String packageName, @PathVariable int passengerNumber,
+                                              @RequestParam(required = false) Integer maxPerDestination) {
+        return TravelViews.PlanView.of(travelService.planItinerary(packageName, passengerNumber, maxPerDestination));
+    }
+
+    /**
+     * Signs a passenger up for an activity. Responds with 200 when the passenger was booked and
+     * with 409 and the rejection reason otherwise.
+     */
+    @PostMapping("/{packageName}/passengers/{passengerNumber}/sign-ups")
+    public ResponseEntity<TravelViews.SignUpView> signUp(@PathVariable String packageName, @PathVariable int passengerNumber,
+                                                         @RequestBody TravelViews.SignUpRequest request) {
+        SignUpStatus status = travelService.signUp(packageName, passengerNumber, request.destination(), request.activity());
+        TravelViews.SignUpView view = new TravelViews.SignUpView(status,
+                travelService.getPassenger(packageName, passengerNumber).getBalance());
+        return ResponseEntity.status(status == SignUpStatus.BOOKED ? HttpStatus.OK : HttpStatus.CONFLICT).body(view);
+    }
+
+    /**
+     * Signs a passenger up for several activities, all or nothing. Responds with 200 when the
+     * passenger was booked on every activity and with 409 and the outcome per activity otherwise.
+     */
+    @PostMapping("/{packageName}/passengers/{passengerNumber}/checkout")
+    public ResponseEntity<TravelViews.CheckoutView> checkout(@PathVariable String packageName, @PathVariable int passengerNumber,
+                                                             @RequestBody List<TravelViews.SignUpRequest> request) {
+        List<SignUpStatus> statuses = travelService.checkout(packageName, passengerNumber, request.stream()
+                .map(signUp -> new TravelService.ActivityName(signUp.destination(), signUp.activity()))
+                .toList());
+        TravelViews.CheckoutView view = new TravelViews.CheckoutView(statuses,
+                travelService.getPassenger(packageName, passengerNumber).getBalance());
+        boolean booked = statuses.stream().allMatch(status -> status == SignUpStatus.BOOKED);
+        return ResponseEntity.status(booked ? HttpStatus.OK : HttpStatus.CONFLICT).body(view);
+    }
+
+    /**
+     * Cancels a passenger's sign-up for an activity and responds with the refunded passenger.
+     */
+    @DeleteMapping("/{packageName}/passengers/{passengerNumber}/sign-ups")
+    public TravelViews.PassengerView cancelSignUp(@PathVariable String packageName, @PathVariable int passengerNumber,
+                                                  @RequestParam String destination, @RequestParam String activity) {
+        return TravelViews.PassengerView.of(travelService.cancelSignUp(packageName, passengerNumber, destination, activity));
+    }
+
+    /**
+     * Removes a passenger from a package, cancelling all of the passenger's sign-ups.
+     */
+    @DeleteMapping("/{packageName}/passengers/{passengerNumber}")
+    public TravelViews.PassengerView cancelPassenger(@PathVariable String packageName, @PathVariable int passengerNumber) {
+        return TravelViews.PassengerView.of(travelService.cancelPassenger(packageName, passengerNumber));
+    }
+
+    /**
+     * Signs a passenger up for an activity, waiting for a seat if the activity is full. The
+     * response is sent once the passenger was booked or rejected for another reason, so clients
+     * make one request instead of retrying.
+     */
+    @PostMapping("/{packageName}/passengers/{passengerNumber}/waitlist")
+    public CompletableFuture<ResponseEntity<TravelViews.SignUpView>> waitlistSignUp(@PathVariable String packageName,
+                                                                                   @PathVariable int passengerNumber,
+                                                                                   @RequestBody TravelViews.SignUpRequest request) {
+        return travelService.waitlistSignUp(packageName, passengerNumber, request.destination(), request.activity())
+                .thenApply(status -> {
+                    TravelViews.SignUpView view = new TravelViews.SignUpView(status,
+                            travelService.getPassenger(packageName, passengerNumber).getBalance());
+                    return ResponseEntity.status(status == SignUpStatus.BOOKED ? HttpStatus.OK : HttpStatus.CONFLICT).body(view);
+                });
+    }
+
+    /**
+     * Adds a passenger to a package, waiting for a place if the package is full.
+     */
+    @PostMapping("/{packageName}/waitlist")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<TravelViews.PassengerView> waitlistPassenger(@PathVariable String packageName,
+                                                                          @RequestBody TravelViews.PassengerRequest request) {
+        return travelService.waitlistPassenger(packageName, request.tier(), request.name(), request.passengerNumber(),
+                request.balance()).thenApply(TravelViews.PassengerView::of);
+    }
+}
@@ -0,0 +1,94 @@
+package com.nymble.travel.controllers;
+
+import com.nymble.travel.importer.ImportProblem;
+import com.nymble.travel.importer.ImportResult;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.planning.ItineraryPlan;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Request and response bodies of the REST API. Responses are flat copies of the models, so the
+ * JSON shape does not depend on the models' internals such as wallets and listeners.
+ */
+final class TravelViews {
+
+    private TravelViews() {
+    }
+
+    record PackageRequest(String name, int passengerCapacity) {
+    }
+
+    record DestinationRequest(String name) {
+    }
+
+    record ActivityRequest(String name, String description, double cost, int capacity) {
+    }
+
+    record PassengerRequest(PassengerTier tier, String name, int passengerNumber, double balance) {
+    }
+
+    record SignUpRequest(String destination, String activity) {
+    }
+
+    record SignUpView(SignUpStatus status, double balance) {
+    }
+
+    record CheckoutView(List<SignUpStatus> statuses, double balance) {
+    }
+
+    record PackageView(String name, int passengerCapacity, int enrolledPassengers, List<DestinationView> itinerary) {
+        static PackageView of(TravelPackage travelPackage) {
+            return new PackageView(travelPackage.getName(), travelPackage.getPassengerCapacity(),
+                    travelPackage.getPassengers().size(),
+                    travelPackage.getItinerary().stream().map(DestinationView::of).collect(Collectors.toList()));
+        }
+    }
+
+    record DestinationView(String name, List<ActivityView> activities) {
+        static DestinationView of(Destination destination) {
+            return new DestinationView(destination.getName(),
+                    destination.getActivities().stream().map(ActivityView::of).collect(Collectors.toList()));
+        }
+    }
+
+    record ActivityView(String name, String description, double cost, int capacity, int availableSeats) {
+        static ActivityView of(Activity activity) {
+            return new ActivityView(activity.getName(), activity.getDescription(), activity.getCost(),
+                    activity.getCapacity(), activity.getAvailableSeats());
+        }
+    }
+
+    record PassengerView(PassengerTier tier, String name, int passengerNumber, double balance) {
+        static PassengerView of(Passenger passenger) {
+            return new PassengerView(passenger.getTier(), passenger.getName(), passenger.getPassengerNumber(),
+                    passenger.getBalance());
+        }
+    }
+
+    record PlanView(int passengerNumber, double budget, double total, boolean optimal, List<PlannedActivityView> activities) {
+        static PlanView of(ItineraryPlan plan) {
+            return new PlanView(plan.passengerNumber(), plan.budgetCents() / 100.0, plan.totalCents() / 100.0, plan.optimal(), plan.activities().stream().map(PlannedActivityView::of).collect(Collectors.toList()));
+        }
+    }
+
+    record PlannedActivityView(String destination, String activity, double price) {
+        static PlannedActivityView of(ItineraryPlan.PlannedActivity planned) {
+            return new PlannedActivityView(planned.destination().getName(), planned.activity().getName(),
+                    planned.priceCents() / 100.0);
+        }
+    }
+
+    record ImportView(List<String> packages, long rows, List<ImportProblem> problems) {
+        static ImportView of(ImportResult result) {
+            return new ImportView(result.packages().stream().map(TravelPackage::getName).collect(Collectors.toList()),
+                    result.rowCount(), result.problems());
+        }
+    }
+}
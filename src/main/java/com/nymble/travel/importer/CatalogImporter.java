@@ -0,0 +1,682 @@
+package com.nymble.travel.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+
+/**
+ * Bulk-loads packages with their destinations, activities and passengers from a CSV or JSON Lines
+ * file, see {@link ImportFormat}.
+ * <p>
+ * The file is cut at line boundaries into chunks of a few megabytes, which are memory-mapped and
+ * parsed in parallel on a {@link ForkJoinPool}. Rows are copied out of the mapping one line at a
+ * time into a reused buffer and parsed straight into the models; numbers are parsed from the bytes
+ * without an intermediate String. Linking the parsed rows into packages is cheap and runs
+ * afterwards in file order, so the outcome does not depend on how the file was chunked. Malformed
+ * rows, and rows referring to a package or destination not defined earlier in the file, are
+ * skipped and reported with their line number while the rest of the file is imported.
+ * <p>
+ * Every row starts with its type, followed by its fields in this order:
+ * <pre>
+ * package,name,capacity
+ * destination,package,name
+ * activity,package,destination,name,description,cost,capacity
+ * passenger,package,tier,name,number,balance
+ * </pre>
+ * CSV fields may be enclosed in double quotes, with embedded quotes doubled, but cannot span
+ * lines; blank lines and lines starting with {@code #} are ignored. JSON Lines rows carry the
+ * same fields as keys next to {@code "type"}, for example
+ * {@code {"type":"destination","package":"Island Hopping","name":"Bali"}}.
+ */
+public final class CatalogImporter {
+    private static final int CHUNK_BYTES = 4 << 20; // Bytes parsed per fork-join task
+    private static final int PROBE_BYTES = 4096; // Bytes read at a time while looking for a line boundary
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final ForkJoinPool pool; // Runs the chunk parsers
+    private final int chunkBytes; // Target size of a chunk, extended to the next line boundary
+
+    /**
+     * Creates an importer parsing on the common fork-join pool.
+     */
+    public CatalogImporter() {
+        this(ForkJoinPool.commonPool(), CHUNK_BYTES);
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param pool The pool to parse chunks on.
+     * @param chunkBytes The target size of the chunks parsed in parallel.
+     */
+    public CatalogImporter(ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+        }
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Parses a file and links its rows into new packages.
+     *
+     * @param file The file to import.
+     * @param format The format of the file.
+     * @return the imported packages and the skipped rows.
+     * @throws IOException if the file cannot be read.
+     */
+    public ImportResult importFile(Path file, ImportFormat format) throws IOException {
+        return parse(file, format).link(name -> false);
+    }
+
+    /**
+     * Parses the rows of a file in parallel, without linking them into packages yet.
+     *
+     * @param file The file to parse.
+     * @param format The format of the file.
+     * @return the parsed rows, to link with {@link Parsed#link(Predicate)}.
+     * @throws IOException if the file cannot be read.
+     */
+    public Parsed parse(Path file, ImportFormat format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            try {
+                pool.invoke(new ParseTask(channel, format, bounds, chunks, 0, chunks.length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return new Parsed(chunks);
+        }
+    }
+
+    /**
+     * Returns the start offsets of the chunks followed by the file size. Every chunk but the first
+     * starts right after a line break.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        LongStream.Builder bounds = LongStream.builder().add(0);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_BYTES);
+        long start = 0;
+        while (size - start > chunkBytes) {
+            start = nextLine(channel, start + chunkBytes, size, probe);
+            if (start >= size) {
+                break;
+            }
+            bounds.add(start);
+        }
+        return bounds.add(size).build().toArray();
+    }
+
+    private static long nextLine(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses a range of chunks, splitting it in halves until a single chunk is left.
+     */
+    private static final class ParseTask extends RecursiveAction {
+        private final FileChannel channel;
+        private final ImportFormat format;
+        private final long[] bounds; // Chunk start offsets followed by the file size
+        private final Chunk[] chunks; // Receives the parsed chunks
+        private final int from; // First chunk of the range
+        private final int to; // End of the range, exclusive
+
+        ParseTask(FileChannel channel, ImportFormat format, long[] bounds, Chunk[] chunks, int from, int to) {
+            this.channel = channel;
+            this.format = format;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(channel, format, bounds, chunks, from, middle),
+                        new ParseTask(channel, format, bounds, chunks, middle, to));
+                return;
+            }
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[from], bounds[to] - bounds[from]);
+                chunks[from] = (format == ImportFormat.CSV ? new CsvRowParser() : new JsonRowParser()).parse(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map import chunk at offset " + bounds[from], e);
+            }
+        }
+    }
+
+    /**
+     * The row types, with the fields each row carries after its type.
+     */
+    private enum Kind {
+        PACKAGE("package", "name", "capacity"),
+        DESTINATION("destination", "package", "name"),
+        ACTIVITY("activity", "package", "destination", "name", "description", "cost", "capacity"),
+        PASSENGER("passenger", "package", "tier", "name", "number", "balance"),
+        INVALID(null); // A row that could not be parsed; its model is the problem message
+
+        private static final Kind[] TYPES = {PACKAGE, DESTINATION, ACTIVITY, PASSENGER};
+
+        private final String type; // The type as written in the file
+        private final byte[] typeBytes; // The type in UTF-8, for matching without decoding
+        private final String[] fields; // The names of the fields after the type
+
+        Kind(String type, String... fields) {
+            this.type = type;
+            this.typeBytes = type == null ? null : type.getBytes(StandardCharsets.UTF_8);
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * A parsed row: the model it defines and the names it refers to.
+     *
+     * @param line The line of the row within its chunk, starting at 0.
+     * @param kind The row type.
+     * @param packageName The package the row defines or belongs to.
+     * @param destinationName The destination the row defines or belongs to, if any.
+     * @param model The package, activity or passenger defined by the row, or the problem message.
+     */
+    private record Row(int line, Kind kind, String packageName, String destinationName, Object model) {
+    }
+
+    /**
+     * The rows parsed from one chunk.
+     *
+     * @param rows The rows in file order, blank and comment lines left out.
+     * @param lines The number of lines in the chunk.
+     */
+    private record Chunk(List<Row> rows, int lines) {
+    }
+
+    /**
+     * Turns the lines of a chunk into rows. A parser reuses its line buffer and is used by a
+     * single task only.
+     */
+    private abstract static class RowParser {
+        protected byte[] line = new byte[256]; // The current line, without its line break
+        protected int length; // Length of the current line
+        protected Kind kind; // Type of the current row
+
+        Chunk parse(ByteBuffer buffer) {
+            List<Row> rows = new ArrayList<>(buffer.limit() / 64 + 1);
+            int lines = 0;
+            int position = 0;
+            int limit = buffer.limit();
+            while (position < limit) {
+                int end = position;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                length = end - position;
+                if (length > line.length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.get(position, line, 0, length);
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                if (!isBlank()) {
+                    rows.add(parseRow(lines));
+                }
+                lines++;
+                position = end + 1;
+            }
+            return new Chunk(rows, lines);
+        }
+
+        private Row parseRow(int lineNumber) {
+            try {
+                kind = readRow();
+                return switch (kind) {
+                    case PACKAGE -> {
+                        String name = text(0);
+                        yield new Row(lineNumber, kind, name, null,
+                                TravelPackage.builder().name(name).passengerCapacity(count(1)).build());
+                    }
+                    case DESTINATION -> new Row(lineNumber, kind, text(0), text(1), null);
+                    case ACTIVITY -> new Row(lineNumber, kind, text(0), text(1), Activity.builder()
+                            .name(text(2))
+                            .description(optionalText(3))
+                            .cost(amount(4))
+                            .capacity(count(5))
+                            .build());
+                    case PASSENGER -> new Row(lineNumber, kind, text(0), null, tier(1).newPassenger(text(2), integer(3), amount(4)));
+                    default -> throw new IllegalStateException("Unexpected row type " + kind);
+                };
+            } catch (IllegalArgumentException e) {
+                return new Row(lineNumber, Kind.INVALID, null, null, e.getMessage());
+            }
+        }
+
+        protected boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (line[i] != ' ' && line[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected static Kind kindOf(String type) {
+            for (Kind candidate : Kind.TYPES) {
+                if (candidate.type.equals(type)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unknown row type '" + type + "'");
+        }
+
+        /**
+         * Splits the current line into fields and returns its row type.
+         *
+         * @throws IllegalArgumentException if the line is malformed.
+         */
+        protected abstract Kind readRow();
+
+        /**
+         * Returns a text field of the current row, or null if the field is missing or empty.
+         */
+        protected abstract String optionalText(int field);
+
+        /**
+         * Returns a numeric field of the current row, which must be a whole number if asked for.
+         */
+        protected abstract double number(int field, boolean whole);
+
+        private String text(int field) {
+            String value = optionalText(field);
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("Missing " + kind.fields[field]);
+            }
+            return value;
+        }
+
+        private int integer(int field) {
+            double value = number(field, true);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Out of range " + kind.fields[field] + ": " + (long) value);
+            }
+            return (int) value;
+        }
+
+        private int count(int field) {
+            int value = integer(field);
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative " + kind.fields[field] + ": " + value);
+            }
+            return value;
+        }
+
+        private double amount(int field) {
+            double value = number(field, false);
+            if (!(value >= 0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Invalid " + kind.fields[field] + ": " + value);
+            }
+            return value;
+        }
+
+        private PassengerTier tier(int field) {
+            String name = text(field);
+            try {
+                return PassengerTier.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown " + kind.fields[field] + " '" + name + "'");
+            }
+        }
+    }
+
+    /**
+     * Parses CSV rows by recording the byte range of each field, decoding only the text fields.
+     */
+    private static final class CsvRowParser extends RowParser {
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+        private static final long MAX_EXACT = 1L << 53; // Largest mantissa a double holds exactly
+
+        private int[] starts = new int[8]; // Start of each field, after its opening quote
+        private int[] ends = new int[8]; // End of each field, before its closing quote
+        private boolean[] quoted = new boolean[8]; // Whether each field was quoted
+        private int fields; // Number of fields in the current line
+
+        @Override
+        protected boolean isBlank() {
+            return super.isBlank() || line[0] == '#';
+        }
+
+        @Override
+        protected Kind readRow() {
+            split();
+            Kind rowKind = null;
+            for (Kind candidate : Kind.TYPES) {
+                if (!quoted[0] && Arrays.equals(line, starts[0], ends[0], candidate.typeBytes, 0, candidate.typeBytes.length)) {
+                    rowKind = candidate;
+                }
+            }
+            if (rowKind == null) {
+                rowKind = kindOf(decode(0));
+            }
+            if (fields != rowKind.fields.length + 1) {
+                throw new IllegalArgumentException("Expected " + (rowKind.fields.length + 1) + " fields for "
+                        + rowKind.type + " but found " + fields);
+            }
+            return rowKind;
+        }
+
+        private void split() {
+            fields = 0;
+            int position = 0;
+            while (true) {
+                if (fields == starts.length) {
+                    starts = Arrays.copyOf(starts, fields * 2);
+                    ends = Arrays.copyOf(ends, fields * 2);
+                    quoted = Arrays.copyOf(quoted, fields * 2);
+                }
+                if (position < length && line[position] == '"') {
+                    int end = position + 1;
+                    while (end < length && (line[end] != '"' || (end + 1 < length && line[end + 1] == '"'))) {
+                        end += line[end] == '"' ? 2 : 1;
+                    }
+                    if (end >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field " + (fields + 1));
+                    }
+                    starts[fields] = position + 1;
+                    ends[fields] = end;
+                    quoted[fields++] = true;
+                    position = end + 1;
+                    if (position < length && line[position] != ',') {
+                        throw new IllegalArgumentException("Unexpected character after quoted field " + fields);
+                    }
+                } else {
+                    int end = position;
+                    while (end < length && line[end] != ',') {
+                        end++;
+                    }
+                    starts[fields] = position;
+                    ends[fields] = end;
+                    quoted[fields++] = false;
+                    position = end;
+                }
+                if (position >= length) {
+                    return;
+                }
+                position++; // Skip the comma
+            }
+        }
+
+        private String decode(int field) {
+            String value = new String(line, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+            return quoted[field] ? value.replace("\"\"", "\"") : value;
+        }
+
+        @Override
+        protected String optionalText(int field) {
+            return starts[field + 1] == ends[field + 1] ? null : decode(field + 1);
+        }
+
+        @Override
+        protected double number(int field, boolean whole) {
+            int start = starts[field + 1];
+            int end = ends[field + 1];
+            while (start < end && line[start] == ' ') {
+                start++;
+            }
+            while (end > start && line[end - 1] == ' ') {
+                end--;
+            }
+            boolean negative = start < end && line[start] == '-';
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1; // Digits after the decimal point, or -1 before it
+            for (int i = negative ? start + 1 : start; i < end; i++) {
+                byte b = line[i];
+                if (b >= '0' && b <= '9' && mantissa < MAX_EXACT / 10) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    scale += scale >= 0 ? 1 : 0;
+                } else if (b == '.' && scale < 0 && !whole) {
+                    scale = 0;
+                } else {
+                    return slowNumber(field, start, end, whole);
+                }
+            }
+            if (digits == 0 || mantissa > MAX_EXACT || scale >= POWERS_OF_TEN.length) {
+                return slowNumber(field, start, end, whole);
+            }
+            // Both operands are exact, so the division rounds correctly
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses numbers the fast path does not cover, such as exponents or many digits.
+         */
+        private double slowNumber(int field, int start, int end, boolean whole) {
+            String text = new String(line, start, end - start, StandardCharsets.UTF_8);
+            try {
+                return whole ? Long.parseLong(text) : Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + kind.fields[field] + " '" + text + "'");
+            }
+        }
+    }
+
+    /**
+     * Parses JSON Lines rows with a streaming parser over the line buffer.
+     */
+    private static final class JsonRowParser extends RowParser {
+        private final List<String> keys = new ArrayList<>(); // Keys of the current object
+        private final List<Object> values = new ArrayList<>(); // String or Number value of each key
+
+        @Override
+        protected Kind readRow() {
+            keys.clear();
+            values.clear();
+            try (JsonParser parser = JSON.createParser(line, 0, length)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    Object value = switch (token) {
+                        case VALUE_STRING -> parser.getText();
+                        case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+                        case VALUE_NULL -> null;
+                        default -> throw new IllegalArgumentException("Unsupported value for " + key);
+                    };
+                    keys.add(key);
+                    values.add(value);
+                }
+                if (parser.nextToken() != null) {
+                    throw new IllegalArgumentException("Unexpected content after the JSON object");
+                }
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Cannot happen when parsing a byte array
+            }
+            Object type = value("type");
+            if (!(type instanceof String)) {
+                throw new IllegalArgumentException("Missing type");
+            }
+            return kindOf((String) type);
+        }
+
+        private Object value(String key) {
+            int index = keys.indexOf(key);
+            return index < 0 ? null : values.get(index);
+        }
+
+        @Override
+        protected String optionalText(int field) {
+            Object value = value(kind.fields[field]);
+            if (value != null && !(value instanceof String)) {
+                throw new IllegalArgumentException("Expected text for " + kind.fields[field]);
+            }
+            return (String) value;
+        }
+
+        @Override
+        protected double number(int field, boolean whole) {
+            Object value = value(kind.fields[field]);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing " + kind.fields[field]);
+            }
+            if (!(value instanceof Number) || (whole && !(value instanceof Integer || value instanceof Long))) {
+                throw new IllegalArgumentException("Invalid " + kind.fields[field] + " '" + value + "'");
+            }
+            return ((Number) value).doubleValue();
+        }
+    }
+
+    /**
+     * The rows of a parsed file, not yet linked into packages.
+     */
+    public static final class Parsed {
+        private final Chunk[] chunks;
+        private final AtomicBoolean linked = new AtomicBoolean();
+
+        private Parsed(Chunk[] chunks) {
+            this.chunks = chunks;
+        }
+
+        /**
+         * Links the rows in file order: destinations into their packages, activities into their
+         * destinations and passengers into their packages. A package whose name is taken, and the
+         * rows belonging to it, are skipped. Can be called once only, as the parsed models are
+         * linked in place.
+         *
+         * @param taken Whether a package name is already in use outside the file.
+         * @return the linked packages and the skipped rows.
+         */
+        public ImportResult link(Predicate<String> taken) {
+            if (!linked.compareAndSet(false, true)) {
+                throw new IllegalStateException("Import already linked");
+            }
+            Map<String, Draft> drafts = new LinkedHashMap<>();
+            List<ImportProblem> problems = new ArrayList<>();
+            long rows = 0;
+            long firstLine = 1; // Line number of the first line of the chunk
+            for (Chunk chunk : chunks) {
+                for (Row row : chunk.rows()) {
+                    String problem = link(row, drafts, taken);
+                    if (problem == null) {
+                        rows++;
+                    } else {
+                        problems.add(new ImportProblem(firstLine + row.line(), problem));
+                    }
+                }
+                firstLine += chunk.lines();
+            }
+            List<TravelPackage> packages = new ArrayList<>(drafts.size());
+            for (Draft draft : drafts.values()) {
+                List<Destination> itinerary = new ArrayList<>(draft.destinations.size());
+                draft.destinations.forEach((name, activities) ->
+                        itinerary.add(Destination.builder().name(name).activities(activities).build()));
+                draft.travelPackage.setItinerary(itinerary);
+                packages.add(draft.travelPackage);
+            }
+            return new ImportResult(packages, rows, problems);
+        }
+
+        /**
+         * Links one row, returning why it was skipped or null if it was linked.
+         */
+        private static String link(Row row, Map<String, Draft> drafts, Predicate<String> taken) {
+            if (row.kind() == Kind.INVALID) {
+                return (String) row.model();
+            }
+            if (row.kind() == Kind.PACKAGE) {
+                if (drafts.containsKey(row.packageName()) || taken.test(row.packageName())) {
+                    return "Travel package already exists: " + row.packageName();
+                }
+                drafts.put(row.packageName(), new Draft((TravelPackage) row.model()));
+                return null;
+            }
+            Draft draft = drafts.get(row.packageName());
+            if (draft == null) {
+                return "Travel package not defined earlier in the file: " + row.packageName();
+            }
+            switch (row.kind()) {
+                case DESTINATION -> {
+                    if (draft.destinations.putIfAbsent(row.destinationName(), new ArrayList<>()) != null) {
+                        return "Destination already exists in " + row.packageName() + ": " + row.destinationName();
+                    }
+                }
+                case ACTIVITY -> {
+                    List<Activity> activities = draft.destinations.get(row.destinationName());
+                    if (activities == null) {
+                        return "Destination not defined earlier in " + row.packageName() + ": " + row.destinationName();
+                    }
+                    activities.add((Activity) row.model());
+                }
+                default -> {
+                    Passenger passenger = (Passenger) row.model();
+                    if (!draft.travelPackage.addPassenger(passenger)) {
+                        return "Passenger " + passenger.getPassengerNumber() + " cannot be added to "
+                                + row.packageName() + ": duplicate number or package full";
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A package being linked, with the activities of each destination in itinerary order.
+     */
+    private static final class Draft {
+        private final TravelPackage travelPackage;
+        private final Map<String, List<Activity>> destinations = new LinkedHashMap<>();
+
+        private Draft(TravelPackage travelPackage) {
+            this.travelPackage = travelPackage;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.nymble.travel.importer;
+
+/**
+ * The file formats read by {@link CatalogImporter}.
+ */
+public enum ImportFormat {
+    CSV, // Comma separated rows, the row type in the first field
+    JSON // JSON Lines: one flat JSON object per line, the row type in its "type" field
+}
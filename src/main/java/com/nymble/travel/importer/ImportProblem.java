@@ -0,0 +1,11 @@
+package com.nymble.travel.importer;
+
+/**
+ * A row skipped by {@link CatalogImporter}, because it is malformed or refers to a package or
+ * destination that is not defined before it.
+ *
+ * @param line The 1-based line number of the row in the imported file.
+ * @param message What is wrong with the row.
+ */
+public record ImportProblem(long line, String message) {
+}
@@ -0,0 +1,15 @@
+package com.nymble.travel.importer;
+
+import com.nymble.travel.models.TravelPackage;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link CatalogImporter} run.
+ *
+ * @param packages The imported packages in file order, with their itineraries and passengers.
+ * @param rowCount The number of rows imported.
+ * @param problems The skipped rows in file order.
+ */
+public record ImportResult(List<TravelPackage> packages, long rowCount, List<ImportProblem> problems) {
+}
@@ -0,0 +1,227 @@
+package com.nymble.travel.metrics;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the booking hot path into a Micrometer {@link MeterRegistry}: sign-up latency per tier,
+ * sign-up outcomes per tier and status, passengers added to or rejected by packages, compare-and-set
+ * retries on seat counters and wallets, hits and misses of the itinerary view cache, and the fill
+ * ratio of every registered activity.
+ * <p>
+ * Every meter on the booking path is registered up front and looked up by array index, so
+ * recording is an adder increment without allocating or resolving tags. Outcomes are counted
+ * exactly, while latency is sampled: one sign-up in 256 is timed, which keeps reading the clock
+ * and updating the histogram off most sign-ups but still yields accurate percentiles. The
+ * models record into the default instance, which records nothing until the application installs
+ * one with {@link #setDefault(BookingMetrics)}.
+ */
+public final class BookingMetrics {
+    private static final PassengerTier[] TIERS = PassengerTier.values();
+    private static final SignUpStatus[] STATUSES = SignUpStatus.values();
+    private static final int SAMPLE_MASK = 255; // Time one sign-up in 256, chosen at random
+    private static final long NOT_TIMED = 0; // Start time of sign-ups left out of the latency sample
+    private static final BookingMetrics DISABLED = new BookingMetrics();
+    private static volatile BookingMetrics defaultMetrics = DISABLED; // Used by the models
+
+    private final MeterRegistry registry; // Registry of the meters, or null when nothing is recorded
+    private final Timer[] signUpLatency; // By tier ordinal
+    private final LongAdder[] signUps; // By tier ordinal * statuses + status ordinal
+    private final Counter passengersAdded;
+    private final Counter passengersRejected;
+    private final LongAdder seatRetries = new LongAdder(); // Lost compare-and-sets on seat counters
+    private final LongAdder balanceRetries = new LongAdder(); // Lost compare-and-sets on wallets
+    private final LongAdder viewCacheHits = new LongAdder(); // Views served from the itinerary cache
+    private final LongAdder viewCacheMisses = new LongAdder(); // Views rendered because they were not cached
+
+    private BookingMetrics() {
+        this.registry = null;
+        this.signUpLatency = null;
+        this.signUps = null;
+        this.passengersAdded = null;
+        this.passengersRejected = null;
+    }
+
+    /**
+     * Registers the booking meters in the given registry.
+     *
+     * @param registry The registry to publish the meters to.
+     */
+    public BookingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.signUpLatency = new Timer[TIERS.length];
+        this.signUps = new LongAdder[TIERS.length * STATUSES.length];
+        for (PassengerTier tier : TIERS) {
+            signUpLatency[tier.ordinal()] = Timer.builder("travel.signup.latency")
+                    .description("Time to sign a passenger up for an activity")
+                    .tag("tier", tier.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofMillis(100))
+                    .register(registry);
+            for (SignUpStatus status : STATUSES) {
+                LongAdder signUpCount = new LongAdder();
+                signUps[tier.ordinal() * STATUSES.length + status.ordinal()] = signUpCount;
+                FunctionCounter.builder("travel.signups", signUpCount, LongAdder::sum)
+                        .description("Sign-up attempts by outcome")
+                        .tag("tier", tier.name())
+                        .tag("status", status.name())
+                        .register(registry);
+            }
+        }
+        this.passengersAdded = Counter.builder("travel.package.passengers")
+                .description("Passengers added to or rejected by packages")
+                .tag("outcome", "added")
+                .register(registry);
+        this.passengersRejected = Counter.builder("travel.package.passengers")
+                .description("Passengers added to or rejected by packages")
+                .tag("outcome", "rejected")
+                .register(registry);
+        FunctionCounter.builder("travel.contention.retries", seatRetries, LongAdder::sum)
+                .description("Compare-and-set retries caused by concurrent updates")
+                .tag("resource", "seats")
+                .register(registry);
+        FunctionCounter.builder("travel.contention.retries", balanceRetries, LongAdder::sum)
+                .description("Compare-and-set retries caused by concurrent updates")
+                .tag("resource", "balance")
+                .register(registry);
+        FunctionCounter.builder("travel.itinerary.cache", viewCacheHits, LongAdder::sum)
+                .description("Itinerary and availability view lookups by result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("travel.itinerary.cache", viewCacheMisses, LongAdder::sum)
+                .description("Itinerary and availability view lookups by result")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    /**
+     * Returns metrics that record nothing, the default until the application installs others.
+     *
+     * @return the disabled metrics.
+     */
+    public static BookingMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Returns the metrics the models record into.
+     *
+     * @return the default metrics.
+     */
+    public static BookingMetrics getDefault() {
+        return defaultMetrics;
+    }
+
+    /**
+     * Replaces the metrics the models record into.
+     *
+     * @param metrics The new default metrics.
+     */
+    public static void setDefault(BookingMetrics metrics) {
+        defaultMetrics = metrics;
+    }
+
+    /**
+     * Returns the start time to pass to {@link #recordSignUp(PassengerTier, SignUpStatus, long)}.
+     * Only a random sample of sign-ups is timed; for the others, and when nothing is recorded,
+     * the clock is not read.
+     *
+     * @return the start time in nanoseconds.
+     */
+    public long startTime() {
+        if (registry == null || (ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) != 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the outcome and latency of a sign-up.
+     *
+     * @param tier The tier of the passenger.
+     * @param status The outcome.
+     * @param startTime The time returned by {@link #startTime()} before the sign-up.
+     */
+    public void recordSignUp(PassengerTier tier, SignUpStatus status, long startTime) {
+        if (registry == null) {
+            return;
+        }
+        signUps[tier.ordinal() * STATUSES.length + status.ordinal()].increment();
+        if (startTime != NOT_TIMED) {
+            signUpLatency[tier.ordinal()].record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records an attempt to add a passenger to a package.
+     *
+     * @param added Whether the passenger was added.
+     */
+    public void recordPassengerAdded(boolean added) {
+        if (registry != null) {
+            (added ? passengersAdded : passengersRejected).increment();
+        }
+    }
+
+    /**
+     * Records a compare-and-set on a seat counter lost to a concurrent update.
+     */
+    public void recordSeatRetry() {
+        if (registry != null) {
+            seatRetries.increment();
+        }
+    }
+
+    /**
+     * Records a compare-and-set on a wallet lost to a concurrent update.
+     */
+    public void recordBalanceRetry() {
+        if (registry != null) {
+            balanceRetries.increment();
+        }
+    }
+
+    /**
+     * Records a lookup in the itinerary view cache.
+     *
+     * @param hit Whether the view was cached.
+     */
+    public void recordViewCacheLookup(boolean hit) {
+        if (registry != null) {
+            (hit ? viewCacheHits : viewCacheMisses).increment();
+        }
+    }
+
+    /**
+     * Publishes the fill ratio of an activity, the share of its capacity that is taken.
+     *
+     * @param packageName The name of the package offering the activity.
+     * @param destinationName The name of the destination offering the activity.
+     * @param activity The activity.
+     */
+    public void registerActivity(String packageName, String destinationName, Activity activity) {
+        if (registry == null) {
+            return;
+        }
+        Gauge.builder("travel.activity.fill", activity,
+                        a -> a.getCapacity() == 0 ? 1.0 : (double) a.getEnrolledPassengers() / a.getCapacity())
+                .description("Share of the activity's capacity that is taken")
+                .tag("package", packageName)
+                .tag("destination", destinationName)
+                .tag("activity", activity.getName())
+                .strongReference(true)
+                .register(registry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.nymble.travel.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the {@link BookingMetrics} of the application, published to the Actuator's meter
+ * registry and installed as the default the models record into.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public BookingMetrics bookingMetrics(MeterRegistry registry) {
+        BookingMetrics metrics = new BookingMetrics(registry);
+        BookingMetrics.setDefault(metrics);
+        return metrics;
+    }
+}
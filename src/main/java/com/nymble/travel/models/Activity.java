@@ -1,42 +1,327 @@
 package com.nymble.travel.models;
 
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.render.RenderFormat;
+import com.nymble.travel.render.TravelRenderer;
+import com.nymble.travel.util.CompressedBitmap;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Represents an activity that passengers can enroll in during their travel.
  * This class includes details about the activity such as its name, description,
  * cost, and capacity. It also tracks the number of enrolled passengers.
+ * Seats are reserved with a compare-and-set on the enrolled counter, so concurrent
+ * reservations can never push the enrolled count past the capacity. Changes to seats and cost
+ * are reported to registered {@link CatalogListener}s, always after any lock of the activity has
+ * been released, so listeners may book or cancel seats themselves.
+ * <p>
+ * The numbers of the enrolled passengers are kept in a {@link CompressedBitmap}, so each
+ * passenger can be enrolled at most once and rosters of different activities can be
+ * intersected cheaply. Enrolling or removing a passenger takes the roster's monitor, so the seat
+ * and the roster entry change together; anonymous reservations are lock-free. Seats may also
+ * be reserved anonymously, for example by bulk bookings, and assigned to passengers afterwards,
+ * so the enrolled count can exceed the roster size.
  */
 @Data
 @Builder
 public class Activity {
+    // Atomic view over enrolledPassengers used for seat reservation
+    private static final AtomicIntegerFieldUpdater<Activity> ENROLLED =
+            AtomicIntegerFieldUpdater.newUpdater(Activity.class, "enrolledPassengers");
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(); // Source of activity ids
+
+    // Dense process-wide id, used to index lookup tables; not part of the activity's value
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int id = NEXT_ID.getAndIncrement();
+
     private String name; // Name of the activity
     private String description; // Description of the activity
+    @Setter(AccessLevel.NONE)
     private double cost; // Cost to enroll in the activity
-    private int capacity; // Maximum number of passengers that can enroll
-    // Disable the setter for enrolledPassengers since this is incremented only when addPassenger method is invoked
     @Setter(AccessLevel.NONE)
-    private int enrolledPassengers = 0; // Current number of enrolled passengers
+    private volatile int capacity; // Maximum number of passengers that can enroll
+    // Disable the setter for enrolledPassengers since this is only changed through seat reservations
+    @Setter(AccessLevel.NONE)
+    private volatile int enrolledPassengers; // Current number of enrolled passengers
+    // Numbers of the passengers holding a seat, guarded by its own monitor; not part of the activity's value
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final CompressedBitmap roster = new CompressedBitmap();
+    // Listeners notified about seat and cost changes; not part of the activity's value
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ListenerList listeners = new ListenerList();
+
+    /**
+     * Sets the cost to enroll in the activity and notifies listeners.
+     *
+     * @param cost The new cost.
+     */
+    public void setCost(double cost) {
+        this.cost = cost;
+        listeners.fireCostChanged(this);
+    }
+
+    /**
+     * Sets the maximum number of passengers that can enroll and notifies listeners.
+     * Lowering the capacity below the enrolled count does not remove any passenger.
+     *
+     * @param capacity The new capacity.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        listeners.fireSeatsChanged(this);
+    }
 
     /**
-     * Attempts to add a passenger to this activity. If the activity has capacity,
-     * the passenger is added, and the method returns true. If the activity is at capacity,
-     * the method returns false, and no passenger is added.
+     * Registers a listener to be notified when the seats or cost of this activity change.
+     *
+     * @param listener The listener to register.
+     */
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(CatalogListener)}.
+     *
+     * @param listener The listener to unregister.
+     */
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Attempts to add a passenger to this activity. If the activity has capacity and the
+     * passenger is not enrolled yet, the passenger is added, and the method returns true.
+     * Otherwise the method returns false, and no passenger is added.
      *
      * @param passenger The passenger to be added to the activity.
      * @return true if the passenger was successfully added, false otherwise.
      */
     public boolean addPassenger(Passenger passenger) {
-        if (enrolledPassengers < capacity) {
-            enrolledPassengers++;
-            return true;
+        synchronized (roster) {
+            if (roster.contains(passenger.getPassengerNumber()) || !reserve(1)) {
+                return false;
+            }
+            roster.add(passenger.getPassengerNumber());
+            passenger.enrolledIn(this); // Under the roster monitor, so both sides always agree
+        }
+        listeners.fireSeatsChanged(this);
+        return true;
+    }
+
+    /**
+     * Removes a passenger from this activity and releases the passenger's seat.
+     *
+     * @param passenger The passenger to remove.
+     * @return true if the passenger was enrolled and has been removed, false otherwise.
+     */
+    public boolean removePassenger(Passenger passenger) {
+        return withdraw(passenger) >= 0;
+    }
+
+    /**
+     * Removes a passenger like {@link #removePassenger(Passenger)} and returns what the sign-up
+     * was charged, taken from the passenger in the same step so it is refunded at most once.
+     *
+     * @return the charged cents, or -1 if the passenger was not enrolled.
+     */
+    long withdraw(Passenger passenger) {
+        long chargedCents;
+        synchronized (roster) {
+            if (!roster.remove(passenger.getPassengerNumber())) {
+                return -1;
+            }
+            release(1);
+            chargedCents = passenger.withdrewFrom(this);
+        }
+        listeners.fireSeatsChanged(this);
+        return chargedCents;
+    }
+
+    /**
+     * Enrolls a passenger in a seat already reserved with {@link #tryReserveSeats(int)} or
+     * {@link #reserveUpTo(int)}, without taking another seat.
+     *
+     * @param passenger The passenger to enroll.
+     * @return true if the passenger was enrolled, false if the passenger already was.
+     */
+    public boolean assignReservedSeat(Passenger passenger) {
+        synchronized (roster) {
+            if (!roster.add(passenger.getPassengerNumber())) {
+                return false;
+            }
+            passenger.enrolledIn(this);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a passenger enrolled through {@link #assignReservedSeat(Passenger)} but keeps the
+     * seat reserved, so it can be assigned again or released as part of its reservation.
+     *
+     * @param passenger The passenger to remove.
+     * @return true if the passenger was enrolled and has been removed, false otherwise.
+     */
+    public boolean unassignSeat(Passenger passenger) {
+        synchronized (roster) {
+            if (!roster.remove(passenger.getPassengerNumber())) {
+                return false;
+            }
+            passenger.withdrewFrom(this);
         }
-        return false;
+        return true;
+    }
+
+    /**
+     * Returns whether the passenger with the given number is enrolled in this activity.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @return true if the passenger holds a seat.
+     */
+    public boolean isEnrolled(int passengerNumber) {
+        synchronized (roster) {
+            return roster.contains(passengerNumber);
+        }
+    }
+
+    /**
+     * Returns the numbers of the passengers enrolled in this activity.
+     *
+     * @return the passenger numbers in ascending order.
+     */
+    public int[] getEnrolledPassengerNumbers() {
+        synchronized (roster) {
+            return roster.toArray();
+        }
+    }
+
+    /**
+     * Returns a copy of the roster of this activity, for intersecting with other rosters.
+     *
+     * @return the numbers of the enrolled passengers.
+     */
+    public CompressedBitmap getRoster() {
+        synchronized (roster) {
+            return roster.copy();
+        }
+    }
+
+    /**
+     * Atomically reserves the given number of seats. Either all requested seats are
+     * reserved or none are; the enrolled count never exceeds the capacity, regardless
+     * of how many threads reserve seats concurrently.
+     *
+     * @param seats The number of seats to reserve, must be positive.
+     * @return true if the seats were reserved, false if there is not enough free capacity.
+     */
+    public boolean tryReserveSeats(int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Seats to reserve must be positive: " + seats);
+        }
+        if (!reserve(seats)) {
+            return false;
+        }
+        listeners.fireSeatsChanged(this);
+        return true;
+    }
+
+    /**
+     * Atomically reserves as many of the requested seats as are free, up to the given maximum.
+     * This lets bulk bookings take their seats in a single step instead of one seat at a time.
+     *
+     * @param maxSeats The maximum number of seats to reserve, must not be negative.
+     * @return the number of seats actually reserved, between zero and maxSeats.
+     */
+    public int reserveUpTo(int maxSeats) {
+        if (maxSeats < 0) {
+            throw new IllegalArgumentException("Seats to reserve must not be negative: " + maxSeats);
+        }
+        for (;;) {
+            int enrolled = enrolledPassengers;
+            int granted = Math.min(maxSeats, Math.max(0, capacity - enrolled));
+            if (granted == 0) {
+                return 0;
+            }
+            if (ENROLLED.compareAndSet(this, enrolled, enrolled + granted)) {
+                listeners.fireSeatsChanged(this);
+                return granted;
+            }
+            BookingMetrics.getDefault().recordSeatRetry(); // Lost to a concurrent update
+        }
+    }
+
+    /**
+     * Atomically releases seats previously reserved with {@link #tryReserveSeats(int)}
+     * or {@link #addPassenger(Passenger)}, making them available to other passengers.
+     *
+     * @param seats The number of seats to release, must be positive.
+     * @throws IllegalStateException if more seats are released than are currently enrolled.
+     */
+    public void releaseSeats(int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Seats to release must be positive: " + seats);
+        }
+        release(seats);
+        listeners.fireSeatsChanged(this);
+    }
+
+    /**
+     * Takes seats from the enrolled counter without notifying listeners, so callers holding the
+     * roster monitor can notify once they released it.
+     */
+    private boolean reserve(int seats) {
+        for (;;) {
+            int enrolled = enrolledPassengers;
+            if (seats > capacity - enrolled) {
+                return false;
+            }
+            if (ENROLLED.compareAndSet(this, enrolled, enrolled + seats)) {
+                return true;
+            }
+            BookingMetrics.getDefault().recordSeatRetry(); // Lost to a concurrent update
+        }
+    }
+
+    /**
+     * Returns seats to the enrolled counter without notifying listeners, see {@link #reserve(int)}.
+     */
+    private void release(int seats) {
+        for (;;) {
+            int enrolled = enrolledPassengers;
+            if (seats > enrolled) {
+                throw new IllegalStateException("Cannot release " + seats + " seats, only " + enrolled + " enrolled");
+            }
+            if (ENROLLED.compareAndSet(this, enrolled, enrolled - seats)) {
+                return;
+            }
+            BookingMetrics.getDefault().recordSeatRetry(); // Lost to a concurrent update
+        }
+    }
+
+    /**
+     * Returns the number of seats that can still be reserved for this activity.
+     *
+     * @return the number of free seats, never negative.
+     */
+    public int getAvailableSeats() {
+        return Math.max(0, capacity - enrolledPassengers);
     }
 
     /**
@@ -47,13 +332,10 @@ public class Activity {
      * @param activities The list of activities to be checked and printed.
      */
     public static void printAvailableActivities(List<Activity> activities) {
-        for (Activity activity : activities) {
-            if (activity.getCapacity() > activity.enrolledPassengers) { // Check for available capacity
-                System.out.println("Activity: " + activity.getName());
-                System.out.println("    Spaces Available: " + (activity.getCapacity() - activity.enrolledPassengers));
-                System.out.println("    Cost: " + activity.getCost());
-                System.out.println("    Description: " + activity.getDescription());
-            }
+        try {
+            TravelRenderer.forCurrentThread(RenderFormat.TEXT).renderAvailableActivities(activities, (Appendable) System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
@@ -0,0 +1,185 @@
+package com.nymble.travel.models;
+
+import com.nymble.travel.metrics.BookingMetrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Keeps the balances of many passengers off the Java heap, as one {@code long} of cents per
+ * account in direct memory, indexed by passenger number. Passengers opened in a ledger get a
+ * {@link Wallet} that is only a handle on their slot, so millions of accounts cost the heap a
+ * small object each and no balance is ever scanned by the garbage collector.
+ * <p>
+ * Slots are grouped in direct buffers of 65,536 accounts, allocated when the first account in
+ * their range is opened and never moved, so sparse passenger numbers only pay for the ranges in
+ * use. Every change is an atomic operation on the slot through a {@link VarHandle} view of the
+ * buffer, with the same guarantees as an on-heap wallet: concurrent debits can neither lose
+ * updates nor overdraw a balance. Sweeps such as top-ups, interest and audits stream over the
+ * buffers in passenger number order.
+ * <p>
+ * Passenger numbers identify accounts, so every passenger opened in one ledger must have a
+ * distinct, non-negative number.
+ */
+public final class BalanceLedger {
+    private static final VarHandle SLOTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int SEGMENT_SHIFT = 16; // Accounts per buffer as a power of two
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final long CLOSED = -1; // Slot value of numbers without an account; balances are never negative
+
+    private final Object openLock = new Object(); // Serializes opening accounts and allocating buffers
+    private volatile ByteBuffer[] segments = new ByteBuffer[0]; // Buffers by passenger number range, null if unused
+    private volatile int accounts; // Number of open accounts
+
+    /**
+     * Opens an account for a passenger number and returns the wallet handle on it.
+     *
+     * @param passengerNumber The passenger number identifying the account, must not be negative.
+     * @param balanceCents The initial balance in cents, must not be negative.
+     * @return a wallet holding its balance in this ledger.
+     * @throws IllegalStateException if an account is already open for the number.
+     */
+    public Wallet open(int passengerNumber, long balanceCents) {
+        if (passengerNumber < 0) {
+            throw new IllegalArgumentException("Passenger number must not be negative: " + passengerNumber);
+        }
+        if (balanceCents < 0) {
+            throw new IllegalArgumentException("Balance must not be negative: " + balanceCents);
+        }
+        synchronized (openLock) {
+            int segmentIndex = passengerNumber >>> SEGMENT_SHIFT;
+            ByteBuffer[] directory = segments;
+            if (segmentIndex >= directory.length) {
+                directory = Arrays.copyOf(directory, segmentIndex + 1);
+            }
+            if (directory[segmentIndex] == null) {
+                ByteBuffer segment = ByteBuffer.allocateDirect(SEGMENT_SIZE * Long.BYTES);
+                for (int slot = 0; slot < SEGMENT_SIZE; slot++) {
+                    SLOTS.set(segment, slot * Long.BYTES, CLOSED);
+                }
+                directory[segmentIndex] = segment;
+                segments = directory; // Publishes the buffer before any wallet can use it
+            }
+            int offset = (passengerNumber & SEGMENT_MASK) * Long.BYTES;
+            if (!SLOTS.compareAndSet(directory[segmentIndex], offset, CLOSED, balanceCents)) {
+                throw new IllegalStateException("Account already open for passenger " + passengerNumber);
+            }
+            accounts++;
+        }
+        return new Wallet(this, passengerNumber);
+    }
+
+    /**
+     * Returns whether an account is open for the passenger number.
+     *
+     * @param passengerNumber The passenger number.
+     * @return true if the account is open.
+     */
+    public boolean isOpen(int passengerNumber) {
+        ByteBuffer[] directory = segments;
+        int segmentIndex = passengerNumber >>> SEGMENT_SHIFT;
+        return passengerNumber >= 0 && segmentIndex < directory.length && directory[segmentIndex] != null
+                && (long) SLOTS.getVolatile(directory[segmentIndex], (passengerNumber & SEGMENT_MASK) * Long.BYTES) != CLOSED;
+    }
+
+    /**
+     * Returns the number of open accounts.
+     *
+     * @return the account count.
+     */
+    public int getAccountCount() {
+        return accounts;
+    }
+
+    /**
+     * Returns the sum of all balances, for auditing against the booking journal.
+     *
+     * @return the total balance in cents.
+     */
+    public long getTotalCents() {
+        long total = 0;
+        for (ByteBuffer segment : segments) {
+            if (segment == null) {
+                continue;
+            }
+            for (int offset = 0; offset < SEGMENT_SIZE * Long.BYTES; offset += Long.BYTES) {
+                long balance = (long) SLOTS.getVolatile(segment, offset);
+                if (balance != CLOSED) {
+                    total += balance;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Atomically replaces every balance with the result of the function, for example to top up
+     * or pay interest on all accounts. Each account is updated atomically on its own; concurrent
+     * debits and credits are never lost, but may be applied before or after the update.
+     *
+     * @param update Computes the new balance in cents from the current one; must not return a negative amount.
+     */
+    public void updateAll(LongUnaryOperator update) {
+        for (ByteBuffer segment : segments) {
+            if (segment == null) {
+                continue;
+            }
+            for (int offset = 0; offset < SEGMENT_SIZE * Long.BYTES; offset += Long.BYTES) {
+                for (;;) {
+                    long balance = (long) SLOTS.getVolatile(segment, offset);
+                    if (balance == CLOSED) {
+                        break;
+                    }
+                    long updated = update.applyAsLong(balance);
+                    if (updated < 0) {
+                        throw new IllegalArgumentException("Balance must not be negative: " + updated);
+                    }
+                    if (SLOTS.compareAndSet(segment, offset, balance, updated)) {
+                        break;
+                    }
+                    BookingMetrics.getDefault().recordBalanceRetry(); // Lost to a concurrent debit or credit
+                }
+            }
+        }
+    }
+
+    long get(int account) {
+        return (long) SLOTS.getVolatile(segment(account), offset(account));
+    }
+
+    void set(int account, long cents) {
+        SLOTS.setVolatile(segment(account), offset(account), cents);
+    }
+
+    boolean tryDebit(int account, long cents) {
+        ByteBuffer segment = segment(account);
+        int offset = offset(account);
+        for (;;) {
+            long balance = (long) SLOTS.getVolatile(segment, offset);
+            if (balance < cents) {
+                return false;
+            }
+            if (SLOTS.compareAndSet(segment, offset, balance, balance - cents)) {
+                return true;
+            }
+            BookingMetrics.getDefault().recordBalanceRetry(); // Lost to a concurrent debit or credit
+        }
+    }
+
+    void credit(int account, long cents) {
+        SLOTS.getAndAdd(segment(account), offset(account), cents);
+    }
+
+    private ByteBuffer segment(int account) {
+        return segments[account >>> SEGMENT_SHIFT];
+    }
+
+    private static int offset(int account) {
+        return (account & SEGMENT_MASK) * Long.BYTES;
+    }
+}
@@ -0,0 +1,61 @@
+package com.nymble.travel.models;
+
+/**
+ * Receives change notifications from activities, destinations and travel packages. Listeners are
+ * called synchronously on the thread that made the change, after the change is visible, so
+ * implementations must be thread-safe and fast. All methods default to doing nothing.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called after the number of enrolled passengers or the capacity of an activity changed.
+     *
+     * @param activity The activity whose free seats changed.
+     */
+    default void seatsChanged(Activity activity) {
+    }
+
+    /**
+     * Called after the cost of an activity changed.
+     *
+     * @param activity The activity whose cost changed.
+     */
+    default void costChanged(Activity activity) {
+    }
+
+    /**
+     * Called after an activity was added to a destination.
+     *
+     * @param destination The destination the activity was added to.
+     * @param activity The added activity.
+     */
+    default void activityAdded(Destination destination, Activity activity) {
+    }
+
+    /**
+     * Called after a destination was added to the itinerary of a travel package.
+     *
+     * @param travelPackage The travel package the destination was added to.
+     * @param destination The added destination.
+     */
+    default void destinationAdded(TravelPackage travelPackage, Destination destination) {
+    }
+
+    /**
+     * Called after a passenger was added to a travel package.
+     *
+     * @param travelPackage The travel package the passenger was added to.
+     * @param passenger The added passenger.
+     */
+    default void passengerAdded(TravelPackage travelPackage, Passenger passenger) {
+    }
+
+    /**
+     * Called after a passenger was removed from a travel package, freeing a place in it.
+     *
+     * @param travelPackage The travel package the passenger was removed from.
+     * @param passenger The removed passenger.
+     */
+    default void passengerRemoved(TravelPackage travelPackage, Passenger passenger) {
+    }
+}
@@ -3,22 +3,50 @@ package com.nymble.travel.models;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a travel destination, encapsulating details such as its name
  * and a list of activities available at this destination. The class provides
- * functionality to add new activities to the destination.
+ * functionality to add new activities to the destination, and reports added
+ * activities to registered {@link CatalogListener}s. The activity list is immutable and
+ * replaced as a whole on every change, so readers never need to lock or copy it.
  */
 @Data
-@Builder
 public class Destination {
     private String name; // The name of the destination
     @Setter(AccessLevel.NONE)
-    private List<Activity> activities = new ArrayList<>(); // A list of activities available at the destination
+    private volatile List<Activity> activities; // Immutable list of activities available at the destination
+    // Listeners notified about added activities; not part of the destination's value
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ListenerList listeners = new ListenerList();
+    // Serializes activity list writers without contending with callers that lock the destination itself
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Object activitiesLock = new Object();
+
+    /**
+     * Creates a destination.
+     *
+     * @param name The name of the destination.
+     * @param activities The activities available at the destination, or null for none.
+     */
+    @Builder
+    private Destination(String name, List<Activity> activities) {
+        this.name = name;
+        this.activities = activities != null ? List.copyOf(activities) : List.of();
+    }
 
     /**
      * Adds a new activity to the list of activities available at this destination.
@@ -28,6 +56,39 @@ public class Destination {
      * @param activity The activity to be added to this destination.
      */
     public void addActivity(Activity activity) {
-        this.activities.add(activity);
+        addActivities(List.of(activity));
+    }
+
+    /**
+     * Adds several activities at once, publishing a single new activity list for all of them.
+     *
+     * @param added The activities to add, in order.
+     */
+    public void addActivities(Collection<Activity> added) {
+        synchronized (activitiesLock) { // Serialize writers; readers see either the old or the new list
+            List<Activity> updated = new ArrayList<>(activities.size() + added.size());
+            updated.addAll(activities);
+            updated.addAll(added);
+            activities = Collections.unmodifiableList(updated);
+        }
+        added.forEach(activity -> listeners.fireActivityAdded(this, activity));
+    }
+
+    /**
+     * Registers a listener to be notified when activities are added to this destination.
+     *
+     * @param listener The listener to register.
+     */
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(CatalogListener)}.
+     *
+     * @param listener The listener to unregister.
+     */
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
     }
 }
@@ -0,0 +1,75 @@
+package com.nymble.travel.models;
+
+import java.util.Arrays;
+
+/**
+ * A copy-on-write list of {@link CatalogListener}s. Registration is rare and copies the backing
+ * array; notification reads a single volatile field and iterates without allocating, which keeps
+ * the cost on hot paths such as seat reservation to a field read when nobody is listening.
+ */
+final class ListenerList {
+    private static final CatalogListener[] NONE = new CatalogListener[0];
+
+    private volatile CatalogListener[] listeners = NONE; // Registered listeners, replaced on change
+
+    synchronized void add(CatalogListener listener) {
+        CatalogListener[] current = listeners;
+        CatalogListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    synchronized void remove(CatalogListener listener) {
+        CatalogListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                CatalogListener[] updated = new CatalogListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    void fireSeatsChanged(Activity activity) {
+        for (CatalogListener listener : listeners) {
+            listener.seatsChanged(activity);
+        }
+    }
+
+    void fireCostChanged(Activity activity) {
+        for (CatalogListener listener : listeners) {
+            listener.costChanged(activity);
+        }
+    }
+
+    void fireActivityAdded(Destination destination, Activity activity) {
+        for (CatalogListener listener : listeners) {
+            listener.activityAdded(destination, activity);
+        }
+    }
+
+    void fireDestinationAdded(TravelPackage travelPackage, Destination destination) {
+        for (CatalogListener listener : listeners) {
+            listener.destinationAdded(travelPackage, destination);
+        }
+    }
+
+    void firePassengerAdded(TravelPackage travelPackage, Passenger passenger) {
+        for (CatalogListener listener : listeners) {
+            listener.passengerAdded(travelPackage, passenger);
+        }
+    }
+
+    void firePassengerRemoved(TravelPackage travelPackage, Passenger passenger) {
+        for (CatalogListener listener : listeners) {
+            listener.passengerRemoved(travelPackage, passenger);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ListenerList(" + listeners.length + ")";
+    }
+}
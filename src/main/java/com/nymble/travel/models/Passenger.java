@@ -1,30 +1,291 @@
 package com.nymble.travel.models;
 
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.pricing.PricingEngine;
+import com.nymble.travel.util.CompressedBitmap;
+import com.nymble.travel.util.IntLongHashMap;
+import lombok.AccessLevel;
+import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 
+
 /**
  * Serves as the base class for various types of passengers, including GoldPassenger,
  * PremiumPassenger, and StandardPassenger. This abstract class defines common properties
  * such as balance, name, and passenger number, which are shared among all types of passengers.
- * It also declares an abstract method, signUpForActivity, which must be implemented by
- * subclasses to define the logic for signing up for an activity based on their specific rules
- * and privileges.
+ * The balance is held in a {@link Wallet} in integer cents and is debited atomically.
+ * The ids of the activities the passenger is enrolled in are kept in a {@link CompressedBitmap}.
+ * The outcome and latency of every sign-up are recorded in the default {@link BookingMetrics}.
+ * Every type of passenger signs up the same way; the subclasses only name their
+ * {@link PassengerTier}, whose benefits the default {@link PricingEngine} applies to prices.
  */
 @Data
 @SuperBuilder
 public abstract class Passenger {
-    protected double balance; // The financial balance of the passenger
+    // The wallet holding the passenger's balance; compared by identity, so excluded from equality
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @Builder.Default
+    private final Wallet wallet = new Wallet(0);
+    // Ids of the activities the passenger is enrolled in, guarded by its own monitor
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Builder.Default
+    private final CompressedBitmap activityIds = new CompressedBitmap();
+    // Cents charged for each sign-up by activity id, refunded on cancellation; guarded by the activityIds monitor
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Builder.Default
+    private final IntLongHashMap charges = new IntLongHashMap();
     protected String name; // The name of the passenger
     protected int passengerNumber; // A unique number identifying the passenger
 
     /**
-     * Abstract method to be implemented by subclasses to allow a passenger to sign up for an activity.
-     * The implementation of this method in subclasses should take into account the passenger's balance,
-     * the cost of the activity, and any specific rules or benefits applicable to the type of passenger.
+     * Signs the passenger up for an activity at the price quoted for the passenger's tier, see
+     * {@link #enroll(Activity)}.
      *
      * @param activity The activity the passenger wishes to sign up for.
      * @return true if the passenger successfully signs up for the activity, false otherwise.
      */
-    public abstract boolean signUpForActivity(Activity activity);
+    public boolean signUpForActivity(Activity activity) {
+        return enroll(activity) == SignUpStatus.BOOKED;
+    }
+
+    /**
+     * Returns the price this passenger pays to sign up for the given activity, after any
+     * benefits applicable to the type of passenger. Prices come from the default
+     * {@link PricingEngine}, which applies the tier benefits.
+     *
+     * @param activity The activity to price.
+     * @return the price in cents.
+     */
+    public long quoteInCents(Activity activity) {
+        return PricingEngine.getDefault().quote(getTier(), activity);
+    }
+
+    /**
+     * Returns the membership tier of this passenger.
+     *
+     * @return the passenger's tier.
+     */
+    public abstract PassengerTier getTier();
+
+    /**
+     * Returns the financial balance of the passenger.
+     *
+     * @return the balance.
+     */
+    public double getBalance() {
+        return wallet.getBalance();
+    }
+
+    /**
+     * Replaces the financial balance of the passenger, rounded to the nearest cent.
+     *
+     * @param balance The new balance.
+     */
+    public void setBalance(double balance) {
+        wallet.setBalanceCents(Wallet.toCents(balance));
+    }
+
+    /**
+     * Signs the passenger up for the activity at the price returned by {@link #quoteInCents(Activity)}
+     * and reports the outcome. The seat is taken first so the passenger is never charged for an
+     * activity that is full; if the debit then fails because a concurrent sign-up spent the balance,
+     * the seat is released again.
+     *
+     * @param activity The activity to sign up for.
+     * @return {@link SignUpStatus#BOOKED} if the passenger holds a seat and has been charged,
+     * otherwise the reason the sign-up was rejected.
+     */
+    public SignUpStatus enroll(Activity activity) {
+        return enroll(activity, quoteInCents(activity));
+    }
+
+    /**
+     * Signs the passenger up for the activity at a price quoted beforehand, so callers that
+     * record the charge, such as the booking journal, see exactly the amount debited.
+     *
+     * @param activity The activity to sign up for.
+     * @param priceCents The price to charge in cents.
+     * @return {@link SignUpStatus#BOOKED} if the passenger holds a seat and has been charged,
+     * otherwise the reason the sign-up was rejected.
+     */
+    public SignUpStatus enroll(Activity activity, long priceCents) {
+        BookingMetrics metrics = BookingMetrics.getDefault();
+        long startTime = metrics.startTime();
+        SignUpStatus status = tryEnroll(activity, priceCents);
+        metrics.recordSignUp(getTier(), status, startTime);
+        return status;
+    }
+
+    private SignUpStatus tryEnroll(Activity activity, long priceCents) {
+        if (activity.isEnrolled(getPassengerNumber())) {
+            return SignUpStatus.ALREADY_ENROLLED;
+        }
+        if (wallet.getBalanceCents() < priceCents) {
+            return SignUpStatus.INSUFFICIENT_BALANCE; // Cheap pre-check so we do not take seats we cannot pay for
+        }
+        if (!activity.addPassenger(this)) {
+            return activity.isEnrolled(getPassengerNumber()) ? SignUpStatus.ALREADY_ENROLLED : SignUpStatus.NO_CAPACITY;
+        }
+        if (wallet.tryDebit(priceCents)) {
+            recordCharge(activity, priceCents);
+            return SignUpStatus.BOOKED;
+        }
+        activity.removePassenger(this); // Compensate the seat taken above
+        return SignUpStatus.INSUFFICIENT_BALANCE;
+    }
+
+    /**
+     * Cancels the passenger's sign-up for the activity, releasing the seat and refunding what the
+     * sign-up was charged: the price quoted when it was booked, whatever the activity costs now.
+     *
+     * @param activity The activity to cancel.
+     * @return true if the passenger was enrolled and has been refunded, false otherwise.
+     */
+    public boolean cancel(Activity activity) {
+        return cancelAndRefund(activity) >= 0;
+    }
+
+    /**
+     * Cancels the passenger's sign-up for the activity like {@link #cancel(Activity)} and returns
+     * the refund, for callers that record it, such as the booking journal. Only the caller that
+     * removes the passenger from the roster refunds, so concurrent cancellations of the same
+     * sign-up refund it once.
+     *
+     * @param activity The activity to cancel.
+     * @return the refunded cents, or -1 if the passenger was not enrolled.
+     */
+    public long cancelAndRefund(Activity activity) {
+        long chargedCents = activity.withdraw(this);
+        if (chargedCents > 0) {
+            wallet.credit(chargedCents);
+        }
+        return chargedCents;
+    }
+
+    /**
+     * Cancels the passenger's sign-up for the activity and refunds the given amount instead of the
+     * recorded charge, for replaying a cancellation journaled with its refund.
+     *
+     * @param activity The activity to cancel.
+     * @param refundCents The amount to refund in cents.
+     * @return true if the passenger was enrolled and has been refunded, false otherwise.
+     */
+    public boolean cancel(Activity activity, long refundCents) {
+        if (activity.withdraw(this) < 0) {
+            return false;
+        }
+        wallet.credit(refundCents);
+        return true;
+    }
+
+    /**
+     * Records that the passenger paid the given amount for its seat in the activity, refunded when
+     * the sign-up is cancelled. Callers that take seats and debit wallets themselves, such as bulk
+     * bookings, record each charge once debited, and so do restores of paid sign-ups. If the
+     * sign-up was cancelled in between, that cancellation refunded nothing, so the amount is
+     * credited back to the wallet instead.
+     *
+     * @param activity The activity the passenger holds a seat in.
+     * @param cents The amount charged in cents.
+     * @return true if the charge was recorded, false if the passenger was no longer enrolled and has been credited.
+     */
+    public boolean recordCharge(Activity activity, long cents) {
+        synchronized (activityIds) {
+            if (activityIds.contains(activity.getId())) {
+                if (cents != 0) {
+                    long charged = charges.get(activity.getId());
+                    charges.put(activity.getId(), charged == IntLongHashMap.NO_VALUE ? cents : charged + cents);
+                }
+                return true;
+            }
+        }
+        wallet.credit(cents);
+        return false;
+    }
+
+    /**
+     * Returns what the passenger was charged for its seat in the activity.
+     *
+     * @param activity The activity.
+     * @return the charged cents, zero if the passenger is not enrolled or paid nothing.
+     */
+    public long getChargeCents(Activity activity) {
+        synchronized (activityIds) {
+            return Math.max(0, charges.get(activity.getId()));
+        }
+    }
+
+    /**
+     * Returns whether the passenger is enrolled in the activity.
+     *
+     * @param activity The activity to check.
+     * @return true if the passenger holds a seat in the activity.
+     */
+    public boolean isEnrolledIn(Activity activity) {
+        synchronized (activityIds) {
+            return activityIds.contains(activity.getId());
+        }
+    }
+
+    /**
+     * Returns the ids of the activities the passenger is enrolled in.
+     *
+     * @return the activity ids in ascending order.
+     */
+    public int[] getActivityIds() {
+        synchronized (activityIds) {
+            return activityIds.toArray();
+        }
+    }
+
+    /**
+     * Records that the passenger was added to the activity's roster. Called while the activity
+     * holds its roster monitor, so the roster and the passenger's activity ids change together;
+     * the roster monitor is always taken before the passenger's.
+     */
+    void enrolledIn(Activity activity) {
+        synchronized (activityIds) {
+            activityIds.add(activity.getId());
+        }
+    }
+
+    /**
+     * Records that the passenger was removed from the activity's roster, under the roster monitor
+     * like {@link #enrolledIn(Activity)}, and forgets the charge of the sign-up.
+     *
+     * @return the cents the sign-up was charged, zero if none was recorded.
+     */
+    long withdrewFrom(Activity activity) {
+        synchronized (activityIds) {
+            activityIds.remove(activity.getId());
+            return Math.max(0, charges.remove(activity.getId()));
+        }
+    }
+
+    /**
+     * Builder extension accepting the balance as a decimal amount.
+     */
+    public abstract static class PassengerBuilder<C extends Passenger, B extends PassengerBuilder<C, B>> {
+        /**
+         * Sets the initial balance of the passenger, rounded to the nearest cent.
+         *
+         * @param balance The initial balance.
+         * @return this builder.
+         */
+        public B balance(double balance) {
+            return wallet(Wallet.of(balance));
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package com.nymble.travel.models;
+
+import com.nymble.travel.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * An indexed, insertion-ordered collection of passengers, keyed by passenger number.
+ * Passengers are stored in an append-only slot array; a primitive int-keyed hash index maps
+ * each passenger number to its slot, giving O(1) lookup, duplicate detection and removal.
+ * Removed slots are left empty and compacted once they outnumber live passengers, so iteration
+ * always follows insertion order. Secondary indexes group passengers by tier and by name for
+ * prefix searches. Like the number, the name is indexed as it was when the passenger was added,
+ * so renaming a registered passenger never leaves a stale entry behind. All operations are
+ * thread-safe; readers receive immutable snapshots.
+ */
+public final class PassengerRegistry {
+    private final IntIntHashMap slotsByNumber = new IntIntHashMap(); // Passenger number to slot
+    private final Map<PassengerTier, Map<Integer, Passenger>> byTier = new EnumMap<>(PassengerTier.class);
+    private final NavigableMap<String, Map<Integer, Passenger>> byName = new TreeMap<>();
+    private Passenger[] slots = new Passenger[8]; // Passengers in insertion order, null for removed slots
+    private int[] numbers = new int[8]; // Passenger number each slot was registered under
+    private String[] names = new String[8]; // Name each slot was registered under, the key in byName
+    private int end; // Number of slots in use, including removed ones
+    private int size; // Number of live passengers
+    private volatile List<Passenger> snapshot = List.of(); // Cached immutable view, replaced on every change
+
+    /**
+     * Adds the passenger unless one with the same passenger number is already registered
+     * or the registry already holds the maximum number of passengers. The capacity check,
+     * duplicate check and insert happen atomically.
+     *
+     * @param passenger The passenger to add.
+     * @param capacity The maximum number of passengers the registry may hold.
+     * @return true if the passenger was added, false if it is a duplicate or the registry is full.
+     */
+    public synchronized boolean add(Passenger passenger, int capacity) {
+        int number = passenger.getPassengerNumber();
+        if (size >= capacity || slotsByNumber.containsKey(number)) {
+            return false;
+        }
+        if (end == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            numbers = Arrays.copyOf(numbers, numbers.length * 2);
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        String name = passenger.getName();
+        slots[end] = passenger;
+        numbers[end] = number;
+        names[end] = name;
+        slotsByNumber.put(number, end++);
+        size++;
+        indexSecondary(passenger, number, name);
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Removes the passenger with the given passenger number.
+     *
+     * @param passengerNumber The number of the passenger to remove.
+     * @return the removed passenger, or empty if no passenger has that number.
+     */
+    public synchronized Optional<Passenger> remove(int passengerNumber) {
+        int slot = slotsByNumber.remove(passengerNumber);
+        if (slot == IntIntHashMap.NO_VALUE) {
+            return Optional.empty();
+        }
+        Passenger removed = slots[slot];
+        unindexSecondary(removed, passengerNumber, names[slot]);
+        slots[slot] = null;
+        names[slot] = null;
+        size--;
+        if (end - size > size && end > 16) {
+            compact();
+        }
+        snapshot = null;
+        return Optional.of(removed);
+    }
+
+    /**
+     * Looks up a passenger by passenger number.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @return the passenger, or empty if no passenger has that number.
+     */
+    public synchronized Optional<Passenger> find(int passengerNumber) {
+        int slot = slotsByNumber.get(passengerNumber);
+        return slot == IntIntHashMap.NO_VALUE ? Optional.empty() : Optional.of(slots[slot]);
+    }
+
+    /**
+     * Returns whether a passenger with the given number is registered.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @return true if the passenger is registered.
+     */
+    public synchronized boolean contains(int passengerNumber) {
+        return slotsByNumber.containsKey(passengerNumber);
+    }
+
+    /**
+     * Returns the registered passengers of the given tier, in insertion order.
+     *
+     * @param tier The tier to filter by.
+     * @return an immutable list of matching passengers.
+     */
+    public synchronized List<Passenger> findByTier(PassengerTier tier) {
+        Map<Integer, Passenger> passengers = byTier.get(tier);
+        return passengers == null ? List.of() : List.copyOf(passengers.values());
+    }
+
+    /**
+     * Returns the registered passengers whose name, as it was when they were added, starts with
+     * the given prefix, ordered by that name.
+     *
+     * @param prefix The name prefix to search for.
+     * @return an immutable list of matching passengers.
+     */
+    public synchronized List<Passenger> findByNamePrefix(String prefix) {
+        List<Passenger> matches = new ArrayList<>();
+        for (Map<Integer, Passenger> passengers : byName.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            matches.addAll(passengers.values());
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Returns an immutable snapshot of the registered passengers in insertion order.
+     * The snapshot is cached until the registry next changes.
+     *
+     * @return the registered passengers.
+     */
+    public List<Passenger> asList() {
+        List<Passenger> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                Passenger[] live = new Passenger[size];
+                for (int i = 0, j = 0; i < end; i++) {
+                    if (slots[i] != null) {
+                        live[j++] = slots[i];
+                    }
+                }
+                snapshot = List.of(live);
+            }
+            return snapshot;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void indexSecondary(Passenger passenger, int number, String name) {
+        PassengerTier tier = passenger.getTier();
+        if (tier != null) {
+            byTier.computeIfAbsent(tier, t -> new LinkedHashMap<>()).put(number, passenger);
+        }
+        if (name != null) {
+            byName.computeIfAbsent(name, n -> new LinkedHashMap<>()).put(number, passenger);
+        }
+    }
+
+    private void unindexSecondary(Passenger passenger, int number, String name) {
+        PassengerTier tier = passenger.getTier();
+        if (tier != null && byTier.containsKey(tier)) {
+            byTier.get(tier).remove(number);
+        }
+        if (name != null) {
+            Map<Integer, Passenger> sameName = byName.get(name);
+            if (sameName != null && sameName.remove(number) != null && sameName.isEmpty()) {
+                byName.remove(name);
+            }
+        }
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < end; i++) {
+            if (slots[i] != null) {
+                slots[live] = slots[i];
+                numbers[live] = numbers[i];
+                names[live] = names[i];
+                slotsByNumber.put(numbers[live], live++);
+            }
+        }
+        Arrays.fill(slots, live, end, null);
+        Arrays.fill(names, live, end, null);
+        end = live;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PassengerRegistry && asList().equals(((PassengerRegistry) o).asList());
+    }
+
+    @Override
+    public int hashCode() {
+        return asList().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.nymble.travel.models;
+
+/**
+ * The membership tier of a passenger, which determines the benefits applied when signing up
+ * for activities. Tiers are declared from the most to the least privileged.
+ */
+public enum PassengerTier {
+    PREMIUM, // Signs up for activities at no cost, see PremiumPassenger
+    GOLD, // Receives a 10% discount on activities, see GoldPassenger
+    STANDARD; // Pays the full cost of activities, see StandardPassenger
+
+    /**
+     * Creates a passenger of this tier.
+     *
+     * @param name The name of the passenger.
+     * @param passengerNumber The unique number of the passenger.
+     * @param balance The initial balance of the passenger.
+     * @return a new passenger of this tier.
+     */
+    public Passenger newPassenger(String name, int passengerNumber, double balance) {
+        return newPassenger(name, passengerNumber, Wallet.of(balance));
+    }
+
+    /**
+     * Creates a passenger of this tier holding its balance in the given wallet, for example an
+     * account opened in a {@link BalanceLedger}.
+     *
+     * @param name The name of the passenger.
+     * @param passengerNumber The unique number of the passenger.
+     * @param wallet The wallet holding the passenger's balance.
+     * @return a new passenger of this tier.
+     */
+    public Passenger newPassenger(String name, int passengerNumber, Wallet wallet) {
+        switch (this) {
+            case PREMIUM:
+                return PremiumPassenger.builder().name(name).passengerNumber(passengerNumber).wallet(wallet).build();
+            case GOLD:
+                return GoldPassenger.builder().name(name).passengerNumber(passengerNumber).wallet(wallet).build();
+            default:
+                return StandardPassenger.builder().name(name).passengerNumber(passengerNumber).wallet(wallet).build();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.nymble.travel.models;
+
+/**
+ * The outcome of a single attempt to sign a passenger up for an activity.
+ */
+public enum SignUpStatus {
+    BOOKED, // The passenger holds a seat and has been charged
+    NO_CAPACITY, // The activity had no free seat left
+    INSUFFICIENT_BALANCE, // The passenger's balance did not cover the price
+    ALREADY_ENROLLED, // The passenger already holds a seat in the activity
+    ABORTED, // The sign-up was possible on its own but its all-or-nothing batch failed
+    NOT_IN_PACKAGE // The passenger or the activity does not belong to the package booked through
+}
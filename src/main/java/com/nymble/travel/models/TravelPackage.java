@@ -1,24 +1,74 @@
 package com.nymble.travel.models;
 
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.render.RenderFormat;
+import com.nymble.travel.render.TravelRenderer;
+import com.nymble.travel.util.CompressedBitmap;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents a travel package, which includes a name, a passenger capacity limit,
  * an itinerary of destinations, and a list of enrolled passengers. This class provides
  * functionalities to add destinations and passengers to the travel package, as well as
- * methods to print the itinerary and the passenger list.
+ * methods to print the itinerary and the passenger list. Enrolled passengers are held in a
+ * {@link PassengerRegistry} indexed by passenger number. The itinerary is immutable and replaced
+ * as a whole on every change, so readers never need to lock or copy it.
  */
 @Data
-@Builder
 public class TravelPackage {
     private String name; // The name of the travel package
     private int passengerCapacity; // The maximum number of passengers that can be accommodated in this package
-    private List<Destination> itinerary = new ArrayList<>(); // A list of destinations included in this travel package
-    private List<Passenger> passengers = new ArrayList<>(); // A list of passengers enrolled in this travel package
+    @Setter(AccessLevel.NONE)
+    private volatile List<Destination> itinerary; // Immutable list of destinations included in this travel package
+    // The passengers enrolled in this travel package, exposed as a list through getPassengers()
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final PassengerRegistry passengers = new PassengerRegistry();
+    // Listeners notified about added destinations; not part of the package's value
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ListenerList listeners = new ListenerList();
+    // Serializes itinerary writers without contending with callers that lock the package itself
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Object itineraryLock = new Object();
+
+    /**
+     * Creates a travel package. Passengers given here are enrolled in order, subject to the
+     * passenger capacity and duplicate passenger numbers, exactly as with {@link #addPassenger(Passenger)}.
+     *
+     * @param name The name of the travel package.
+     * @param passengerCapacity The maximum number of passengers.
+     * @param itinerary The destinations of the package, or null for an empty itinerary.
+     * @param passengers The passengers to enroll, or null for none.
+     */
+    @Builder
+    private TravelPackage(String name, int passengerCapacity, List<Destination> itinerary, List<Passenger> passengers) {
+        this.name = name;
+        this.passengerCapacity = passengerCapacity;
+        this.itinerary = itinerary != null ? List.copyOf(itinerary) : List.of();
+        if (passengers != null) {
+            passengers.forEach(this::addPassenger);
+        }
+    }
 
     /**
      * Adds a new destination to the travel package's itinerary.
@@ -26,22 +76,213 @@ public class TravelPackage {
      * @param destination The destination to be added.
      */
     public void addDestination(Destination destination) {
-        itinerary.add(destination);
+        addDestinations(List.of(destination));
+    }
+
+    /**
+     * Adds several destinations at once, publishing a single new itinerary for all of them.
+     *
+     * @param added The destinations to add, in order.
+     */
+    public void addDestinations(Collection<Destination> added) {
+        synchronized (itineraryLock) { // Serialize writers; readers see either the old or the new itinerary
+            List<Destination> updated = new ArrayList<>(itinerary.size() + added.size());
+            updated.addAll(itinerary);
+            updated.addAll(added);
+            itinerary = Collections.unmodifiableList(updated);
+        }
+        added.forEach(destination -> listeners.fireDestinationAdded(this, destination));
+    }
+
+    /**
+     * Replaces the itinerary with an immutable copy of the given destinations, and notifies the
+     * listeners of every destination that was not in the previous itinerary, as if it had been
+     * added. Destinations left out are dropped silently, as listeners have no removal event.
+     *
+     * @param itinerary The new destinations.
+     */
+    public void setItinerary(List<Destination> itinerary) {
+        List<Destination> replacement = List.copyOf(itinerary);
+        List<Destination> previous;
+        synchronized (itineraryLock) {
+            previous = this.itinerary;
+            this.itinerary = replacement;
+        }
+        Set<Destination> kept = Collections.newSetFromMap(new IdentityHashMap<>()); // Destinations are equal by value
+        kept.addAll(previous);
+        for (Destination destination : replacement) {
+            if (!kept.contains(destination)) {
+                listeners.fireDestinationAdded(this, destination);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener to be notified when destinations are added to this travel package or
+     * passengers are added to or removed from it.
+     *
+     * @param listener The listener to register.
+     */
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(CatalogListener)}.
+     *
+     * @param listener The listener to unregister.
+     */
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
     }
 
     /**
      * Attempts to add a passenger to the travel package. If the number of already enrolled passengers
-     * is less than the passenger capacity, the passenger is added, and the method returns true.
-     * Otherwise, the method returns false, indicating no space available for more passengers.
+     * is less than the passenger capacity and no passenger with the same passenger number is enrolled,
+     * the passenger is added, listeners are notified and the method returns true. Otherwise, the
+     * method returns false, indicating no space available or a duplicate passenger.
      *
      * @param passenger The passenger to be added to the travel package.
      * @return true if the passenger was successfully added, false otherwise.
      */
     public boolean addPassenger(Passenger passenger) {
-        if (passengers.size() < passengerCapacity) {
-            return passengers.add(passenger);
+        boolean added = passengers.add(passenger, passengerCapacity);
+        BookingMetrics.getDefault().recordPassengerAdded(added);
+        if (added) {
+            listeners.firePassengerAdded(this, passenger);
+        }
+        return added;
+    }
+
+    /**
+     * Removes the passenger with the given passenger number from the travel package and notifies
+     * listeners.
+     *
+     * @param passengerNumber The number of the passenger to remove.
+     * @return true if the passenger was enrolled and has been removed, false otherwise.
+     */
+    public boolean removePassenger(int passengerNumber) {
+        Optional<Passenger> removed = passengers.remove(passengerNumber);
+        removed.ifPresent(passenger -> listeners.firePassengerRemoved(this, passenger));
+        return removed.isPresent();
+    }
+
+    /**
+     * Removes a passenger from the travel package and cancels all of the passenger's sign-ups for
+     * activities of its itinerary, releasing their seats and refunding each at the passenger's
+     * tier, see {@link Passenger#cancel(Activity)}.
+     *
+     * @param passengerNumber The number of the passenger to remove.
+     * @return the removed passenger, or empty if no passenger with that number was enrolled.
+     */
+    public Optional<Passenger> cancelPassenger(int passengerNumber) {
+        Optional<Passenger> removed = passengers.remove(passengerNumber);
+        removed.ifPresent(passenger -> {
+            listeners.firePassengerRemoved(this, passenger);
+            for (Destination destination : itinerary) {
+                destination.getActivities().forEach(passenger::cancel);
+            }
+        });
+        return removed;
+    }
+
+    /**
+     * Looks up an enrolled passenger by passenger number.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @return the passenger, or empty if no enrolled passenger has that number.
+     */
+    public Optional<Passenger> findPassenger(int passengerNumber) {
+        return passengers.find(passengerNumber);
+    }
+
+    /**
+     * Returns whether a passenger with the given number is enrolled in the travel package.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @return true if the passenger is enrolled.
+     */
+    public boolean containsPassenger(int passengerNumber) {
+        return passengers.contains(passengerNumber);
+    }
+
+    /**
+     * Returns the enrolled passengers of the given tier, in enrollment order.
+     *
+     * @param tier The tier to filter by.
+     * @return the matching passengers.
+     */
+    public List<Passenger> getPassengersByTier(PassengerTier tier) {
+        return passengers.findByTier(tier);
+    }
+
+    /**
+     * Returns the enrolled passengers whose name starts with the given prefix, ordered by name.
+     *
+     * @param prefix The name prefix to search for.
+     * @return the matching passengers.
+     */
+    public List<Passenger> findPassengersByNamePrefix(String prefix) {
+        return passengers.findByNamePrefix(prefix);
+    }
+
+    /**
+     * Returns an immutable snapshot of the enrolled passengers in enrollment order.
+     *
+     * @return the enrolled passengers.
+     */
+    public List<Passenger> getPassengers() {
+        return passengers.asList();
+    }
+
+    /**
+     * Returns the number of enrolled passengers.
+     *
+     * @return the passenger count.
+     */
+    public int getPassengerCount() {
+        return passengers.size();
+    }
+
+    /**
+     * Returns the activities of the itinerary the passenger with the given number is enrolled in.
+     *
+     * @param passengerNumber The number of an enrolled passenger.
+     * @return the passenger's activities in itinerary order, or an empty list if no such passenger is enrolled.
+     */
+    public List<Activity> getActivitiesOf(int passengerNumber) {
+        Optional<Passenger> passenger = passengers.find(passengerNumber);
+        List<Activity> activities = new ArrayList<>();
+        if (passenger.isPresent()) {
+            for (Destination destination : itinerary) {
+                for (Activity activity : destination.getActivities()) {
+                    if (passenger.get().isEnrolledIn(activity)) {
+                        activities.add(activity);
+                    }
+                }
+            }
+        }
+        return activities;
+    }
+
+    /**
+     * Returns the passengers of this package enrolled in every one of the given activities,
+     * found by intersecting the activities' rosters.
+     *
+     * @param activities The activities, at least one.
+     * @return the matching passengers, ordered by passenger number.
+     */
+    public List<Passenger> getPassengersEnrolledIn(Activity... activities) {
+        if (activities.length == 0) {
+            throw new IllegalArgumentException("At least one activity is required");
         }
-        return false;
+        CompressedBitmap common = activities[0].getRoster();
+        for (int i = 1; i < activities.length && !common.isEmpty(); i++) {
+            common = common.and(activities[i].getRoster());
+        }
+        List<Passenger> enrolled = new ArrayList<>(common.cardinality());
+        common.forEach(passengerNumber -> passengers.find(passengerNumber).ifPresent(enrolled::add));
+        return enrolled;
     }
 
     /**
@@ -49,15 +290,10 @@ public class TravelPackage {
      * including the name, cost, capacity, and description of each activity.
      */
     public void printItinerary() {
-        System.out.println("Travel Package: " + this.name);
-        for (Destination destination : this.itinerary) {
-            System.out.println("Destination: " + destination.getName());
-            for (Activity activity : destination.getActivities()) {
-                System.out.println("    Activity: " + activity.getName());
-                System.out.println("        Cost: " + activity.getCost());
-                System.out.println("        Capacity: " + activity.getCapacity());
-                System.out.println("        Description: " + activity.getDescription());
-            }
+        try {
+            TravelRenderer.forCurrentThread(RenderFormat.TEXT).renderItinerary(this, (Appendable) System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -67,11 +303,10 @@ public class TravelPackage {
      * and number of each passenger.
      */
     public void printPassengerList() {
-        System.out.println("Travel Package: " + this.name);
-        System.out.println("Passenger Capacity: " + this.passengerCapacity);
-        System.out.println("Number of Passengers Enrolled: " + this.passengers.size());
-        for (Passenger passenger : this.passengers) {
-            System.out.println("    Name: " + passenger.getName() + ", Number: " + passenger.getPassengerNumber());
+        try {
+            TravelRenderer.forCurrentThread(RenderFormat.TEXT).renderPassengerList(this, (Appendable) System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
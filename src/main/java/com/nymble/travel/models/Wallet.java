@@ -0,0 +1,162 @@
+package com.nymble.travel.models;
+
+import com.nymble.travel.metrics.BookingMetrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Holds a passenger's balance as a fixed-point amount of integer cents. All changes go
+ * through atomic compare-and-set operations, so concurrent debits for the same passenger
+ * can neither lose updates nor overdraw the balance. Amounts are converted from and to
+ * the {@code double} values used elsewhere in the models by rounding to the nearest cent.
+ * <p>
+ * The balance lives in the wallet itself, or, for wallets opened through a {@link BalanceLedger},
+ * in the ledger's off-heap slot for the account, in which case the wallet is only a handle.
+ */
+public final class Wallet {
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Wallet.class, "balanceCents", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final BalanceLedger ledger; // Ledger holding the balance, or null if held here
+    private final int account; // Account of the balance in the ledger
+    private volatile long balanceCents; // Current balance in cents when held here, never negative
+
+    /**
+     * Creates a wallet holding the given balance.
+     *
+     * @param balanceCents The initial balance in cents, must not be negative.
+     */
+    public Wallet(long balanceCents) {
+        if (balanceCents < 0) {
+            throw new IllegalArgumentException("Balance must not be negative: " + balanceCents);
+        }
+        this.ledger = null;
+        this.account = 0;
+        this.balanceCents = balanceCents;
+    }
+
+    /**
+     * Creates a handle on an account opened in a ledger.
+     */
+    Wallet(BalanceLedger ledger, int account) {
+        this.ledger = ledger;
+        this.account = account;
+    }
+
+    /**
+     * Returns whether the balance is held off-heap in a {@link BalanceLedger}.
+     *
+     * @return true if the wallet is a ledger account.
+     */
+    public boolean isLedgerAccount() {
+        return ledger != null;
+    }
+
+    /**
+     * Creates a wallet holding the given balance, rounded to the nearest cent.
+     *
+     * @param balance The initial balance.
+     * @return a new wallet holding the balance.
+     */
+    public static Wallet of(double balance) {
+        return new Wallet(toCents(balance));
+    }
+
+    /**
+     * Converts an amount to cents, rounding to the nearest cent.
+     *
+     * @param amount The amount to convert.
+     * @return the amount in cents.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Atomically debits the given amount if the balance covers it.
+     *
+     * @param cents The amount to debit in cents, must not be negative.
+     * @return true if the amount was debited, false if the balance is insufficient.
+     */
+    public boolean tryDebit(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Amount to debit must not be negative: " + cents);
+        }
+        if (ledger != null) {
+            return ledger.tryDebit(account, cents);
+        }
+        for (;;) {
+            long balance = balanceCents;
+            if (balance < cents) {
+                return false;
+            }
+            if (BALANCE.compareAndSet(this, balance, balance - cents)) {
+                return true;
+            }
+            BookingMetrics.getDefault().recordBalanceRetry(); // Lost to a concurrent debit or credit
+        }
+    }
+
+    /**
+     * Atomically credits the given amount, for example to compensate a debit.
+     *
+     * @param cents The amount to credit in cents, must not be negative.
+     */
+    public void credit(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Amount to credit must not be negative: " + cents);
+        }
+        if (ledger != null) {
+            ledger.credit(account, cents);
+        } else {
+            BALANCE.getAndAdd(this, cents);
+        }
+    }
+
+    /**
+     * Returns the current balance in cents.
+     *
+     * @return the balance in cents.
+     */
+    public long getBalanceCents() {
+        return ledger != null ? ledger.get(account) : balanceCents;
+    }
+
+    /**
+     * Replaces the balance, discarding the previous value.
+     *
+     * @param cents The new balance in cents, must not be negative.
+     */
+    public void setBalanceCents(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Balance must not be negative: " + cents);
+        }
+        if (ledger != null) {
+            ledger.set(account, cents);
+        } else {
+            balanceCents = cents;
+        }
+    }
+
+    /**
+     * Returns the current balance as a decimal amount.
+     *
+     * @return the balance.
+     */
+    public double getBalance() {
+        return getBalanceCents() / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        return "Wallet(balance=" + getBalance() + ")";
+    }
+}
@@ -0,0 +1,359 @@
+package com.nymble.travel.persistence;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Records every change to the travel packages as a redo record in a {@link MappedLog}: created
+ * packages, added destinations and activities, enrolled and removed passengers, booked and
+ * cancelled sign-ups together with the amount debited from or refunded to the passenger's
+ * balance, and seats held without a passenger, which imported packages may carry. Replaying the
+ * records in order onto the state they were written against reproduces the packages exactly.
+ * <p>
+ * Destinations and activities are referenced by their position in the itinerary, which never
+ * changes once assigned, and passengers by their number within the package. A journal created
+ * through {@link #discarding()} accepts the same calls but keeps nothing, for running without
+ * persistence.
+ */
+public final class BookingJournal implements Closeable {
+    private static final byte PACKAGE_CREATED = 1;
+    private static final byte DESTINATION_ADDED = 2;
+    private static final byte ACTIVITY_ADDED = 3;
+    private static final byte PASSENGER_ADDED = 4;
+    private static final byte SIGNED_UP = 5;
+    private static final byte CANCELLED = 6;
+    private static final byte PASSENGER_REMOVED = 7;
+    private static final byte SEATS_RESERVED = 8;
+
+    private static final int REGION_BYTES = 16 << 20; // Journal bytes mapped at a time
+
+    private final MappedLog log; // The underlying log, or null when records are discarded
+
+    private BookingJournal(MappedLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Returns a journal that accepts records without storing them.
+     *
+     * @return a discarding journal.
+     */
+    public static BookingJournal discarding() {
+        return new BookingJournal(null);
+    }
+
+    /**
+     * Opens the journal in the given file, first replaying its valid records onto the packages.
+     * Packages created by the replayed records are added to the map.
+     *
+     * @param file The journal file, created if it does not exist.
+     * @param packages The packages restored so far, keyed by name.
+     * @return the opened journal, positioned after the last valid record.
+     * @throws IOException if the file cannot be read or mapped.
+     * @throws IllegalStateException if a record does not match the state it is replayed onto.
+     */
+    static BookingJournal open(Path file, Map<String, TravelPackage> packages) throws IOException {
+        return new BookingJournal(MappedLog.open(file, REGION_BYTES, record -> replay(record, packages)));
+    }
+
+    /**
+     * Records the creation of a package with an empty itinerary.
+     */
+    public void packageCreated(TravelPackage travelPackage) {
+        if (log == null) {
+            return;
+        }
+        byte[] name = utf8(travelPackage.getName());
+        ByteBuffer record = record(PACKAGE_CREATED, name, 4);
+        putString(record, name);
+        record.putInt(travelPackage.getPassengerCapacity());
+        append(record);
+    }
+
+    /**
+     * Records a destination appended to the itinerary of a package.
+     */
+    public void destinationAdded(TravelPackage travelPackage, Destination destination) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        byte[] name = utf8(destination.getName());
+        ByteBuffer record = record(DESTINATION_ADDED, packageName, 4 + length(name));
+        putString(record, packageName);
+        putString(record, name);
+        append(record);
+    }
+
+    /**
+     * Records an activity appended to a destination, before any passenger signed up for it.
+     */
+    public void activityAdded(TravelPackage travelPackage, int destinationIndex, Activity activity) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        byte[] name = utf8(activity.getName());
+        byte[] description = utf8(activity.getDescription());
+        ByteBuffer record = record(ACTIVITY_ADDED, packageName, 4 + length(name) + length(description) + 8 + 4);
+        putString(record, packageName);
+        record.putInt(destinationIndex);
+        putString(record, name);
+        putString(record, description);
+        record.putDouble(activity.getCost());
+        record.putInt(activity.getCapacity());
+        append(record);
+    }
+
+    /**
+     * Records a passenger enrolled in a package, with the balance the passenger joined with.
+     */
+    public void passengerAdded(TravelPackage travelPackage, Passenger passenger) {
+        passengerAdded(travelPackage, passenger, passenger.getWallet().getBalanceCents());
+    }
+
+    /**
+     * Records a passenger enrolled in a package with the given balance, for passengers whose
+     * sign-ups are journaled afterwards with what they were charged: the balance is then the
+     * current one plus those charges, since replaying the sign-ups debits them again.
+     */
+    public void passengerAdded(TravelPackage travelPackage, Passenger passenger, long balanceCents) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        byte[] name = utf8(passenger.getName());
+        ByteBuffer record = record(PASSENGER_ADDED, packageName, 1 + length(name) + 4 + 8);
+        putString(record, packageName);
+        record.put((byte) passenger.getTier().ordinal());
+        putString(record, name);
+        record.putInt(passenger.getPassengerNumber());
+        record.putLong(balanceCents);
+        append(record);
+    }
+
+    /**
+     * Records a booked sign-up: one seat of the activity taken and the price debited from the
+     * passenger's balance.
+     */
+    public void signedUp(TravelPackage travelPackage, int passengerNumber, int destinationIndex, int activityIndex,
+                         long priceCents) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        ByteBuffer record = record(SIGNED_UP, packageName, 4 + 4 + 4 + 8);
+        putString(record, packageName);
+        record.putInt(passengerNumber);
+        record.putInt(destinationIndex);
+        record.putInt(activityIndex);
+        record.putLong(priceCents);
+        append(record);
+    }
+
+    /**
+     * Records a cancelled sign-up: one seat of the activity released and the refund credited to
+     * the passenger's balance.
+     */
+    public void cancelled(TravelPackage travelPackage, int passengerNumber, int destinationIndex, int activityIndex,
+                          long refundCents) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        ByteBuffer record = record(CANCELLED, packageName, 4 + 4 + 4 + 8);
+        putString(record, packageName);
+        record.putInt(passengerNumber);
+        record.putInt(destinationIndex);
+        record.putInt(activityIndex);
+        record.putLong(refundCents);
+        append(record);
+    }
+
+    /**
+     * Records a passenger removed from a package, after the cancellations of its sign-ups.
+     */
+    public void passengerRemoved(TravelPackage travelPackage, int passengerNumber) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        ByteBuffer record = record(PASSENGER_REMOVED, packageName, 4);
+        putString(record, packageName);
+        record.putInt(passengerNumber);
+        append(record);
+    }
+
+    /**
+     * Records seats of an activity taken without a passenger, such as the held seats of an
+     * imported package.
+     */
+    public void seatsReserved(TravelPackage travelPackage, int destinationIndex, int activityIndex, int seats) {
+        if (log == null) {
+            return;
+        }
+        byte[] packageName = utf8(travelPackage.getName());
+        ByteBuffer record = record(SEATS_RESERVED, packageName, 4 + 4 + 4);
+        putString(record, packageName);
+        record.putInt(destinationIndex);
+        record.putInt(activityIndex);
+        record.putInt(seats);
+        append(record);
+    }
+
+    /**
+     * Returns the number of records in the journal, including those replayed when it was opened.
+     *
+     * @return the record count.
+     */
+    public long getRecordCount() {
+        return log == null ? 0 : log.getRecordCount();
+    }
+
+    /**
+     * Returns the position after the last appended record, to pass to {@link #sync(long)}.
+     *
+     * @return the journal position.
+     */
+    long position() {
+        return log == null ? 0 : log.position();
+    }
+
+    /**
+     * Blocks until every record up to the position is on disk, sharing the disk force with
+     * concurrent callers.
+     */
+    void sync(long upTo) throws IOException {
+        if (log != null) {
+            log.sync(upTo);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private void append(ByteBuffer record) {
+        try {
+            log.append(record.flip());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the booking journal", e);
+        }
+    }
+
+    private static ByteBuffer record(byte type, byte[] packageName, int moreBytes) {
+        return ByteBuffer.allocate(1 + length(packageName) + moreBytes).order(ByteOrder.LITTLE_ENDIAN).put(type);
+    }
+
+    private static void replay(ByteBuffer record, Map<String, TravelPackage> packages) {
+        byte type = record.get();
+        String packageName = getString(record);
+        if (type == PACKAGE_CREATED) {
+            packages.put(packageName, TravelPackage.builder().name(packageName).passengerCapacity(record.getInt()).build());
+            return;
+        }
+        TravelPackage travelPackage = packages.get(packageName);
+        if (travelPackage == null) {
+            throw new IllegalStateException("Journal refers to unknown travel package " + packageName);
+        }
+        switch (type) {
+            case DESTINATION_ADDED -> travelPackage.addDestination(Destination.builder().name(getString(record)).build());
+            case ACTIVITY_ADDED -> {
+                Destination destination = travelPackage.getItinerary().get(record.getInt());
+                destination.addActivity(Activity.builder()
+                        .name(getString(record))
+                        .description(getString(record))
+                        .cost(record.getDouble())
+                        .capacity(record.getInt())
+                        .build());
+            }
+            case PASSENGER_ADDED -> {
+                PassengerTier tier = PassengerTier.values()[record.get()];
+                Passenger passenger = tier.newPassenger(getString(record), record.getInt(), 0);
+                passenger.getWallet().setBalanceCents(record.getLong());
+                if (!travelPackage.addPassenger(passenger)) {
+                    throw new IllegalStateException("Journal enrolls passenger " + passenger.getPassengerNumber()
+                            + " twice or beyond the capacity of " + packageName);
+                }
+            }
+            case SIGNED_UP -> {
+                int passengerNumber = record.getInt();
+                Passenger passenger = travelPackage.findPassenger(passengerNumber).orElseThrow(() ->
+                        new IllegalStateException("Journal refers to unknown passenger " + passengerNumber));
+                Activity activity = travelPackage.getItinerary().get(record.getInt()).getActivities().get(record.getInt());
+                long priceCents = record.getLong();
+                if (!activity.addPassenger(passenger) || !passenger.getWallet().tryDebit(priceCents)) {
+                    throw new IllegalStateException("Journal books passenger " + passengerNumber
+                            + " twice or beyond the seats or balance available for " + activity.getName());
+                }
+                passenger.recordCharge(activity, priceCents);
+            }
+            case CANCELLED -> {
+                int passengerNumber = record.getInt();
+                Passenger passenger = travelPackage.findPassenger(passengerNumber).orElseThrow(() ->
+                        new IllegalStateException("Journal refers to unknown passenger " + passengerNumber));
+                Activity activity = travelPackage.getItinerary().get(record.getInt()).getActivities().get(record.getInt());
+                if (!passenger.cancel(activity, record.getLong())) {
+                    throw new IllegalStateException("Journal cancels passenger " + passengerNumber
+                            + " who is not signed up for " + activity.getName());
+                }
+            }
+            case PASSENGER_REMOVED -> {
+                int passengerNumber = record.getInt();
+                if (!travelPackage.removePassenger(passengerNumber)) {
+                    throw new IllegalStateException("Journal removes unknown passenger " + passengerNumber);
+                }
+            }
+            case SEATS_RESERVED -> {
+                Activity activity = travelPackage.getItinerary().get(record.getInt()).getActivities().get(record.getInt());
+                int seats = record.getInt();
+                if (activity.reserveUpTo(seats) < seats) {
+                    throw new IllegalStateException("Journal reserves " + seats + " seats beyond the capacity of "
+                            + activity.getName());
+                }
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
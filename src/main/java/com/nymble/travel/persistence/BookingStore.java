@@ -0,0 +1,263 @@
+package com.nymble.travel.persistence;
+
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the travel packages durable in a directory of numbered journals and snapshots.
+ * <p>
+ * Every change is applied through {@link #update(Function)}, which records it in the current
+ * {@link BookingJournal} and returns once the record is on disk. Once the journal holds more than
+ * the snapshot threshold of records, a background thread rolls over to a new journal generation
+ * and writes a {@link ModelSnapshot} of the packages as of the roll-over, after which the older
+ * journals and snapshots are deleted. Recovery therefore loads the latest snapshot and replays at
+ * most the journals written since, which bounds the recovery time by the threshold.
+ * <p>
+ * Updates share a read lock, so they run concurrently; only the roll-over takes the write lock,
+ * which guarantees every change is either in the snapshot or in the journal that follows it.
+ */
+public final class BookingStore implements Closeable {
+    private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(?:log|bin)");
+
+    private final Path directory; // The directory holding the files, or null when nothing is kept
+    private final long snapshotThreshold; // Journal records that trigger a snapshot
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+    private final ExecutorService snapshotter;
+    private volatile BookingJournal journal;
+    private long generation; // Generation of the current journal
+    private Supplier<Collection<TravelPackage>> packages = List::of; // The packages snapshots are taken of
+
+    private BookingStore(Path directory, long snapshotThreshold) {
+        this.directory = directory;
+        this.snapshotThreshold = snapshotThreshold;
+        this.journal = BookingJournal.discarding();
+        this.snapshotter = directory == null ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a store keeping its files in the given directory. Call {@link #recover(Map)} before
+     * applying any update.
+     *
+     * @param directory The directory for journals and snapshots, created if missing.
+     * @param snapshotThreshold The number of journal records after which a snapshot is taken.
+     * @return the opened store.
+     * @throws IOException if the directory cannot be created.
+     */
+    public static BookingStore open(Path directory, long snapshotThreshold) throws IOException {
+        if (snapshotThreshold <= 0) {
+            throw new IllegalArgumentException("Snapshot threshold must be positive: " + snapshotThreshold);
+        }
+        Files.createDirectories(directory);
+        return new BookingStore(directory, snapshotThreshold);
+    }
+
+    /**
+     * Returns a store that keeps nothing, for running without persistence.
+     *
+     * @return a store with a discarding journal.
+     */
+    public static BookingStore inMemory() {
+        return new BookingStore(null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Restores the packages from the latest snapshot and the journals written after it, and
+     * takes later snapshots of the packages in the map.
+     *
+     * @param packages Receives the restored packages, keyed by name.
+     * @throws IOException if a file cannot be read.
+     * @throws IllegalStateException if a journal does not match the snapshot it follows.
+     */
+    public void recover(Map<String, TravelPackage> packages) throws IOException {
+        recover(packages, packages::values);
+    }
+
+    /**
+     * Restores the packages from the latest snapshot and the journals written after it, and
+     * takes later snapshots of the packages the source returns at the time.
+     *
+     * @param packages Receives the restored packages, keyed by name.
+     * @param source Returns the packages to snapshot, including those created after recovery.
+     * @throws IOException if a file cannot be read.
+     * @throws IllegalStateException if a journal does not match the snapshot it follows.
+     */
+    public void recover(Map<String, TravelPackage> packages, Supplier<Collection<TravelPackage>> source)
+            throws IOException {
+        lock.writeLock().lock();
+        try {
+            this.packages = source;
+            if (directory == null) {
+                return;
+            }
+            TreeMap<Long, Path> journals = new TreeMap<>();
+            TreeMap<Long, Path> snapshots = new TreeMap<>();
+            listFiles(journals, snapshots);
+            long base = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+            if (!snapshots.isEmpty()) {
+                ModelSnapshot.read(snapshots.lastEntry().getValue(), packages);
+            }
+            generation = journals.isEmpty() ? base : Math.max(base, journals.lastKey());
+            for (Map.Entry<Long, Path> entry : journals.tailMap(base).entrySet()) {
+                if (entry.getKey() < generation) {
+                    BookingJournal.open(entry.getValue(), packages).close(); // Replay a journal left by a failed snapshot
+                }
+            }
+            journal = BookingJournal.open(journalFile(generation), packages);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change and records it in the journal, returning once the record is on disk.
+     * The mutation must both change the packages and describe that change to the journal, so a
+     * snapshot never separates the two. Concurrent updates share the disk force of their records.
+     *
+     * @param mutation Changes the packages and records the change; may throw to reject it.
+     * @return the result of the mutation.
+     * @throws UncheckedIOException if the record cannot be forced to disk.
+     */
+    public <T> T update(Function<BookingJournal, T> mutation) {
+        if (directory == null) {
+            return mutation.apply(journal);
+        }
+        BookingJournal current;
+        long start;
+        long end;
+        T result;
+        lock.readLock().lock();
+        try {
+            current = journal;
+            start = current.position();
+            result = mutation.apply(current);
+            end = current.position();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (end != start) {
+            try {
+                current.sync(end); // Also covers the records of concurrent updates
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync the booking journal", e);
+            }
+            if (current.getRecordCount() >= snapshotThreshold && snapshotScheduled.compareAndSet(false, true)) {
+                snapshotter.execute(this::snapshotInBackground);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rolls over to a new journal and writes a snapshot of the packages as of the roll-over,
+     * then deletes the files the snapshot supersedes.
+     *
+     * @throws IOException if a file cannot be written.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        long snapshotGeneration;
+        byte[] image;
+        lock.writeLock().lock();
+        try {
+            journal.close();
+            snapshotGeneration = ++generation;
+            journal = BookingJournal.open(journalFile(snapshotGeneration), new HashMap<>());
+            image = ModelSnapshot.encode(packages.get()); // Updates are paused only while copying the packages
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ModelSnapshot.write(directory.resolve("snapshot-" + snapshotGeneration + ".bin"), image);
+        TreeMap<Long, Path> journals = new TreeMap<>();
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        listFiles(journals, snapshots);
+        for (Path superseded : journals.headMap(snapshotGeneration).values()) {
+            Files.deleteIfExists(superseded);
+        }
+        for (Path superseded : snapshots.headMap(snapshotGeneration).values()) {
+            Files.deleteIfExists(superseded);
+        }
+    }
+
+    private void snapshotInBackground() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to snapshot the travel packages", e); // Retried after the next update
+        } finally {
+            snapshotScheduled.set(false);
+        }
+    }
+
+    /**
+     * Returns the number of records in the current journal, the ones recovery would replay.
+     *
+     * @return the journal record count.
+     */
+    public long getJournalRecordCount() {
+        return journal.getRecordCount();
+    }
+
+    private void listFiles(Map<Long, Path> journals, Map<Long, Path> snapshots) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    long fileGeneration = Long.parseLong(matcher.group(2));
+                    (matcher.group(1).equals("journal") ? journals : snapshots).put(fileGeneration, file);
+                }
+            });
+        }
+    }
+
+    private Path journalFile(long journalGeneration) {
+        return directory.resolve("journal-" + journalGeneration + ".log");
+    }
+
+    /**
+     * Waits for a running snapshot and closes the journal, forcing its records to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            journal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.nymble.travel.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only log of binary records in a memory-mapped file. Each record is framed by its
+ * length and a CRC32C checksum, so a record torn by a crash is detected and discarded on open.
+ * <p>
+ * Appends copy the record into the mapped region and return immediately. Durability is requested
+ * separately through {@link #sync(long)}, which batches concurrent callers into group commits: one
+ * caller forces the mapped pages to disk on behalf of every record appended so far, while the
+ * others wait for that force to cover their records instead of issuing their own.
+ */
+final class MappedLog implements Closeable {
+    private static final int HEADER_BYTES = 8; // Payload length and checksum
+    private static final int MAX_WINDOW = 64 << 20; // Bytes mapped at once while scanning
+
+    private final FileChannel channel;
+    private final int regionBytes; // Size of each mapped region
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition forceDone = lock.newCondition();
+    private final List<MappedByteBuffer> unforced = new ArrayList<>(); // Filled regions not yet forced
+    private MappedByteBuffer region; // Region records are appended to
+    private long regionStart; // File offset of the region
+    private long position; // File offset just after the last appended record
+    private long forcedPosition; // Everything before this offset is on disk
+    private long records; // Number of records in the log, replayed or appended
+    private boolean forcing; // Whether a group commit is in progress
+
+    private MappedLog(FileChannel channel, int regionBytes, long position, long records) {
+        this.channel = channel;
+        this.regionBytes = regionBytes;
+        this.position = position;
+        this.forcedPosition = position;
+        this.records = records;
+    }
+
+    /**
+     * Opens the log in the given file, creating it if necessary. Valid records already in the file
+     * are passed to the visitor in order; a torn or corrupt tail is truncated away so new records
+     * are appended right after the last valid one.
+     *
+     * @param file The log file.
+     * @param regionBytes The size of the regions mapped for appending.
+     * @param visitor Receives the payload of each existing record, positioned at its start.
+     * @return the opened log.
+     * @throws IOException if the file cannot be read or mapped.
+     */
+    static MappedLog open(Path file, int regionBytes, Consumer<ByteBuffer> visitor) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long[] replayed = new long[1];
+            long end = scan(channel, record -> {
+                visitor.accept(record);
+                replayed[0]++;
+            });
+            if (channel.size() > end) {
+                channel.truncate(end); // Drop the torn tail so fresh regions start zero-filled
+            }
+            return new MappedLog(channel, regionBytes, end, replayed[0]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the records of the channel in order and returns the offset just after the last valid one.
+     */
+    private static long scan(FileChannel channel, Consumer<ByteBuffer> visitor) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        CRC32C crc = new CRC32C();
+        while (offset + HEADER_BYTES <= size) {
+            long windowBytes = Math.min(size - offset, MAX_WINDOW);
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowBytes).order(ByteOrder.LITTLE_ENDIAN);
+            int consumed = 0;
+            while (consumed + HEADER_BYTES <= windowBytes) {
+                int length = window.getInt(consumed);
+                if (length <= 0 || offset + consumed + HEADER_BYTES + length > size) {
+                    return offset + consumed; // End of the log, or a record cut short by a crash
+                }
+                if (consumed + HEADER_BYTES + length > windowBytes) {
+                    if (consumed == 0) {
+                        windowBytes = HEADER_BYTES + length; // A single record larger than the window
+                        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowBytes).order(ByteOrder.LITTLE_ENDIAN);
+                    } else {
+                        break; // Remap starting at this record
+                    }
+                }
+                ByteBuffer payload = window.slice(consumed + HEADER_BYTES, length).order(ByteOrder.LITTLE_ENDIAN);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != window.getInt(consumed + 4)) {
+                    return offset + consumed; // Partially written record
+                }
+                visitor.accept(payload);
+                consumed += HEADER_BYTES + length;
+            }
+            offset += consumed;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends a record. The record is visible to {@link #open} once the mapped pages reach the
+     * disk, which happens at the latest on the next {@link #sync(long)} covering it.
+     *
+     * @param payload The record, from its position to its limit.
+     * @return the log position just after the record, to pass to {@link #sync(long)}.
+     * @throws IOException if a new region cannot be mapped.
+     */
+    long append(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (length == 0) {
+            throw new IllegalArgumentException("Records must not be empty");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        lock.lock();
+        try {
+            int offset = (int) (position - regionStart);
+            if (region == null || offset + HEADER_BYTES + length > region.capacity()) {
+                mapRegion(HEADER_BYTES + length);
+                offset = 0;
+            }
+            region.putInt(offset, length);
+            region.putInt(offset + 4, (int) crc.getValue());
+            region.put(offset + HEADER_BYTES, payload, payload.position(), length);
+            position += HEADER_BYTES + length;
+            records++;
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void mapRegion(int minBytes) throws IOException {
+        if (region != null) {
+            unforced.add(region);
+        }
+        regionStart = position;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(regionBytes, minBytes));
+        region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Blocks until every record up to the given position is on disk. Concurrent callers share
+     * a single force of the mapped pages.
+     *
+     * @param upTo A position returned by {@link #append(ByteBuffer)}.
+     * @throws IOException if the pages cannot be forced.
+     */
+    void sync(long upTo) throws IOException {
+        lock.lock();
+        try {
+            while (forcedPosition < upTo) {
+                if (forcing) {
+                    forceDone.awaitUninterruptibly(); // Another caller's force may cover our records
+                    continue;
+                }
+                forcing = true;
+                long target = position;
+                List<MappedByteBuffer> regions = new ArrayList<>(unforced);
+                unforced.clear();
+                regions.add(region);
+                boolean forced = false;
+                lock.unlock();
+                try {
+                    for (MappedByteBuffer buffer : regions) {
+                        buffer.force();
+                    }
+                    forced = true;
+                } finally {
+                    lock.lock();
+                    forcing = false;
+                    if (forced) {
+                        forcedPosition = Math.max(forcedPosition, target);
+                    } else {
+                        regions.remove(region); // Retry the filled regions on the next sync
+                        unforced.addAll(0, regions);
+                    }
+                    forceDone.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the position just after the last appended record.
+     *
+     * @return the log position.
+     */
+    long position() {
+        lock.lock();
+        try {
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of records in the log, including those found when it was opened.
+     *
+     * @return the record count.
+     */
+    long getRecordCount() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces all appended records to disk, trims the unused end of the last region and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long end = position();
+            sync(end);
+            channel.truncate(end);
+        } finally {
+            channel.close();
+        }
+    }
+}
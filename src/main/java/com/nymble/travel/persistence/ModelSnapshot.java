@@ -0,0 +1,169 @@
+package com.nymble.travel.persistence;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Compact binary image of the travel packages: the enrolled passengers of every package with
+ * their balances in cents, and the itinerary with the seats taken and the roster of each activity,
+ * with what each sign-up was charged. A snapshot is encoded in memory first, so the packages only
+ * need to stay still while they are copied, and then written to a temporary file that atomically
+ * replaces the target once it is on disk.
+ */
+public final class ModelSnapshot {
+    private static final int MAGIC = 0x54524156; // "TRAV"
+    private static final int VERSION = 3;
+
+    private ModelSnapshot() {
+    }
+
+    /**
+     * Encodes the packages into a snapshot image.
+     *
+     * @param packages The packages to encode.
+     * @return the snapshot bytes.
+     */
+    public static byte[] encode(Collection<TravelPackage> packages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(packages.size());
+            for (TravelPackage travelPackage : packages) {
+                writeString(out, travelPackage.getName());
+                out.writeInt(travelPackage.getPassengerCapacity());
+                Collection<Passenger> passengers = travelPackage.getPassengers();
+                out.writeInt(passengers.size());
+                for (Passenger passenger : passengers) {
+                    out.writeByte(passenger.getTier().ordinal());
+                    writeString(out, passenger.getName());
+                    out.writeInt(passenger.getPassengerNumber());
+                    out.writeLong(passenger.getWallet().getBalanceCents());
+                }
+                out.writeInt(travelPackage.getItinerary().size());
+                for (Destination destination : travelPackage.getItinerary()) {
+                    writeString(out, destination.getName());
+                    out.writeInt(destination.getActivities().size());
+                    for (Activity activity : destination.getActivities()) {
+                        writeString(out, activity.getName());
+                        writeString(out, activity.getDescription());
+                        out.writeDouble(activity.getCost());
+                        out.writeInt(activity.getCapacity());
+                        int[] roster = activity.getEnrolledPassengerNumbers();
+                        out.writeInt(activity.getEnrolledPassengers() - roster.length); // Seats held by no passenger
+                        out.writeInt(roster.length);
+                        for (int passengerNumber : roster) {
+                            out.writeInt(passengerNumber);
+                            out.writeLong(travelPackage.findPassenger(passengerNumber)
+                                    .map(passenger -> passenger.getChargeCents(activity))
+                                    .orElse(0L)); // Refunded if the sign-up is cancelled
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes an encoded snapshot to the file, replacing it atomically once the bytes are on disk.
+     *
+     * @param file The snapshot file.
+     * @param snapshot The bytes returned by {@link #encode(Collection)}.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path file, byte[] snapshot) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a snapshot file, adding the packages it holds to the map.
+     *
+     * @param file The snapshot file.
+     * @param packages Receives the restored packages, keyed by name.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static void read(Path file, Map<String, TravelPackage> packages) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a travel snapshot: " + file);
+            }
+            PassengerTier[] tiers = PassengerTier.values();
+            for (int p = in.readInt(); p > 0; p--) {
+                TravelPackage travelPackage = TravelPackage.builder()
+                        .name(readString(in))
+                        .passengerCapacity(in.readInt())
+                        .build();
+                for (int n = in.readInt(); n > 0; n--) {
+                    Passenger passenger = tiers[in.readByte()].newPassenger(readString(in), in.readInt(), 0);
+                    passenger.getWallet().setBalanceCents(in.readLong());
+                    travelPackage.addPassenger(passenger);
+                }
+                for (int d = in.readInt(); d > 0; d--) {
+                    Destination destination = Destination.builder().name(readString(in)).build();
+                    for (int a = in.readInt(); a > 0; a--) {
+                        Activity activity = Activity.builder()
+                                .name(readString(in))
+                                .description(readString(in))
+                                .cost(in.readDouble())
+                                .capacity(in.readInt())
+                                .build();
+                        activity.reserveUpTo(in.readInt());
+                        for (int r = in.readInt(); r > 0; r--) {
+                            int passengerNumber = in.readInt();
+                            Passenger passenger = travelPackage.findPassenger(passengerNumber).orElseThrow(() ->
+                                    new IOException("Snapshot enrolls unknown passenger " + passengerNumber));
+                            activity.addPassenger(passenger);
+                            passenger.recordCharge(activity, in.readLong());
+                        }
+                        destination.addActivity(activity);
+                    }
+                    travelPackage.addDestination(destination);
+                }
+                packages.put(travelPackage.getName(), travelPackage);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
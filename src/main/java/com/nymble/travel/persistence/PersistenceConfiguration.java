@@ -0,0 +1,27 @@
+package com.nymble.travel.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Provides the {@link BookingStore} of the application. Persistence is enabled with
+ * {@code travel.persistence.enabled=true}; journals and snapshots are then kept in
+ * {@code travel.persistence.directory}, with a snapshot taken every
+ * {@code travel.persistence.snapshot-threshold} journal records. Otherwise bookings are held in
+ * memory only.
+ */
+@Configuration
+public class PersistenceConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public BookingStore bookingStore(@Value("${travel.persistence.enabled:false}") boolean enabled,
+                                     @Value("${travel.persistence.directory:data}") String directory,
+                                     @Value("${travel.persistence.snapshot-threshold:250000}") long snapshotThreshold)
+            throws IOException {
+        return enabled ? BookingStore.open(Path.of(directory), snapshotThreshold) : BookingStore.inMemory();
+    }
+}
@@ -0,0 +1,31 @@
+package com.nymble.travel.planning;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+
+import java.util.List;
+
+/**
+ * The activities an {@link ItineraryPlanner} chose for one passenger.
+ *
+ * @param passengerNumber The number of the passenger.
+ * @param budgetCents The budget the plan had to fit, in cents.
+ * @param activities The chosen activities in itinerary order.
+ * @param totalCents The price of all chosen activities for the passenger, in cents.
+ * @param value The total value of the chosen activities, as scored by the planner.
+ * @param optimal Whether the plan is proven to have the highest value; false if the search was cut
+ *                short, in which case it is the best plan found within the search limit.
+ */
+public record ItineraryPlan(int passengerNumber, long budgetCents, List<PlannedActivity> activities, long totalCents,
+                            long value, boolean optimal) {
+
+    /**
+     * One activity of a plan.
+     *
+     * @param destination The destination offering the activity.
+     * @param activity The activity.
+     * @param priceCents The price the passenger pays, in cents.
+     */
+    public record PlannedActivity(Destination destination, Activity activity, long priceCents) {
+    }
+}
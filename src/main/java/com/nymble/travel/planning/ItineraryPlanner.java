@@ -0,0 +1,428 @@
+package com.nymble.travel.planning;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.models.Wallet;
+import com.nymble.travel.planning.ItineraryPlan.PlannedActivity;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Chooses the most valuable set of activities of a package that a passenger can afford: a 0/1
+ * knapsack where each activity weighs what the passenger's tier pays for it, see
+ * {@link Passenger#quoteInCents(Activity)}, and is worth its score. By default an activity is
+ * worth its list price, so discounted passengers get more out of the same budget. Only activities
+ * with a free seat that the passenger is not yet enrolled in are considered, and the number of
+ * activities per destination can be limited.
+ * <p>
+ * The search is a depth-first branch and bound over the activities sorted by value per cent. A
+ * greedy plan seeds the incumbent, and each branch is cut when the fractional relaxation of the
+ * remaining activities, read from prefix sums in O(log n), cannot beat it. Without a destination
+ * limit, the search also memoizes the best value with which it reached each (activity, remaining
+ * budget) state, so a state reached again with no more value is not explored twice; this turns the
+ * search into a dynamic program over the reachable states when values and prices are correlated,
+ * as with list prices. The number of explored states is capped, so a plan always arrives within a
+ * bounded time; it is then the best one found and reported as not optimal.
+ * <p>
+ * Plans for many passengers are computed in parallel on a {@link ForkJoinPool}. A planner holds no
+ * mutable state and can be shared between threads.
+ */
+public final class ItineraryPlanner {
+    private static final long DEFAULT_SEARCH_LIMIT = 20_000; // States explored per plan before settling
+    private static final int MAX_MEMO_SLOTS = 1 << 20; // Bound on the memo table of one search
+
+    private final int maxPerDestination; // Most activities chosen at one destination
+    private final ToLongFunction<Activity> value; // Scores an activity
+    private final long searchLimit; // States explored per plan before settling for the best found
+    private final ForkJoinPool pool; // Plans for several passengers in parallel
+
+    /**
+     * Creates a planner. Every setting is optional.
+     *
+     * @param maxPerDestination The most activities to choose at one destination; unlimited if null.
+     * @param value Scores an activity, must not be negative; the list price in cents if null.
+     * @param searchLimit The number of states to explore per plan before settling for the best plan
+     *                    found; 20,000 if null, which answers within milliseconds for thousands
+     *                    of activities.
+     * @param pool The pool planning for several passengers; the common pool if null.
+     */
+    @Builder
+    private ItineraryPlanner(Integer maxPerDestination, ToLongFunction<Activity> value, Long searchLimit, ForkJoinPool pool) {
+        if (maxPerDestination != null && maxPerDestination < 0) {
+            throw new IllegalArgumentException("Limit per destination must not be negative: " + maxPerDestination);
+        }
+        this.maxPerDestination = maxPerDestination != null ? maxPerDestination : Integer.MAX_VALUE;
+        this.value = value != null ? value : activity -> Wallet.toCents(activity.getCost());
+        this.searchLimit = searchLimit != null ? searchLimit : DEFAULT_SEARCH_LIMIT;
+        this.pool = pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Plans the activities of a package for a passenger, within the passenger's current balance.
+     *
+     * @param travelPackage The package offering the activities.
+     * @param passenger The passenger.
+     * @return the plan.
+     */
+    public ItineraryPlan plan(TravelPackage travelPackage, Passenger passenger) {
+        return plan(new Offering(travelPackage), passenger, passenger.getWallet().getBalanceCents());
+    }
+
+    /**
+     * Plans the activities of a package for a passenger, within the given budget.
+     *
+     * @param travelPackage The package offering the activities.
+     * @param passenger The passenger.
+     * @param budgetCents The most the passenger wants to spend, in cents.
+     * @return the plan.
+     */
+    public ItineraryPlan plan(TravelPackage travelPackage, Passenger passenger, long budgetCents) {
+        return plan(new Offering(travelPackage), passenger, budgetCents);
+    }
+
+    /**
+     * Plans the activities of a package for several passengers in parallel, each within their
+     * current balance. All plans see the same activities, but seats are not reserved, so plans
+     * of different passengers may compete for the last seats of an activity.
+     *
+     * @param travelPackage The package offering the activities.
+     * @param passengers The passengers.
+     * @return the plans, in the order of the passengers.
+     */
+    public List<ItineraryPlan> planAll(TravelPackage travelPackage, List<Passenger> passengers) {
+        ItineraryPlan[] plans = new ItineraryPlan[passengers.size()];
+        pool.invoke(new PlanTask(new Offering(travelPackage), passengers, plans, 0, plans.length));
+        return Arrays.asList(plans);
+    }
+
+    private ItineraryPlan plan(Offering offering, Passenger passenger, long budgetCents) {
+        if (budgetCents < 0) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budgetCents);
+        }
+        List<Candidate> candidates = new ArrayList<>(offering.activities.length);
+        for (int i = 0; i < offering.activities.length; i++) {
+            Activity activity = offering.activities[i];
+            long price = passenger.quoteInCents(activity);
+            if (price <= budgetCents && activity.getAvailableSeats() > 0 && !passenger.isEnrolledIn(activity)) {
+                long score = value.applyAsLong(activity);
+                if (score < 0) {
+                    throw new IllegalArgumentException("Value of " + activity.getName() + " must not be negative: " + score);
+                }
+                candidates.add(new Candidate(i, price, score));
+            }
+        }
+        candidates.sort(Candidate.BY_DENSITY);
+        Search search = new Search(offering, candidates, budgetCents);
+        search.run();
+
+        List<PlannedActivity> planned = new ArrayList<>();
+        long total = 0;
+        for (Candidate candidate : search.chosen()) {
+            int index = candidate.index();
+            planned.add(new PlannedActivity(offering.destinations[offering.destinationOf[index]], offering.activities[index],
+                    candidate.price()));
+            total += candidate.price();
+        }
+        return new ItineraryPlan(passenger.getPassengerNumber(), budgetCents, List.copyOf(planned), total,
+                search.bestValue, !search.truncated);
+    }
+
+    /**
+     * The activities of a package flattened in itinerary order, shared by the plans of all passengers.
+     */
+    private static final class Offering {
+        private final Destination[] destinations; // Itinerary entries
+        private final Activity[] activities; // All activities in itinerary order
+        private final int[] destinationOf; // Itinerary index of each activity's destination
+
+        Offering(TravelPackage travelPackage) {
+            List<Destination> itinerary = travelPackage.getItinerary();
+            List<Activity> all = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int d = 0; d < itinerary.size(); d++) {
+                for (Activity activity : itinerary.get(d).getActivities()) {
+                    all.add(activity);
+                    owners.add(d);
+                }
+            }
+            this.destinations = itinerary.toArray(new Destination[0]);
+            this.activities = all.toArray(new Activity[0]);
+            this.destinationOf = owners.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * An activity the passenger can afford, with its price and value.
+     */
+    private record Candidate(int index, long price, long value) {
+        // Most value per cent first, free activities before all others; the most valuable first among equals
+        static final Comparator<Candidate> BY_DENSITY = Comparator
+                .comparingDouble((Candidate c) -> c.price == 0 ? Double.POSITIVE_INFINITY : (double) c.value / c.price)
+                .thenComparingLong(Candidate::value)
+                .reversed();
+    }
+
+    /**
+     * The branch and bound search for one passenger.
+     */
+    private final class Search {
+        private final List<Candidate> candidates; // In density order
+        private final int count; // Number of candidates
+        private final long[] prices; // Price per candidate
+        private final long[] values; // Value per candidate
+        private final int[] destinations; // Destination per candidate
+        private final long[] prefixPrices; // Sum of the prices of the first k candidates
+        private final long[] prefixValues; // Sum of the values of the first k candidates
+        private final int[] perDestination; // Chosen activities per destination on the current path
+        private final boolean[] taken; // Candidates chosen on the current path
+        private final boolean[] best; // Candidates of the best plan found
+        private final long budget;
+        private final Memo memo; // Best value per reached state, null with a destination limit
+        private long bestValue = -1;
+        private long bestSpent;
+        private long ceiling; // Upper bound on the value of any plan; reaching it ends the search
+        private long explored; // States explored so far
+        private boolean truncated; // Whether the search limit cut the search short
+
+        Search(Offering offering, List<Candidate> candidates, long budget) {
+            this.candidates = candidates;
+            this.count = candidates.size();
+            this.prices = new long[count];
+            this.values = new long[count];
+            this.destinations = new int[count];
+            this.prefixPrices = new long[count + 1];
+            this.prefixValues = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                Candidate candidate = candidates.get(i);
+                prices[i] = candidate.price();
+                values[i] = candidate.value();
+                destinations[i] = offering.destinationOf[candidate.index()];
+                prefixPrices[i + 1] = prefixPrices[i] + prices[i];
+                prefixValues[i + 1] = prefixValues[i] + values[i];
+            }
+            this.perDestination = new int[offering.destinations.length];
+            this.taken = new boolean[count];
+            this.best = new boolean[count];
+            this.budget = budget;
+            this.memo = maxPerDestination == Integer.MAX_VALUE ? new Memo() : null;
+        }
+
+        void run() {
+            if (memo != null && prefixPrices[count] <= budget) {
+                Arrays.fill(best, true); // Everything fits
+                bestValue = prefixValues[count];
+                return;
+            }
+            greedy();
+            ceiling = bound(0, budget);
+            search(0, budget, 0);
+        }
+
+        /**
+         * Returns the candidates of the best plan in itinerary order.
+         */
+        List<Candidate> chosen() {
+            List<Candidate> chosen = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (best[i]) {
+                    chosen.add(candidates.get(i));
+                }
+            }
+            chosen.sort(Comparator.comparingInt(Candidate::index));
+            return chosen;
+        }
+
+        private void greedy() {
+            long remaining = budget;
+            long total = 0;
+            for (int i = 0; i < count; i++) {
+                if (prices[i] <= remaining && perDestination[destinations[i]] < maxPerDestination) {
+                    taken[i] = true;
+                    perDestination[destinations[i]]++;
+                    remaining -= prices[i];
+                    total += values[i];
+                }
+            }
+            record(total, budget - remaining);
+            Arrays.fill(taken, false);
+            Arrays.fill(perDestination, 0);
+        }
+
+        /**
+         * Explores the plans extending the current path with candidates from index {@code from}
+         * on. Choosing a candidate recurses; skipping it continues the loop, so the recursion is
+         * only as deep as the number of chosen activities.
+         */
+        private void search(int from, long remaining, long value) {
+            record(value, budget - remaining);
+            for (int i = from; i < count && bestValue < ceiling; i++) {
+                if (++explored > searchLimit) {
+                    truncated = true;
+                    return;
+                }
+                if (value + bound(i, remaining) <= bestValue) {
+                    return; // Nothing from here on can beat the best plan
+                }
+                if (memo != null && !memo.visit(i, remaining, value)) {
+                    return; // Reached before with at least as much value
+                }
+                int destination = destinations[i];
+                if (prices[i] <= remaining && perDestination[destination] < maxPerDestination) {
+                    taken[i] = true;
+                    perDestination[destination]++;
+                    search(i + 1, remaining - prices[i], value + values[i]);
+                    perDestination[destination]--;
+                    taken[i] = false;
+                    if (truncated) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void record(long value, long spent) {
+            if (value > bestValue || value == bestValue && spent < bestSpent) {
+                bestValue = value;
+                bestSpent = spent;
+                System.arraycopy(taken, 0, best, 0, count);
+            }
+        }
+
+        /**
+         * Returns an upper bound on the value the candidates from {@code from} on can add within the
+         * remaining budget: whole candidates in density order, then a fraction of the first that
+         * does not fit.
+         */
+        private long bound(int from, long remaining) {
+            long limit = prefixPrices[from] + remaining;
+            int low = from;
+            int high = count;
+            while (low < high) { // Last k with prefixPrices[k] <= limit
+                int mid = (low + high + 1) >>> 1;
+                if (prefixPrices[mid] <= limit) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            long whole = prefixValues[low] - prefixValues[from];
+            if (low == count) {
+                return whole;
+            }
+            long left = limit - prefixPrices[low];
+            long product = left * values[low];
+            if (Math.multiplyHigh(left, values[low]) != 0 || product < 0) {
+                return whole + (long) Math.ceil((double) left * values[low] / prices[low]); // Too large to be exact
+            }
+            return whole + product / prices[low];
+        }
+    }
+
+    /**
+     * An open addressing table from (candidate, remaining budget) to the highest value with which
+     * the search reached that state. Stops recording new states when full.
+     */
+    private static final class Memo {
+        private long[] budgets = new long[1 << 12];
+        private int[] candidates = new int[1 << 12]; // Candidate index + 1, zero for a free slot
+        private long[] values = new long[1 << 12];
+        private int size;
+
+        /**
+         * Records a state and returns whether it is worth exploring, that is, whether it was not
+         * reached before with at least the same value.
+         */
+        boolean visit(int candidate, long remaining, long value) {
+            int mask = budgets.length - 1;
+            int slot = hash(candidate, remaining) & mask;
+            while (candidates[slot] != 0) {
+                if (candidates[slot] == candidate + 1 && budgets[slot] == remaining) {
+                    if (values[slot] >= value) {
+                        return false;
+                    }
+                    values[slot] = value;
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size * 2 >= budgets.length) {
+                if (budgets.length >= MAX_MEMO_SLOTS) {
+                    return true; // Full; explore without recording
+                }
+                grow();
+                return visit(candidate, remaining, value);
+            }
+            candidates[slot] = candidate + 1;
+            budgets[slot] = remaining;
+            values[slot] = value;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] oldBudgets = budgets;
+            int[] oldCandidates = candidates;
+            long[] oldValues = values;
+            budgets = new long[oldBudgets.length * 2];
+            candidates = new int[oldBudgets.length * 2];
+            values = new long[oldBudgets.length * 2];
+            int mask = budgets.length - 1;
+            for (int i = 0; i < oldBudgets.length; i++) {
+                if (oldCandidates[i] != 0) {
+                    int slot = hash(oldCandidates[i] - 1, oldBudgets[i]) & mask;
+                    while (candidates[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    candidates[slot] = oldCandidates[i];
+                    budgets[slot] = oldBudgets[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(int candidate, long remaining) {
+            long h = remaining * 0x9E3779B97F4A7C15L + candidate;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Splits the passengers in halves until single passengers are planned.
+     */
+    private final class PlanTask extends RecursiveAction {
+        private final Offering offering;
+        private final List<Passenger> passengers;
+        private final ItineraryPlan[] plans; // Output, by passenger position
+        private final int from;
+        private final int to;
+
+        PlanTask(Offering offering, List<Passenger> passengers, ItineraryPlan[] plans, int from, int to) {
+            this.offering = offering;
+            this.passengers = passengers;
+            this.plans = plans;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Passenger passenger = passengers.get(from);
+                plans[from] = plan(offering, passenger, passenger.getWallet().getBalanceCents());
+            } else if (to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PlanTask(offering, passengers, plans, from, middle),
+                        new PlanTask(offering, passengers, plans, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.nymble.travel.pricing;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.CatalogListener;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.Wallet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Computes what a passenger of each tier pays for an activity.
+ * <p>
+ * A price is the activity's cost, scaled by a global (seasonal or dynamic) multiplier and then
+ * run through a chain of {@link PricingRule}s such as tier discounts. Per-activity overrides
+ * replace the result for a tier entirely. Because rules are evaluated rarely but prices are read on
+ * every sign-up and quote, effective prices are precomputed into a flat table with one slot per
+ * (activity, tier), indexed by {@link Activity#getId()}. An activity is added to the table the first
+ * time it is quoted; afterwards a quote is a single array read. The engine listens to its activities
+ * and recomputes only the affected row when an activity's cost changes. Changing the multiplier or
+ * the rules invalidates the whole table, and rows are recomputed as activities are quoted again.
+ */
+public final class PricingEngine implements CatalogListener {
+    private static final int TIERS = PassengerTier.values().length;
+    private static final long UNPRICED = -1; // Table marker for activities not registered yet
+
+    private static volatile PricingEngine defaultEngine = standard(); // Engine used by Passenger.quoteInCents
+
+    private final BitSet listening = new BitSet(); // Ids of activities this engine listens to, guarded by this
+    private final Map<Integer, long[]> overrides = new HashMap<>(); // Override prices per activity id, -1 for none
+    private volatile AtomicLongArray table = newTable(64); // Effective price per activity id and tier
+    private List<PricingRule> rules; // Rules applied in order, guarded by this
+    private int multiplierBasisPoints = 10_000; // Global multiplier, guarded by this
+
+    /**
+     * Creates an engine applying the given rules in order.
+     *
+     * @param rules The pricing rules.
+     */
+    public PricingEngine(List<PricingRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * Creates an engine with the standard tier benefits: premium passengers sign up for free,
+     * gold passengers receive a 10% discount and standard passengers pay the full cost.
+     *
+     * @return a new engine with the standard tier rule.
+     */
+    public static PricingEngine standard() {
+        int[] factors = new int[TIERS];
+        factors[PassengerTier.PREMIUM.ordinal()] = 0;
+        factors[PassengerTier.GOLD.ordinal()] = 9_000;
+        factors[PassengerTier.STANDARD.ordinal()] = 10_000;
+        return new PricingEngine(List.of(PricingRule.tierFactor(factors)));
+    }
+
+    /**
+     * Returns the engine used to price sign-ups of all passengers.
+     *
+     * @return the default engine.
+     */
+    public static PricingEngine getDefault() {
+        return defaultEngine;
+    }
+
+    /**
+     * Replaces the engine used to price sign-ups of all passengers.
+     *
+     * @param engine The new default engine.
+     */
+    public static void setDefault(PricingEngine engine) {
+        defaultEngine = engine;
+    }
+
+    /**
+     * Returns the price a passenger of the given tier pays for the activity.
+     *
+     * @param tier The passenger's tier.
+     * @param activity The activity to price.
+     * @return the price in cents.
+     */
+    public long quote(PassengerTier tier, Activity activity) {
+        AtomicLongArray prices = table;
+        int slot = activity.getId() * TIERS + tier.ordinal();
+        if (slot < prices.length()) {
+            long price = prices.get(slot);
+            if (price != UNPRICED) {
+                return price;
+            }
+        }
+        return register(activity)[tier.ordinal()];
+    }
+
+    /**
+     * Evaluates the rule chain for the activity without consulting the precomputed table.
+     *
+     * @param tier The passenger's tier.
+     * @param activity The activity to price.
+     * @return the price in cents.
+     */
+    public synchronized long evaluate(PassengerTier tier, Activity activity) {
+        long[] override = overrides.get(activity.getId());
+        if (override != null && override[tier.ordinal()] != UNPRICED) {
+            return override[tier.ordinal()];
+        }
+        long price = PricingRule.scale(Wallet.toCents(activity.getCost()), multiplierBasisPoints);
+        for (PricingRule rule : rules) {
+            price = rule.apply(tier, activity, price);
+        }
+        return Math.max(0, price);
+    }
+
+    /**
+     * Sets the global multiplier applied to every cost, for example for seasonal pricing.
+     *
+     * @param basisPoints The multiplier in basis points; 10000 leaves costs unchanged.
+     */
+    public synchronized void setMultiplier(int basisPoints) {
+        if (basisPoints < 0) {
+            throw new IllegalArgumentException("Multiplier must not be negative: " + basisPoints);
+        }
+        multiplierBasisPoints = basisPoints;
+        table = newTable(table.length());
+    }
+
+    /**
+     * Replaces the rule chain.
+     *
+     * @param rules The new pricing rules.
+     */
+    public synchronized void setRules(List<PricingRule> rules) {
+        this.rules = List.copyOf(rules);
+        table = newTable(table.length());
+    }
+
+    /**
+     * Fixes the price of an activity for one tier, bypassing the multiplier and the rules.
+     *
+     * @param activity The activity.
+     * @param tier The tier the override applies to.
+     * @param priceCents The price in cents.
+     */
+    public synchronized void setOverride(Activity activity, PassengerTier tier, long priceCents) {
+        if (priceCents < 0) {
+            throw new IllegalArgumentException("Price must not be negative: " + priceCents);
+        }
+        overrides.computeIfAbsent(activity.getId(), id -> newOverrideRow())[tier.ordinal()] = priceCents;
+        register(activity);
+    }
+
+    /**
+     * Removes a price override set with {@link #setOverride(Activity, PassengerTier, long)}.
+     *
+     * @param activity The activity.
+     * @param tier The tier the override applies to.
+     */
+    public synchronized void clearOverride(Activity activity, PassengerTier tier) {
+        long[] override = overrides.get(activity.getId());
+        if (override != null) {
+            override[tier.ordinal()] = UNPRICED;
+            price(activity);
+        }
+    }
+
+    @Override
+    public synchronized void costChanged(Activity activity) {
+        price(activity);
+    }
+
+    private synchronized long[] register(Activity activity) {
+        if (!listening.get(activity.getId())) {
+            listening.set(activity.getId());
+            activity.addListener(this);
+        }
+        int required = (activity.getId() + 1) * TIERS;
+        if (required > table.length()) {
+            growTable(required);
+        }
+        return price(activity);
+    }
+
+    private long[] price(Activity activity) {
+        long[] prices = new long[TIERS];
+        AtomicLongArray current = table;
+        for (PassengerTier tier : PassengerTier.values()) {
+            prices[tier.ordinal()] = evaluate(tier, activity);
+            current.set(activity.getId() * TIERS + tier.ordinal(), prices[tier.ordinal()]);
+        }
+        return prices;
+    }
+
+    private void growTable(int required) {
+        AtomicLongArray current = table;
+        AtomicLongArray grown = newTable(Math.max(required, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        table = grown;
+    }
+
+    private static AtomicLongArray newTable(int length) {
+        long[] prices = new long[length];
+        Arrays.fill(prices, UNPRICED);
+        return new AtomicLongArray(prices);
+    }
+
+    private static long[] newOverrideRow() {
+        long[] row = new long[TIERS];
+        Arrays.fill(row, UNPRICED);
+        return row;
+    }
+}
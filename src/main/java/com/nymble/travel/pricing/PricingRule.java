@@ -0,0 +1,49 @@
+package com.nymble.travel.pricing;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.PassengerTier;
+
+/**
+ * One step in the chain of rules a {@link PricingEngine} applies to the cost of an activity.
+ * Rules must be pure functions of their arguments: the engine evaluates them once per
+ * (tier, activity) pair and caches the result until the activity or the engine changes.
+ */
+@FunctionalInterface
+public interface PricingRule {
+
+    /**
+     * Adjusts a price.
+     *
+     * @param tier The tier of the passenger the price is for.
+     * @param activity The activity being priced.
+     * @param priceCents The price produced by the previous rules, in cents.
+     * @return the adjusted price in cents, never negative.
+     */
+    long apply(PassengerTier tier, Activity activity, long priceCents);
+
+    /**
+     * Returns a rule that scales the price by a per-tier factor, rounding to the nearest cent.
+     *
+     * @param basisPointsByTier The factor per tier in basis points, indexed by {@link PassengerTier#ordinal()};
+     *                          10000 keeps the price unchanged.
+     * @return the tier rule.
+     */
+    static PricingRule tierFactor(int... basisPointsByTier) {
+        if (basisPointsByTier.length != PassengerTier.values().length) {
+            throw new IllegalArgumentException("Expected one factor per tier but got " + basisPointsByTier.length);
+        }
+        int[] factors = basisPointsByTier.clone();
+        return (tier, activity, priceCents) -> scale(priceCents, factors[tier.ordinal()]);
+    }
+
+    /**
+     * Scales a price by a factor in basis points, rounding half up to the nearest cent.
+     *
+     * @param priceCents The price in cents.
+     * @param basisPoints The factor in basis points.
+     * @return the scaled price in cents.
+     */
+    static long scale(long priceCents, int basisPoints) {
+        return (priceCents * basisPoints + 5_000) / 10_000;
+    }
+}
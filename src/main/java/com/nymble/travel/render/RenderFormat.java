@@ -0,0 +1,10 @@
+package com.nymble.travel.render;
+
+/**
+ * The output formats supported by {@link TravelRenderer}.
+ */
+public enum RenderFormat {
+    TEXT, // Indented human readable text, as printed by the models' print methods
+    JSON, // A single JSON document
+    CSV // A header row followed by one row per activity or passenger
+}
@@ -0,0 +1,463 @@
+package com.nymble.travel.render;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams itineraries, passenger manifests and activity availability as text, JSON or CSV.
+ * <p>
+ * Output is assembled field by field in a reusable character buffer, without concatenating a
+ * String per line, and handed to the target whenever the buffer fills up. Byte targets are fed
+ * through a reusable UTF-8 encoder and byte buffer, so rendering a manifest of any size allocates
+ * a constant amount of memory; those are allocated on the first byte target, so renderers that
+ * only write characters never pay for them. A renderer keeps its buffers between calls and is
+ * therefore not thread-safe; use one instance per thread, for example the one returned by
+ * {@link #forCurrentThread(RenderFormat)}.
+ */
+public final class TravelRenderer {
+    private static final int FLUSH_THRESHOLD = 8 * 1024; // Characters buffered before handing output to the target
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    // Renderers of each thread by format ordinal, created on first use
+    private static final ThreadLocal<TravelRenderer[]> PER_THREAD =
+            ThreadLocal.withInitial(() -> new TravelRenderer[RenderFormat.values().length]);
+
+    private final RenderFormat format; // The format this renderer writes
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 256); // Pending characters
+    private CharsetEncoder encoder; // Encoder for byte targets, null until the first one
+    private ByteBuffer bytes; // Encoded bytes for byte targets, null until the first one
+    private char[] chars; // Staging area for encoding, null until the first byte target
+    private Appendable appendable; // Current character target, null when writing bytes
+    private WritableByteChannel channel; // Current channel target, null unless writing to a channel
+    private OutputStream stream; // Current stream target, null unless writing to a stream
+
+    /**
+     * Creates a renderer for the given format.
+     *
+     * @param format The output format.
+     */
+    public TravelRenderer(RenderFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns the calling thread's renderer for a format, created on its first use and kept for
+     * the life of the thread, so frequent small renders such as console printing reuse its
+     * buffers. The renderer must not be handed to other threads.
+     *
+     * @param format The output format.
+     * @return the calling thread's renderer.
+     */
+    public static TravelRenderer forCurrentThread(RenderFormat format) {
+        TravelRenderer[] renderers = PER_THREAD.get();
+        TravelRenderer renderer = renderers[format.ordinal()];
+        if (renderer == null) {
+            renderer = new TravelRenderer(format);
+            renderers[format.ordinal()] = renderer;
+        }
+        return renderer;
+    }
+
+    /**
+     * Renders the itinerary of a package: every destination with the name, cost, capacity and
+     * description of its activities.
+     *
+     * @param travelPackage The package to render.
+     * @param out The target to write to.
+     * @throws IOException if the target fails.
+     */
+    public void renderItinerary(TravelPackage travelPackage, Appendable out) throws IOException {
+        begin(out, null, null);
+        writeItinerary(travelPackage);
+        end();
+    }
+
+    /**
+     * Same as the {@code Appendable} variant, but writes UTF-8 encoded bytes to a stream and flushes it.
+     */
+    public void renderItinerary(TravelPackage travelPackage, OutputStream out) throws IOException {
+        begin(null, null, out);
+        writeItinerary(travelPackage);
+        end();
+        out.flush();
+    }
+
+    /**
+     * Same as the {@code Appendable} variant, but writes UTF-8 encoded bytes to a channel.
+     */
+    public void renderItinerary(TravelPackage travelPackage, WritableByteChannel out) throws IOException {
+        begin(null, out, null);
+        writeItinerary(travelPackage);
+        end();
+    }
+
+    /**
+     * Renders the passenger manifest of a package: its capacity, the number of enrolled passengers
+     * and the name and number of each passenger.
+     *
+     * @param travelPackage The package to render.
+     * @param out The target to write to.
+     * @throws IOException if the target fails.
+     */
+    public void renderPassengerList(TravelPackage travelPackage, Appendable out) throws IOException {
+        begin(out, null, null);
+        writePassengerList(travelPackage);
+        end();
+    }
+
+    /**
+     * Same as the {@code Appendable} variant, but writes UTF-8 encoded bytes to a stream and flushes it.
+     */
+    public void renderPassengerList(TravelPackage travelPackage, OutputStream out) throws IOException {
+        begin(null, null, out);
+        writePassengerList(travelPackage);
+        end();
+        out.flush();
+    }
+
+    /**
+     * Same as the {@code Appendable} variant, but writes UTF-8 encoded bytes to a channel.
+     */
+    public void renderPassengerList(TravelPackage travelPackage, WritableByteChannel out) throws IOException {
+        begin(null, out, null);
+        writePassengerList(travelPackage);
+        end();
+    }
+
+    /**
+     * Renders the activities that still have free seats, with their free seats, cost and description.
+     *
+     * @param activities The activities to check and render.
+     * @param out The target to write to.
+     * @throws IOException if the target fails.
+     */
+    public void renderAvailableActivities(List<Activity> activities, Appendable out) throws IOException {
+        begin(out, null, null);
+        writeAvailableActivities(activities);
+        end();
+    }
+
+    /**
+     * Same as the {@code Appendable} variant, but writes UTF-8 encoded bytes to a stream and flushes it.
+     */
+    public void renderAvailableActivities(List<Activity> activities, OutputStream out) throws IOException {
+        begin(null, null, out);
+        writeAvailableActivities(activities);
+        end();
+        out.flush();
+    }
+
+    /**
+     * Same as the {@code Appendable} variant, but writes UTF-8 encoded bytes to a channel.
+     */
+    public void renderAvailableActivities(List<Activity> activities, WritableByteChannel out) throws IOException {
+        begin(null, out, null);
+        writeAvailableActivities(activities);
+        end();
+    }
+
+    private void writeItinerary(TravelPackage travelPackage) throws IOException {
+        switch (format) {
+            case TEXT:
+                buffer.append("Travel Package: ").append(travelPackage.getName()).append(LINE_SEPARATOR);
+                for (Destination destination : travelPackage.getItinerary()) {
+                    buffer.append("Destination: ").append(destination.getName()).append(LINE_SEPARATOR);
+                    for (Activity activity : destination.getActivities()) {
+                        buffer.append("    Activity: ").append(activity.getName()).append(LINE_SEPARATOR);
+                        buffer.append("        Cost: ").append(activity.getCost()).append(LINE_SEPARATOR);
+                        buffer.append("        Capacity: ").append(activity.getCapacity()).append(LINE_SEPARATOR);
+                        buffer.append("        Description: ").append(activity.getDescription()).append(LINE_SEPARATOR);
+                        flushIfFull();
+                    }
+                }
+                break;
+            case JSON:
+                buffer.append("{\"name\":");
+                jsonString(travelPackage.getName());
+                buffer.append(",\"destinations\":[");
+                boolean firstDestination = true;
+                for (Destination destination : travelPackage.getItinerary()) {
+                    buffer.append(firstDestination ? "{\"name\":" : ",{\"name\":");
+                    firstDestination = false;
+                    jsonString(destination.getName());
+                    buffer.append(",\"activities\":[");
+                    boolean firstActivity = true;
+                    for (Activity activity : destination.getActivities()) {
+                        buffer.append(firstActivity ? "" : ",");
+                        firstActivity = false;
+                        jsonActivity(activity);
+                        flushIfFull();
+                    }
+                    buffer.append("]}");
+                }
+                buffer.append("]}").append(LINE_SEPARATOR);
+                break;
+            case CSV:
+                buffer.append("destination,activity,cost,capacity,description").append(LINE_SEPARATOR);
+                for (Destination destination : travelPackage.getItinerary()) {
+                    for (Activity activity : destination.getActivities()) {
+                        csvField(destination.getName());
+                        buffer.append(',');
+                        csvField(activity.getName());
+                        buffer.append(',').append(activity.getCost()).append(',').append(activity.getCapacity()).append(',');
+                        csvField(activity.getDescription());
+                        buffer.append(LINE_SEPARATOR);
+                        flushIfFull();
+                    }
+                }
+                break;
+        }
+    }
+
+    private void writePassengerList(TravelPackage travelPackage) throws IOException {
+        List<Passenger> passengers = travelPackage.getPassengers();
+        switch (format) {
+            case TEXT:
+                buffer.append("Travel Package: ").append(travelPackage.getName()).append(LINE_SEPARATOR);
+                buffer.append("Passenger Capacity: ").append(travelPackage.getPassengerCapacity()).append(LINE_SEPARATOR);
+                buffer.append("Number of Passengers Enrolled: ").append(passengers.size()).append(LINE_SEPARATOR);
+                for (Passenger passenger : passengers) {
+                    buffer.append("    Name: ").append(passenger.getName())
+                            .append(", Number: ").append(passenger.getPassengerNumber()).append(LINE_SEPARATOR);
+                    flushIfFull();
+                }
+                break;
+            case JSON:
+                buffer.append("{\"name\":");
+                jsonString(travelPackage.getName());
+                buffer.append(",\"passengerCapacity\":").append(travelPackage.getPassengerCapacity())
+                        .append(",\"enrolled\":").append(passengers.size())
+                        .append(",\"passengers\":[");
+                boolean first = true;
+                for (Passenger passenger : passengers) {
+                    buffer.append(first ? "{\"name\":" : ",{\"name\":");
+                    first = false;
+                    jsonString(passenger.getName());
+                    buffer.append(",\"passengerNumber\":").append(passenger.getPassengerNumber()).append(",\"tier\":");
+                    jsonString(passenger.getTier() == null ? null : passenger.getTier().name());
+                    buffer.append('}');
+                    flushIfFull();
+                }
+                buffer.append("]}").append(LINE_SEPARATOR);
+                break;
+            case CSV:
+                buffer.append("name,passengerNumber,tier").append(LINE_SEPARATOR);
+                for (Passenger passenger : passengers) {
+                    csvField(passenger.getName());
+                    buffer.append(',').append(passenger.getPassengerNumber()).append(',');
+                    csvField(passenger.getTier() == null ? null : passenger.getTier().name());
+                    buffer.append(LINE_SEPARATOR);
+                    flushIfFull();
+                }
+                break;
+        }
+    }
+
+    private void writeAvailableActivities(List<Activity> activities) throws IOException {
+        switch (format) {
+            case TEXT:
+                for (Activity activity : activities) {
+                    int available = activity.getAvailableSeats();
+                    if (available > 0) {
+                        buffer.append("Activity: ").append(activity.getName()).append(LINE_SEPARATOR);
+                        buffer.append("    Spaces Available: ").append(available).append(LINE_SEPARATOR);
+                        buffer.append("    Cost: ").append(activity.getCost()).append(LINE_SEPARATOR);
+                        buffer.append("    Description: ").append(activity.getDescription()).append(LINE_SEPARATOR);
+                        flushIfFull();
+                    }
+                }
+                break;
+            case JSON:
+                buffer.append('[');
+                boolean first = true;
+                for (Activity activity : activities) {
+                    if (activity.getAvailableSeats() > 0) {
+                        buffer.append(first ? "" : ",");
+                        first = false;
+                        jsonActivity(activity);
+                        flushIfFull();
+                    }
+                }
+                buffer.append(']').append(LINE_SEPARATOR);
+                break;
+            case CSV:
+                buffer.append("activity,availableSeats,cost,description").append(LINE_SEPARATOR);
+                for (Activity activity : activities) {
+                    int available = activity.getAvailableSeats();
+                    if (available > 0) {
+                        csvField(activity.getName());
+                        buffer.append(',').append(available).append(',').append(activity.getCost()).append(',');
+                        csvField(activity.getDescription());
+                        buffer.append(LINE_SEPARATOR);
+                        flushIfFull();
+                    }
+                }
+                break;
+        }
+    }
+
+    private void jsonActivity(Activity activity) {
+        buffer.append("{\"name\":");
+        jsonString(activity.getName());
+        buffer.append(",\"description\":");
+        jsonString(activity.getDescription());
+        buffer.append(",\"cost\":").append(activity.getCost())
+                .append(",\"capacity\":").append(activity.getCapacity())
+                .append(",\"availableSeats\":").append(activity.getAvailableSeats())
+                .append('}');
+    }
+
+    private void jsonString(String value) {
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+
+    private void csvField(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            buffer.append(value);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.append('"'); // Double embedded quotes
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    private void begin(Appendable appendable, WritableByteChannel channel, OutputStream stream) {
+        this.appendable = appendable;
+        this.channel = channel;
+        this.stream = stream;
+        buffer.setLength(0);
+        if (appendable != null) {
+            return;
+        }
+        if (encoder == null) {
+            encoder = StandardCharsets.UTF_8.newEncoder();
+            bytes = ByteBuffer.allocate(FLUSH_THRESHOLD * 3);
+            chars = new char[FLUSH_THRESHOLD + 256];
+        }
+        encoder.reset();
+        bytes.clear();
+    }
+
+    private void end() throws IOException {
+        try {
+            flush();
+            if (appendable == null) {
+                encoder.encode(CharBuffer.allocate(0), bytes, true);
+                encoder.flush(bytes);
+                drainBytes();
+            }
+        } finally {
+            appendable = null;
+            channel = null;
+            stream = null;
+        }
+    }
+
+    private void flushIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (appendable != null) {
+            appendable.append(buffer);
+        } else {
+            writeEncoded();
+        }
+        buffer.setLength(0);
+    }
+
+    private void writeEncoded() throws IOException {
+        int remaining = buffer.length();
+        int offset = 0;
+        while (remaining > 0) {
+            int length = Math.min(remaining, chars.length);
+            if (length < remaining && Character.isHighSurrogate(buffer.charAt(offset + length - 1))) {
+                length--; // Keep surrogate pairs within one chunk
+            }
+            buffer.getChars(offset, offset + length, chars, 0);
+            CharBuffer input = CharBuffer.wrap(chars, 0, length);
+            for (;;) {
+                CoderResult result = encoder.encode(input, bytes, false);
+                drainBytes();
+                if (result.isUnderflow()) {
+                    break;
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+            }
+            offset += length;
+            remaining -= length;
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        if (stream != null) {
+            stream.write(bytes.array(), 0, bytes.position()); // Heap buffer, write its backing array directly
+        } else {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,702 @@
+package com.nymble.travel.services;
+
+import com.nymble.travel.booking.PackageCheckout;
+import com.nymble.travel.booking.Waitlists;
+import com.nymble.travel.catalog.ActivityAvailabilityIndex;
+import com.nymble.travel.catalog.AvailabilityFeed;
+import com.nymble.travel.catalog.Catalog;
+import com.nymble.travel.catalog.CatalogSnapshot;
+import com.nymble.travel.catalog.CatalogSnapshot.DestinationEntry;
+import com.nymble.travel.catalog.CatalogSnapshot.PackageEntry;
+import com.nymble.travel.catalog.ItineraryCache;
+import com.nymble.travel.importer.CatalogImporter;
+import com.nymble.travel.importer.ImportFormat;
+import com.nymble.travel.importer.ImportResult;
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.persistence.BookingJournal;
+import com.nymble.travel.persistence.BookingStore;
+import com.nymble.travel.planning.ItineraryPlan;
+import com.nymble.travel.planning.ItineraryPlanner;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Holds the travel packages served by the application in memory and exposes the operations of the
+ * models to the web layer. The packages, their itineraries and activities are published through a
+ * {@link Catalog}, so lookups read an immutable {@link CatalogSnapshot} without locking; each
+ * package gets an {@link ActivityAvailabilityIndex} for availability queries, and rendered views of
+ * packages are kept in an {@link ItineraryCache} until the package changes. Clients watching seats
+ * subscribe to a package's {@link AvailabilityFeed} instead of polling. All seat and balance
+ * changes are made through the lock-free model operations. Callers that would rather wait for a
+ * seat or a place than be rejected join a {@link Waitlists waitlist} instead of retrying, and
+ * several activities are booked all or nothing through the package's {@link PackageCheckout}.
+ * <p>
+ * Every change is applied through the {@link BookingStore}, which journals it; the packages are
+ * recovered from the store on startup. Structural changes are journaled before the catalog version
+ * containing them is published, and passengers before they become visible in their package, so
+ * their journal records are in the order later changes depend on them.
+ */
+@Service
+public class TravelService {
+    private static final int VIEW_CACHE_SIZE = 1024; // Rendered package views kept, over all packages
+    private static final Duration FEED_INTERVAL = Duration.ofMillis(20); // Longest wait of a seat change before it is pushed
+    private static final Duration CHECKOUT_HOLD_TIME = Duration.ofSeconds(30); // Bounds the seats of a checkout that never confirms
+    private static final Duration SHUTDOWN_GRACE = Duration.ofSeconds(5); // Wait for a running promotion to be journaled
+
+    private final Catalog catalog = new Catalog(); // Packages, itineraries and activities
+    private final Map<String, ActivityAvailabilityIndex> indexes = new ConcurrentHashMap<>(); // Index per package name
+    private final BookingStore store; // Journals every change
+    private final BookingMetrics metrics; // Publishes activity fill ratios
+    private final ExecutorService promotions = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-promotion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Waitlists waitlists = new Waitlists(promotions); // Waiting sign-ups and passengers, promoted as room frees up
+    private final CatalogImporter importer = new CatalogImporter(); // Parses bulk imports in parallel
+    private final ItineraryCache views; // Rendered package views, dropped when their package changes
+    private final ItineraryPlanner planner = ItineraryPlanner.builder().build(); // Plans without a destination limit
+    private final Map<String, AvailabilityFeed> feeds = new ConcurrentHashMap<>(); // Feed per package name, created on demand
+    private final Map<String, PackageCheckout> checkouts = new ConcurrentHashMap<>(); // Checkout per package name, created on demand
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "travel-ticker"); // Pushes feeds and expires checkout holds
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService feedDelivery = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "availability-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates the service with the packages recovered from the store, publishing activity metrics
+     * to the default {@link BookingMetrics}.
+     *
+     * @param store The store recording every change.
+     */
+    public TravelService(BookingStore store) {
+        this(store, BookingMetrics.getDefault());
+    }
+
+    /**
+     * Creates the service with the packages recovered from the store.
+     *
+     * @param store The store recording every change.
+     * @param metrics The metrics publishing the fill ratio of every activity.
+     */
+    @Autowired
+    public TravelService(BookingStore store, BookingMetrics metrics) {
+        this.store = store;
+        this.metrics = metrics;
+        this.views = new ItineraryCache(VIEW_CACHE_SIZE, metrics);
+        Map<String, TravelPackage> recovered = new LinkedHashMap<>();
+        try {
+            store.recover(recovered, () -> catalog.snapshot().getPackages());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover the travel packages", e);
+        }
+        catalog.edit(editor -> {
+            recovered.values().forEach(editor::addPackage);
+            return null;
+        });
+        recovered.forEach((name, travelPackage) -> {
+            indexes.put(name, new ActivityAvailabilityIndex(travelPackage));
+            for (Destination destination : travelPackage.getItinerary()) {
+                destination.getActivities().forEach(activity -> metrics.registerActivity(name, destination.getName(), activity));
+            }
+        });
+    }
+
+    /**
+     * Stops the background work of the service when the application shuts down: fails the
+     * sign-ups and passengers still waiting, releases pending checkout holds, closes availability
+     * feeds and stops their threads. A promotion already running is given time to finish, so
+     * nothing is journaled after the {@link BookingStore} is closed.
+     *
+     * @throws InterruptedException if interrupted while waiting for a running promotion.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        waitlists.close();
+        checkouts.values().forEach(PackageCheckout::close);
+        feeds.values().forEach(AvailabilityFeed::close);
+        ticker.shutdownNow();
+        feedDelivery.shutdownNow();
+        promotions.shutdown(); // Not interrupted, as an interrupt would close the journal's channel
+        if (!promotions.awaitTermination(SHUTDOWN_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Waitlist promotion still running after " + SHUTDOWN_GRACE);
+        }
+    }
+
+    /**
+     * Creates a new travel package with an empty itinerary.
+     *
+     * @param name The unique name of the package.
+     * @param passengerCapacity The maximum number of passengers.
+     * @return the created package.
+     * @throws ResponseStatusException with 409 if a package with that name already exists.
+     */
+    public TravelPackage createPackage(String name, int passengerCapacity) {
+        TravelPackage travelPackage = TravelPackage.builder().name(name).passengerCapacity(passengerCapacity).build();
+        return store.update(journal -> catalog.edit(editor -> {
+            if (!editor.addPackage(travelPackage)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Travel package already exists: " + name);
+            }
+            journal.packageCreated(travelPackage);
+            indexes.put(name, new ActivityAvailabilityIndex(travelPackage)); // Ready before the package is published
+            return travelPackage;
+        }));
+    }
+
+    public List<TravelPackage> getPackages() {
+        return catalog.snapshot().getPackages();
+    }
+
+    /**
+     * Returns the current version of the catalog, for browsing without locks.
+     *
+     * @return the catalog snapshot.
+     */
+    public CatalogSnapshot getCatalog() {
+        return catalog.snapshot();
+    }
+
+    /**
+     * Looks up a travel package by name.
+     *
+     * @param name The name of the package.
+     * @return the package.
+     * @throws ResponseStatusException with 404 if no such package exists.
+     */
+    public TravelPackage getPackage(String name) {
+        return entryOf(catalog.snapshot(), name).travelPackage();
+    }
+
+    /**
+     * Returns a rendered view of a package, from the cache unless the package changed since the
+     * view was last rendered.
+     *
+     * @param packageName The name of the package.
+     * @param view Identifies the kind of view, for example a render format.
+     * @param render Renders the view from the package.
+     * @param <V> The type of the view.
+     * @return the view.
+     * @throws ResponseStatusException with 404 if no such package exists.
+     */
+    public <V> V getView(String packageName, Object view, Function<TravelPackage, ? extends V> render) {
+        return views.get(getPackage(packageName), view, render);
+    }
+
+    /**
+     * Adds a new, empty destination to the itinerary of a package.
+     *
+     * @param packageName The name of the package.
+     * @param destinationName The name of the destination.
+     * @return the created destination.
+     */
+    public Destination addDestination(String packageName, String destinationName) {
+        Destination destination = Destination.builder().name(destinationName).build();
+        return store.update(journal -> catalog.edit(editor -> {
+            TravelPackage travelPackage = entryOf(editor.base(), packageName).travelPackage();
+            editor.addDestination(travelPackage, destination);
+            journal.destinationAdded(travelPackage, destination);
+            return destination;
+        }));
+    }
+
+    /**
+     * Adds a new activity to a destination of a package.
+     *
+     * @param packageName The name of the package.
+     * @param destinationName The name of the destination.
+     * @param activity The activity to add.
+     * @return the added activity.
+     */
+    public Activity addActivity(String packageName, String destinationName, Activity activity) {
+        store.update(journal -> catalog.edit(editor -> {
+            PackageEntry entry = entryOf(editor.base(), packageName);
+            int destinationIndex = indexOfDestination(entry, destinationName);
+            editor.addActivity(entry.travelPackage(), entry.itinerary().get(destinationIndex).destination(), activity);
+            journal.activityAdded(entry.travelPackage(), destinationIndex, activity);
+            return activity;
+        }));
+        metrics.registerActivity(packageName, destinationName, activity);
+        return activity;
+    }
+
+    /**
+     * Imports new packages, with their itineraries and passengers, from a CSV or JSON Lines file.
+     * The file is parsed in parallel before any lock is taken; the packages are then journaled and
+     * published together as one catalog version. Rows that are malformed, or that belong to a
+     * package whose name is already taken, are skipped and reported.
+     *
+     * @param file The file to import, in the layout described by {@link CatalogImporter}.
+     * @param format The format of the file.
+     * @return the imported packages and the skipped rows.
+     * @throws IOException if the file cannot be read.
+     */
+    public ImportResult importCatalog(Path file, ImportFormat format) throws IOException {
+        CatalogImporter.Parsed parsed = importer.parse(file, format);
+        ImportResult result = store.update(journal -> catalog.edit(editor -> {
+            ImportResult linked = parsed.link(editor.base()::containsPackage);
+            for (TravelPackage travelPackage : linked.packages()) {
+                editor.addPackage(travelPackage);
+                publish(journal, travelPackage);
+            }
+            return linked;
+        }));
+        result.packages().forEach(this::registerActivities);
+        return result;
+    }
+
+    /**
+     * Adds a whole package received from another service, for example decoded from the
+     * {@link com.nymble.travel.wire.TravelWireFormat}, with its itinerary, passengers and sign-ups.
+     * Balances are taken as they are, sign-ups keep what they were charged, so cancelling one
+     * refunds that, and seats held by no passenger stay held; all of it is journaled, so it
+     * survives recovery.
+     *
+     * @param travelPackage The package, not yet in any catalog.
+     * @return the added package.
+     * @throws ResponseStatusException with 409 if a package with that name already exists.
+     */
+    public TravelPackage importPackage(TravelPackage travelPackage) {
+        store.update(journal -> catalog.edit(editor -> {
+            if (!editor.addPackage(travelPackage)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Travel package already exists: " + travelPackage.getName());
+            }
+            publish(journal, travelPackage);
+            return travelPackage;
+        }));
+        registerActivities(travelPackage);
+        return travelPackage;
+    }
+
+    /**
+     * Finds the activities of a package with enough free seats within a cost range.
+     *
+     * @param packageName The name of the package.
+     * @param destinationName The destination to search, or null for all destinations.
+     * @param maxCost The highest cost to include.
+     * @param minSeats The minimum number of free seats.
+     * @return the matching activities, ordered by cost.
+     */
+    public List<Activity> findAvailableActivities(String packageName, String destinationName, double maxCost, int minSeats) {
+        getPackage(packageName);
+        ActivityAvailabilityIndex index = indexes.get(packageName);
+        return destinationName == null
+                ? index.findAvailable(0, maxCost, minSeats)
+                : index.findAvailable(destinationName, 0, maxCost, minSeats);
+    }
+
+    /**
+     * Subscribes to the free seats of a package's activities, pushed as they change.
+     *
+     * @param packageName The name of the package.
+     * @param sink Receives the availability deltas.
+     * @return the subscription, to be closed when the subscriber leaves.
+     * @throws ResponseStatusException with 404 if no such package exists.
+     */
+    public AvailabilityFeed.Subscription subscribeAvailability(String packageName, AvailabilityFeed.Sink sink) {
+        TravelPackage travelPackage = getPackage(packageName);
+        return feeds.computeIfAbsent(packageName,
+                name -> new AvailabilityFeed(travelPackage, ticker, feedDelivery, FEED_INTERVAL)).subscribe(sink);
+    }
+
+    /**
+     * Plans the most valuable activities of a package a passenger can afford with their current
+     * balance, among the activities with free seats they are not yet signed up for. Nothing is
+     * booked.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @param maxPerDestination The most activities to plan at one destination, or null for no limit.
+     * @return the plan.
+     * @throws ResponseStatusException with 404 if the passenger is not enrolled in the package, or
+     * with 400 if the limit is negative.
+     */
+    public ItineraryPlan planItinerary(String packageName, int passengerNumber, Integer maxPerDestination) {
+        if (maxPerDestination != null && maxPerDestination < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit per destination must not be negative");
+        }
+        TravelPackage travelPackage = getPackage(packageName);
+        Passenger passenger = getPassenger(packageName, passengerNumber);
+        ItineraryPlanner limited = maxPerDestination == null ? planner
+                : ItineraryPlanner.builder().maxPerDestination(maxPerDestination).build();
+        return limited.plan(travelPackage, passenger);
+    }
+
+    /**
+     * Creates a passenger of the given tier and enrolls it in a package.
+     *
+     * @param packageName The name of the package.
+     * @param tier The tier of the passenger.
+     * @param name The name of the passenger.
+     * @param passengerNumber The unique number of the passenger.
+     * @param balance The initial balance of the passenger.
+     * @return the enrolled passenger.
+     * @throws ResponseStatusException with 409 if the package is full or the passenger number is taken.
+     */
+    public Passenger addPassenger(String packageName, PassengerTier tier, String name, int passengerNumber, double balance) {
+        Passenger passenger = tier.newPassenger(name, passengerNumber, balance);
+        return tryAddPassenger(getPackage(packageName), passenger).orElseThrow(() -> new ResponseStatusException(
+                HttpStatus.CONFLICT, "Passenger " + passengerNumber + " cannot be added to " + packageName + ": package full"));
+    }
+
+    /**
+     * Creates a passenger of the given tier and enrolls it in a package, waiting for a place if
+     * the package is full. Waiting passengers are enrolled by tier, then in arrival order.
+     *
+     * @param packageName The name of the package.
+     * @param tier The tier of the passenger.
+     * @param name The name of the passenger.
+     * @param passengerNumber The unique number of the passenger.
+     * @param balance The initial balance of the passenger.
+     * @return a future completed with the enrolled passenger, or with a 409
+     * {@link ResponseStatusException} if the passenger number is taken.
+     */
+    public CompletableFuture<Passenger> waitlistPassenger(String packageName, PassengerTier tier, String name,
+                                                          int passengerNumber, double balance) {
+        TravelPackage travelPackage = getPackage(packageName);
+        Passenger passenger = tier.newPassenger(name, passengerNumber, balance);
+        return waitlists.forPackage(travelPackage).join(tier, () -> tryAddPassenger(travelPackage, passenger));
+    }
+
+    private Optional<Passenger> tryAddPassenger(TravelPackage travelPackage, Passenger passenger) {
+        int passengerNumber = passenger.getPassengerNumber();
+        synchronized (travelPackage) { // Serialize the check with the add, so a journaled passenger is always added
+            return store.update(journal -> {
+                if (travelPackage.containsPassenger(passengerNumber)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Passenger " + passengerNumber
+                            + " cannot be added to " + travelPackage.getName() + ": duplicate number");
+                }
+                if (travelPackage.getPassengerCount() >= travelPackage.getPassengerCapacity()) {
+                    return Optional.empty();
+                }
+                journal.passengerAdded(travelPackage, passenger); // Before any sign-up can find the passenger
+                travelPackage.addPassenger(passenger);
+                return Optional.of(passenger);
+            });
+        }
+    }
+
+    /**
+     * Looks up a passenger enrolled in a package.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @return the passenger.
+     * @throws ResponseStatusException with 404 if the passenger is not enrolled in the package.
+     */
+    public Passenger getPassenger(String packageName, int passengerNumber) {
+        return getPackage(packageName).findPassenger(passengerNumber)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No passenger " + passengerNumber + " in " + packageName));
+    }
+
+    /**
+     * Signs a passenger of a package up for one of the package's activities.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @param destinationName The name of the destination offering the activity.
+     * @param activityName The name of the activity.
+     * @return the outcome of the sign-up.
+     */
+    public SignUpStatus signUp(String packageName, int passengerNumber, String destinationName, String activityName) {
+        return signUp(resolve(packageName, passengerNumber, destinationName, activityName));
+    }
+
+    /**
+     * Signs a passenger of a package up for one of the package's activities, waiting for a seat
+     * if the activity is full. Waiting passengers are booked by tier, then in arrival order, as
+     * soon as seats free up; passengers signing up later join behind them.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @param destinationName The name of the destination offering the activity.
+     * @param activityName The name of the activity.
+     * @return a future completed with the outcome once the passenger got a seat or was rejected
+     * for another reason than capacity.
+     */
+    public CompletableFuture<SignUpStatus> waitlistSignUp(String packageName, int passengerNumber,
+                                                          String destinationName, String activityName) {
+        SignUp signUp = resolve(packageName, passengerNumber, destinationName, activityName);
+        return waitlists.forActivity(signUp.activity()).join(signUp.passenger().getTier(), () -> {
+            SignUpStatus status = signUp(signUp);
+            return status == SignUpStatus.NO_CAPACITY ? Optional.empty() : Optional.of(status);
+        });
+    }
+
+    /**
+     * Signs a passenger of a package up for several of the package's activities, across
+     * destinations, or for none of them. A seat is held on every activity, the destinations in
+     * parallel, then the passenger is enrolled in all of them and charged the total at once. Every
+     * sign-up is journaled with the price quoted for the hold, so cancelling it refunds that.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @param activities The activities, each listed once.
+     * @return the outcome per activity in the order given: {@link SignUpStatus#BOOKED} for every
+     * activity, or the reasons nothing was booked.
+     * @throws ResponseStatusException with 400 if no activity is given or one is listed twice.
+     */
+    public List<SignUpStatus> checkout(String packageName, int passengerNumber, List<ActivityName> activities) {
+        if (activities.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No activities to check out");
+        }
+        List<SignUp> signUps = new ArrayList<>(activities.size());
+        Set<Integer> listed = new HashSet<>(); // Activity ids
+        for (ActivityName name : activities) {
+            SignUp signUp = resolve(packageName, passengerNumber, name.destination(), name.activity());
+            if (!listed.add(signUp.activity().getId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Activity " + name.activity() + " at " + name.destination() + " listed twice");
+            }
+            signUps.add(signUp);
+        }
+        TravelPackage travelPackage = signUps.get(0).travelPackage();
+        Passenger passenger = signUps.get(0).passenger();
+        PackageCheckout.Hold hold = checkouts.computeIfAbsent(packageName,
+                        name -> new PackageCheckout(travelPackage, CHECKOUT_HOLD_TIME, null, ticker))
+                .hold(passenger, signUps.stream().map(SignUp::activity).toList())
+                .join();
+        if (hold.getState() == PackageCheckout.Hold.State.REJECTED) {
+            return hold.getRejections();
+        }
+        try {
+            synchronized (passenger) { // Journal the passenger's bookings and cancellations in the order they happen
+                SignUpStatus status = store.update(journal -> {
+                    checkStillEnrolled(signUps.get(0));
+                    SignUpStatus confirmed = hold.confirm();
+                    if (confirmed == SignUpStatus.BOOKED) {
+                        for (int i = 0; i < signUps.size(); i++) {
+                            journal.signedUp(travelPackage, passengerNumber, signUps.get(i).destinationIndex(),
+                                    signUps.get(i).activityIndex(), hold.getPriceCents(i));
+                        }
+                    }
+                    return confirmed;
+                });
+                return Collections.nCopies(signUps.size(), status);
+            }
+        } finally {
+            hold.release(); // Gives the seats back if the hold was not confirmed
+        }
+    }
+
+    private SignUp resolve(String packageName, int passengerNumber, String destinationName, String activityName) {
+        PackageEntry entry = entryOf(catalog.snapshot(), packageName);
+        Passenger passenger = getPassenger(packageName, passengerNumber);
+        int destinationIndex = indexOfDestination(entry, destinationName);
+        DestinationEntry destination = entry.itinerary().get(destinationIndex);
+        int activityIndex = destination.indexOfActivity(activityName);
+        if (activityIndex < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No activity " + activityName + " at " + destinationName);
+        }
+        return new SignUp(entry.travelPackage(), passenger, destinationIndex, activityIndex,
+                destination.activities().get(activityIndex));
+    }
+
+    private SignUpStatus signUp(SignUp signUp) {
+        Passenger passenger = signUp.passenger();
+        long priceCents = passenger.quoteInCents(signUp.activity());
+        synchronized (passenger) { // Journal the passenger's bookings and cancellations in the order they happen
+            return store.update(journal -> {
+                checkStillEnrolled(signUp);
+                SignUpStatus status = passenger.enroll(signUp.activity(), priceCents); // Seats and balance are updated lock-free
+                if (status == SignUpStatus.BOOKED) {
+                    journal.signedUp(signUp.travelPackage(), passenger.getPassengerNumber(), signUp.destinationIndex(),
+                            signUp.activityIndex(), priceCents);
+                }
+                return status;
+            });
+        }
+    }
+
+    /**
+     * Cancels a passenger's sign-up for an activity, releasing the seat and refunding what the
+     * sign-up was charged, even if prices changed since it was booked.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @param destinationName The name of the destination offering the activity.
+     * @param activityName The name of the activity.
+     * @return the refunded passenger.
+     * @throws ResponseStatusException with 404 if the passenger is not signed up for the activity.
+     */
+    public Passenger cancelSignUp(String packageName, int passengerNumber, String destinationName, String activityName) {
+        SignUp signUp = resolve(packageName, passengerNumber, destinationName, activityName);
+        Passenger passenger = signUp.passenger();
+        synchronized (passenger) {
+            return store.update(journal -> {
+                checkStillEnrolled(signUp);
+                long refundCents = passenger.cancelAndRefund(signUp.activity());
+                if (refundCents < 0) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "Passenger " + passengerNumber + " is not signed up for " + activityName);
+                }
+                journal.cancelled(signUp.travelPackage(), passengerNumber, signUp.destinationIndex(),
+                        signUp.activityIndex(), refundCents);
+                return passenger;
+            });
+        }
+    }
+
+    /**
+     * Removes a passenger from a package, cancelling and refunding all of the passenger's
+     * sign-ups. The freed place goes to the package's waitlist, if any.
+     *
+     * @param packageName The name of the package.
+     * @param passengerNumber The number of the passenger.
+     * @return the removed passenger.
+     * @throws ResponseStatusException with 404 if the passenger is not enrolled in the package.
+     */
+    public Passenger cancelPassenger(String packageName, int passengerNumber) {
+        TravelPackage travelPackage = getPackage(packageName);
+        Passenger passenger = getPassenger(packageName, passengerNumber);
+        synchronized (travelPackage) { // Ordered with passengers added to the freed place
+            synchronized (passenger) { // No sign-up of the passenger is journaled after its removal
+                return store.update(journal -> {
+                    if (!travelPackage.removePassenger(passengerNumber)) {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "No passenger " + passengerNumber + " in " + packageName);
+                    }
+                    // Read after the passenger's last sign-up, so every activity it used is included
+                    List<DestinationEntry> itinerary = entryOf(catalog.snapshot(), packageName).itinerary();
+                    for (int d = 0; d < itinerary.size(); d++) {
+                        List<Activity> activities = itinerary.get(d).activities();
+                        for (int a = 0; a < activities.size(); a++) {
+                            long refundCents = passenger.cancelAndRefund(activities.get(a));
+                            if (refundCents >= 0) {
+                                journal.cancelled(travelPackage, passengerNumber, d, a, refundCents);
+                            }
+                        }
+                    }
+                    journal.passengerRemoved(travelPackage, passengerNumber);
+                    return passenger;
+                });
+            }
+        }
+    }
+
+    /**
+     * Journals a package added to the catalog with everything it holds, and indexes it. The
+     * package is not yet visible to other requests, so it does not change while it is journaled.
+     */
+    private void publish(BookingJournal journal, TravelPackage travelPackage) {
+        journal.packageCreated(travelPackage);
+        List<Destination> itinerary = travelPackage.getItinerary();
+        Map<Integer, Long> charged = new HashMap<>(); // Total charges by passenger number
+        for (int d = 0; d < itinerary.size(); d++) {
+            journal.destinationAdded(travelPackage, itinerary.get(d));
+            for (Activity activity : itinerary.get(d).getActivities()) {
+                journal.activityAdded(travelPackage, d, activity);
+                for (int passengerNumber : activity.getEnrolledPassengerNumbers()) {
+                    travelPackage.findPassenger(passengerNumber).ifPresent(passenger ->
+                            charged.merge(passengerNumber, passenger.getChargeCents(activity), Long::sum));
+                }
+            }
+        }
+        for (Passenger passenger : travelPackage.getPassengers()) {
+            // Journal the balance before the charges, as replaying the sign-ups debits them again
+            long balanceCents = passenger.getWallet().getBalanceCents() + charged.getOrDefault(passenger.getPassengerNumber(), 0L);
+            journal.passengerAdded(travelPackage, passenger, balanceCents);
+        }
+        for (int d = 0; d < itinerary.size(); d++) {
+            List<Activity> activities = itinerary.get(d).getActivities();
+            for (int a = 0; a < activities.size(); a++) {
+                Activity activity = activities.get(a);
+                int[] roster = activity.getEnrolledPassengerNumbers();
+                for (int passengerNumber : roster) {
+                    long chargeCents = travelPackage.findPassenger(passengerNumber)
+                            .map(passenger -> passenger.getChargeCents(activity))
+                            .orElse(0L);
+                    journal.signedUp(travelPackage, passengerNumber, d, a, chargeCents);
+                }
+                int held = activity.getEnrolledPassengers() - roster.length;
+                if (held > 0) {
+                    journal.seatsReserved(travelPackage, d, a, held);
+                }
+            }
+        }
+        indexes.put(travelPackage.getName(), new ActivityAvailabilityIndex(travelPackage));
+    }
+
+    private void registerActivities(TravelPackage travelPackage) {
+        for (Destination destination : travelPackage.getItinerary()) {
+            destination.getActivities().forEach(activity ->
+                    metrics.registerActivity(travelPackage.getName(), destination.getName(), activity));
+        }
+    }
+
+    private static void checkStillEnrolled(SignUp signUp) {
+        int passengerNumber = signUp.passenger().getPassengerNumber();
+        if (signUp.travelPackage().findPassenger(passengerNumber).orElse(null) != signUp.passenger()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No passenger " + passengerNumber + " in " + signUp.travelPackage().getName());
+        }
+    }
+
+    private static PackageEntry entryOf(CatalogSnapshot snapshot, String packageName) {
+        return snapshot.findPackage(packageName).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "No travel package named " + packageName));
+    }
+
+    private static int indexOfDestination(PackageEntry entry, String destinationName) {
+        int index = entry.indexOfDestination(destinationName);
+        if (index < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No destination " + destinationName + " in " + entry.travelPackage().getName());
+        }
+        return index;
+    }
+
+    /**
+     * Names an activity of a package by its destination.
+     *
+     * @param destination The name of the destination offering the activity.
+     * @param activity The name of the activity.
+     */
+    public record ActivityName(String destination, String activity) {
+    }
+
+    /**
+     * A sign-up resolved to the objects and itinerary positions it refers to.
+     */
+    private record SignUp(TravelPackage travelPackage, Passenger passenger, int destinationIndex, int activityIndex,
+                          Activity activity) {
+    }
+}
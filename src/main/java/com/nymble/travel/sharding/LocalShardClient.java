@@ -0,0 +1,59 @@
+package com.nymble.travel.sharding;
+
+import com.nymble.travel.models.SignUpStatus;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers messages to a {@link ShardNode} in the same JVM by running them on the node's own
+ * executor, so nodes share no state with their coordinators beyond the messages, as if they were
+ * separate processes.
+ */
+public final class LocalShardClient implements ShardClient {
+    private final ShardNode node; // The node receiving the messages
+    private final Executor executor; // The node's threads
+
+    /**
+     * Creates a client for a node.
+     *
+     * @param node The node to deliver messages to.
+     * @param executor The executor the node handles messages on.
+     */
+    public LocalShardClient(ShardNode node, Executor executor) {
+        this.node = node;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<SignUpStatus> book(int passengerNumber, String key, long priceCents) {
+        return CompletableFuture.supplyAsync(() -> node.book(passengerNumber, key, priceCents), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<SignUpStatus>> prepare(UUID transactionId, int passengerNumber, List<String> keys, List<Long> pricesCents) {
+        return CompletableFuture.supplyAsync(() -> node.prepare(transactionId, passengerNumber, keys, pricesCents), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> commit(UUID transactionId) {
+        return CompletableFuture.supplyAsync(() -> node.commit(transactionId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> abort(UUID transactionId) {
+        return CompletableFuture.supplyAsync(() -> node.abort(transactionId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> cancel(int passengerNumber, String key) {
+        return CompletableFuture.supplyAsync(() -> node.cancel(passengerNumber, key), executor);
+    }
+
+    @Override
+    public CompletableFuture<Integer> availableSeats(String key) {
+        return CompletableFuture.supplyAsync(() -> node.getAvailableSeats(key), executor);
+    }
+}
@@ -0,0 +1,24 @@
+package com.nymble.travel.sharding;
+
+import java.util.Objects;
+
+/**
+ * How activities are assigned to the shards of a {@link ShardCluster}.
+ */
+public enum Partitioning {
+    BY_DESTINATION, // All activities of a destination live on one shard, so sign-ups within a destination stay local
+    BY_ACTIVITY; // Activities are spread by a hash of destination and activity name, for the most even load
+
+    /**
+     * Returns the shard owning an activity.
+     *
+     * @param destination The name of the activity's destination.
+     * @param activity The name of the activity.
+     * @param shards The number of shards.
+     * @return the index of the owning shard.
+     */
+    public int shardOf(String destination, String activity, int shards) {
+        int hash = this == BY_DESTINATION ? destination.hashCode() : Objects.hash(destination, activity);
+        return Math.floorMod(hash ^ (hash >>> 16), shards);
+    }
+}
@@ -0,0 +1,45 @@
+package com.nymble.travel.sharding;
+
+import com.nymble.travel.models.SignUpStatus;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The messages a coordinator sends to the {@link ShardNode} owning a set of activities. Every call
+ * is asynchronous, as it would be across the network; activities are identified by the keys the
+ * node was given when it took ownership of them.
+ */
+public interface ShardClient {
+
+    /**
+     * Takes a seat for a passenger in one activity, see {@link ShardNode#book(int, String, long)}.
+     */
+    CompletableFuture<SignUpStatus> book(int passengerNumber, String key, long priceCents);
+
+    /**
+     * Holds a seat for a passenger in each activity, all or nothing, see {@link ShardNode#prepare(UUID, int, List, List)}.
+     */
+    CompletableFuture<List<SignUpStatus>> prepare(UUID transactionId, int passengerNumber, List<String> keys, List<Long> pricesCents);
+
+    /**
+     * Confirms the seats held by a transaction, see {@link ShardNode#commit(UUID)}.
+     */
+    CompletableFuture<Boolean> commit(UUID transactionId);
+
+    /**
+     * Releases the seats held by a transaction, see {@link ShardNode#abort(UUID)}.
+     */
+    CompletableFuture<Boolean> abort(UUID transactionId);
+
+    /**
+     * Releases a passenger's seat in an activity and returns what it was charged, see {@link ShardNode#cancel(int, String)}.
+     */
+    CompletableFuture<Long> cancel(int passengerNumber, String key);
+
+    /**
+     * Returns the free seats of an activity, see {@link ShardNode#getAvailableSeats(String)}.
+     */
+    CompletableFuture<Integer> availableSeats(String key);
+}
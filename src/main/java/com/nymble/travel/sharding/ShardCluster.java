@@ -0,0 +1,110 @@
+package com.nymble.travel.sharding;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * A set of {@link ShardNode}s running in one JVM, each handling its messages on its own
+ * executor, for running and testing sharded booking locally. Package activities are handed to
+ * the nodes with {@link #distribute(TravelPackage, Partitioning)}, which returns the
+ * coordinator that routes sign-ups to them.
+ */
+public final class ShardCluster implements Closeable {
+    private final List<ShardNode> nodes = new ArrayList<>(); // By shard index
+    private final List<ExecutorService> executors = new ArrayList<>(); // Threads of the nodes, by shard index
+    private final List<ShardClient> clients = new ArrayList<>(); // Clients of the nodes, by shard index
+
+    /**
+     * Starts a cluster whose nodes each handle their messages on a single thread of their own.
+     *
+     * @param nodeCount The number of nodes.
+     */
+    public ShardCluster(int nodeCount) {
+        this(nodeCount, node -> Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-" + node);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Starts a cluster whose nodes handle their messages on the given executors. The cluster
+     * shuts the executors down when it is closed.
+     *
+     * @param nodeCount The number of nodes.
+     * @param executors Creates the executor of each node from its shard index.
+     */
+    public ShardCluster(int nodeCount, IntFunction<ExecutorService> executors) {
+        if (nodeCount <= 0) {
+            throw new IllegalArgumentException("Node count must be positive: " + nodeCount);
+        }
+        for (int id = 0; id < nodeCount; id++) {
+            ShardNode node = new ShardNode(id);
+            ExecutorService executor = executors.apply(id);
+            nodes.add(node);
+            this.executors.add(executor);
+            clients.add(new LocalShardClient(node, executor));
+        }
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the node count.
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns a node.
+     *
+     * @param shard The shard index of the node.
+     * @return the node.
+     */
+    public ShardNode getNode(int shard) {
+        return nodes.get(shard);
+    }
+
+    /**
+     * Hands ownership of every activity of a package to the node of its shard, along with what
+     * its enrolled passengers were charged.
+     *
+     * @param travelPackage The package whose activities to distribute.
+     * @param partitioning How to assign the activities to shards.
+     * @return the coordinator routing the package's sign-ups to the nodes.
+     */
+    public ShardedBooking distribute(TravelPackage travelPackage, Partitioning partitioning) {
+        for (Destination destination : travelPackage.getItinerary()) {
+            for (Activity activity : destination.getActivities()) {
+                int shard = partitioning.shardOf(destination.getName(), activity.getName(), nodes.size());
+                Map<Integer, Long> charges = new HashMap<>();
+                for (int passengerNumber : activity.getEnrolledPassengerNumbers()) {
+                    charges.put(passengerNumber, travelPackage.findPassenger(passengerNumber)
+                            .map(passenger -> passenger.getChargeCents(activity))
+                            .orElse(0L));
+                }
+                nodes.get(shard).own(ShardedBooking.key(destination.getName(), activity.getName()), activity, charges);
+            }
+        }
+        return new ShardedBooking(travelPackage, clients, partitioning);
+    }
+
+    /**
+     * Stops the nodes' executors; messages already queued are still handled.
+     */
+    @Override
+    public void close() {
+        executors.forEach(ExecutorService::shutdown);
+    }
+}
@@ -0,0 +1,287 @@
+package com.nymble.travel.sharding;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.util.CompressedBitmap;
+import com.nymble.travel.util.IntLongHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One node of a {@link ShardCluster}, the single owner of the seats of the activities in its
+ * shard. Only the owner ever changes an activity's seat counter and roster, so nodes never
+ * coordinate with each other: a sign-up for one activity is handled by its owner alone, and a
+ * sign-up spanning several shards is made atomic by the coordinator with a two-phase commit.
+ * <p>
+ * In the first phase, {@link #prepare(UUID, int, List, List)} holds a seat in each of the node's
+ * activities for the transaction, all or nothing. Held seats count as taken, so they can never
+ * be sold twice, until the coordinator either confirms them with {@link #commit(UUID)} or
+ * releases them with {@link #abort(UUID)}. The node keeps no wallets; charging the passenger is
+ * left to the coordinator between the two phases. It does record what each seat was charged,
+ * so a cancellation refunds exactly that, whichever coordinator handles it.
+ */
+public final class ShardNode {
+    private final int id; // Index of the node in its cluster
+    private final Map<String, Owned> activities = new ConcurrentHashMap<>(); // Owned activities by key
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>(); // Prepared transactions by id
+
+    /**
+     * Creates a node owning no activities.
+     *
+     * @param id The index of the node in its cluster.
+     */
+    public ShardNode(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the index of the node in its cluster.
+     *
+     * @return the node id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Takes ownership of an activity's seats. The node keeps its own copy of the activity,
+     * starting from the seats and roster the given activity has now.
+     *
+     * @param key The key identifying the activity in messages to this node.
+     * @param activity The activity to take over.
+     * @param charges What the passengers already enrolled were charged, in cents by passenger number.
+     * @throws IllegalStateException if the node already owns an activity with the key.
+     */
+    public void own(String key, Activity activity, Map<Integer, Long> charges) {
+        Activity copy = Activity.builder()
+                .name(activity.getName())
+                .description(activity.getDescription())
+                .cost(activity.getCost())
+                .capacity(activity.getCapacity())
+                .build();
+        int enrolled = activity.getEnrolledPassengers();
+        if (enrolled > 0) {
+            copy.reserveUpTo(enrolled);
+        }
+        IntLongHashMap charged = new IntLongHashMap(charges.size());
+        charges.forEach(charged::put);
+        if (activities.putIfAbsent(key, new Owned(copy, activity.getRoster(), charged)) != null) {
+            throw new IllegalStateException("Node " + id + " already owns " + key);
+        }
+    }
+
+    /**
+     * Returns whether this node owns an activity.
+     *
+     * @param key The key of the activity.
+     * @return true if the node owns it.
+     */
+    public boolean owns(String key) {
+        return activities.containsKey(key);
+    }
+
+    /**
+     * Returns the number of activities this node owns.
+     *
+     * @return the activity count.
+     */
+    public int getActivityCount() {
+        return activities.size();
+    }
+
+    /**
+     * Returns the number of free seats of an owned activity; held seats are not free.
+     *
+     * @param key The key of the activity.
+     * @return the number of free seats.
+     */
+    public int getAvailableSeats(String key) {
+        return owned(key).activity().getAvailableSeats();
+    }
+
+    /**
+     * Returns whether a passenger holds a seat in an owned activity, confirmed or held.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @param key The key of the activity.
+     * @return true if the passenger holds a seat.
+     */
+    public boolean isEnrolled(int passengerNumber, String key) {
+        CompressedBitmap roster = owned(key).roster();
+        synchronized (roster) {
+            return roster.contains(passengerNumber);
+        }
+    }
+
+    /**
+     * Returns what a passenger was charged for a seat in an owned activity.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @param key The key of the activity.
+     * @return the charge in cents, or 0 if the passenger holds no seat.
+     */
+    public long getChargeCents(int passengerNumber, String key) {
+        Owned owned = owned(key);
+        synchronized (owned.roster()) {
+            return Math.max(0, owned.charges().get(passengerNumber));
+        }
+    }
+
+    /**
+     * Returns the number of transactions that are prepared but neither committed nor aborted.
+     *
+     * @return the number of open holds.
+     */
+    public int getHoldCount() {
+        return holds.size();
+    }
+
+    /**
+     * Takes a seat for a passenger in one activity, confirmed at once.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @param key The key of the activity.
+     * @param priceCents What the passenger is charged for the seat.
+     * @return {@link SignUpStatus#BOOKED}, {@link SignUpStatus#ALREADY_ENROLLED} or {@link SignUpStatus#NO_CAPACITY}.
+     */
+    public SignUpStatus book(int passengerNumber, String key, long priceCents) {
+        return take(owned(key), passengerNumber, priceCents);
+    }
+
+    /**
+     * Holds a seat for a passenger in each of the activities for a transaction. Either every seat
+     * is held or none is: if any activity cannot seat the passenger, the seats already taken for
+     * the transaction are released again before returning.
+     *
+     * @param transactionId The id of the transaction, unique across all coordinators.
+     * @param passengerNumber The number of the passenger.
+     * @param keys The keys of the activities, all owned by this node.
+     * @param pricesCents What the passenger is charged for each seat, in the order of the keys.
+     * @return the outcome per activity; all {@link SignUpStatus#BOOKED} if the seats are held, otherwise
+     *         the reason for each failed activity and {@link SignUpStatus#ABORTED} for the others.
+     * @throws IllegalStateException if the transaction already holds seats on this node; the
+     *         seats taken for the duplicate are released, and the earlier hold is kept.
+     */
+    public List<SignUpStatus> prepare(UUID transactionId, int passengerNumber, List<String> keys, List<Long> pricesCents) {
+        Owned[] owned = new Owned[keys.size()];
+        for (int i = 0; i < owned.length; i++) {
+            owned[i] = owned(keys.get(i));
+        }
+        SignUpStatus[] statuses = new SignUpStatus[owned.length];
+        boolean held = true;
+        for (int i = 0; i < owned.length; i++) {
+            statuses[i] = take(owned[i], passengerNumber, pricesCents.get(i));
+            held &= statuses[i] == SignUpStatus.BOOKED;
+        }
+        if (held && holds.putIfAbsent(transactionId, new Hold(passengerNumber, owned)) == null) {
+            return Arrays.asList(statuses);
+        }
+        if (held) {
+            for (Owned activity : owned) {
+                release(activity, passengerNumber);
+            }
+            throw new IllegalStateException("Transaction " + transactionId + " is already prepared on node " + id);
+        }
+        for (int i = 0; i < owned.length; i++) {
+            if (statuses[i] == SignUpStatus.BOOKED) {
+                release(owned[i], passengerNumber);
+                statuses[i] = SignUpStatus.ABORTED;
+            }
+        }
+        return Arrays.asList(statuses);
+    }
+
+    /**
+     * Confirms the seats held by a prepared transaction.
+     *
+     * @param transactionId The id of the transaction.
+     * @return true if the transaction held seats on this node.
+     */
+    public boolean commit(UUID transactionId) {
+        return holds.remove(transactionId) != null;
+    }
+
+    /**
+     * Releases the seats held by a prepared transaction. Aborting a transaction that holds
+     * nothing on this node, because it was never prepared here or failed to prepare, does nothing.
+     *
+     * @param transactionId The id of the transaction.
+     * @return true if seats were released.
+     */
+    public boolean abort(UUID transactionId) {
+        Hold hold = holds.remove(transactionId);
+        if (hold == null) {
+            return false;
+        }
+        for (Owned owned : hold.activities()) {
+            release(owned, hold.passengerNumber());
+        }
+        return true;
+    }
+
+    /**
+     * Releases a passenger's confirmed seat in an activity.
+     *
+     * @param passengerNumber The number of the passenger.
+     * @param key The key of the activity.
+     * @return what the passenger was charged for the seat, in cents, or -1 if the passenger held
+     *         no seat.
+     */
+    public long cancel(int passengerNumber, String key) {
+        return release(owned(key), passengerNumber);
+    }
+
+    private Owned owned(String key) {
+        Owned owned = activities.get(key);
+        if (owned == null) {
+            throw new IllegalArgumentException("Node " + id + " does not own " + key);
+        }
+        return owned;
+    }
+
+    private static SignUpStatus take(Owned owned, int passengerNumber, long priceCents) {
+        synchronized (owned.roster()) {
+            if (!owned.roster().add(passengerNumber)) {
+                return SignUpStatus.ALREADY_ENROLLED;
+            }
+            owned.charges().put(passengerNumber, priceCents);
+        }
+        if (owned.activity().tryReserveSeats(1)) {
+            return SignUpStatus.BOOKED;
+        }
+        synchronized (owned.roster()) {
+            owned.roster().remove(passengerNumber);
+            owned.charges().remove(passengerNumber);
+        }
+        return SignUpStatus.NO_CAPACITY;
+    }
+
+    private static long release(Owned owned, int passengerNumber) {
+        long charge;
+        synchronized (owned.roster()) {
+            if (!owned.roster().remove(passengerNumber)) {
+                return -1;
+            }
+            charge = Math.max(0, owned.charges().remove(passengerNumber));
+        }
+        owned.activity().releaseSeats(1);
+        return charge;
+    }
+
+    /**
+     * An activity owned by the node: its seat counter, and the roster of passengers holding a
+     * seat with what each was charged, both guarded by the roster's monitor.
+     */
+    private record Owned(Activity activity, CompressedBitmap roster, IntLongHashMap charges) {
+    }
+
+    /**
+     * The seats held by a prepared transaction.
+     */
+    private record Hold(int passengerNumber, Owned[] activities) {
+    }
+}
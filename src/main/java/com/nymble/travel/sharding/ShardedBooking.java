@@ -0,0 +1,261 @@
+package com.nymble.travel.sharding;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Coordinates sign-ups for a travel package whose activity seats are partitioned across the
+ * nodes of a cluster. Every activity is owned by exactly one shard, chosen by the
+ * {@link Partitioning}, and every seat change is routed to its owner as a message, so shards
+ * scale out independently and no two nodes ever update the same counter.
+ * <p>
+ * A sign-up for a single activity takes the seat on its owner and then debits the passenger's
+ * wallet, giving the seat back if the passenger cannot pay. A sign-up for several activities
+ * is all or nothing across shards with a two-phase commit: every owner holds the passenger's
+ * seats, the wallet is debited once for the total, and the holds are then confirmed; if a shard
+ * cannot seat the passenger or the wallet cannot pay, every hold is released instead. If the
+ * confirmation itself fails, the wallet is refunded and the seats are released on every shard,
+ * whether it had confirmed its hold yet or not. Transactions are identified by random UUIDs, so
+ * any number of coordinators can share the nodes without their ids colliding.
+ * <p>
+ * The package's own activities are only used for pricing and are not changed; the rosters of the
+ * owning nodes are the record of who holds which seat.
+ */
+public final class ShardedBooking {
+    private static final char KEY_SEPARATOR = '\u001F'; // Unit separator, never part of a name
+
+    private final List<ShardClient> shards; // Clients of the owning nodes, by shard index
+    private final Partitioning partitioning; // Maps activities to shards
+    private final Map<String, Activity> activities = new HashMap<>(); // Package activities by key, for pricing
+
+    /**
+     * Creates a coordinator for a package whose activities are owned by the given shards.
+     *
+     * @param travelPackage The package offering the activities.
+     * @param shards The clients of the nodes, by shard index.
+     * @param partitioning How the activities were assigned to the shards.
+     */
+    public ShardedBooking(TravelPackage travelPackage, List<ShardClient> shards, Partitioning partitioning) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.partitioning = partitioning;
+        for (Destination destination : travelPackage.getItinerary()) {
+            for (Activity activity : destination.getActivities()) {
+                activities.put(key(destination.getName(), activity.getName()), activity);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the shard owning an activity.
+     *
+     * @param destination The name of the activity's destination.
+     * @param activity The name of the activity.
+     * @return the shard index.
+     */
+    public int shardOf(String destination, String activity) {
+        return partitioning.shardOf(destination, activity, shards.size());
+    }
+
+    /**
+     * Signs a passenger up for one activity.
+     *
+     * @param passenger The passenger to sign up.
+     * @param destination The name of the activity's destination.
+     * @param activity The name of the activity.
+     * @return the outcome of the sign-up.
+     * @throws IllegalArgumentException if the package offers no such activity.
+     */
+    public CompletableFuture<SignUpStatus> signUp(Passenger passenger, String destination, String activity) {
+        String key = key(destination, activity);
+        long price = passenger.quoteInCents(activity(key));
+        if (passenger.getWallet().getBalanceCents() < price) {
+            return CompletableFuture.completedFuture(SignUpStatus.INSUFFICIENT_BALANCE);
+        }
+        ShardClient owner = shards.get(shardOf(destination, activity));
+        int passengerNumber = passenger.getPassengerNumber();
+        return owner.book(passengerNumber, key, price).thenCompose(status -> {
+            if (status != SignUpStatus.BOOKED || passenger.getWallet().tryDebit(price)) {
+                return CompletableFuture.completedFuture(status);
+            }
+            return owner.cancel(passengerNumber, key).thenApply(refund -> SignUpStatus.INSUFFICIENT_BALANCE);
+        });
+    }
+
+    /**
+     * Signs a passenger up for several activities, all or nothing, debiting the wallet once for
+     * the total price.
+     *
+     * @param passenger The passenger to sign up.
+     * @param refs The activities, possibly owned by different shards.
+     * @return the outcome per activity in the given order; all {@link SignUpStatus#BOOKED} if the
+     *         passenger was signed up, otherwise the reason for each failed activity and
+     *         {@link SignUpStatus#ABORTED} for the others. Completes exceptionally, with nothing
+     *         held or charged, if a shard fails to prepare or to commit.
+     * @throws IllegalArgumentException if the package offers no such activity.
+     */
+    public CompletableFuture<List<SignUpStatus>> signUpAll(Passenger passenger, List<ActivityRef> refs) {
+        int count = refs.size();
+        long total = 0;
+        long[] prices = new long[count];
+        Map<Integer, List<Integer>> positionsByShard = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            ActivityRef ref = refs.get(i);
+            prices[i] = passenger.quoteInCents(activity(key(ref.destination(), ref.activity())));
+            total += prices[i];
+            positionsByShard.computeIfAbsent(shardOf(ref.destination(), ref.activity()), shard -> new ArrayList<>()).add(i);
+        }
+        SignUpStatus[] statuses = new SignUpStatus[count];
+        if (passenger.getWallet().getBalanceCents() < total) {
+            Arrays.fill(statuses, SignUpStatus.INSUFFICIENT_BALANCE);
+            return CompletableFuture.completedFuture(Arrays.asList(statuses));
+        }
+
+        // Phase one: every owner holds the passenger's seats in its activities
+        UUID transactionId = UUID.randomUUID();
+        int passengerNumber = passenger.getPassengerNumber();
+        Map<ShardClient, List<String>> participants = new LinkedHashMap<>(); // Keys held per shard
+        List<CompletableFuture<Void>> prepared = new ArrayList<>(positionsByShard.size());
+        positionsByShard.forEach((shard, positions) -> {
+            List<String> keys = new ArrayList<>(positions.size());
+            List<Long> keyPrices = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                keys.add(key(refs.get(position).destination(), refs.get(position).activity()));
+                keyPrices.add(prices[position]);
+            }
+            ShardClient client = shards.get(shard);
+            participants.put(client, keys);
+            prepared.add(client.prepare(transactionId, passengerNumber, keys, keyPrices).thenAccept(outcomes -> {
+                for (int i = 0; i < positions.size(); i++) {
+                    statuses[positions.get(i)] = outcomes.get(i);
+                }
+            }));
+        });
+        long price = total;
+        return CompletableFuture.allOf(prepared.toArray(CompletableFuture[]::new)).handle((ignored, failure) -> {
+            if (failure != null) {
+                // A shard could not be reached or rejected the request; release whatever the others hold
+                return finish(participants, transactionId, false)
+                        .<List<SignUpStatus>>thenApply(done -> { throw new IllegalStateException("Prepare failed", failure); });
+            }
+            boolean held = Arrays.stream(statuses).allMatch(status -> status == SignUpStatus.BOOKED);
+            if (held && passenger.getWallet().tryDebit(price)) {
+                return finish(participants, transactionId, true).handle((done, commitFailure) -> commitFailure == null
+                        ? CompletableFuture.completedFuture(Arrays.asList(statuses))
+                        : rollBack(passenger, participants, transactionId, price, commitFailure)).thenCompose(done -> done);
+            }
+            if (held) {
+                Arrays.fill(statuses, SignUpStatus.INSUFFICIENT_BALANCE);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    if (statuses[i] == SignUpStatus.BOOKED) {
+                        statuses[i] = SignUpStatus.ABORTED; // Held on its own shard, released with the rest
+                    }
+                }
+            }
+            return finish(participants, transactionId, false).thenApply(done -> Arrays.asList(statuses));
+        }).thenCompose(result -> result);
+    }
+
+    /**
+     * Cancels a passenger's seat in an activity and refunds what the sign-up was charged, as
+     * recorded by the owning shard, even if the price has changed since.
+     *
+     * @param passenger The passenger.
+     * @param destination The name of the activity's destination.
+     * @param activity The name of the activity.
+     * @return true if the passenger held a seat.
+     * @throws IllegalArgumentException if the package offers no such activity.
+     */
+    public CompletableFuture<Boolean> cancel(Passenger passenger, String destination, String activity) {
+        String key = key(destination, activity);
+        activity(key);
+        return shards.get(shardOf(destination, activity)).cancel(passenger.getPassengerNumber(), key).thenApply(refund -> {
+            if (refund < 0) {
+                return false;
+            }
+            passenger.getWallet().credit(refund);
+            return true;
+        });
+    }
+
+    /**
+     * Returns the free seats of an activity as seen by its owner.
+     *
+     * @param destination The name of the activity's destination.
+     * @param activity The name of the activity.
+     * @return the number of free seats.
+     * @throws IllegalArgumentException if the package offers no such activity.
+     */
+    public CompletableFuture<Integer> availableSeats(String destination, String activity) {
+        String key = key(destination, activity);
+        activity(key);
+        return shards.get(shardOf(destination, activity)).availableSeats(key);
+    }
+
+    /**
+     * Returns the key identifying an activity in messages to its owner.
+     */
+    static String key(String destination, String activity) {
+        return destination + KEY_SEPARATOR + activity;
+    }
+
+    private CompletableFuture<Void> finish(Map<ShardClient, List<String>> participants, UUID transactionId, boolean commit) {
+        return CompletableFuture.allOf(participants.keySet().stream()
+                .map(client -> commit ? client.commit(transactionId) : client.abort(transactionId))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Undoes a sign-up whose commit failed on some shard: refunds the total, aborts the
+     * transaction where it is still held and cancels the seats where it was already confirmed.
+     * Failures while undoing are ignored, so every shard is attempted; the returned future always
+     * completes exceptionally with the commit failure as its cause.
+     */
+    private CompletableFuture<List<SignUpStatus>> rollBack(Passenger passenger, Map<ShardClient, List<String>> participants,
+                                                           UUID transactionId, long price, Throwable failure) {
+        passenger.getWallet().credit(price);
+        int passengerNumber = passenger.getPassengerNumber();
+        CompletableFuture<?>[] undone = participants.entrySet().stream()
+                .map(participant -> participant.getKey().abort(transactionId)
+                        .handle((aborted, abortFailure) -> Boolean.TRUE.equals(aborted))
+                        .thenCompose(aborted -> aborted
+                                ? CompletableFuture.completedFuture(null)
+                                : CompletableFuture.allOf(participant.getValue().stream()
+                                        .map(key -> participant.getKey().cancel(passengerNumber, key).handle((cancelled, cancelFailure) -> cancelled))
+                                        .toArray(CompletableFuture[]::new))))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(undone).thenApply(done -> { throw new IllegalStateException("Commit failed", failure); });
+    }
+
+    private Activity activity(String key) {
+        Activity activity = activities.get(key);
+        if (activity == null) {
+            throw new IllegalArgumentException("No such activity: " + key.replace(KEY_SEPARATOR, '/'));
+        }
+        return activity;
+    }
+
+    /**
+     * Names an activity of the package by its destination and its own name.
+     *
+     * @param destination The name of the destination.
+     * @param activity The name of the activity.
+     */
+    public record ActivityRef(String destination, String activity) {
+    }
+}
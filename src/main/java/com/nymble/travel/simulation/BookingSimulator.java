@@ -0,0 +1,266 @@
+package com.nymble.travel.simulation;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.simulation.SimulationReport.PhaseReport;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays synthetic, production-like traffic against the models to size hardware and find
+ * contention before peak season. A run builds a catalog and a passenger population across the
+ * three tiers, adds the initial passengers to the package, then runs each {@link TrafficPhase}
+ * in turn: passengers join with {@link TravelPackage#addPassenger(Passenger)}, sign up with
+ * {@link Passenger#enroll(Activity)}, the status-returning form of
+ * {@link Passenger#signUpForActivity(Activity)}, and cancel with {@link Passenger#cancel(Activity)}.
+ * <p>
+ * Runs are reproducible: the catalog, the population and every operation with its arrival time
+ * and target are generated from the seed before the run starts. Threads take the operations in
+ * arrival order and wait for each operation's arrival time, so the load follows the arrival curve
+ * rather than the speed of the system. Latencies are recorded in HdrHistograms from the arrival
+ * time, so an operation that queued behind slow ones reports its waiting time too. With more than
+ * one thread, operations may complete in a different order from run to run, so outcomes such as
+ * which passenger got the last seat can vary; with one thread the outcomes are identical.
+ * <p>
+ * After the run, the package is checked for oversold activities, seat counts that differ from the
+ * rosters, and money lost or made: the final balances must equal the initial balances minus the
+ * price of every sign-up held at the end.
+ */
+public final class BookingSimulator {
+    private static final SignUpStatus[] STATUSES = SignUpStatus.values();
+
+    private final SimulationConfig config;
+
+    /**
+     * Creates a simulator.
+     *
+     * @param config The settings of the runs.
+     */
+    public BookingSimulator(SimulationConfig config) {
+        if (config.getConcurrency() <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + config.getConcurrency());
+        }
+        if (config.getMinCapacity() < 0 || config.getMinCapacity() > config.getMaxCapacity()) {
+            throw new IllegalArgumentException("Invalid capacity range: " + config.getMinCapacity() + ".." + config.getMaxCapacity());
+        }
+        if (config.getMinBalance() < 0 || config.getMinBalance() > config.getMaxBalance()) {
+            throw new IllegalArgumentException("Invalid balance range: " + config.getMinBalance() + ".." + config.getMaxBalance());
+        }
+        if (config.getInitialPassengers() > config.getPassengerCapacity()) {
+            throw new IllegalArgumentException("More initial passengers than places: " + config.getInitialPassengers());
+        }
+        this.config = config;
+    }
+
+    /**
+     * Runs the simulation.
+     *
+     * @return the report of the run.
+     */
+    public SimulationReport run() {
+        Workload workload = Workload.generate(config);
+        TravelPackage travelPackage = workload.travelPackage;
+        for (int number = 0; number < workload.initialPassengers; number++) {
+            travelPackage.addPassenger(workload.passengers[number]);
+        }
+        long initialCents = 0;
+        for (Passenger passenger : workload.passengers) {
+            initialCents += passenger.getWallet().getBalanceCents();
+        }
+        Map<Integer, Activity> activitiesById = new HashMap<>();
+        for (Activity activity : workload.activities) {
+            activitiesById.put(activity.getId(), activity);
+        }
+
+        List<PhaseReport> phases = new ArrayList<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(config.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "simulator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Workload.Phase phase : workload.phases) {
+                phases.add(runPhase(workload, phase, activitiesById, threads));
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        long oversold = 0;
+        int mismatches = 0;
+        long chargedCents = 0;
+        for (Activity activity : workload.activities) {
+            int[] roster = activity.getEnrolledPassengerNumbers();
+            oversold += Math.max(0, roster.length - activity.getCapacity());
+            if (roster.length != activity.getEnrolledPassengers()) {
+                mismatches++;
+            }
+            for (int number : roster) {
+                chargedCents += workload.passengers[number].getChargeCents(activity);
+            }
+        }
+        long finalCents = 0;
+        for (Passenger passenger : workload.passengers) {
+            finalCents += passenger.getWallet().getBalanceCents();
+        }
+        return new SimulationReport(config.getSeed(), config.getConcurrency(), List.copyOf(phases), oversold, mismatches,
+                finalCents - (initialCents - chargedCents));
+    }
+
+    private PhaseReport runPhase(Workload workload, Workload.Phase phase, Map<Integer, Activity> activitiesById,
+                                 ExecutorService threads) {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(config.getConcurrency());
+        CountDownLatch start = new CountDownLatch(1);
+        long[] startNanos = new long[1];
+        List<CompletableFuture<Worker>> workers = new ArrayList<>();
+        for (int t = 0; t < config.getConcurrency(); t++) {
+            workers.add(CompletableFuture.supplyAsync(() -> {
+                Worker worker = new Worker(workload, activitiesById);
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return worker;
+                }
+                worker.run(phase, next, startNanos[0]);
+                return worker;
+            }, threads));
+        }
+        try {
+            ready.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting the simulation", e);
+        }
+        startNanos[0] = System.nanoTime();
+        start.countDown(); // Publishes the start time to the workers
+        Worker total = new Worker(workload, activitiesById);
+        workers.forEach(worker -> total.add(worker.join()));
+        long elapsed = total.lastCompletionNanos - startNanos[0];
+
+        Map<SignUpStatus, Long> signUps = new EnumMap<>(SignUpStatus.class);
+        for (SignUpStatus status : STATUSES) {
+            if (total.statuses[status.ordinal()] > 0) {
+                signUps.put(status, total.statuses[status.ordinal()]);
+            }
+        }
+        return new PhaseReport(phase.traffic.name(), phase.traffic.operations(), Math.max(0, elapsed), total.latencies,
+                signUps, total.rejectedJoins, total.missedCancellations);
+    }
+
+    /**
+     * Runs operations on one thread and keeps its own histograms and counts, merged after the
+     * phase, so threads never contend on recording.
+     */
+    private static final class Worker {
+        private final Workload workload;
+        private final Map<Integer, Activity> activitiesById;
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final long[] statuses = new long[STATUSES.length]; // Sign-ups by outcome
+        private long rejectedJoins;
+        private long missedCancellations;
+        private long lastCompletionNanos;
+
+        Worker(Workload workload, Map<Integer, Activity> activitiesById) {
+            this.workload = workload;
+            this.activitiesById = activitiesById;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new Histogram(3));
+            }
+        }
+
+        void run(Workload.Phase phase, AtomicInteger next, long startNanos) {
+            boolean paced = phase.traffic.arrivalsPerSecond() > 0;
+            for (int i; (i = next.getAndIncrement()) < phase.traffic.operations(); ) {
+                long arrival = paced ? startNanos + phase.arrivalNanos[i] : System.nanoTime();
+                for (long wait; (wait = arrival - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = phase.operation(i);
+                execute(operation, workload.passengers[phase.passengers[i]], phase.targets[i]);
+                long completed = System.nanoTime();
+                latencies.get(operation).recordValue(Math.max(0, completed - arrival));
+                lastCompletionNanos = Math.max(lastCompletionNanos, completed);
+            }
+        }
+
+        private void execute(Operation operation, Passenger passenger, int target) {
+            TravelPackage travelPackage = workload.travelPackage;
+            switch (operation) {
+                case JOIN -> {
+                    if (!travelPackage.addPassenger(passenger)) {
+                        rejectedJoins++;
+                    }
+                }
+                case SIGN_UP -> {
+                    SignUpStatus status = travelPackage.containsPassenger(passenger.getPassengerNumber())
+                            ? passenger.enroll(workload.activities[target])
+                            : SignUpStatus.NOT_IN_PACKAGE;
+                    statuses[status.ordinal()]++;
+                }
+                case CANCEL -> {
+                    int[] activityIds = passenger.getActivityIds();
+                    if (activityIds.length == 0
+                            || !passenger.cancel(activitiesById.get(activityIds[target % activityIds.length]))) {
+                        missedCancellations++; // Nothing to cancel, or cancelled concurrently
+                    }
+                }
+            }
+        }
+
+        void add(Worker other) {
+            other.latencies.forEach((operation, histogram) -> latencies.get(operation).add(histogram));
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] += other.statuses[i];
+            }
+            rejectedJoins += other.rejectedJoins;
+            missedCancellations += other.missedCancellations;
+            lastCompletionNanos = Math.max(lastCompletionNanos, other.lastCompletionNanos);
+        }
+    }
+
+    /**
+     * Runs a simulation from the command line and prints its report. Arguments are optional
+     * {@code name=value} pairs: {@code seed}, {@code threads}, {@code scale} multiplying the
+     * operations of the default phases, and {@code rate}, the arrivals per second of every phase,
+     * zero to run as fast as possible.
+     *
+     * @param args The arguments.
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        double scale = Double.parseDouble(options.getOrDefault("scale", "1"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        SimulationConfig.SimulationConfigBuilder config = SimulationConfig.builder()
+                .seed(Long.parseLong(options.getOrDefault("seed", "42")))
+                .concurrency(Integer.parseInt(options.getOrDefault("threads", "4")));
+        for (TrafficPhase phase : SimulationConfig.builder().build().getPhases()) {
+            config.phase(new TrafficPhase(phase.name(), (int) Math.round(phase.operations() * scale), rate,
+                    phase.joinShare(), phase.cancelShare(), phase.hotActivities(), phase.hotShare()));
+        }
+        System.out.print(new BookingSimulator(config.build()).run().format());
+    }
+}
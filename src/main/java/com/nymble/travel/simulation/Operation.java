@@ -0,0 +1,10 @@
+package com.nymble.travel.simulation;
+
+/**
+ * The kinds of operations a {@link BookingSimulator} runs against the models.
+ */
+public enum Operation {
+    JOIN, // A new passenger is added to the package
+    SIGN_UP, // A passenger signs up for an activity
+    CANCEL // A passenger cancels one of their sign-ups
+}
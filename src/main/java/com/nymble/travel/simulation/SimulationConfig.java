@@ -0,0 +1,57 @@
+package com.nymble.travel.simulation;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The settings of a {@link BookingSimulator} run. Every setting has a default; the defaults
+ * describe a mid-sized package with a steady phase, a flash sale and a wave of cancellations run
+ * as fast as possible on four threads.
+ */
+@Value
+@Builder
+public class SimulationConfig {
+    @Builder.Default
+    long seed = 42; // Seeds the catalog, the population and the operations
+    @Builder.Default
+    int concurrency = 4; // Threads running the operations
+    @Builder.Default
+    int destinations = 20;
+    @Builder.Default
+    int activitiesPerDestination = 50;
+    @Builder.Default
+    int minCapacity = 10; // Seats per activity, drawn uniformly from [minCapacity, maxCapacity]
+    @Builder.Default
+    int maxCapacity = 100;
+    @Builder.Default
+    double maxCost = 500; // Activity costs, drawn uniformly from [0, maxCost] in whole cents
+    @Builder.Default
+    int passengerCapacity = 20_000; // Places in the package
+    @Builder.Default
+    int initialPassengers = 5_000; // Passengers in the package before the first phase
+    @Builder.Default
+    double goldShare = 0.20; // Fraction of passengers in the gold tier
+    @Builder.Default
+    double premiumShare = 0.05; // Fraction of passengers in the premium tier; the rest are standard
+    @Builder.Default
+    double minBalance = 200; // Passenger balances, drawn uniformly from [minBalance, maxBalance]
+    @Builder.Default
+    double maxBalance = 3_000;
+    @Singular
+    List<TrafficPhase> phases; // Run in order; a steady phase, a flash sale and cancellations if none are given
+
+    /**
+     * Returns the phases to run.
+     *
+     * @return the configured phases, or the default phases if none were configured.
+     */
+    public List<TrafficPhase> getPhases() {
+        return phases.isEmpty()
+                ? List.of(TrafficPhase.steadyBrowsing(200_000, 0), TrafficPhase.flashSale(50_000, 0, 5),
+                        TrafficPhase.cancellations(50_000, 0))
+                : phases;
+    }
+}
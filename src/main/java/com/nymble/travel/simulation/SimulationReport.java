@@ -0,0 +1,116 @@
+package com.nymble.travel.simulation;
+
+import com.nymble.travel.models.SignUpStatus;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a {@link BookingSimulator} run: throughput, latencies and outcomes per phase,
+ * and the consistency of the package afterwards.
+ *
+ * @param seed The seed of the run.
+ * @param concurrency The number of threads that ran the operations.
+ * @param phases The reports of the phases, in the order they ran.
+ * @param oversoldSeats The number of passengers enrolled beyond the capacity of their activity, summed over
+ *                      all activities; zero unless booking is broken.
+ * @param seatCountMismatches The number of activities whose seat count differs from their roster.
+ * @param ledgerDifferenceCents The final balances of all passengers minus what they should be given the
+ *                              initial balances and the sign-ups held at the end; zero unless money was lost or made.
+ */
+public record SimulationReport(long seed, int concurrency, List<PhaseReport> phases, long oversoldSeats,
+                               int seatCountMismatches, long ledgerDifferenceCents) {
+
+    /**
+     * Returns whether the package ended up consistent: nothing oversold, seat counts matching
+     * the rosters and every cent accounted for.
+     *
+     * @return true if the run left the package consistent.
+     */
+    public boolean isConsistent() {
+        return oversoldSeats == 0 && seatCountMismatches == 0 && ledgerDifferenceCents == 0;
+    }
+
+    /**
+     * Formats the report as a table for the console.
+     *
+     * @return the formatted report.
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Seed %d, %d threads%n", seed, concurrency));
+        out.append(String.format("%-16s %9s %11s %9s %8s %10s %10s %10s %10s %10s%n", "phase", "operation", "count",
+                "ops/s", "rejected", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+        for (PhaseReport phase : phases) {
+            for (Operation operation : Operation.values()) {
+                Histogram latency = phase.latencies().get(operation);
+                if (latency.getTotalCount() == 0) {
+                    continue;
+                }
+                out.append(String.format("%-16s %9s %11d %9.0f %7.1f%% %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                        phase.name(), operation, latency.getTotalCount(),
+                        latency.getTotalCount() * 1e9 / phase.elapsedNanos(), 100 * phase.rejectionRate(operation),
+                        micros(latency.getValueAtPercentile(50)), micros(latency.getValueAtPercentile(90)),
+                        micros(latency.getValueAtPercentile(99)), micros(latency.getValueAtPercentile(99.9)),
+                        micros(latency.getMaxValue())));
+            }
+        }
+        for (PhaseReport phase : phases) {
+            out.append(String.format("%-16s %s%n", phase.name(), phase.signUps()));
+        }
+        out.append(String.format("Oversold seats %d, seat count mismatches %d, ledger difference %d cents%n",
+                oversoldSeats, seatCountMismatches, ledgerDifferenceCents));
+        return out.toString();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+
+    /**
+     * The outcome of one phase.
+     *
+     * @param name The name of the phase.
+     * @param operations The number of operations run.
+     * @param elapsedNanos The time from the start of the phase until its last operation completed.
+     * @param latencies The latency of each kind of operation in nanoseconds, measured from its arrival time so
+     *                  that queueing behind slow operations counts; not to be modified.
+     * @param signUps The number of sign-ups by outcome; {@link SignUpStatus#NOT_IN_PACKAGE} counts
+     *                passengers whose join was rejected or had not completed yet.
+     * @param rejectedJoins The number of passengers that could not join because the package was full.
+     * @param missedCancellations The number of cancellations by passengers without a sign-up to cancel.
+     */
+    public record PhaseReport(String name, int operations, long elapsedNanos, Map<Operation, Histogram> latencies,
+                              Map<SignUpStatus, Long> signUps, long rejectedJoins, long missedCancellations) {
+
+        /**
+         * Returns the operations completed per second.
+         *
+         * @return the throughput of the phase.
+         */
+        public double throughput() {
+            return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns the fraction of operations of a kind that did not take effect: sign-ups not
+         * booked, joins to a full package and cancellations without a sign-up.
+         *
+         * @param operation The kind of operation.
+         * @return the rejection rate, zero if no such operation ran.
+         */
+        public double rejectionRate(Operation operation) {
+            long count = latencies.get(operation).getTotalCount();
+            if (count == 0) {
+                return 0;
+            }
+            long rejected = switch (operation) {
+                case JOIN -> rejectedJoins;
+                case SIGN_UP -> count - signUps.getOrDefault(SignUpStatus.BOOKED, 0L);
+                case CANCEL -> missedCancellations;
+            };
+            return (double) rejected / count;
+        }
+    }
+}
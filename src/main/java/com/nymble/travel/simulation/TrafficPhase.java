@@ -0,0 +1,71 @@
+package com.nymble.travel.simulation;
+
+/**
+ * One phase of simulated traffic: a number of operations arriving at a given rate, mixed from
+ * passengers joining the package, sign-ups and cancellations.
+ * <p>
+ * Arrivals follow a Poisson process, so gaps between operations are exponentially distributed
+ * around the mean rate. A rate of zero sends operations as fast as the workers take them. A share
+ * of the sign-ups can be aimed at a few hot activities, as in a flash sale.
+ *
+ * @param name The name of the phase in reports.
+ * @param operations The number of operations in the phase.
+ * @param arrivalsPerSecond The mean arrival rate, or zero to run as fast as possible.
+ * @param joinShare The fraction of operations adding a new passenger to the package.
+ * @param cancelShare The fraction of operations cancelling one of a passenger's sign-ups; the rest are sign-ups.
+ * @param hotActivities The number of activities drawing the hot share of sign-ups.
+ * @param hotShare The fraction of sign-ups aimed at the hot activities.
+ */
+public record TrafficPhase(String name, int operations, double arrivalsPerSecond, double joinShare, double cancelShare,
+                           int hotActivities, double hotShare) {
+
+    public TrafficPhase {
+        if (operations < 0) {
+            throw new IllegalArgumentException("Operation count must not be negative: " + operations);
+        }
+        if (arrivalsPerSecond < 0) {
+            throw new IllegalArgumentException("Arrival rate must not be negative: " + arrivalsPerSecond);
+        }
+        if (joinShare < 0 || cancelShare < 0 || joinShare + cancelShare > 1) {
+            throw new IllegalArgumentException("Shares must not be negative or exceed 1: " + joinShare + ", " + cancelShare);
+        }
+        if (hotShare < 0 || hotShare > 1 || hotShare > 0 && hotActivities <= 0) {
+            throw new IllegalArgumentException("Hot share must be in [0, 1] and target at least one activity: " + hotShare);
+        }
+    }
+
+    /**
+     * Returns a phase of passengers browsing and booking across the whole catalog, with a few
+     * joining and a few changing their minds.
+     *
+     * @param operations The number of operations.
+     * @param arrivalsPerSecond The mean arrival rate, or zero to run as fast as possible.
+     * @return the phase.
+     */
+    public static TrafficPhase steadyBrowsing(int operations, double arrivalsPerSecond) {
+        return new TrafficPhase("steady browsing", operations, arrivalsPerSecond, 0.05, 0.10, 0, 0);
+    }
+
+    /**
+     * Returns a flash sale: a burst of new passengers and sign-ups, most of them for a few activities.
+     *
+     * @param operations The number of operations.
+     * @param arrivalsPerSecond The mean arrival rate, or zero to run as fast as possible.
+     * @param hotActivities The number of activities on sale.
+     * @return the phase.
+     */
+    public static TrafficPhase flashSale(int operations, double arrivalsPerSecond, int hotActivities) {
+        return new TrafficPhase("flash sale", operations, arrivalsPerSecond, 0.20, 0, hotActivities, 0.90);
+    }
+
+    /**
+     * Returns a wave of cancellations, with some sign-ups taking the freed seats.
+     *
+     * @param operations The number of operations.
+     * @param arrivalsPerSecond The mean arrival rate, or zero to run as fast as possible.
+     * @return the phase.
+     */
+    public static TrafficPhase cancellations(int operations, double arrivalsPerSecond) {
+        return new TrafficPhase("cancellations", operations, arrivalsPerSecond, 0, 0.70, 0, 0);
+    }
+}
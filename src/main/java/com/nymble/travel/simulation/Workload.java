@@ -0,0 +1,140 @@
+package com.nymble.travel.simulation;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Everything a simulation run does, generated up front from the seed: the catalog, the
+ * passengers and, per phase, every operation with its arrival time and target. Generating the
+ * workload before the run keeps it identical between runs with the same settings, whatever the
+ * timing of the threads executing it, and keeps random number generation off the measured path.
+ */
+final class Workload {
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    final TravelPackage travelPackage;
+    final Activity[] activities; // In itinerary order
+    final Passenger[] passengers; // Indexed by passenger number: the initial passengers, then those joining
+    final int initialPassengers;
+    final Phase[] phases;
+
+    private Workload(TravelPackage travelPackage, Activity[] activities, Passenger[] passengers, int initialPassengers,
+                     Phase[] phases) {
+        this.travelPackage = travelPackage;
+        this.activities = activities;
+        this.passengers = passengers;
+        this.initialPassengers = initialPassengers;
+        this.phases = phases;
+    }
+
+    /**
+     * Generates the workload of a run.
+     */
+    static Workload generate(SimulationConfig config) {
+        SplittableRandom random = new SplittableRandom(config.getSeed());
+        TravelPackage travelPackage = TravelPackage.builder()
+                .name("Simulated Package")
+                .passengerCapacity(config.getPassengerCapacity())
+                .build();
+        Activity[] activities = new Activity[config.getDestinations() * config.getActivitiesPerDestination()];
+        long maxCostCents = Math.round(config.getMaxCost() * 100);
+        for (int d = 0, a = 0; d < config.getDestinations(); d++) {
+            Destination destination = Destination.builder().name("Destination " + d).build();
+            for (int i = 0; i < config.getActivitiesPerDestination(); i++, a++) {
+                activities[a] = Activity.builder()
+                        .name("Activity " + d + "-" + i)
+                        .description("Simulated activity " + i + " at destination " + d)
+                        .cost(random.nextLong(maxCostCents + 1) / 100.0)
+                        .capacity(random.nextInt(config.getMinCapacity(), config.getMaxCapacity() + 1))
+                        .build();
+                destination.addActivity(activities[a]);
+            }
+            travelPackage.addDestination(destination);
+        }
+
+        // Hot activities are the first of a shuffled order, so sales hit activities spread over the catalog
+        int[] shuffled = new int[activities.length];
+        for (int i = 0; i < shuffled.length; i++) {
+            int j = random.nextInt(i + 1);
+            shuffled[i] = shuffled[j];
+            shuffled[j] = i;
+        }
+
+        List<TrafficPhase> trafficPhases = config.getPhases();
+        int joining = 0;
+        Phase[] phases = new Phase[trafficPhases.size()];
+        for (int p = 0; p < phases.length; p++) {
+            phases[p] = new Phase(trafficPhases.get(p));
+        }
+        int members = config.getInitialPassengers(); // Passengers that joined before the operation, if admitted
+        for (Phase phase : phases) {
+            TrafficPhase traffic = phase.traffic;
+            long offset = 0;
+            for (int i = 0; i < traffic.operations(); i++) {
+                if (traffic.arrivalsPerSecond() > 0) {
+                    offset += Math.round(-Math.log(1 - random.nextDouble()) * 1e9 / traffic.arrivalsPerSecond());
+                }
+                phase.arrivalNanos[i] = offset;
+                double draw = random.nextDouble();
+                if (draw < traffic.joinShare()) {
+                    phase.operations[i] = (byte) Operation.JOIN.ordinal();
+                    phase.passengers[i] = members++;
+                    joining++;
+                } else {
+                    boolean cancel = draw < traffic.joinShare() + traffic.cancelShare();
+                    phase.operations[i] = (byte) (cancel ? Operation.CANCEL : Operation.SIGN_UP).ordinal();
+                    phase.passengers[i] = members == 0 ? 0 : random.nextInt(members);
+                    if (cancel) {
+                        phase.targets[i] = random.nextInt(Integer.MAX_VALUE); // Picks among the sign-ups at run time
+                    } else if (random.nextDouble() < traffic.hotShare()) {
+                        phase.targets[i] = shuffled[random.nextInt(Math.min(traffic.hotActivities(), shuffled.length))];
+                    } else {
+                        phase.targets[i] = random.nextInt(activities.length);
+                    }
+                }
+            }
+        }
+
+        Passenger[] passengers = new Passenger[config.getInitialPassengers() + joining];
+        long minBalanceCents = Math.round(config.getMinBalance() * 100);
+        long maxBalanceCents = Math.round(config.getMaxBalance() * 100);
+        for (int number = 0; number < passengers.length; number++) {
+            double tierDraw = random.nextDouble();
+            PassengerTier tier = tierDraw < config.getPremiumShare() ? PassengerTier.PREMIUM
+                    : tierDraw < config.getPremiumShare() + config.getGoldShare() ? PassengerTier.GOLD
+                    : PassengerTier.STANDARD;
+            long balanceCents = random.nextLong(minBalanceCents, maxBalanceCents + 1);
+            passengers[number] = tier.newPassenger("Passenger " + number, number, balanceCents / 100.0);
+        }
+        return new Workload(travelPackage, activities, passengers, config.getInitialPassengers(), phases);
+    }
+
+    /**
+     * The operations of one phase, in arrival order.
+     */
+    static final class Phase {
+        final TrafficPhase traffic;
+        final long[] arrivalNanos; // Arrival time of each operation, from the start of the phase
+        final byte[] operations; // Ordinal of the operation kind
+        final int[] passengers; // Number of the acting passenger
+        final int[] targets; // Activity index of a sign-up, or a random number choosing the sign-up to cancel
+
+        Phase(TrafficPhase traffic) {
+            this.traffic = traffic;
+            this.arrivalNanos = new long[traffic.operations()];
+            this.operations = new byte[traffic.operations()];
+            this.passengers = new int[traffic.operations()];
+            this.targets = new int[traffic.operations()];
+        }
+
+        Operation operation(int index) {
+            return OPERATIONS[operations[index]];
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.nymble.travel.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of int values in the style of a Roaring bitmap. Values are split into
+ * chunks by their upper 16 bits; each chunk stores its lower 16 bits either as a sorted array
+ * of chars while it holds at most {@value #ARRAY_LIMIT} values, or as a 65,536-bit bitmap once it
+ * grows past that. Sparse sets therefore cost about two bytes per value and dense sets about one
+ * bit per possible value, while membership checks stay a binary search over the chunks plus a
+ * binary search or a single bit test within one chunk.
+ * <p>
+ * Values are ordered as unsigned ints. This class is not thread-safe; callers must synchronize
+ * access themselves.
+ */
+public final class CompressedBitmap {
+    private static final int ARRAY_LIMIT = 4096; // Largest chunk kept as an array, 8 KB like a bitmap chunk
+    private static final int WORDS = 1 << 10; // Longs in a bitmap chunk
+
+    private char[] keys = new char[0]; // Upper 16 bits of each chunk, sorted
+    private Chunk[] chunks = new Chunk[0]; // The chunk for each key
+    private int size; // Number of chunks in use
+    private int cardinality; // Number of values in the set
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add.
+     * @return true if the value was added, false if it was already present.
+     */
+    public boolean add(int value) {
+        char key = (char) (value >>> 16);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayChunk());
+        }
+        Chunk chunk = chunks[index];
+        int before = chunk.cardinality();
+        chunks[index] = chunk.add((char) value);
+        if (chunks[index].cardinality() == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value The value to remove.
+     * @return true if the value was removed, false if it was not present.
+     */
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Chunk chunk = chunks[index];
+        int before = chunk.cardinality();
+        Chunk updated = chunk.remove((char) value);
+        if (updated.cardinality() == before) {
+            return false;
+        }
+        cardinality--;
+        if (updated.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+            chunks[--size] = null;
+        } else {
+            chunks[index] = updated;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the set contains the value.
+     *
+     * @param value The value to look up.
+     * @return true if the value is present.
+     */
+    public boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return index >= 0 && chunks[index].contains((char) value);
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return the cardinality.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns the values present in both this set and the other, as a new set. Chunks are only
+     * intersected where both sets have a chunk with the same upper bits.
+     *
+     * @param other The set to intersect with.
+     * @return the intersection.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0, j = 0; i < size && j < other.size; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = chunks[i].and(other.chunks[j]);
+                if (chunk.cardinality() > 0) {
+                    result.insertChunk(result.size, keys[i], chunk);
+                    result.cardinality += chunk.cardinality();
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of values present in both this set and the other, without
+     * materializing the intersection.
+     *
+     * @param other The set to intersect with.
+     * @return the cardinality of the intersection.
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int count = 0;
+        for (int i = 0, j = 0; i < size && j < other.size; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                count += chunks[i].andCardinality(other.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Passes every value to the consumer in unsigned ascending order.
+     *
+     * @param consumer Receives the values.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            chunks[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Returns the values of the set in unsigned ascending order.
+     *
+     * @return a new array holding the values.
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality];
+        int[] next = new int[1];
+        forEach(value -> values[next[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Returns an independent copy of the set.
+     *
+     * @return the copy.
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, size);
+        copy.chunks = new Chunk[size];
+        for (int i = 0; i < size; i++) {
+            copy.chunks[i] = chunks[i].copy();
+        }
+        copy.size = size;
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    /**
+     * Estimates the heap bytes used by the set's data, excluding object headers.
+     *
+     * @return the approximate size in bytes.
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + chunks.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += chunks[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void insertChunk(int index, char key, Chunk chunk) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        size++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        forEach(value -> text.append(text.length() > 1 ? "," : "").append(Integer.toUnsignedString(value)));
+        return text.append('}').toString();
+    }
+
+    /**
+     * The lower 16 bits of the values sharing one upper 16 bits. Updates return the chunk to keep,
+     * which differs from the receiver when the representation changes.
+     */
+    private abstract static class Chunk {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Chunk add(char value);
+
+        abstract Chunk remove(char value);
+
+        abstract Chunk and(Chunk other);
+
+        abstract int andCardinality(Chunk other);
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract Chunk copy();
+
+        abstract long sizeInBytes();
+    }
+
+    /**
+     * A sparse chunk holding its values in a sorted char array.
+     */
+    private static final class ArrayChunk extends Chunk {
+        private char[] values; // Sorted values, the first count are in use
+        private int count; // Number of values
+
+        ArrayChunk() {
+            this(new char[4], 0);
+        }
+
+        ArrayChunk(char[] values, int count) {
+            this.values = values;
+            this.count = count;
+        }
+
+        @Override
+        int cardinality() {
+            return count;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, count, value) >= 0;
+        }
+
+        @Override
+        Chunk add(char value) {
+            int index = Arrays.binarySearch(values, 0, count, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (count == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, count * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, count - index);
+            values[index] = value;
+            count++;
+            return this;
+        }
+
+        @Override
+        Chunk remove(char value) {
+            int index = Arrays.binarySearch(values, 0, count, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, count - index - 1);
+                count--;
+            }
+            return this;
+        }
+
+        @Override
+        Chunk and(Chunk other) {
+            char[] common = new char[count];
+            int found = 0;
+            if (other instanceof ArrayChunk array) {
+                for (int i = 0, j = 0; i < count && j < array.count; ) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        common[found++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    if (other.contains(values[i])) {
+                        common[found++] = values[i];
+                    }
+                }
+            }
+            return new ArrayChunk(common, found);
+        }
+
+        @Override
+        int andCardinality(Chunk other) {
+            int found = 0;
+            if (other instanceof ArrayChunk array) {
+                for (int i = 0, j = 0; i < count && j < array.count; ) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        found++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    if (other.contains(values[i])) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < count; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Chunk copy() {
+            return new ArrayChunk(Arrays.copyOf(values, Math.max(count, 1)), count);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return values.length * 2L;
+        }
+
+        private BitmapChunk toBitmap() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < count; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapChunk(words, count);
+        }
+    }
+
+    /**
+     * A dense chunk holding one bit per possible value.
+     */
+    private static final class BitmapChunk extends Chunk {
+        private final long[] words; // One bit per value
+        private int count; // Number of set bits
+
+        BitmapChunk(long[] words, int count) {
+            this.words = words;
+            this.count = count;
+        }
+
+        @Override
+        int cardinality() {
+            return count;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Chunk add(char value) {
+            long word = words[value >>> 6];
+            long updated = word | (1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                count++;
+            }
+            return this;
+        }
+
+        @Override
+        Chunk remove(char value) {
+            long word = words[value >>> 6];
+            long updated = word & ~(1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                count--;
+            }
+            return count <= ARRAY_LIMIT / 2 ? toArray() : this; // Shrink with hysteresis to avoid flapping
+        }
+
+        @Override
+        Chunk and(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            long[] common = new long[WORDS];
+            int found = 0;
+            for (int i = 0; i < WORDS; i++) {
+                common[i] = words[i] & otherWords[i];
+                found += Long.bitCount(common[i]);
+            }
+            BitmapChunk result = new BitmapChunk(common, found);
+            return found <= ARRAY_LIMIT ? result.toArray() : result;
+        }
+
+        @Override
+        int andCardinality(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            int found = 0;
+            for (int i = 0; i < WORDS; i++) {
+                found += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return found;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < WORDS; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+
+        @Override
+        Chunk copy() {
+            return new BitmapChunk(words.clone(), count);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return WORDS * 8L;
+        }
+
+        private ArrayChunk toArray() {
+            char[] values = new char[Math.max(count, 4)];
+            int[] next = new int[1];
+            forEach(0, value -> values[next[0]++] = (char) value);
+            return new ArrayChunk(values, count);
+        }
+    }
+}
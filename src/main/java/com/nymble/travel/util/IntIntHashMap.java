@@ -0,0 +1,162 @@
+package com.nymble.travel.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from int keys to non-negative int values, without boxing.
+ * Collisions are resolved by linear probing and removals use backward-shift deletion,
+ * so lookups, inserts and removals are O(1) on average and no tombstones accumulate.
+ * This class is not thread-safe; callers must synchronize access themselves.
+ */
+public final class IntIntHashMap {
+    /** Value returned by {@link #get(int)} when the key is absent. */
+    public static final int NO_VALUE = -1;
+
+    private int[] keys; // Keys per bucket
+    private int[] values; // Values per bucket, NO_VALUE marks an empty bucket
+    private int size; // Number of mappings
+    private int mask; // Bucket count minus one, bucket count is a power of two
+
+    /**
+     * Creates a map sized for the given number of mappings without resizing.
+     *
+     * @param expectedSize The expected number of mappings.
+     */
+    public IntIntHashMap(int expectedSize) {
+        int buckets = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(buckets);
+    }
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    /**
+     * Returns the value mapped to the key.
+     *
+     * @param key The key to look up.
+     * @return the mapped value, or {@link #NO_VALUE} if the key is absent.
+     */
+    public int get(int key) {
+        for (int i = bucket(key); ; i = (i + 1) & mask) {
+            int value = values[i];
+            if (value == NO_VALUE) {
+                return NO_VALUE;
+            }
+            if (keys[i] == key) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the key is mapped.
+     *
+     * @param key The key to look up.
+     * @return true if the map contains the key.
+     */
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Maps the key to the value, replacing any previous value.
+     *
+     * @param key The key to map.
+     * @param value The value, must not be negative.
+     * @return the previous value, or {@link #NO_VALUE} if the key was absent.
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        for (int i = bucket(key); ; i = (i + 1) & mask) {
+            int previous = values[i];
+            if (previous == NO_VALUE) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > mask + 1) {
+                    resize();
+                }
+                return NO_VALUE;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @param key The key to remove.
+     * @return the removed value, or {@link #NO_VALUE} if the key was absent.
+     */
+    public int remove(int key) {
+        int i = bucket(key);
+        for (; ; i = (i + 1) & mask) {
+            if (values[i] == NO_VALUE) {
+                return NO_VALUE;
+            }
+            if (keys[i] == key) {
+                break;
+            }
+        }
+        int removed = values[i];
+        // Shift later entries of the probe sequence back into the gap
+        for (int gap = i, next = (i + 1) & mask; ; next = (next + 1) & mask) {
+            if (values[next] == NO_VALUE) {
+                values[gap] = NO_VALUE;
+                break;
+            }
+            int home = bucket(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int bucket(int key) {
+        int h = key * 0x9E3779B9; // Fibonacci hashing spreads sequential keys
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int buckets) {
+        keys = new int[buckets];
+        values = new int[buckets];
+        Arrays.fill(values, NO_VALUE);
+        mask = buckets - 1;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.nymble.travel.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashed timer wheel for many short timeouts that are usually cancelled before they fire, such
+ * as expiring holds. Timeouts are kept in a ring of buckets, one per tick, in doubly linked lists,
+ * so scheduling and cancelling are O(1) regardless of how many timeouts are pending. Timeouts
+ * further out than one turn of the wheel stay in their bucket until the turn they are due in.
+ * <p>
+ * The wheel has no thread of its own: its owner calls {@link #advance(long)} periodically, for
+ * example from a scheduled executor, and due tasks run on that thread after the wheel has been
+ * unlocked. Tasks therefore fire up to one tick late, never early. A task that throws is
+ * reported to the advancing thread's uncaught exception handler and does not keep the rest of
+ * the due tasks from running, nor stop the owner advancing the wheel. The wheel is thread-safe.
+ */
+public final class TimerWheel {
+    private final long tickNanos; // Duration of one tick
+    private final long startNanos; // Time of tick zero
+    private final Timeout[] heads; // First timeout per bucket, guarded by this
+    private final int mask; // Bucket count minus one, bucket count is a power of two
+    private long currentTick; // Last tick whose timeouts have fired, guarded by this
+    private int size; // Number of pending timeouts, guarded by this
+
+    /**
+     * Creates a wheel starting now.
+     *
+     * @param tickNanos The duration of one tick in nanoseconds, the resolution of the timeouts.
+     * @param buckets The number of ticks per turn of the wheel, rounded up to a power of two.
+     */
+    public TimerWheel(long tickNanos, int buckets) {
+        this(tickNanos, buckets, System.nanoTime());
+    }
+
+    /**
+     * Creates a wheel starting at the given time.
+     *
+     * @param tickNanos The duration of one tick in nanoseconds, the resolution of the timeouts.
+     * @param buckets The number of ticks per turn of the wheel, rounded up to a power of two.
+     * @param startNanos The time of tick zero, on the clock passed to {@link #schedule} and {@link #advance}.
+     */
+    public TimerWheel(long tickNanos, int buckets, long startNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickNanos);
+        }
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive: " + buckets);
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.heads = new Timeout[Math.max(1, Integer.highestOneBit(buckets - 1) << 1)];
+        this.mask = heads.length - 1;
+    }
+
+    /**
+     * Schedules a task to run once the given time has passed.
+     *
+     * @param task The task; runs on the thread advancing the wheel.
+     * @param deadlineNanos The time after which the task runs.
+     * @return the timeout, to cancel the task.
+     */
+    public synchronized Timeout schedule(Runnable task, long deadlineNanos) {
+        long tick = Math.max(currentTick + 1, ceilDiv(deadlineNanos - startNanos, tickNanos));
+        Timeout timeout = new Timeout(task, tick);
+        int bucket = (int) (tick & mask);
+        timeout.next = heads[bucket];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        heads[bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Fires every timeout due by the given time and returns how many fired.
+     *
+     * @param nowNanos The current time.
+     * @return the number of tasks run.
+     */
+    public int advance(long nowNanos) {
+        List<Timeout> due = new ArrayList<>();
+        synchronized (this) {
+            long target = Math.floorDiv(nowNanos - startNanos, tickNanos);
+            if (target <= currentTick) {
+                return 0;
+            }
+            // Visit every bucket at most once, even after a long pause
+            long from = Math.max(currentTick + 1, target - mask);
+            for (long tick = from; tick <= target; tick++) {
+                Timeout timeout = heads[(int) (tick & mask)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.tick <= target) {
+                        unlink(timeout);
+                        due.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            currentTick = target;
+        }
+        Thread thread = Thread.currentThread();
+        for (Timeout timeout : due) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+        return due.size();
+    }
+
+    /**
+     * Returns the number of pending timeouts.
+     *
+     * @return the number of timeouts neither fired nor cancelled.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.done) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            heads[(int) (timeout.tick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.done = true;
+        size--;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long tick; // Tick the task is due in
+        private Timeout previous; // Neighbours in the bucket, guarded by the wheel
+        private Timeout next;
+        private boolean done; // Whether the timeout fired or was cancelled, guarded by the wheel
+
+        private Timeout(Runnable task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+
+        /**
+         * Cancels the task unless it already fired.
+         *
+         * @return true if the task was pending and will not run, false if it fired or was cancelled before.
+         */
+        public boolean cancel() {
+            return TimerWheel.this.cancel(this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.nymble.travel.wire;
+
+import com.nymble.travel.models.TravelPackage;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes whole {@link TravelPackage}s in the {@link TravelWireFormat}, for requests and
+ * responses of type {@value TravelWireFormat#MEDIA_TYPE}. It only handles that media type, so
+ * JSON stays the default for everything else.
+ */
+public class TravelPackageMessageConverter extends AbstractHttpMessageConverter<TravelPackage> {
+    public static final MediaType TRAVEL_PACKAGE = MediaType.parseMediaType(TravelWireFormat.MEDIA_TYPE);
+
+    public TravelPackageMessageConverter() {
+        super(TRAVEL_PACKAGE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TravelPackage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected TravelPackage readInternal(Class<? extends TravelPackage> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        try {
+            return TravelWireFormat.decode(ByteBuffer.wrap(body));
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(TravelPackage travelPackage, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body = TravelWireFormat.encode(travelPackage);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+}
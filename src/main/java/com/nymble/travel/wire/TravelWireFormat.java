@@ -0,0 +1,363 @@
+package com.nymble.travel.wire;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact binary wire format for exchanging a whole {@link TravelPackage} between services: the
+ * package, its passengers of every tier with their balances, and the itinerary with the seats
+ * taken and the roster of each activity, with what each passenger on it was charged.
+ * <p>
+ * Numbers are written as varints, seven bits per byte, so counts, capacities and passenger
+ * numbers mostly take one or two bytes. Every distinct string is written once, in a dictionary
+ * ahead of the package, and referred to by its index, so descriptions and names repeated across
+ * destinations cost a byte or two each. Passengers are tagged with their tier, so the decoder
+ * recreates the right subclass. Costs in whole cents are written as integers, any other cost as
+ * a double, and rosters as the gaps between ascending passenger numbers, each followed by the
+ * passenger's charge in cents.
+ * <p>
+ * The decoder reads straight from a {@link ByteBuffer}, heap, direct or mapped, without copying
+ * it into a stream first, and decodes each dictionary string once however often it is used.
+ */
+public final class TravelWireFormat {
+    public static final String MEDIA_TYPE = "application/x-travel-package";
+    private static final int MAGIC = 0x54525657; // "TRVW"
+    private static final int VERSION = 2;
+    // Tier tags, fixed on the wire whatever the order of PassengerTier
+    private static final byte PREMIUM_TAG = 1;
+    private static final byte GOLD_TAG = 2;
+    private static final byte STANDARD_TAG = 3;
+    private static final long MAX_WHOLE_CENTS = 1L << 53; // Beyond this, cents may not convert back to the same cost
+
+    private TravelWireFormat() {
+    }
+
+    /**
+     * Encodes a package. The itinerary and each destination's activities are read once, so the
+     * package is encoded as it stood at that moment even while destinations and activities are
+     * added; seats, balances and rosters may change concurrently, and each is read once.
+     *
+     * @param travelPackage The package to encode.
+     * @return the encoded bytes.
+     */
+    public static byte[] encode(TravelPackage travelPackage) {
+        Output strings = new Output(4 * 1024);
+        Output body = new Output(64 * 1024);
+        Map<String, Integer> dictionary = new HashMap<>();
+        body.writeString(travelPackage.getName(), dictionary, strings);
+        body.writeVarInt(travelPackage.getPassengerCapacity());
+        List<Passenger> passengers = travelPackage.getPassengers();
+        body.writeVarInt(passengers.size());
+        for (Passenger passenger : passengers) {
+            body.writeByte(switch (passenger.getTier()) {
+                case PREMIUM -> PREMIUM_TAG;
+                case GOLD -> GOLD_TAG;
+                case STANDARD -> STANDARD_TAG;
+            });
+            body.writeString(passenger.getName(), dictionary, strings);
+            body.writeVarInt(passenger.getPassengerNumber());
+            body.writeVarLong(passenger.getWallet().getBalanceCents());
+        }
+        List<Destination> itinerary = travelPackage.getItinerary();
+        body.writeVarInt(itinerary.size());
+        for (Destination destination : itinerary) {
+            body.writeString(destination.getName(), dictionary, strings);
+            List<Activity> activities = destination.getActivities();
+            body.writeVarInt(activities.size());
+            for (Activity activity : activities) {
+                body.writeString(activity.getName(), dictionary, strings);
+                body.writeString(activity.getDescription(), dictionary, strings);
+                writeCost(body, activity.getCost());
+                body.writeVarInt(activity.getCapacity());
+                int[] roster = activity.getEnrolledPassengerNumbers();
+                long[] charges = new long[roster.length];
+                int members = 0;
+                for (int passengerNumber : roster) {
+                    Optional<Passenger> member = travelPackage.findPassenger(passengerNumber);
+                    if (member.isPresent()) { // Seats of passengers outside the package stay held
+                        charges[members] = member.get().getChargeCents(activity);
+                        roster[members++] = passengerNumber;
+                    }
+                }
+                body.writeVarInt(Math.max(0, activity.getEnrolledPassengers() - members)); // Seats held by no passenger
+                body.writeVarInt(members);
+                int previous = 0;
+                for (int i = 0; i < members; i++) {
+                    body.writeVarInt(roster[i] - previous);
+                    body.writeVarLong(charges[i]);
+                    previous = roster[i];
+                }
+            }
+        }
+
+        Output out = new Output(16 + strings.size + body.size);
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeVarInt(dictionary.size());
+        out.write(strings.bytes, 0, strings.size);
+        out.write(body.bytes, 0, body.size);
+        return out.size == out.bytes.length ? out.bytes : Arrays.copyOf(out.bytes, out.size);
+    }
+
+    /**
+     * Decodes a package from the buffer's position onwards, leaving the position after the
+     * package. The decoded package is new: it is not in any catalog and has no listeners.
+     *
+     * @param buffer The encoded package.
+     * @return the decoded package.
+     * @throws IllegalArgumentException if the buffer does not hold a package in this format.
+     */
+    public static TravelPackage decode(ByteBuffer buffer) {
+        try {
+            if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a travel package");
+            }
+            int version = readVarInt(buffer);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported travel package version " + version);
+            }
+            String[] strings = new String[readCount(buffer) + 1]; // Index zero stands for null
+            for (int i = 1; i < strings.length; i++) {
+                strings[i] = readUtf8(buffer, readCount(buffer));
+            }
+
+            TravelPackage travelPackage = TravelPackage.builder()
+                    .name(readName(buffer, strings, "package"))
+                    .passengerCapacity(readCapacity(buffer))
+                    .build();
+            for (int p = readCount(buffer); p > 0; p--) {
+                byte tag = buffer.get();
+                PassengerTier tier = switch (tag) {
+                    case PREMIUM_TAG -> PassengerTier.PREMIUM;
+                    case GOLD_TAG -> PassengerTier.GOLD;
+                    case STANDARD_TAG -> PassengerTier.STANDARD;
+                    default -> throw new IllegalArgumentException("Unknown passenger tier tag " + tag);
+                };
+                Passenger passenger = tier.newPassenger(readString(buffer, strings), readVarInt(buffer), 0);
+                passenger.getWallet().setBalanceCents(readVarLong(buffer));
+                if (!travelPackage.addPassenger(passenger)) {
+                    throw new IllegalArgumentException("Travel package enrolls passenger "
+                            + passenger.getPassengerNumber() + " twice or beyond its capacity");
+                }
+            }
+            for (int d = readCount(buffer); d > 0; d--) {
+                Destination destination = Destination.builder().name(readName(buffer, strings, "destination")).build();
+                for (int a = readCount(buffer); a > 0; a--) {
+                    Activity activity = Activity.builder()
+                            .name(readName(buffer, strings, "activity"))
+                            .description(readString(buffer, strings))
+                            .cost(readCost(buffer))
+                            .capacity(readCapacity(buffer))
+                            .build();
+                    activity.reserveUpTo(readVarInt(buffer));
+                    int passengerNumber = 0;
+                    for (int r = readCount(buffer); r > 0; r--) {
+                        passengerNumber += readVarInt(buffer);
+                        int number = passengerNumber;
+                        Passenger passenger = travelPackage.findPassenger(number).orElseThrow(() ->
+                                new IllegalArgumentException("Travel package enrolls unknown passenger " + number));
+                        if (!activity.addPassenger(passenger)) {
+                            throw new IllegalArgumentException("Travel package seats passenger " + number
+                                    + " in " + activity.getName() + " twice or beyond its capacity");
+                        }
+                        passenger.recordCharge(activity, readVarLong(buffer));
+                    }
+                    destination.addActivity(activity);
+                }
+                travelPackage.addDestination(destination);
+            }
+            return travelPackage;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt travel package", e);
+        }
+    }
+
+    private static void writeCost(Output out, double cost) {
+        double cents = cost * 100;
+        if (cents >= 0 && cents < MAX_WHOLE_CENTS && cents == Math.rint(cents) && (long) cents / 100.0 == cost) {
+            out.writeVarLong((long) cents << 1);
+        } else {
+            out.writeVarLong(1);
+            out.writeLong(Double.doubleToRawLongBits(cost));
+        }
+    }
+
+    /**
+     * Reads a cost, rejecting values a catalog would not accept: pricing treats a cost that is
+     * negative or not finite as free.
+     */
+    private static double readCost(ByteBuffer buffer) {
+        long header = readVarLong(buffer);
+        double cost = (header & 1) == 0 ? (header >>> 1) / 100.0 : buffer.getDouble();
+        if (!(cost >= 0) || Double.isInfinite(cost)) {
+            throw new IllegalArgumentException("Corrupt travel package: invalid cost " + cost);
+        }
+        return cost;
+    }
+
+    private static int readCapacity(ByteBuffer buffer) {
+        int capacity = readVarInt(buffer);
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Corrupt travel package: negative capacity " + capacity);
+        }
+        return capacity;
+    }
+
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        return strings[readVarInt(buffer)];
+    }
+
+    private static String readName(ByteBuffer buffer, String[] strings, String owner) {
+        String name = readString(buffer, strings);
+        if (name == null) {
+            throw new IllegalArgumentException("Corrupt travel package: " + owner + " without a name");
+        }
+        return name;
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a count, which cannot exceed the bytes left since every counted item takes at least
+     * one, so corrupt input fails rather than allocating a huge array.
+     */
+    private static int readCount(ByteBuffer buffer) {
+        int count = readVarInt(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt travel package: count " + count + " exceeds the input");
+        }
+        return count;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt travel package: varint too long");
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt travel package: varint too long");
+    }
+
+    /**
+     * A growable byte array, cheaper than a stream for the many single-byte writes of varints.
+     */
+    private static final class Output {
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        /**
+         * Writes an int as an unsigned varint; negative values take five bytes.
+         */
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Writes the dictionary index of a string, adding the string to the dictionary the first
+         * time it is seen. Indexes start at one; zero stands for null.
+         */
+        void writeString(String value, Map<String, Integer> dictionary, Output strings) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = dictionary.size() + 1;
+                dictionary.put(value, index);
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                strings.writeVarInt(utf8.length);
+                strings.write(utf8, 0, utf8.length);
+            }
+            writeVarInt(index);
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.nymble.travel.wire;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link TravelPackageMessageConverter} next to Spring's default converters, so
+ * controllers can exchange packages as {@value TravelWireFormat#MEDIA_TYPE} as well as JSON.
+ */
+@Configuration
+public class WireConfiguration {
+
+    @Bean
+    public TravelPackageMessageConverter travelPackageMessageConverter() {
+        return new TravelPackageMessageConverter();
+    }
+}
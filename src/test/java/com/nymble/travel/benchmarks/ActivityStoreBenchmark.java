@@ -0,0 +1,70 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.catalog.ActivityStore;
+import com.nymble.travel.models.Activity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares availability and cost scans over one million activities held as {@link Activity}
+ * objects with the same scans over the columns of an {@link ActivityStore}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ActivityStoreBenchmark {
+    private List<Activity> activities;
+    private ActivityStore store;
+
+    @Setup
+    public void setUp() {
+        activities = BenchmarkCatalogs.activities(BenchmarkCatalogs.travelPackage(100, 10_000, 1));
+        store = ActivityStore.copyOf(activities);
+    }
+
+    @Benchmark
+    public int countAvailableObjects() {
+        int count = 0;
+        for (Activity activity : activities) {
+            if (activity.getCost() <= 100.0 && activity.getAvailableSeats() >= 5) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countAvailableColumns() {
+        return store.countAvailable(100.0, 5);
+    }
+
+    @Benchmark
+    public double minCostObjects() {
+        double min = Double.POSITIVE_INFINITY;
+        for (Activity activity : activities) {
+            if (activity.getAvailableSeats() >= 5) {
+                min = Math.min(min, activity.getCost());
+            }
+        }
+        return min;
+    }
+
+    @Benchmark
+    public double minCostColumns() {
+        return store.minAvailableCost(5);
+    }
+}
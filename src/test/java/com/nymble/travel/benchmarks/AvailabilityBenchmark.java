@@ -0,0 +1,76 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.catalog.ActivityAvailabilityIndex;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.TravelPackage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding open activities under a price at one destination by scanning the catalog,
+ * as {@link Activity#printAvailableActivities(List)} does, with a query on the
+ * {@link ActivityAvailabilityIndex}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+    @Param({"100", "10000"})
+    public int activitiesPerDestination;
+
+    private TravelPackage travelPackage;
+    private List<Activity> allActivities;
+    private ActivityAvailabilityIndex index;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        travelPackage = BenchmarkCatalogs.travelPackage(10, activitiesPerDestination, 1);
+        allActivities = BenchmarkCatalogs.activities(travelPackage);
+        index = new ActivityAvailabilityIndex(travelPackage);
+        originalOut = System.out;
+    }
+
+    @Benchmark
+    public List<Activity> scanFilter() {
+        List<Activity> matches = new ArrayList<>();
+        for (Activity activity : travelPackage.getItinerary().get(3).getActivities()) {
+            if (activity.getAvailableSeats() >= 5 && activity.getCost() <= 20.0) {
+                matches.add(activity);
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public List<Activity> indexQuery() {
+        return index.findAvailable("Destination 3", 0, 20.0, 5);
+    }
+
+    @Benchmark
+    public void printAvailableActivities() {
+        System.setOut(BenchmarkCatalogs.discardingPrintStream());
+        try {
+            Activity.printAvailableActivities(allActivities);
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+}
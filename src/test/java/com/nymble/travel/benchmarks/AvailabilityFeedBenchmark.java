@@ -0,0 +1,105 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.catalog.AvailabilityFeed;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.render.RenderFormat;
+import com.nymble.travel.render.TravelRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares watching the seats of a 1,000 activity package by polling, rendering the available
+ * activities on every poll, with an {@link AvailabilityFeed}: the cost a subscribed feed adds to
+ * each booking, and the time from a seat change until a subscriber has received it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvailabilityFeedBenchmark {
+    @Param({"false", "true"})
+    public boolean subscribed;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService delivery = Executors.newCachedThreadPool();
+    private TravelPackage travelPackage;
+    private Activity booked;
+    private AvailabilityFeed feed;
+    private volatile int deliveredSeats; // Free seats of the booked activity in the latest delta
+
+    @Setup
+    public void setUp() {
+        travelPackage = BenchmarkCatalogs.travelPackage(20, 50, 1);
+        booked = travelPackage.getItinerary().get(0).getActivities().get(0);
+        booked.setCapacity(Integer.MAX_VALUE);
+        feed = new AvailabilityFeed(travelPackage, ticker, delivery, Duration.ofMillis(1));
+        if (subscribed) {
+            feed.subscribe(delta -> delta.activities().stream()
+                    .filter(update -> update.activity().equals(booked.getName()))
+                    .forEach(update -> deliveredSeats = update.availableSeats()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        feed.close();
+        ticker.shutdownNow();
+        delivery.shutdownNow();
+    }
+
+    @Benchmark
+    public StringBuilder poll() throws IOException {
+        List<Activity> activities = new ArrayList<>();
+        for (Destination destination : travelPackage.getItinerary()) {
+            activities.addAll(destination.getActivities());
+        }
+        StringBuilder out = new StringBuilder();
+        new TravelRenderer(RenderFormat.JSON).renderAvailableActivities(activities, out);
+        return out;
+    }
+
+    @Benchmark
+    public boolean bookAndRelease() {
+        boolean reserved = booked.tryReserveSeats(1);
+        booked.releaseSeats(1);
+        return reserved;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int pushLatency() {
+        if (!subscribed) {
+            return 0;
+        }
+        booked.tryReserveSeats(1);
+        int seats = booked.getAvailableSeats();
+        while (deliveredSeats != seats) {
+            Thread.onSpinWait();
+        }
+        return seats;
+    }
+}
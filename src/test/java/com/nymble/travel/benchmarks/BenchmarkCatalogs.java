@@ -0,0 +1,75 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds deterministic catalogs and passenger populations shared by the benchmarks.
+ */
+final class BenchmarkCatalogs {
+
+    private BenchmarkCatalogs() {
+    }
+
+    /**
+     * Builds a package with the given number of destinations, each offering the given number of
+     * activities with pseudo-random costs and capacities.
+     */
+    static TravelPackage travelPackage(int destinations, int activitiesPerDestination, int passengerCapacity) {
+        Random random = new Random(42);
+        TravelPackage travelPackage = TravelPackage.builder()
+                .name("Benchmark Package")
+                .passengerCapacity(passengerCapacity)
+                .build();
+        for (int d = 0; d < destinations; d++) {
+            Destination destination = Destination.builder().name("Destination " + d).build();
+            for (int a = 0; a < activitiesPerDestination; a++) {
+                destination.addActivity(Activity.builder()
+                        .name("Activity " + d + "-" + a)
+                        .description("Benchmark activity " + a + " at destination " + d)
+                        .cost(random.nextInt(50_000) / 100.0)
+                        .capacity(1 + random.nextInt(40))
+                        .build());
+            }
+            travelPackage.addDestination(destination);
+        }
+        return travelPackage;
+    }
+
+    /**
+     * Creates passengers cycling through all tiers, numbered from zero.
+     */
+    static List<Passenger> passengers(int count, double balance) {
+        PassengerTier[] tiers = PassengerTier.values();
+        List<Passenger> passengers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            passengers.add(tiers[i % tiers.length].newPassenger("Passenger " + i, i, balance));
+        }
+        return passengers;
+    }
+
+    /**
+     * Returns all activities of the package's itinerary.
+     */
+    static List<Activity> activities(TravelPackage travelPackage) {
+        List<Activity> activities = new ArrayList<>();
+        travelPackage.getItinerary().forEach(destination -> activities.addAll(destination.getActivities()));
+        return activities;
+    }
+
+    /**
+     * Returns a print stream that discards everything written to it.
+     */
+    static PrintStream discardingPrintStream() {
+        return new PrintStream(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,100 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.importer.CatalogImporter;
+import com.nymble.travel.importer.ImportFormat;
+import com.nymble.travel.importer.ImportResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures importing a catalog of one million rows with {@link CatalogImporter}: 10 packages of
+ * 1,000 destinations with 99 activities each, plus 10,000 passengers, in either format.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+    private static final int PACKAGES = 10;
+    private static final int DESTINATIONS = 1_000; // Per package
+    private static final int ACTIVITIES = 99; // Per destination
+    private static final int PASSENGERS = 1_000; // Per package
+
+    @Param({"CSV", "JSON"})
+    public ImportFormat format;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("catalog-import", format == ImportFormat.CSV ? ".csv" : ".jsonl");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int p = 0; p < PACKAGES; p++) {
+                String name = "Package " + p;
+                row(out, "package", "name", name, "capacity", PASSENGERS);
+                for (int d = 0; d < DESTINATIONS; d++) {
+                    String destination = "Destination " + d;
+                    row(out, "destination", "package", name, "name", destination);
+                    for (int a = 0; a < ACTIVITIES; a++) {
+                        row(out, "activity", "package", name, "destination", destination, "name", "Activity " + a,
+                                "description", "Activity " + a + " at " + destination, "cost", 10 + a + 0.5,
+                                "capacity", 20);
+                    }
+                }
+                for (int n = 0; n < PASSENGERS; n++) {
+                    row(out, "passenger", "package", name, "tier", "GOLD", "name", "Passenger " + n, "number", n,
+                            "balance", 1_000.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a row given as alternating field names and values.
+     */
+    private void row(BufferedWriter out, String type, Object... fields) throws IOException {
+        if (format == ImportFormat.CSV) {
+            out.write(type);
+            for (int i = 1; i < fields.length; i += 2) {
+                out.write(',');
+                out.write(String.valueOf(fields[i]));
+            }
+        } else {
+            out.write("{\"type\":\"" + type + '"');
+            for (int i = 0; i < fields.length; i += 2) {
+                Object value = fields[i + 1];
+                out.write(",\"" + fields[i] + "\":" + (value instanceof String ? "\"" + value + '"' : value));
+            }
+            out.write('}');
+        }
+        out.write('\n');
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public ImportResult importFile() throws IOException {
+        return new CatalogImporter().importFile(file, format);
+    }
+}
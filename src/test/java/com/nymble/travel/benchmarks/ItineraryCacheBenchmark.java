@@ -0,0 +1,80 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.catalog.ItineraryCache;
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.render.RenderFormat;
+import com.nymble.travel.render.TravelRenderer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serving the JSON itinerary of a package with 20 destinations of 50 activities each,
+ * rendered on every request and served from an {@link ItineraryCache}. The last benchmark books
+ * a seat before every 100th request, so one request in 100 renders the invalidated view again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItineraryCacheBenchmark {
+    private static final int REQUESTS_PER_BOOKING = 100;
+
+    private TravelPackage travelPackage;
+    private Activity booked;
+    private ItineraryCache cache;
+    private int requests;
+
+    @Setup
+    public void setUp() {
+        travelPackage = BenchmarkCatalogs.travelPackage(20, 50, 1);
+        booked = travelPackage.getItinerary().get(0).getActivities().get(0);
+        booked.setCapacity(Integer.MAX_VALUE);
+        cache = new ItineraryCache(1024, new BookingMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public byte[] uncached() {
+        return render(travelPackage);
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.get(travelPackage, RenderFormat.JSON, ItineraryCacheBenchmark::render);
+    }
+
+    @Benchmark
+    public byte[] cachedWithBookings() {
+        if (++requests % REQUESTS_PER_BOOKING == 0) {
+            booked.tryReserveSeats(1);
+        }
+        return cache.get(travelPackage, RenderFormat.JSON, ItineraryCacheBenchmark::render);
+    }
+
+    private static byte[] render(TravelPackage travelPackage) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new TravelRenderer(RenderFormat.JSON).renderItinerary(travelPackage, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.planning.ItineraryPlan;
+import com.nymble.travel.planning.ItineraryPlanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures planning the best affordable activities of a package with 5,000 activities, for one
+ * passenger of each tier and for 64 passengers in parallel, with and without a limit of three
+ * activities per destination.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItineraryPlannerBenchmark {
+    @Param({"0", "3"})
+    public int maxPerDestination;
+
+    private TravelPackage travelPackage;
+    private List<Passenger> passengers;
+    private ItineraryPlanner planner;
+
+    @Setup
+    public void setUp() {
+        travelPackage = BenchmarkCatalogs.travelPackage(50, 100, 1);
+        passengers = BenchmarkCatalogs.passengers(64, 2_500);
+        planner = ItineraryPlanner.builder()
+                .maxPerDestination(maxPerDestination == 0 ? null : maxPerDestination)
+                .build();
+    }
+
+    @Benchmark
+    public ItineraryPlan planStandard() {
+        return planner.plan(travelPackage, passengers.get(0));
+    }
+
+    @Benchmark
+    public ItineraryPlan planGold() {
+        return planner.plan(travelPackage, passengers.get(1));
+    }
+
+    @Benchmark
+    public List<ItineraryPlan> planAll() {
+        return planner.planAll(travelPackage, passengers);
+    }
+}
@@ -0,0 +1,92 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.booking.PackageCheckout;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a {@link PackageCheckout} holding one activity at each of four destinations and
+ * releasing the hold again, the path of an abandoned or changed checkout, next to a checked
+ * single sign-up, with the destinations held in parallel or one after the other on the calling
+ * thread. {@code pendingHolds} other holds wait for their expiry meanwhile, showing that
+ * placing and cancelling an expiry does not slow down with the number of pending holds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackageCheckoutBenchmark {
+    private static final int DESTINATIONS = 4;
+
+    @Param({"0", "100000"})
+    public int pendingHolds;
+
+    @Param({"true", "false"})
+    public boolean parallel; // Whether destinations are held on the common pool or all on the calling thread
+
+    private PackageCheckout checkout;
+    private Passenger passenger;
+    private List<Activity> oneActivityPerDestination;
+    private Activity activity;
+
+    @Setup
+    public void setUp() {
+        TravelPackage travelPackage = BenchmarkCatalogs.travelPackage(DESTINATIONS, 2, pendingHolds + 1);
+        travelPackage.getItinerary().forEach(destination -> destination.getActivities()
+                .forEach(each -> each.setCapacity(Integer.MAX_VALUE / 2)));
+        checkout = new PackageCheckout(travelPackage, Duration.ofHours(1),
+                parallel ? ForkJoinPool.commonPool() : Runnable::run, null);
+        List<Activity> idle = new ArrayList<>();
+        oneActivityPerDestination = new ArrayList<>();
+        travelPackage.getItinerary().forEach(destination -> {
+            oneActivityPerDestination.add(destination.getActivities().get(0));
+            idle.add(destination.getActivities().get(1));
+        });
+        for (int i = 0; i < pendingHolds; i++) {
+            Passenger waiting = PassengerTier.PREMIUM.newPassenger("Waiting " + i, i + 1, 0);
+            travelPackage.addPassenger(waiting);
+            checkout.hold(waiting, idle).join();
+        }
+        passenger = PassengerTier.STANDARD.newPassenger("Shopper", 0, 1e12);
+        travelPackage.addPassenger(passenger);
+        activity = oneActivityPerDestination.get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        checkout.close();
+    }
+
+    @Benchmark
+    public boolean holdAndRelease() {
+        return checkout.hold(passenger, oneActivityPerDestination).join().release();
+    }
+
+    @Benchmark
+    public boolean signUpAndCancel() {
+        return checkout.signUp(passenger, activity) == SignUpStatus.BOOKED && passenger.cancel(activity);
+    }
+}
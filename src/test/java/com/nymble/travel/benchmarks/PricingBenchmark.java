@@ -0,0 +1,74 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.models.Wallet;
+import com.nymble.travel.pricing.PricingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares quoting every activity of a catalog for a gold passenger with the previous inline
+ * computation, with a lookup in the {@link PricingEngine} table, and with evaluating the engine's
+ * rule chain on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+    private Activity[] activities;
+    private PricingEngine engine;
+
+    @Setup
+    public void setUp() {
+        TravelPackage travelPackage = BenchmarkCatalogs.travelPackage(10, 1_000, 1);
+        List<Activity> all = BenchmarkCatalogs.activities(travelPackage);
+        activities = all.toArray(new Activity[0]);
+        engine = PricingEngine.standard();
+        for (Activity activity : activities) {
+            engine.quote(PassengerTier.GOLD, activity);
+        }
+    }
+
+    @Benchmark
+    public long inlineComputation() {
+        long total = 0;
+        for (Activity activity : activities) {
+            total += (Wallet.toCents(activity.getCost()) * 9 + 5) / 10;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long tableLookup() {
+        long total = 0;
+        for (Activity activity : activities) {
+            total += engine.quote(PassengerTier.GOLD, activity);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long ruleChainEvaluation() {
+        long total = 0;
+        for (Activity activity : activities) {
+            total += engine.evaluate(PassengerTier.GOLD, activity);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,135 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.persistence.BookingStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures startup recovery of one million bookings, either by replaying them all from the
+ * journal or by loading the snapshot taken after them. The snapshot threshold bounds recovery
+ * between these two: at most one threshold's worth of journal is replayed on top of a snapshot.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+    private static final int BOOKINGS = 1_000_000;
+    private static final int PASSENGERS = 10_000;
+    private static final int BATCH = 10_000; // Bookings journaled per update
+
+    private Path journalDirectory;
+    private Path snapshotDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        journalDirectory = Files.createTempDirectory("recovery-journal");
+        snapshotDirectory = Files.createTempDirectory("recovery-snapshot");
+        journalBookings(journalDirectory, false);
+        journalBookings(snapshotDirectory, true);
+    }
+
+    /**
+     * Journals a catalog of 1,000 activities, 10,000 passengers and one million bookings.
+     */
+    private static void journalBookings(Path directory, boolean snapshot) throws IOException {
+        try (BookingStore store = BookingStore.open(directory, Long.MAX_VALUE)) {
+            Map<String, TravelPackage> packages = new HashMap<>();
+            store.recover(packages);
+            TravelPackage travelPackage = BenchmarkCatalogs.travelPackage(10, 100, PASSENGERS);
+            List<Passenger> passengers = BenchmarkCatalogs.passengers(PASSENGERS, 1_000_000.0);
+            store.update(journal -> {
+                packages.put(travelPackage.getName(), travelPackage);
+                journal.packageCreated(travelPackage);
+                for (int d = 0; d < travelPackage.getItinerary().size(); d++) {
+                    Destination destination = travelPackage.getItinerary().get(d);
+                    journal.destinationAdded(travelPackage, destination);
+                    for (Activity activity : destination.getActivities()) {
+                        activity.setCapacity(Integer.MAX_VALUE);
+                        journal.activityAdded(travelPackage, d, activity);
+                    }
+                }
+                for (Passenger passenger : passengers) {
+                    travelPackage.addPassenger(passenger);
+                    journal.passengerAdded(travelPackage, passenger);
+                }
+                return null;
+            });
+            for (int start = 0; start < BOOKINGS; start += BATCH) {
+                int first = start;
+                store.update(journal -> {
+                    for (int i = first; i < first + BATCH; i++) {
+                        Passenger passenger = passengers.get(i % PASSENGERS);
+                        int activityNumber = (i % PASSENGERS + i / PASSENGERS * 10) % 1_000; // 100 distinct activities each
+                        int destinationIndex = activityNumber / 100;
+                        int activityIndex = activityNumber % 100;
+                        Activity activity = travelPackage.getItinerary().get(destinationIndex).getActivities().get(activityIndex);
+                        long priceCents = passenger.quoteInCents(activity);
+                        if (passenger.enroll(activity, priceCents) == SignUpStatus.BOOKED) {
+                            journal.signedUp(travelPackage, passenger.getPassengerNumber(), destinationIndex, activityIndex, priceCents);
+                        }
+                    }
+                    return null;
+                });
+            }
+            if (snapshot) {
+                store.snapshot();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path directory : List.of(journalDirectory, snapshotDirectory)) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static Map<String, TravelPackage> recover(Path directory) throws IOException {
+        Map<String, TravelPackage> packages = new HashMap<>();
+        try (BookingStore store = BookingStore.open(directory, Long.MAX_VALUE)) {
+            store.recover(packages);
+        }
+        return packages;
+    }
+
+    @Benchmark
+    public Map<String, TravelPackage> replayJournal() throws IOException {
+        return recover(journalDirectory);
+    }
+
+    @Benchmark
+    public Map<String, TravelPackage> loadSnapshot() throws IOException {
+        return recover(snapshotDirectory);
+    }
+}
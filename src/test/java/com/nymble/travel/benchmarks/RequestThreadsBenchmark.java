@@ -0,0 +1,136 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.TravelApplication;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.services.TravelService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares booking throughput of the REST API on Tomcat's platform thread pool with request
+ * handling on virtual threads. Every operation is one client signing its own passenger up for an
+ * activity over HTTP and cancelling the sign-up again; an invocation runs a burst of 2,000 such
+ * clients at once, far more than Tomcat's 200 platform workers. The gain is the ratio of the two
+ * results of the {@code virtualThreads} parameter. Virtual threads need Java 21, so on an older
+ * JVM that run fails in setup rather than measuring platform threads twice.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestThreadsBenchmark {
+    private static final int CLIENTS = 2_000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest[] signUps; // By passenger number
+    private HttpRequest[] cancellations; // By passenger number
+
+    @Setup
+    public void setUp() throws Exception {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+        context = new SpringApplicationBuilder(TravelApplication.class)
+                .properties("server.port=0",
+                        "server.tomcat.accept-count=" + CLIENTS, // Queue the whole burst rather than refuse connections
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String base = "http://localhost:" + port + "/packages";
+        client = HttpClient.newHttpClient();
+        post(base, "{\"name\":\"Load\",\"passengerCapacity\":" + CLIENTS + "}");
+        post(base + "/Load/destinations", "{\"name\":\"Goa\"}");
+        post(base + "/Load/destinations/Goa/activities",
+                "{\"name\":\"Snorkelling\",\"description\":\"Reef\",\"cost\":1.0,\"capacity\":" + CLIENTS + "}");
+        signUps = new HttpRequest[CLIENTS];
+        cancellations = new HttpRequest[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            post(base + "/Load/passengers",
+                    "{\"tier\":\"STANDARD\",\"name\":\"P" + i + "\",\"passengerNumber\":" + i + ",\"balance\":1000000.0}");
+            String signUp = base + "/Load/passengers/" + i + "/sign-ups";
+            signUps[i] = HttpRequest.newBuilder(URI.create(signUp))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"destination\":\"Goa\",\"activity\":\"Snorkelling\"}"))
+                    .build();
+            cancellations[i] = HttpRequest.newBuilder(URI.create(signUp + "?destination=Goa&activity=Snorkelling"))
+                    .DELETE()
+                    .build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        try {
+            Activity activity = context.getBean(TravelService.class).getPackage("Load")
+                    .getItinerary().get(0).getActivities().get(0);
+            if (activity.getEnrolledPassengers() != 0) {
+                throw new IllegalStateException(activity.getEnrolledPassengers() + " seats left taken after every client cancelled");
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public int signUpAndCancelBurst() {
+        AtomicInteger rejected = new AtomicInteger();
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            HttpRequest cancellation = cancellations[i];
+            clients[i] = client.sendAsync(signUps[i], HttpResponse.BodyHandlers.discarding()).thenCompose(response -> {
+                if (response.statusCode() != 200) {
+                    rejected.incrementAndGet();
+                    return CompletableFuture.completedFuture(response);
+                }
+                return client.sendAsync(cancellation, HttpResponse.BodyHandlers.discarding());
+            });
+        }
+        CompletableFuture.allOf(clients).join();
+        if (rejected.get() > 0) {
+            throw new IllegalStateException(rejected.get() + " of " + CLIENTS + " sign-ups were rejected with a seat for everyone");
+        }
+        return CLIENTS;
+    }
+
+    private void post(String uri, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status >= 300) {
+            throw new IllegalStateException("POST " + uri + " failed with " + status);
+        }
+    }
+}
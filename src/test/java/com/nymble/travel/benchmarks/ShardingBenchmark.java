@@ -0,0 +1,91 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.sharding.Partitioning;
+import com.nymble.travel.sharding.ShardCluster;
+import com.nymble.travel.sharding.ShardedBooking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures sign-up throughput of a {@link ShardCluster} as nodes are added. Each node handles
+ * its messages on one thread and spends a fixed service time on every message, standing in for
+ * the journaling and network work of a real node, so throughput is bound by the nodes rather
+ * than by the CPUs of the machine running the benchmark. Every sign-up is cancelled again to
+ * keep the seats free.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ShardingBenchmark {
+    private static final long SERVICE_NANOS = 50_000; // Simulated work per message on a node
+    private static final int DESTINATIONS = 8;
+    private static final int ACTIVITIES_PER_DESTINATION = 16;
+
+    @Param({"1", "2", "4"})
+    public int nodes;
+
+    private ShardCluster cluster;
+    private ShardedBooking booking;
+
+    @Setup
+    public void setUp() {
+        cluster = new ShardCluster(nodes, node -> new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>()) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                LockSupport.parkNanos(SERVICE_NANOS);
+            }
+        });
+        booking = cluster.distribute(BenchmarkCatalogs.travelPackage(DESTINATIONS, ACTIVITIES_PER_DESTINATION, 1),
+                Partitioning.BY_ACTIVITY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger NEXT_NUMBER = new AtomicInteger();
+
+        final Passenger passenger = PassengerTier.STANDARD.newPassenger("Client", NEXT_NUMBER.getAndIncrement(), 1e12);
+    }
+
+    @Benchmark
+    public SignUpStatus signUpAndCancel(Client client) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String destination = "Destination " + random.nextInt(DESTINATIONS);
+        String activity = "Activity " + destination.substring(12) + "-" + random.nextInt(ACTIVITIES_PER_DESTINATION);
+        SignUpStatus status = booking.signUp(client.passenger, destination, activity).join();
+        if (status == SignUpStatus.BOOKED) {
+            booking.cancel(client.passenger, destination, activity).join();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,94 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Passenger#signUpForActivity(Activity)} for every tier with several threads
+ * signing the same passenger up for the same activity, which is the most contended case for
+ * both the seat counter and the wallet. A passenger holds at most one seat per activity, so every
+ * booking is cancelled again to keep each call on the booking path. Runs with and without
+ * {@link BookingMetrics} recording, to check that instrumenting the booking path costs no more
+ * than a few percent.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SignUpBenchmark {
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private Activity activity;
+    private Passenger standard;
+    private Passenger gold;
+    private Passenger premium;
+
+    @Setup(Level.Trial)
+    public void installMetrics() {
+        BookingMetrics.setDefault(metrics ? new BookingMetrics(new SimpleMeterRegistry()) : BookingMetrics.disabled());
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        activity = Activity.builder()
+                .name("Contended Activity")
+                .description("Shared by all benchmark threads")
+                .cost(12.5)
+                .capacity(Integer.MAX_VALUE)
+                .build();
+        standard = PassengerTier.STANDARD.newPassenger("Standard", 1, 1e12);
+        gold = PassengerTier.GOLD.newPassenger("Gold", 2, 1e12);
+        premium = PassengerTier.PREMIUM.newPassenger("Premium", 3, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void removeMetrics() {
+        BookingMetrics.setDefault(BookingMetrics.disabled());
+    }
+
+    @Benchmark
+    public boolean standardSignUp() {
+        return signUpAndCancel(standard);
+    }
+
+    @Benchmark
+    public boolean goldSignUp() {
+        return signUpAndCancel(gold);
+    }
+
+    @Benchmark
+    public boolean premiumSignUp() {
+        return signUpAndCancel(premium);
+    }
+
+    private boolean signUpAndCancel(Passenger passenger) {
+        boolean booked = passenger.signUpForActivity(activity);
+        if (booked) {
+            passenger.cancel(activity);
+        }
+        return booked;
+    }
+}
@@ -0,0 +1,92 @@
+package com.nymble.travel.benchmarks;
+
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.render.RenderFormat;
+import com.nymble.travel.render.TravelRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures enrolling large passenger manifests with {@link TravelPackage#addPassenger(Passenger)},
+ * looking passengers up by number, and rendering the itinerary and passenger list, both through the
+ * print methods and by streaming a CSV manifest with a reused {@link TravelRenderer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TravelPackageBenchmark {
+    @Param({"1000", "50000"})
+    public int passengerCount;
+
+    private List<Passenger> passengers;
+    private TravelPackage fullPackage;
+    private PrintStream originalOut;
+    private TravelRenderer csvRenderer;
+
+    @Setup
+    public void setUp() {
+        passengers = BenchmarkCatalogs.passengers(passengerCount, 1_000);
+        fullPackage = BenchmarkCatalogs.travelPackage(20, 50, passengerCount);
+        passengers.forEach(fullPackage::addPassenger);
+        originalOut = System.out;
+        csvRenderer = new TravelRenderer(RenderFormat.CSV);
+    }
+
+    @Benchmark
+    public TravelPackage addPassengers() {
+        TravelPackage travelPackage = TravelPackage.builder().name("Fill").passengerCapacity(passengerCount).build();
+        for (Passenger passenger : passengers) {
+            travelPackage.addPassenger(passenger);
+        }
+        return travelPackage;
+    }
+
+    @Benchmark
+    public boolean findPassenger() {
+        return fullPackage.findPassenger(passengerCount / 2).isPresent();
+    }
+
+    @Benchmark
+    public void printItinerary() {
+        System.setOut(BenchmarkCatalogs.discardingPrintStream());
+        try {
+            fullPackage.printItinerary();
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    @Benchmark
+    public void printPassengerList() {
+        System.setOut(BenchmarkCatalogs.discardingPrintStream());
+        try {
+            fullPackage.printPassengerList();
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    @Benchmark
+    public void renderPassengerListCsv() throws IOException {
+        csvRenderer.renderPassengerList(fullPackage, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,81 @@
+package com.nymble.travel.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.wire.TravelWireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link TravelWireFormat} with Jackson JSON of the models for a package of 10,000
+ * activities and 2,000 passengers with five sign-ups each: encoding, and decoding from the
+ * encoded bytes. JSON is only parsed into a tree, since the abstract passenger hierarchy cannot
+ * be read back without type information, so it measures less work than the wire decoder, which
+ * rebuilds the whole package. The encoded sizes are printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private TravelPackage travelPackage;
+    private byte[] wire;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        travelPackage = BenchmarkCatalogs.travelPackage(100, 100, 2_000);
+        travelPackage.getItinerary().forEach(destination -> destination.getActivities()
+                .forEach(activity -> activity.setCapacity(1_000)));
+        List<Activity> activities = BenchmarkCatalogs.activities(travelPackage);
+        for (Passenger passenger : BenchmarkCatalogs.passengers(2_000, 1e6)) {
+            travelPackage.addPassenger(passenger);
+            for (int i = 0; i < 5; i++) {
+                passenger.signUpForActivity(activities.get((passenger.getPassengerNumber() * 7919 + i * 104_729) % activities.size()));
+            }
+        }
+        wire = TravelWireFormat.encode(travelPackage);
+        json = mapper.writeValueAsBytes(travelPackage);
+        System.out.printf("%nWire format %,d bytes, JSON %,d bytes%n", wire.length, json.length);
+    }
+
+    @Benchmark
+    public byte[] wireEncode() {
+        return TravelWireFormat.encode(travelPackage);
+    }
+
+    @Benchmark
+    public TravelPackage wireDecode() {
+        return TravelWireFormat.decode(ByteBuffer.wrap(wire));
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(travelPackage);
+    }
+
+    @Benchmark
+    public JsonNode jsonParse() throws IOException {
+        return mapper.readTree(json);
+    }
+}
@@ -0,0 +1,169 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.StandardPassenger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link BatchBooking}, covering best-effort and all-or-nothing bookings of a
+ * passenger manifest onto several activities.
+ */
+class BatchBookingTest {
+
+    private static List<Passenger> manifest(int size, double balance) {
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            passengers.add(StandardPassenger.builder()
+                    .passengerNumber(i)
+                    .name("Passenger " + i)
+                    .balance(balance)
+                    .build());
+        }
+        return passengers;
+    }
+
+    /**
+     * Tests that a manifest that fits is fully booked, charged once per passenger and seated.
+     */
+    @Test
+    void book_EverythingFits_AllBooked() {
+        List<Passenger> passengers = manifest(500, 300);
+        List<Activity> activities = List.of(activity("Snorkelling", 100, 500), activity("Hiking", 150, 600));
+
+        BatchBookingResult result = BatchBooking.book(passengers, activities, true);
+
+        Assertions.assertTrue(result.isFullyBooked());
+        Assertions.assertEquals(500, activities.get(0).getEnrolledPassengers());
+        Assertions.assertEquals(500, activities.get(1).getEnrolledPassengers());
+        passengers.forEach(p -> Assertions.assertEquals(50, p.getBalance()));
+    }
+
+    /**
+     * Tests that in best-effort mode each pair is booked independently and unused seats are released.
+     */
+    @Test
+    void book_BestEffort_PerItemResults() {
+        List<Passenger> passengers = manifest(3, 150);
+        passengers.get(2).setBalance(50);
+        List<Activity> activities = List.of(activity("Snorkelling", 100, 2), activity("Hiking", 50, 5));
+
+        BatchBookingResult result = BatchBooking.book(passengers, activities, false);
+
+        Assertions.assertEquals(SignUpStatus.BOOKED, result.getStatus(0, 0));
+        Assertions.assertEquals(SignUpStatus.BOOKED, result.getStatus(0, 1));
+        Assertions.assertEquals(SignUpStatus.BOOKED, result.getStatus(1, 0));
+        Assertions.assertEquals(SignUpStatus.BOOKED, result.getStatus(1, 1));
+        Assertions.assertEquals(SignUpStatus.NO_CAPACITY, result.getStatus(2, 0));
+        Assertions.assertEquals(SignUpStatus.BOOKED, result.getStatus(2, 1));
+        Assertions.assertEquals(5, result.getBookedCount());
+        Assertions.assertEquals(2, activities.get(0).getEnrolledPassengers());
+        Assertions.assertEquals(3, activities.get(1).getEnrolledPassengers(), "Unused seats should be released.");
+        Assertions.assertEquals(0, passengers.get(2).getBalance());
+    }
+
+    /**
+     * Tests that an all-or-nothing batch with one underfunded passenger changes nothing.
+     */
+    @Test
+    void book_AllOrNothing_OnePassengerShort_NothingBooked() {
+        List<Passenger> passengers = manifest(3, 200);
+        passengers.get(1).setBalance(100);
+        List<Activity> activities = List.of(activity("Snorkelling", 100, 10), activity("Hiking", 50, 10));
+
+        BatchBookingResult result = BatchBooking.book(passengers, activities, true);
+
+        Assertions.assertEquals(0, result.getBookedCount());
+        Assertions.assertEquals(SignUpStatus.INSUFFICIENT_BALANCE, result.getStatus(1, 0));
+        Assertions.assertEquals(SignUpStatus.ABORTED, result.getStatus(0, 0));
+        Assertions.assertEquals(0, activities.get(0).getEnrolledPassengers());
+        Assertions.assertEquals(0, activities.get(1).getEnrolledPassengers());
+        Assertions.assertEquals(200, passengers.get(0).getBalance());
+    }
+
+    /**
+     * Tests that an all-or-nothing batch larger than an activity's free seats is rejected as a whole.
+     */
+    @Test
+    void book_AllOrNothing_NotEnoughSeats_NothingBooked() {
+        List<Passenger> passengers = manifest(4, 500);
+        List<Activity> activities = List.of(activity("Snorkelling", 100, 3), activity("Hiking", 50, 10));
+
+        BatchBookingResult result = BatchBooking.book(passengers, activities, true);
+
+        Assertions.assertEquals(0, result.getBookedCount());
+        Assertions.assertEquals(SignUpStatus.NO_CAPACITY, result.getStatus(0, 0));
+        Assertions.assertEquals(0, activities.get(1).getEnrolledPassengers());
+        passengers.forEach(p -> Assertions.assertEquals(500, p.getBalance()));
+    }
+
+    /**
+     * Tests that a passenger already enrolled in an activity is not booked onto it again, in
+     * best-effort mode only that pair is skipped while all-or-nothing rejects the whole batch.
+     */
+    @Test
+    void book_PassengerAlreadyEnrolled_NotBookedTwice() {
+        List<Passenger> passengers = manifest(2, 500);
+        List<Activity> activities = List.of(activity("Snorkelling", 100, 10), activity("Hiking", 50, 10));
+        Assertions.assertTrue(passengers.get(1).signUpForActivity(activities.get(0)));
+
+        BatchBookingResult allOrNothing = BatchBooking.book(passengers, activities, true);
+
+        Assertions.assertEquals(0, allOrNothing.getBookedCount());
+        Assertions.assertEquals(SignUpStatus.ALREADY_ENROLLED, allOrNothing.getStatus(1, 0));
+        Assertions.assertEquals(1, activities.get(0).getEnrolledPassengers());
+
+        BatchBookingResult bestEffort = BatchBooking.book(passengers, activities, false);
+
+        Assertions.assertEquals(3, bestEffort.getBookedCount());
+        Assertions.assertEquals(SignUpStatus.ALREADY_ENROLLED, bestEffort.getStatus(1, 0));
+        Assertions.assertEquals(2, activities.get(0).getEnrolledPassengers());
+        Assertions.assertArrayEquals(new int[] {0, 1}, activities.get(1).getEnrolledPassengerNumbers());
+        Assertions.assertEquals(350, passengers.get(0).getBalance());
+        Assertions.assertEquals(350, passengers.get(1).getBalance(), "Charged 100 earlier and 50 in the batch.");
+    }
+
+    /**
+     * Tests that a seat cancelled while the batch still holds it is released once: the batch
+     * does not hand back a seat the cancellation already gave back.
+     */
+    @Test
+    void book_CancelledWhileUnpaid_ReleasesSeatOnce() throws Exception {
+        Passenger passenger = manifest(1, 100).get(0);
+        List<Activity> activities = List.of(activity("Snorkelling", 100, 1), activity("Hiking", 100, 1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 500; round++) {
+                AtomicBoolean booked = new AtomicBoolean();
+                Future<?> cancels = executor.submit(() -> {
+                    while (!booked.get()) {
+                        passenger.cancel(activities.get(1)); // Only the first activity can be paid for
+                    }
+                });
+                BatchBookingResult result = BatchBooking.book(List.of(passenger), activities, false);
+                booked.set(true);
+                cancels.get(5, TimeUnit.SECONDS);
+
+                Assertions.assertEquals(SignUpStatus.BOOKED, result.getStatus(0, 0));
+                Assertions.assertEquals(0, activities.get(1).getEnrolledPassengers());
+                Assertions.assertEquals(1, activities.get(1).getAvailableSeats());
+                Assertions.assertTrue(passenger.cancel(activities.get(0)));
+                passenger.setBalance(100);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
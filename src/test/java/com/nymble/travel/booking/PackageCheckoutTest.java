@@ -0,0 +1,207 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link PackageCheckout}, covering membership checks, all-or-nothing holds across
+ * destinations, confirmation and expiry of holds.
+ */
+class PackageCheckoutTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private TravelPackage travelPackage;
+    private Activity rafting;
+    private Activity trekking;
+    private Activity paragliding;
+    private Passenger asha;
+
+    @BeforeEach
+    void setUp() {
+        rafting = activity("Rafting", 100, 2);
+        trekking = activity("Trekking", 50, 1);
+        paragliding = activity("Paragliding", 200, 2);
+        travelPackage = TravelPackage.builder().name("Himalayan Trail").passengerCapacity(3).itinerary(new ArrayList<>()).build();
+        travelPackage.addDestination(Destination.builder().name("Rishikesh").activities(List.of(rafting, trekking)).build());
+        travelPackage.addDestination(Destination.builder().name("Bir").activities(List.of(paragliding)).build());
+        asha = PassengerTier.STANDARD.newPassenger("Asha", 1, 500);
+        travelPackage.addPassenger(asha);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests that passengers and activities outside the package are rejected.
+     */
+    @Test
+    void signUp_OutsideThePackage_Rejected() {
+        try (PackageCheckout checkout = new PackageCheckout(travelPackage, Duration.ofMinutes(1))) {
+            Passenger outsider = PassengerTier.STANDARD.newPassenger("Ravi", 2, 500);
+            Passenger impostor = PassengerTier.STANDARD.newPassenger("Not Asha", 1, 500);
+            Activity elsewhere = activity("Surfing", 10, 5);
+
+            Assertions.assertEquals(SignUpStatus.NOT_IN_PACKAGE, checkout.signUp(outsider, rafting));
+            Assertions.assertEquals(SignUpStatus.NOT_IN_PACKAGE, checkout.signUp(impostor, rafting));
+            Assertions.assertEquals(SignUpStatus.NOT_IN_PACKAGE, checkout.signUp(asha, elsewhere));
+            Assertions.assertEquals(0, rafting.getEnrolledPassengers());
+            Assertions.assertEquals(SignUpStatus.BOOKED, checkout.signUp(asha, rafting));
+
+            Activity added = activity("Camping", 10, 5);
+            travelPackage.getItinerary().get(1).addActivity(added);
+            Assertions.assertEquals(SignUpStatus.BOOKED, checkout.signUp(asha, added));
+        }
+    }
+
+    /**
+     * Tests that a hold across destinations takes every seat without charging, and that
+     * confirming it enrolls the passenger and charges the total once.
+     */
+    @Test
+    void hold_ThenConfirm_BooksEverything() {
+        try (PackageCheckout checkout = new PackageCheckout(travelPackage, Duration.ofMinutes(1), executor, null)) {
+            PackageCheckout.Hold hold = checkout.hold(asha, List.of(rafting, trekking, paragliding)).join();
+
+            Assertions.assertEquals(PackageCheckout.Hold.State.HELD, hold.getState());
+            Assertions.assertEquals(35_000, hold.getTotalCents());
+            Assertions.assertEquals(0, trekking.getAvailableSeats());
+            Assertions.assertEquals(500, asha.getBalance());
+            Assertions.assertEquals(1, checkout.getHoldCount());
+
+            Assertions.assertEquals(SignUpStatus.BOOKED, hold.confirm());
+            Assertions.assertEquals(150, asha.getBalance());
+            Assertions.assertTrue(rafting.isEnrolled(1) && trekking.isEnrolled(1) && paragliding.isEnrolled(1));
+            Assertions.assertEquals(SignUpStatus.ABORTED, hold.confirm());
+            Assertions.assertFalse(hold.release());
+            Assertions.assertEquals(0, checkout.getHoldCount());
+        }
+    }
+
+    /**
+     * Tests that a confirmed hold charges the prices quoted when it was placed, and that
+     * cancelling one of its activities later refunds that price, not the current one.
+     */
+    @Test
+    void confirm_ThenCancel_RefundsHeldPrice() {
+        try (PackageCheckout checkout = new PackageCheckout(travelPackage, Duration.ofMinutes(1), executor, null)) {
+            PackageCheckout.Hold hold = checkout.hold(asha, List.of(rafting, trekking)).join();
+            rafting.setCost(300);
+
+            Assertions.assertEquals(SignUpStatus.BOOKED, hold.confirm());
+            Assertions.assertEquals(350, asha.getBalance());
+            Assertions.assertEquals(10_000, asha.getChargeCents(rafting));
+
+            Assertions.assertEquals(10_000, asha.cancelAndRefund(rafting));
+            Assertions.assertEquals(450, asha.getBalance());
+        }
+    }
+
+    /**
+     * Tests that a hold with one full activity takes no seat anywhere, and that holds the
+     * passenger cannot take or pay for are rejected.
+     */
+    @Test
+    void hold_OneActivityFull_NothingHeld() {
+        try (PackageCheckout checkout = new PackageCheckout(travelPackage, Duration.ofMinutes(1), executor, null)) {
+            Passenger ravi = PassengerTier.GOLD.newPassenger("Ravi", 2, 500);
+            travelPackage.addPassenger(ravi);
+            Assertions.assertEquals(SignUpStatus.BOOKED, checkout.signUp(ravi, trekking));
+
+            PackageCheckout.Hold hold = checkout.hold(asha, List.of(paragliding, rafting, trekking)).join();
+
+            Assertions.assertEquals(PackageCheckout.Hold.State.REJECTED, hold.getState());
+            Assertions.assertEquals(List.of(SignUpStatus.ABORTED, SignUpStatus.ABORTED, SignUpStatus.NO_CAPACITY),
+                    hold.getRejections());
+            Assertions.assertEquals(2, paragliding.getAvailableSeats());
+            Assertions.assertEquals(2, rafting.getAvailableSeats());
+            Assertions.assertEquals(SignUpStatus.ABORTED, hold.confirm());
+
+            Assertions.assertEquals(SignUpStatus.BOOKED, checkout.hold(ravi, List.of(paragliding, rafting)).join().confirm());
+            PackageCheckout.Hold again = checkout.hold(ravi, List.of(rafting)).join();
+            Assertions.assertEquals(List.of(SignUpStatus.ALREADY_ENROLLED), again.getRejections());
+
+            Passenger meera = PassengerTier.STANDARD.newPassenger("Meera", 3, 150);
+            travelPackage.addPassenger(meera);
+            PackageCheckout.Hold tooDear = checkout.hold(meera, List.of(rafting, paragliding)).join();
+            Assertions.assertEquals(List.of(SignUpStatus.INSUFFICIENT_BALANCE, SignUpStatus.INSUFFICIENT_BALANCE),
+                    tooDear.getRejections());
+            Assertions.assertEquals(1, rafting.getAvailableSeats());
+        }
+    }
+
+    /**
+     * Tests that cancelling while a confirmation fails frees each seat once: a seat the
+     * cancellation already gave back is not released again when the hold is rolled back.
+     */
+    @Test
+    void confirm_CancelledWhileFailing_ReleasesEachSeatOnce() throws Exception {
+        try (PackageCheckout checkout = new PackageCheckout(travelPackage, Duration.ofMinutes(1), executor, null)) {
+            for (int round = 0; round < 500; round++) {
+                PackageCheckout.Hold hold = checkout.hold(asha, List.of(rafting, trekking, paragliding)).join();
+                Assertions.assertEquals(PackageCheckout.Hold.State.HELD, hold.getState());
+                asha.getWallet().setBalanceCents(0); // Confirming fails once every seat is assigned
+
+                AtomicBoolean confirmed = new AtomicBoolean();
+                Future<?> cancels = executor.submit(() -> {
+                    while (!confirmed.get()) {
+                        asha.cancel(rafting);
+                        asha.cancel(trekking);
+                    }
+                });
+                Assertions.assertEquals(SignUpStatus.INSUFFICIENT_BALANCE, hold.confirm());
+                confirmed.set(true);
+                cancels.get(5, TimeUnit.SECONDS);
+
+                Assertions.assertEquals(2, rafting.getAvailableSeats());
+                Assertions.assertEquals(1, trekking.getAvailableSeats());
+                Assertions.assertEquals(2, paragliding.getAvailableSeats());
+                Assertions.assertFalse(rafting.isEnrolled(1) || trekking.isEnrolled(1) || paragliding.isEnrolled(1));
+                asha.getWallet().setBalanceCents(50_000);
+            }
+        }
+    }
+
+    /**
+     * Tests that a hold that is neither confirmed nor released gives its seats back once the
+     * hold time has passed.
+     */
+    @Test
+    void hold_Abandoned_Expires() throws InterruptedException {
+        try (PackageCheckout checkout = new PackageCheckout(travelPackage, Duration.ofMillis(50), executor, null)) {
+            PackageCheckout.Hold hold = checkout.hold(asha, List.of(trekking, paragliding)).join();
+            Assertions.assertEquals(0, trekking.getAvailableSeats());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (hold.getState() == PackageCheckout.Hold.State.HELD && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            Assertions.assertEquals(PackageCheckout.Hold.State.EXPIRED, hold.getState());
+            Assertions.assertEquals(1, trekking.getAvailableSeats());
+            Assertions.assertEquals(2, paragliding.getAvailableSeats());
+            Assertions.assertEquals(SignUpStatus.ABORTED, hold.confirm());
+            Assertions.assertEquals(0, checkout.getHoldCount());
+            Assertions.assertEquals(500, asha.getBalance());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link SeatReservation}, covering all-or-nothing reservations across several
+ * activities, rollback of reserved seats, and the absence of overselling under heavy contention.
+ */
+class SeatReservationTest {
+
+    /**
+     * Tests that a reservation spanning several activities takes seats on all of them.
+     */
+    @Test
+    void tryReserve_AllActivitiesHaveSeats_Successful() {
+        Activity snorkelling = activity("Snorkelling", 100.0, 2);
+        Activity hiking = activity("Hiking", 100.0, 3);
+
+        Optional<SeatReservation> reservation = SeatReservation.tryReserve(List.of(snorkelling, hiking), 2);
+
+        Assertions.assertTrue(reservation.isPresent(), "Both activities have two free seats.");
+        Assertions.assertEquals(2, snorkelling.getEnrolledPassengers());
+        Assertions.assertEquals(2, hiking.getEnrolledPassengers());
+    }
+
+    /**
+     * Tests that a reservation fails as a whole and releases already taken seats
+     * when one of the activities does not have enough free seats.
+     */
+    @Test
+    void tryReserve_OneActivityFull_NothingReserved() {
+        Activity snorkelling = activity("Snorkelling", 100.0, 5);
+        Activity hiking = activity("Hiking", 100.0, 1);
+
+        Optional<SeatReservation> reservation = SeatReservation.tryReserve(List.of(snorkelling, hiking), 2);
+
+        Assertions.assertTrue(reservation.isEmpty(), "Hiking cannot supply two seats.");
+        Assertions.assertEquals(0, snorkelling.getEnrolledPassengers(), "Seats taken on snorkelling should be rolled back.");
+        Assertions.assertEquals(0, hiking.getEnrolledPassengers());
+    }
+
+    /**
+     * Tests that rolling back a reservation frees its seats and that a completed reservation cannot be reused.
+     */
+    @Test
+    void rollback_ReleasesSeats() {
+        Activity snorkelling = activity("Snorkelling", 100.0, 2);
+        SeatReservation reservation = SeatReservation.tryReserve(List.of(snorkelling), new int[]{2}).orElseThrow();
+
+        reservation.rollback();
+
+        Assertions.assertEquals(0, snorkelling.getEnrolledPassengers());
+        Assertions.assertEquals(2, snorkelling.getAvailableSeats());
+        Assertions.assertThrows(IllegalStateException.class, reservation::commit);
+    }
+
+    /**
+     * Tests that a rollback leaves alone the seats already released to their activity.
+     */
+    @Test
+    void rollback_SeatsAlreadyReleased_NotReleasedAgain() {
+        Activity snorkelling = activity("Snorkelling", 100.0, 3);
+        Activity hiking = activity("Hiking", 100.0, 3);
+        SeatReservation reservation = SeatReservation.tryReserve(List.of(snorkelling, hiking), 2).orElseThrow();
+        snorkelling.releaseSeats(1);
+
+        reservation.rollback(new int[]{1, 0});
+
+        Assertions.assertEquals(0, snorkelling.getEnrolledPassengers());
+        Assertions.assertEquals(0, hiking.getEnrolledPassengers());
+    }
+
+    /**
+     * Stress test: many threads compete for seats on overlapping pairs of activities. Successful
+     * reservations must account for every enrolled seat and no activity may ever exceed its capacity.
+     */
+    @Test
+    void tryReserve_UnderContention_NeverOversells() throws InterruptedException {
+        int threads = 16;
+        int attemptsPerThread = 5_000;
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            activities.add(activity("Activity " + i, 100.0, 1_000 + i * 250));
+        }
+        AtomicInteger[] granted = new AtomicInteger[activities.size()];
+        for (int i = 0; i < granted.length; i++) {
+            granted[i] = new AtomicInteger();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    int first = (offset + i) % activities.size();
+                    int second = (first + 1) % activities.size();
+                    SeatReservation.tryReserve(List.of(activities.get(first), activities.get(second)), 1)
+                            .ifPresent(reservation -> {
+                                reservation.commit();
+                                granted[first].incrementAndGet();
+                                granted[second].incrementAndGet();
+                            });
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        for (int i = 0; i < activities.size(); i++) {
+            Activity activity = activities.get(i);
+            Assertions.assertTrue(activity.getEnrolledPassengers() <= activity.getCapacity(), "Activity must never be oversold.");
+            Assertions.assertEquals(granted[i].get(), activity.getEnrolledPassengers(), "Every enrolled seat must belong to a committed reservation.");
+        }
+    }
+}
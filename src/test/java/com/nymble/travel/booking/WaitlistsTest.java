@@ -0,0 +1,173 @@
+package com.nymble.travel.booking;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link Waitlists} and {@link Waitlist}, covering promotion by tier and arrival order,
+ * waiters that leave without a seat, asynchronous promotion under concurrent releases, closing,
+ * and executors that reject promotion passes.
+ */
+class WaitlistsTest {
+
+    /**
+     * Tests that freed seats go to Premium, then Gold, then Standard passengers, first come first
+     * served within a tier, and that passengers arriving later queue behind the waiters.
+     */
+    @Test
+    void signUp_FullActivity_PromotesByTierThenArrival() {
+        Waitlists waitlists = new Waitlists(Runnable::run);
+        Activity activity = activity("Snorkelling", 100.0, 1);
+        Passenger holder = PassengerTier.STANDARD.newPassenger("Holder", 0, 500);
+        Assertions.assertEquals(SignUpStatus.BOOKED, waitlists.signUp(holder, activity).join());
+
+        List<Passenger> waiters = List.of(
+                PassengerTier.STANDARD.newPassenger("First Standard", 1, 500),
+                PassengerTier.GOLD.newPassenger("Gold", 2, 500),
+                PassengerTier.STANDARD.newPassenger("Second Standard", 3, 500),
+                PassengerTier.PREMIUM.newPassenger("Premium", 4, 0));
+        List<CompletableFuture<SignUpStatus>> results = new ArrayList<>();
+        waiters.forEach(passenger -> results.add(waitlists.signUp(passenger, activity)));
+        Assertions.assertEquals(4, waitlists.forActivity(activity).size());
+        results.forEach(result -> Assertions.assertFalse(result.isDone()));
+
+        List<Integer> promoted = new ArrayList<>();
+        Passenger seated = holder;
+        for (int i = 0; i < waiters.size(); i++) {
+            activity.removePassenger(seated);
+            seated = waiters.stream().filter(passenger -> passenger.isEnrolledIn(activity)).findFirst().orElseThrow();
+            promoted.add(seated.getPassengerNumber());
+        }
+
+        Assertions.assertEquals(List.of(4, 2, 1, 3), promoted);
+        results.forEach(result -> Assertions.assertEquals(SignUpStatus.BOOKED, result.join()));
+        Assertions.assertEquals(0, waitlists.forActivity(activity).size());
+    }
+
+    /**
+     * Tests that a waiter who cannot pay or has cancelled leaves the waitlist without blocking
+     * the waiters behind.
+     */
+    @Test
+    void signUp_RejectedOrCancelledWaiter_DoesNotBlockOthers() {
+        Waitlists waitlists = new Waitlists(Runnable::run);
+        Activity activity = activity("Snorkelling", 100.0, 1);
+        Passenger holder = PassengerTier.STANDARD.newPassenger("Holder", 0, 500);
+        waitlists.signUp(holder, activity).join();
+        CompletableFuture<SignUpStatus> broke = waitlists.signUp(PassengerTier.GOLD.newPassenger("Broke", 1, 10), activity);
+        CompletableFuture<SignUpStatus> cancelled = waitlists.signUp(PassengerTier.GOLD.newPassenger("Gone", 2, 500), activity);
+        Passenger patient = PassengerTier.STANDARD.newPassenger("Patient", 3, 500);
+        CompletableFuture<SignUpStatus> waiting = waitlists.signUp(patient, activity);
+        cancelled.cancel(false);
+
+        activity.removePassenger(holder);
+
+        Assertions.assertEquals(SignUpStatus.INSUFFICIENT_BALANCE, broke.join());
+        Assertions.assertEquals(SignUpStatus.BOOKED, waiting.join());
+        Assertions.assertTrue(patient.isEnrolledIn(activity));
+        Assertions.assertEquals(1, activity.getEnrolledPassengers());
+    }
+
+    /**
+     * Tests that passengers waiting for a full package are added on the promotion thread as
+     * places are freed concurrently, without ever exceeding the capacity.
+     */
+    @Test
+    void addPassenger_FullPackage_PromotedAsynchronously() throws Exception {
+        int capacity = 20;
+        TravelPackage travelPackage = TravelPackage.builder().name("Festival").passengerCapacity(capacity).build();
+        try (Waitlists waitlists = new Waitlists()) {
+            for (int i = 0; i < capacity; i++) {
+                waitlists.addPassenger(travelPackage, PassengerTier.STANDARD.newPassenger("Fan " + i, i, 0)).join();
+            }
+            List<CompletableFuture<Passenger>> waiting = new ArrayList<>();
+            for (int i = capacity; i < 2 * capacity; i++) {
+                waiting.add(waitlists.addPassenger(travelPackage, PassengerTier.GOLD.newPassenger("Late Fan " + i, i, 0)));
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                for (int i = 0; i < capacity; i++) {
+                    int passengerNumber = i;
+                    executor.execute(() -> travelPackage.removePassenger(passengerNumber));
+                }
+                for (CompletableFuture<Passenger> result : waiting) {
+                    Passenger passenger = result.get(10, TimeUnit.SECONDS);
+                    Assertions.assertTrue(travelPackage.containsPassenger(passenger.getPassengerNumber()));
+                }
+            } finally {
+                executor.shutdown();
+            }
+            Assertions.assertEquals(capacity, travelPackage.getPassengerCount());
+        }
+    }
+
+    /**
+     * Tests that closing fails the waiters and detaches the waitlist, so a later cancellation
+     * completes and frees its seat without promoting anyone.
+     */
+    @Test
+    void close_WithWaiters_FailsThemAndDetaches() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Waitlists waitlists = new Waitlists(executor);
+        Activity activity = activity("Snorkelling", 100.0, 1);
+        Passenger holder = PassengerTier.STANDARD.newPassenger("Holder", 0, 500);
+        Passenger waiter = PassengerTier.GOLD.newPassenger("Waiter", 1, 500);
+        waitlists.signUp(holder, activity).join();
+        CompletableFuture<SignUpStatus> waiting = waitlists.signUp(waiter, activity);
+
+        waitlists.close();
+        executor.shutdownNow();
+
+        CompletionException failure = Assertions.assertThrows(CompletionException.class, waiting::join);
+        Assertions.assertInstanceOf(IllegalStateException.class, failure.getCause());
+        Assertions.assertTrue(holder.cancel(activity));
+        Assertions.assertEquals(1, activity.getAvailableSeats());
+        Assertions.assertFalse(waiter.isEnrolledIn(activity));
+        Assertions.assertThrows(IllegalStateException.class, () -> waitlists.forActivity(activity));
+    }
+
+    /**
+     * Tests that a promotion rejected by the executor neither throws to the caller nor stops
+     * later promotions.
+     */
+    @Test
+    void promote_RejectedByExecutor_RetriedOnNextCall() {
+        AtomicBoolean accepting = new AtomicBoolean();
+        Waitlist<String> waitlist = new Waitlist<>(command -> {
+            if (!accepting.get()) {
+                throw new RejectedExecutionException("Saturated");
+            }
+            command.run();
+        });
+        AtomicBoolean room = new AtomicBoolean();
+
+        CompletableFuture<String> waiting = waitlist.join(PassengerTier.STANDARD,
+                () -> room.get() ? Optional.of("Seated") : Optional.empty());
+        room.set(true);
+        waitlist.promote();
+        Assertions.assertFalse(waiting.isDone());
+
+        accepting.set(true);
+        waitlist.promote();
+        Assertions.assertEquals("Seated", waiting.join());
+    }
+}
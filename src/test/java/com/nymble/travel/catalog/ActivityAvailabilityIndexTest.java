@@ -0,0 +1,110 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link ActivityAvailabilityIndex}, verifying range queries by cost and free seats and
+ * that the index follows seat, cost and catalog changes without being rebuilt by the caller.
+ */
+class ActivityAvailabilityIndexTest {
+    private TravelPackage travelPackage;
+    private Destination goa;
+    private Activity snorkelling;
+    private Activity parasailing;
+    private Activity beachYoga;
+
+    @BeforeEach
+    void setUp() {
+        snorkelling = activity("Snorkelling", 80.0, 2);
+        parasailing = activity("Parasailing", 150.0, 5);
+        beachYoga = activity("Beach Yoga", 20.0, 10);
+        goa = Destination.builder().name("Goa").build();
+        goa.addActivity(snorkelling);
+        goa.addActivity(parasailing);
+        goa.addActivity(beachYoga);
+        Destination delhi = Destination.builder().name("Delhi").build();
+        delhi.addActivity(activity("Red Fort Visit", 100.0, 4));
+        travelPackage = TravelPackage.builder().name("Holiday Special").passengerCapacity(10).build();
+        travelPackage.addDestination(goa);
+        travelPackage.addDestination(delhi);
+    }
+
+    /**
+     * Tests filtering by destination, cost range and free seats, with results ordered by cost.
+     */
+    @Test
+    void findAvailable_FiltersByDestinationCostAndSeats() {
+        ActivityAvailabilityIndex index = new ActivityAvailabilityIndex(travelPackage);
+
+        Assertions.assertEquals(List.of(beachYoga, snorkelling), index.findAvailable("Goa", 0, 100, 1));
+        Assertions.assertEquals(List.of(beachYoga, parasailing), index.findAvailable("Goa", 0, 200, 3));
+        Assertions.assertEquals(List.of("Beach Yoga", "Snorkelling", "Red Fort Visit"),
+                index.findAvailable(0, 100, 1).stream().map(Activity::getName).collect(Collectors.toList()));
+        Assertions.assertTrue(index.findAvailable("Mumbai", 0, 1_000, 1).isEmpty());
+    }
+
+    /**
+     * Tests that seat reservations, capacity and cost changes, and catalog additions are reflected immediately.
+     */
+    @Test
+    void findAvailable_TracksChanges() {
+        ActivityAvailabilityIndex index = new ActivityAvailabilityIndex(travelPackage);
+
+        snorkelling.tryReserveSeats(2);
+        Assertions.assertEquals(List.of(beachYoga), index.findAvailable("Goa", 0, 100, 1));
+
+        snorkelling.releaseSeats(1);
+        parasailing.setCost(90.0);
+        Assertions.assertEquals(List.of(beachYoga, snorkelling, parasailing), index.findAvailable("Goa", 0, 100, 1));
+
+        Activity kayaking = activity("Kayaking", 60.0, 3);
+        goa.addActivity(kayaking);
+        Destination jaipur = Destination.builder().name("Jaipur").build();
+        jaipur.addActivity(activity("Amber Fort", 50.0, 8));
+        travelPackage.addDestination(jaipur);
+
+        Assertions.assertEquals(List.of(beachYoga, kayaking, parasailing), index.findAvailable("Goa", 0, 100, 3));
+        Assertions.assertEquals(1, index.findAvailable("Jaipur", 0, 100, 8).size());
+    }
+
+    /**
+     * Tests the index against a full scan on a randomly generated catalog with random reservations.
+     */
+    @Test
+    void findAvailable_MatchesFullScan() {
+        Random random = new Random(7);
+        Destination destination = Destination.builder().name("Random").build();
+        for (int i = 0; i < 500; i++) {
+            destination.addActivity(activity("A" + i, random.nextInt(10_000) / 100.0, 1 + random.nextInt(20)));
+        }
+        TravelPackage randomPackage = TravelPackage.builder().name("Random").passengerCapacity(1).build();
+        randomPackage.addDestination(destination);
+        ActivityAvailabilityIndex index = new ActivityAvailabilityIndex(randomPackage);
+        for (int i = 0; i < 2_000; i++) {
+            destination.getActivities().get(random.nextInt(500)).reserveUpTo(1 + random.nextInt(3));
+        }
+
+        for (int query = 0; query < 100; query++) {
+            double low = random.nextInt(5_000) / 100.0;
+            double high = low + random.nextInt(5_000) / 100.0;
+            int seats = 1 + random.nextInt(5);
+            List<Activity> expected = destination.getActivities().stream()
+                    .filter(a -> a.getCost() >= low && a.getCost() <= high && a.getAvailableSeats() >= seats)
+                    .collect(Collectors.toList());
+            List<Activity> actual = index.findAvailable("Random", low, high, seats);
+            Assertions.assertEquals(expected.size(), actual.size());
+            Assertions.assertTrue(actual.containsAll(expected));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.models.Activity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ActivityStore}, verifying that stored activities read back like the objects
+ * they were copied from, that scans agree with scanning the objects, and that seat reservations
+ * never exceed the capacity while the store grows.
+ */
+class ActivityStoreTest {
+
+    private static List<Activity> activities(int count) {
+        Random random = new Random(7);
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Activity activity = Activity.builder()
+                    .name("Activity " + i % 50)
+                    .description(i % 3 == 0 ? null : "Description " + i % 10)
+                    .cost(random.nextInt(20_000) / 100.0)
+                    .capacity(1 + random.nextInt(20))
+                    .build();
+            activity.reserveUpTo(random.nextInt(activity.getCapacity() + 1));
+            activities.add(activity);
+        }
+        return activities;
+    }
+
+    /**
+     * Tests that a copied activity reads back with the same values, sharing the dictionary
+     * entries of repeated names and descriptions.
+     */
+    @Test
+    void copyOf_ReadsBackThroughViews() {
+        List<Activity> activities = activities(10_000);
+        ActivityStore store = ActivityStore.copyOf(activities);
+
+        Assertions.assertEquals(10_000, store.size());
+        Assertions.assertEquals(60, store.getDictionarySize());
+        for (int i = 0; i < activities.size(); i += 997) {
+            Activity expected = activities.get(i);
+            ActivityStore.View view = store.view(i);
+            Assertions.assertEquals(expected.getName(), view.getName());
+            Assertions.assertEquals(expected.getDescription(), view.getDescription());
+            Assertions.assertEquals(expected.getCost(), view.getCost());
+            Assertions.assertEquals(expected.getAvailableSeats(), view.getAvailableSeats());
+            Assertions.assertEquals(expected, view.toActivity());
+        }
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.view(10_000));
+    }
+
+    /**
+     * Tests that scans over the columns, spanning several segments, find exactly the activities a
+     * scan over the objects finds.
+     */
+    @Test
+    void scans_MatchObjectScans() {
+        List<Activity> activities = activities(10_000);
+        ActivityStore store = ActivityStore.copyOf(activities);
+
+        List<Integer> expected = new ArrayList<>();
+        double minCost = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < activities.size(); i++) {
+            Activity activity = activities.get(i);
+            if (activity.getCost() <= 50.0 && activity.getAvailableSeats() >= 3) {
+                expected.add(i);
+            }
+            if (activity.getAvailableSeats() >= 10) {
+                minCost = Math.min(minCost, activity.getCost());
+            }
+        }
+
+        Assertions.assertEquals(expected, Arrays.stream(store.findAvailable(50.0, 3)).boxed().toList());
+        Assertions.assertEquals(expected.size(), store.countAvailable(50.0, 3));
+        Assertions.assertEquals(minCost, store.minAvailableCost(10));
+        Assertions.assertTrue(Double.isNaN(store.minAvailableCost(100)));
+    }
+
+    /**
+     * Tests that concurrent reservations sell exactly the capacity of an activity while other
+     * threads keep adding activities.
+     */
+    @Test
+    void tryReserveSeats_ConcurrentWithGrowth_NeverOverbooks() throws Exception {
+        ActivityStore store = new ActivityStore();
+        int index = store.add("Snorkelling", "Reef", 25.0, 1_000);
+        AtomicInteger booked = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        if (store.tryReserveSeats(index, 1)) {
+                            booked.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    store.add("Activity " + i, null, i, 10);
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(1_000, booked.get());
+        Assertions.assertEquals(0, store.getAvailableSeats(index));
+        Assertions.assertEquals(20_001, store.size());
+        store.view(index).releaseSeats(10);
+        Assertions.assertEquals(10, store.getAvailableSeats(index));
+    }
+}
@@ -0,0 +1,159 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.catalog.AvailabilityDelta.SeatUpdate;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AvailabilityFeed}, verifying the initial delta, coalescing of rapid seat
+ * changes, isolation of slow subscribers and removal of failed ones.
+ */
+class AvailabilityFeedTest {
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService delivery = Executors.newCachedThreadPool();
+    private TravelPackage travelPackage;
+    private Activity snorkelling;
+    private AvailabilityFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        snorkelling = Activity.builder().name("Snorkelling").cost(80.0).capacity(500).description("Reef").build();
+        Destination goa = Destination.builder().name("Goa").build();
+        goa.addActivity(snorkelling);
+        goa.addActivity(Activity.builder().name("Parasailing").cost(150.0).capacity(5).description("Sky").build());
+        travelPackage = TravelPackage.builder().name("Holiday Special").passengerCapacity(10).build();
+        travelPackage.addDestination(goa);
+        feed = new AvailabilityFeed(travelPackage, ticker, delivery, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+        ticker.shutdownNow();
+        delivery.shutdownNow();
+    }
+
+    private static AvailabilityDelta next(BlockingQueue<AvailabilityDelta> deltas) throws InterruptedException {
+        AvailabilityDelta delta = deltas.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(delta, "No delta delivered");
+        return delta;
+    }
+
+    /**
+     * Tests that a subscriber first receives every activity and then only the changed ones.
+     */
+    @Test
+    void subscribe_InitialDeltaThenChanges() throws InterruptedException {
+        BlockingQueue<AvailabilityDelta> deltas = new LinkedBlockingQueue<>();
+        feed.subscribe(deltas::add);
+
+        AvailabilityDelta initial = next(deltas);
+        Assertions.assertEquals(0, initial.sequence());
+        Assertions.assertEquals(10, initial.availablePlaces());
+        Assertions.assertEquals(List.of(new SeatUpdate("Goa", "Snorkelling", 500), new SeatUpdate("Goa", "Parasailing", 5)),
+                initial.activities());
+
+        snorkelling.tryReserveSeats(3);
+        AvailabilityDelta change = next(deltas);
+        Assertions.assertEquals(1, change.sequence());
+        Assertions.assertEquals(List.of(new SeatUpdate("Goa", "Snorkelling", 497)), change.activities());
+
+        travelPackage.addPassenger(PassengerTier.STANDARD.newPassenger("Asha", 1, 100));
+        AvailabilityDelta places = next(deltas);
+        Assertions.assertEquals(9, places.availablePlaces());
+        Assertions.assertTrue(places.activities().isEmpty());
+    }
+
+    /**
+     * Tests that many rapid changes reach the subscriber as a few deltas ending at the final count.
+     */
+    @Test
+    void rapidChanges_Coalesced() throws InterruptedException {
+        BlockingQueue<AvailabilityDelta> deltas = new LinkedBlockingQueue<>();
+        feed.subscribe(deltas::add);
+        next(deltas);
+
+        for (int i = 0; i < 400; i++) {
+            snorkelling.tryReserveSeats(1);
+        }
+
+        int received = 0;
+        int seats = -1;
+        while (seats != 100) {
+            AvailabilityDelta delta = next(deltas);
+            received++;
+            for (SeatUpdate update : delta.activities()) {
+                Assertions.assertEquals("Snorkelling", update.activity());
+                seats = update.availableSeats();
+            }
+        }
+        Assertions.assertTrue(received < 400, "Changes were not coalesced: " + received + " deltas");
+    }
+
+    /**
+     * Tests that a blocked subscriber neither delays others nor queues more than the latest update.
+     */
+    @Test
+    void slowSubscriber_IsolatedAndCoalesced() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<AvailabilityDelta> slow = new LinkedBlockingQueue<>();
+        feed.subscribe(delta -> {
+            slow.add(delta);
+            release.await();
+        });
+        BlockingQueue<AvailabilityDelta> fast = new LinkedBlockingQueue<>();
+        feed.subscribe(fast::add);
+        next(slow);
+        next(fast);
+
+        Map<String, Integer> seen = new HashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            snorkelling.tryReserveSeats(1);
+            AvailabilityDelta delta = next(fast);
+            delta.activities().forEach(update -> seen.put(update.activity(), update.availableSeats()));
+            Assertions.assertEquals(500 - i, seen.get("Snorkelling"));
+        }
+        Assertions.assertTrue(slow.isEmpty());
+
+        release.countDown();
+        AvailabilityDelta merged = next(slow);
+        Assertions.assertEquals(1, merged.sequence());
+        Assertions.assertEquals(List.of(new SeatUpdate("Goa", "Snorkelling", 495)), merged.activities());
+    }
+
+    /**
+     * Tests that a subscriber whose delivery fails is removed.
+     */
+    @Test
+    void failingSubscriber_Unsubscribed() throws InterruptedException {
+        CountDownLatch failed = new CountDownLatch(1);
+        feed.subscribe(delta -> {
+            failed.countDown();
+            throw new IllegalStateException("Client went away");
+        });
+
+        Assertions.assertTrue(failed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && feed.getSubscriberCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, feed.getSubscriberCount());
+    }
+}
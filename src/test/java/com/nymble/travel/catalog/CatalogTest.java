@@ -0,0 +1,110 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.catalog.CatalogSnapshot.DestinationEntry;
+import com.nymble.travel.catalog.CatalogSnapshot.PackageEntry;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link Catalog} and {@link CatalogSnapshot}, verifying that published versions never
+ * change, that unchanged entries are shared between versions, and that a batch of edits is
+ * published as a single version.
+ */
+class CatalogTest {
+    private Catalog catalog;
+    private TravelPackage islands;
+    private TravelPackage alps;
+    private Destination bali;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new Catalog();
+        islands = TravelPackage.builder().name("Island Hopping").passengerCapacity(10).build();
+        alps = TravelPackage.builder().name("Alpine Escape").passengerCapacity(10).build();
+        bali = Destination.builder().name("Bali").build();
+        catalog.edit(editor -> {
+            editor.addPackage(islands);
+            editor.addPackage(alps);
+            editor.addDestination(islands, bali);
+            editor.addActivity(islands, bali, activity("Surfing", 50.0, 5));
+            return null;
+        });
+    }
+
+    /**
+     * Tests that a batch touching several objects is published as one version, in creation order.
+     */
+    @Test
+    void edit_Batch_PublishesOneVersion() {
+        CatalogSnapshot snapshot = catalog.snapshot();
+
+        Assertions.assertEquals(1, snapshot.getVersion());
+        Assertions.assertEquals(List.of(islands, alps), snapshot.getPackages());
+        PackageEntry entry = snapshot.findPackage("Island Hopping").orElseThrow();
+        Assertions.assertEquals(0, entry.indexOfDestination("Bali"));
+        Assertions.assertEquals(0, entry.itinerary().get(0).indexOfActivity("Surfing"));
+        Assertions.assertEquals(-1, entry.itinerary().get(0).indexOfActivity("Diving"));
+        TravelPackage duplicate = TravelPackage.builder().name("Alpine Escape").passengerCapacity(5).build();
+        boolean added = catalog.edit(editor -> editor.addPackage(duplicate));
+        Assertions.assertFalse(added);
+        Assertions.assertSame(snapshot, catalog.snapshot(), "A rejected edit publishes nothing.");
+    }
+
+    /**
+     * Tests that a snapshot taken before an edit keeps its contents after the edit is published.
+     */
+    @Test
+    void snapshot_IsUnaffectedByLaterEdits() {
+        CatalogSnapshot before = catalog.snapshot();
+        List<Activity> activitiesBefore = before.findPackage("Island Hopping").orElseThrow()
+                .itinerary().get(0).activities();
+
+        Destination lombok = Destination.builder().name("Lombok").build();
+        catalog.edit(editor -> {
+            editor.addActivity(islands, bali, activity("Diving", 50.0, 5));
+            editor.addDestination(islands, lombok);
+            return null;
+        });
+
+        Assertions.assertEquals(1, activitiesBefore.size());
+        Assertions.assertEquals(1, before.findPackage("Island Hopping").orElseThrow().itinerary().size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> activitiesBefore.add(activity("Kayaking", 50.0, 5)));
+        PackageEntry after = catalog.snapshot().findPackage("Island Hopping").orElseThrow();
+        Assertions.assertEquals(2, after.itinerary().size());
+        Assertions.assertEquals(1, after.itinerary().get(0).indexOfActivity("Diving"));
+        Assertions.assertEquals(2, bali.getActivities().size());
+    }
+
+    /**
+     * Tests that entries of packages and destinations an edit does not touch are reused.
+     */
+    @Test
+    void edit_SharesUnchangedEntries() {
+        CatalogSnapshot before = catalog.snapshot();
+        PackageEntry alpsBefore = before.findPackage("Alpine Escape").orElseThrow();
+        DestinationEntry baliBefore = before.findPackage("Island Hopping").orElseThrow().itinerary().get(0);
+
+        Destination lombok = Destination.builder().name("Lombok").build();
+        catalog.edit(editor -> {
+            editor.addDestination(islands, lombok);
+            editor.addActivity(islands, lombok, activity("Hiking", 50.0, 5));
+            return null;
+        });
+
+        CatalogSnapshot after = catalog.snapshot();
+        Assertions.assertEquals(2, after.getVersion());
+        Assertions.assertSame(alpsBefore, after.findPackage("Alpine Escape").orElseThrow());
+        PackageEntry islandsAfter = after.findPackage("Island Hopping").orElseThrow();
+        Assertions.assertSame(baliBefore, islandsAfter.itinerary().get(0));
+        Assertions.assertEquals(List.of("Hiking"),
+                islandsAfter.itinerary().get(1).activities().stream().map(Activity::getName).toList());
+    }
+}
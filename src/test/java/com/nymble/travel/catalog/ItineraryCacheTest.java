@@ -0,0 +1,131 @@
+package com.nymble.travel.catalog;
+
+import com.nymble.travel.metrics.BookingMetrics;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link ItineraryCache}, verifying that views are served from the cache until their
+ * package changes, that the least recently used view is evicted first, and that hits and misses
+ * are counted.
+ */
+class ItineraryCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger renders = new AtomicInteger();
+    private TravelPackage travelPackage;
+    private Destination goa;
+    private Activity snorkelling;
+
+    private String render(TravelPackage rendered) {
+        renders.incrementAndGet();
+        return rendered.getName() + " with " + rendered.getItinerary().size() + " destinations";
+    }
+
+    @BeforeEach
+    void setUp() {
+        snorkelling = activity("Snorkelling", 80.0, 2);
+        goa = Destination.builder().name("Goa").build();
+        goa.addActivity(snorkelling);
+        travelPackage = TravelPackage.builder().name("Holiday Special").passengerCapacity(10).build();
+        travelPackage.addDestination(goa);
+    }
+
+    /**
+     * Tests that an unchanged package is rendered once and that hits and misses are recorded.
+     */
+    @Test
+    void get_Unchanged_ServedFromCache() {
+        ItineraryCache cache = new ItineraryCache(16, new BookingMetrics(registry));
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals("Holiday Special with 1 destinations", cache.get(travelPackage, "text", this::render));
+        }
+        cache.get(travelPackage, "json", this::render);
+
+        Assertions.assertEquals(2, renders.get());
+        Assertions.assertEquals(4, registry.get("travel.itinerary.cache").tag("result", "hit").functionCounter().count());
+        Assertions.assertEquals(2, registry.get("travel.itinerary.cache").tag("result", "miss").functionCounter().count());
+    }
+
+    /**
+     * Tests that seat, cost, activity, destination and passenger changes each drop the package's views.
+     */
+    @Test
+    void get_AfterEachKindOfChange_Rerenders() {
+        ItineraryCache cache = new ItineraryCache(16, BookingMetrics.disabled());
+        Activity added = activity("Parasailing", 150.0, 5);
+        Destination delhi = Destination.builder().name("Delhi").build();
+        Runnable[] changes = {
+                () -> snorkelling.tryReserveSeats(1),
+                () -> snorkelling.setCost(90.0),
+                () -> goa.addActivity(added),
+                () -> added.tryReserveSeats(2), // An activity added after the first render
+                () -> travelPackage.addDestination(delhi),
+                () -> delhi.addActivity(activity("Red Fort Visit", 100.0, 4)),
+                () -> travelPackage.addPassenger(PassengerTier.STANDARD.newPassenger("Asha", 1, 100)),
+                () -> travelPackage.removePassenger(1),
+        };
+
+        cache.get(travelPackage, "text", this::render);
+        for (Runnable change : changes) {
+            int before = renders.get();
+            change.run();
+            cache.get(travelPackage, "text", this::render);
+            cache.get(travelPackage, "text", this::render);
+            Assertions.assertEquals(before + 1, renders.get());
+        }
+        Assertions.assertEquals("Holiday Special with 2 destinations", cache.get(travelPackage, "text", this::render));
+    }
+
+    /**
+     * Tests that the least recently used view is evicted when the cache is full.
+     */
+    @Test
+    void get_OverCapacity_EvictsLeastRecentlyUsed() {
+        ItineraryCache cache = new ItineraryCache(2, BookingMetrics.disabled());
+
+        cache.get(travelPackage, "text", this::render);
+        cache.get(travelPackage, "json", this::render);
+        cache.get(travelPackage, "text", this::render);
+        cache.get(travelPackage, "csv", this::render); // Evicts json
+        Assertions.assertEquals(3, renders.get());
+        Assertions.assertEquals(2, cache.size());
+
+        cache.get(travelPackage, "text", this::render);
+        cache.get(travelPackage, "json", this::render);
+        Assertions.assertEquals(4, renders.get());
+
+        snorkelling.tryReserveSeats(1);
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that a view rendered while its package changed is returned but not cached.
+     */
+    @Test
+    void get_ChangeWhileRendering_NotCached() {
+        ItineraryCache cache = new ItineraryCache(16, BookingMetrics.disabled());
+
+        String stale = cache.get(travelPackage, "text", rendered -> {
+            String view = render(rendered);
+            snorkelling.tryReserveSeats(1);
+            return view;
+        });
+        Assertions.assertEquals("Holiday Special with 1 destinations", stale);
+        Assertions.assertEquals(0, cache.size());
+
+        cache.get(travelPackage, "text", this::render);
+        cache.get(travelPackage, "text", this::render);
+        Assertions.assertEquals(2, renders.get());
+    }
+}
@@ -0,0 +1,310 @@
+package com.nymble.travel.controllers;
+
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.wire.TravelWireFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.ByteBuffer;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for {@link TravelPackageController}, walking through building a package, enrolling
+ * passengers and signing them up for activities over the REST API.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TravelPackageControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private void postJson(String path, String body, int expectedStatus) throws Exception {
+        mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().is(expectedStatus));
+    }
+
+    @Test
+    void bookingFlow() throws Exception {
+        postJson("/packages", "{\"name\":\"Goa Getaway\",\"passengerCapacity\":2}", 201);
+        postJson("/packages/Goa Getaway/destinations", "{\"name\":\"Goa\"}", 201);
+        postJson("/packages/Goa Getaway/destinations/Goa/activities",
+                "{\"name\":\"Snorkelling\",\"description\":\"Coral reef\",\"cost\":100.0,\"capacity\":1}", 201);
+        postJson("/packages/Goa Getaway/passengers",
+                "{\"tier\":\"GOLD\",\"name\":\"Asha\",\"passengerNumber\":1,\"balance\":150.0}", 201);
+        postJson("/packages/Goa Getaway/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Ravi\",\"passengerNumber\":2,\"balance\":150.0}", 201);
+        postJson("/packages/Goa Getaway/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Duplicate\",\"passengerNumber\":2,\"balance\":150.0}", 409);
+
+        mockMvc.perform(post("/packages/Goa Getaway/passengers/1/sign-ups").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"destination\":\"Goa\",\"activity\":\"Snorkelling\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("BOOKED"))
+                .andExpect(jsonPath("$.balance").value(60.0));
+        mockMvc.perform(post("/packages/Goa Getaway/passengers/2/sign-ups").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"destination\":\"Goa\",\"activity\":\"Snorkelling\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("NO_CAPACITY"));
+
+        mockMvc.perform(get("/packages/Goa Getaway"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enrolledPassengers").value(2))
+                .andExpect(jsonPath("$.itinerary[0].activities[0].availableSeats").value(0));
+        mockMvc.perform(get("/packages/Goa Getaway/activities/available"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void cancellationFlow() throws Exception {
+        postJson("/packages", "{\"name\":\"Kerala Backwaters\",\"passengerCapacity\":2}", 201);
+        postJson("/packages/Kerala Backwaters/destinations", "{\"name\":\"Alleppey\"}", 201);
+        postJson("/packages/Kerala Backwaters/destinations/Alleppey/activities",
+                "{\"name\":\"Houseboat\",\"description\":\"Overnight cruise\",\"cost\":100.0,\"capacity\":1}", 201);
+        postJson("/packages/Kerala Backwaters/passengers",
+                "{\"tier\":\"GOLD\",\"name\":\"Asha\",\"passengerNumber\":1,\"balance\":150.0}", 201);
+        postJson("/packages/Kerala Backwaters/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Ravi\",\"passengerNumber\":2,\"balance\":150.0}", 201);
+        postJson("/packages/Kerala Backwaters/passengers/1/sign-ups",
+                "{\"destination\":\"Alleppey\",\"activity\":\"Houseboat\"}", 200);
+
+        mockMvc.perform(delete("/packages/Kerala Backwaters/passengers/1/sign-ups")
+                        .param("destination", "Alleppey").param("activity", "Houseboat"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(150.0));
+        mockMvc.perform(delete("/packages/Kerala Backwaters/passengers/1/sign-ups")
+                        .param("destination", "Alleppey").param("activity", "Houseboat"))
+                .andExpect(status().isNotFound());
+        postJson("/packages/Kerala Backwaters/passengers/2/sign-ups",
+                "{\"destination\":\"Alleppey\",\"activity\":\"Houseboat\"}", 200);
+
+        mockMvc.perform(delete("/packages/Kerala Backwaters/passengers/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(150.0));
+        mockMvc.perform(get("/packages/Kerala Backwaters"))
+                .andExpect(jsonPath("$.enrolledPassengers").value(1))
+                .andExpect(jsonPath("$.itinerary[0].activities[0].availableSeats").value(1));
+    }
+
+    @Test
+    void importFlow() throws Exception {
+        String csv = """
+                package,Rajasthan Circuit,5
+                destination,Rajasthan Circuit,Jaipur
+                activity,Rajasthan Circuit,Jaipur,Amber Fort,Elephant ride,30,2
+                activity,Rajasthan Circuit,Udaipur,Lake Cruise,Sunset,20,2
+                passenger,Rajasthan Circuit,STANDARD,Kabir,1,100
+                """;
+        mockMvc.perform(post("/packages/import").contentType("text/csv").content(csv))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.packages[0]").value("Rajasthan Circuit"))
+                .andExpect(jsonPath("$.rows").value(4))
+                .andExpect(jsonPath("$.problems[0].line").value(4));
+        postJson("/packages/Rajasthan Circuit/passengers/1/sign-ups",
+                "{\"destination\":\"Jaipur\",\"activity\":\"Amber Fort\"}", 200);
+
+        mockMvc.perform(post("/packages/import").contentType("application/x-ndjson")
+                        .content("{\"type\":\"package\",\"name\":\"Rajasthan Circuit\",\"capacity\":5}\n"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.packages.length()").value(0))
+                .andExpect(jsonPath("$.problems[0].message").value("Travel package already exists: Rajasthan Circuit"));
+    }
+
+    @Test
+    void bookingMetrics_ExposedThroughActuator() throws Exception {
+        postJson("/packages", "{\"name\":\"Metrics Tour\",\"passengerCapacity\":1}", 201);
+        postJson("/packages/Metrics Tour/destinations", "{\"name\":\"Pune\"}", 201);
+        postJson("/packages/Metrics Tour/destinations/Pune/activities",
+                "{\"name\":\"Fort Trek\",\"description\":\"Sinhagad\",\"cost\":10.0,\"capacity\":2}", 201);
+        postJson("/packages/Metrics Tour/passengers",
+                "{\"tier\":\"PREMIUM\",\"name\":\"Meera\",\"passengerNumber\":1,\"balance\":0.0}", 201);
+        postJson("/packages/Metrics Tour/passengers/1/sign-ups", "{\"destination\":\"Pune\",\"activity\":\"Fort Trek\"}", 200);
+
+        mockMvc.perform(get("/actuator/metrics/travel.signups").param("tag", "tier:PREMIUM").param("tag", "status:BOOKED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(1.0));
+        mockMvc.perform(get("/actuator/metrics/travel.activity.fill").param("tag", "package:Metrics Tour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(0.5));
+    }
+
+    @Test
+    void itineraryViews_FollowChanges() throws Exception {
+        postJson("/packages", "{\"name\":\"Cached Tour\",\"passengerCapacity\":5}", 201);
+        postJson("/packages/Cached Tour/destinations", "{\"name\":\"Hampi\"}", 201);
+        postJson("/packages/Cached Tour/destinations/Hampi/activities",
+                "{\"name\":\"Bouldering\",\"description\":\"Granite\",\"cost\":40.0,\"capacity\":3}", 201);
+        postJson("/packages/Cached Tour/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Meera\",\"passengerNumber\":1,\"balance\":100.0}", 201);
+
+        mockMvc.perform(get("/packages/Cached Tour/itinerary").param("format", "JSON"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.destinations[0].activities.length()").value(1));
+        mockMvc.perform(get("/packages/Cached Tour"))
+                .andExpect(jsonPath("$.itinerary[0].activities[0].availableSeats").value(3));
+
+        postJson("/packages/Cached Tour/destinations/Hampi/activities",
+                "{\"name\":\"Coracle Ride\",\"description\":\"River\",\"cost\":10.0,\"capacity\":8}", 201);
+        mockMvc.perform(post("/packages/Cached Tour/passengers/1/sign-ups").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"destination\":\"Hampi\",\"activity\":\"Bouldering\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/packages/Cached Tour/itinerary").param("format", "JSON"))
+                .andExpect(jsonPath("$.destinations[0].activities.length()").value(2));
+        mockMvc.perform(get("/packages/Cached Tour"))
+                .andExpect(jsonPath("$.itinerary[0].activities[0].availableSeats").value(2));
+        mockMvc.perform(get("/packages/Cached Tour/itinerary"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN));
+    }
+
+    @Test
+    void checkout_BooksEveryActivityOrNone() throws Exception {
+        postJson("/packages", "{\"name\":\"Hill Stations\",\"passengerCapacity\":2}", 201);
+        postJson("/packages/Hill Stations/destinations", "{\"name\":\"Shimla\"}", 201);
+        postJson("/packages/Hill Stations/destinations", "{\"name\":\"Manali\"}", 201);
+        postJson("/packages/Hill Stations/destinations/Shimla/activities",
+                "{\"name\":\"Toy Train\",\"description\":\"Heritage railway\",\"cost\":40.0,\"capacity\":2}", 201);
+        postJson("/packages/Hill Stations/destinations/Manali/activities",
+                "{\"name\":\"Paragliding\",\"description\":\"Solang valley\",\"cost\":60.0,\"capacity\":1}", 201);
+        postJson("/packages/Hill Stations/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Asha\",\"passengerNumber\":1,\"balance\":150.0}", 201);
+        postJson("/packages/Hill Stations/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Ravi\",\"passengerNumber\":2,\"balance\":150.0}", 201);
+        String both = "[{\"destination\":\"Shimla\",\"activity\":\"Toy Train\"},"
+                + "{\"destination\":\"Manali\",\"activity\":\"Paragliding\"}]";
+
+        mockMvc.perform(post("/packages/Hill Stations/passengers/1/checkout").contentType(MediaType.APPLICATION_JSON)
+                        .content(both))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statuses[0]").value("BOOKED"))
+                .andExpect(jsonPath("$.statuses[1]").value("BOOKED"))
+                .andExpect(jsonPath("$.balance").value(50.0));
+        mockMvc.perform(post("/packages/Hill Stations/passengers/2/checkout").contentType(MediaType.APPLICATION_JSON)
+                        .content(both))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.statuses[0]").value("ABORTED"))
+                .andExpect(jsonPath("$.statuses[1]").value("NO_CAPACITY"))
+                .andExpect(jsonPath("$.balance").value(150.0));
+        mockMvc.perform(post("/packages/Hill Stations/passengers/2/checkout").contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/packages/Hill Stations"))
+                .andExpect(jsonPath("$.itinerary[0].activities[0].availableSeats").value(1))
+                .andExpect(jsonPath("$.itinerary[1].activities[0].availableSeats").value(0));
+    }
+
+    @Test
+    void planItinerary_ChoosesAffordableActivities() throws Exception {
+        postJson("/packages", "{\"name\":\"Planned Tour\",\"passengerCapacity\":2}", 201);
+        postJson("/packages/Planned Tour/destinations", "{\"name\":\"Pondicherry\"}", 201);
+        postJson("/packages/Planned Tour/destinations/Pondicherry/activities",
+                "{\"name\":\"Kayaking\",\"description\":\"Backwaters\",\"cost\":60.0,\"capacity\":2}", 201);
+        postJson("/packages/Planned Tour/destinations/Pondicherry/activities",
+                "{\"name\":\"Cycling\",\"description\":\"French quarter\",\"cost\":50.0,\"capacity\":2}", 201);
+        postJson("/packages/Planned Tour/destinations/Pondicherry/activities",
+                "{\"name\":\"Pottery\",\"description\":\"Auroville\",\"cost\":45.0,\"capacity\":2}", 201);
+        postJson("/packages/Planned Tour/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Kiran\",\"passengerNumber\":1,\"balance\":100.0}", 201);
+
+        mockMvc.perform(get("/packages/Planned Tour/passengers/1/plan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.budget").value(100.0))
+                .andExpect(jsonPath("$.total").value(95.0))
+                .andExpect(jsonPath("$.optimal").value(true))
+                .andExpect(jsonPath("$.activities.length()").value(2))
+                .andExpect(jsonPath("$.activities[0].activity").value("Cycling"))
+                .andExpect(jsonPath("$.activities[1].activity").value("Pottery"));
+        mockMvc.perform(get("/packages/Planned Tour/passengers/1/plan").param("maxPerDestination", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activities.length()").value(1))
+                .andExpect(jsonPath("$.activities[0].activity").value("Kayaking"));
+        mockMvc.perform(get("/packages/Planned Tour/passengers/1/plan").param("maxPerDestination", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/packages/Planned Tour/passengers/9/plan"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void availabilityStream_PushesSeatChanges() throws Exception {
+        postJson("/packages", "{\"name\":\"Live Seats\",\"passengerCapacity\":5}", 201);
+        postJson("/packages/Live Seats/destinations", "{\"name\":\"Munnar\"}", 201);
+        postJson("/packages/Live Seats/destinations/Munnar/activities",
+                "{\"name\":\"Tea Trail\",\"description\":\"Estates\",\"cost\":20.0,\"capacity\":2}", 201);
+        postJson("/packages/Live Seats/passengers",
+                "{\"tier\":\"STANDARD\",\"name\":\"Kiran\",\"passengerNumber\":1,\"balance\":100.0}", 201);
+
+        MvcResult stream = mockMvc.perform(get("/packages/Live Seats/activities/available/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(stream, "event:availability");
+        awaitContent(stream, "\"availableSeats\":2");
+
+        mockMvc.perform(post("/packages/Live Seats/passengers/1/sign-ups").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"destination\":\"Munnar\",\"activity\":\"Tea Trail\"}"))
+                .andExpect(status().isOk());
+        awaitContent(stream, "\"availableSeats\":1");
+    }
+
+    private static void awaitContent(MvcResult result, String expected) throws Exception {
+        for (int i = 0; i < 500 && !result.getResponse().getContentAsString().contains(expected); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(result.getResponse().getContentAsString().contains(expected),
+                "Stream did not contain " + expected);
+    }
+
+    @Test
+    void wireFormat_ExportsAndImportsWholePackages() throws Exception {
+        postJson("/packages", "{\"name\":\"Wire Tour\",\"passengerCapacity\":3}", 201);
+        postJson("/packages/Wire Tour/destinations", "{\"name\":\"Hampi\"}", 201);
+        postJson("/packages/Wire Tour/destinations/Hampi/activities",
+                "{\"name\":\"Bouldering\",\"description\":\"Granite\",\"cost\":40.0,\"capacity\":2}", 201);
+        postJson("/packages/Wire Tour/passengers",
+                "{\"tier\":\"GOLD\",\"name\":\"Asha\",\"passengerNumber\":1,\"balance\":100.0}", 201);
+        postJson("/packages/Wire Tour/passengers/1/sign-ups", "{\"destination\":\"Hampi\",\"activity\":\"Bouldering\"}", 200);
+
+        byte[] exported = mockMvc.perform(get("/packages/Wire Tour").accept(TravelWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TravelWireFormat.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        mockMvc.perform(get("/packages/Wire Tour"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(post("/packages").contentType(TravelWireFormat.MEDIA_TYPE).content(exported))
+                .andExpect(status().isConflict());
+
+        TravelPackage copy = TravelWireFormat.decode(ByteBuffer.wrap(exported));
+        copy.setName("Wire Tour Copy");
+        mockMvc.perform(post("/packages").contentType(TravelWireFormat.MEDIA_TYPE).content(TravelWireFormat.encode(copy)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("Wire Tour Copy"))
+                .andExpect(jsonPath("$.enrolledPassengers").value(1))
+                .andExpect(jsonPath("$.itinerary[0].activities[0].availableSeats").value(1));
+        mockMvc.perform(get("/packages/Wire Tour Copy/passengers/1"))
+                .andExpect(jsonPath("$.balance").value(64.0));
+        mockMvc.perform(post("/packages").contentType(TravelWireFormat.MEDIA_TYPE).content(new byte[] {1, 2, 3}))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownPackage_NotFound() throws Exception {
+        mockMvc.perform(get("/packages/Nowhere")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/packages/Nowhere/passengers/1")).andExpect(status().isNotFound());
+    }
+}
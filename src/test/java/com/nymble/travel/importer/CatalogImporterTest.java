@@ -0,0 +1,131 @@
+package com.nymble.travel.importer;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for {@link CatalogImporter}, covering both formats, quoted CSV fields, files split into
+ * many chunks, and malformed rows reported with their line numbers.
+ */
+class CatalogImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private static final String CSV = """
+            # Seasonal catalog
+            package,Island Hopping,2
+            destination,Island Hopping,Bali
+            activity,Island Hopping,Bali,Surfing,"Catch some ""big"" waves, twice",100.5,3
+            activity,Island Hopping,Bali,Temple Tour,,40,5
+            destination,Island Hopping,"Lombok, East"
+            activity,Island Hopping,"Lombok, East",Diving,Reef dive,1e2,2
+            passenger,Island Hopping,GOLD,Alice,1,500.25
+            passenger,Island Hopping,premium,Bob,2,0
+            """;
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static void assertIslandHopping(ImportResult result) {
+        Assertions.assertEquals(List.of(), result.problems());
+        Assertions.assertEquals(8, result.rowCount());
+        TravelPackage islands = result.packages().get(0);
+        Assertions.assertEquals("Island Hopping", islands.getName());
+        Assertions.assertEquals(2, islands.getPassengerCapacity());
+        Assertions.assertEquals(List.of("Bali", "Lombok, East"),
+                islands.getItinerary().stream().map(Destination::getName).toList());
+        Activity surfing = islands.getItinerary().get(0).getActivities().get(0);
+        Assertions.assertEquals("Catch some \"big\" waves, twice", surfing.getDescription());
+        Assertions.assertEquals(100.5, surfing.getCost());
+        Assertions.assertEquals(3, surfing.getCapacity());
+        Assertions.assertEquals("Temple Tour", islands.getItinerary().get(0).getActivities().get(1).getName());
+        Assertions.assertEquals(100.0, islands.getItinerary().get(1).getActivities().get(0).getCost());
+        Assertions.assertEquals(PassengerTier.GOLD, islands.findPassenger(1).orElseThrow().getTier());
+        Assertions.assertEquals(500.25, islands.findPassenger(1).orElseThrow().getBalance());
+        Assertions.assertEquals(PassengerTier.PREMIUM, islands.findPassenger(2).orElseThrow().getTier());
+    }
+
+    /**
+     * Tests that a CSV file builds the packages with their itineraries and passengers, parsing
+     * quoted fields with embedded commas and quotes.
+     */
+    @Test
+    void importFile_Csv_BuildsPackages() throws IOException {
+        assertIslandHopping(new CatalogImporter().importFile(write("catalog.csv", CSV), ImportFormat.CSV));
+    }
+
+    /**
+     * Tests that JSON Lines rows build the same packages as their CSV equivalent.
+     */
+    @Test
+    void importFile_JsonLines_BuildsPackages() throws IOException {
+        String json = """
+                {"type":"package","name":"Island Hopping","capacity":2}
+                {"type":"destination","package":"Island Hopping","name":"Bali"}
+                {"package":"Island Hopping","destination":"Bali","type":"activity","name":"Surfing","description":"Catch some \\"big\\" waves, twice","cost":100.5,"capacity":3}
+                {"type":"activity","package":"Island Hopping","destination":"Bali","name":"Temple Tour","cost":40,"capacity":5}
+
+                {"type":"destination","package":"Island Hopping","name":"Lombok, East"}
+                {"type":"activity","package":"Island Hopping","destination":"Lombok, East","name":"Diving","description":"Reef dive","cost":1e2,"capacity":2}
+                {"type":"passenger","package":"Island Hopping","tier":"GOLD","name":"Alice","number":1,"balance":500.25}
+                {"type":"passenger","package":"Island Hopping","tier":"premium","name":"Bob","number":2,"balance":0}
+                """;
+        assertIslandHopping(new CatalogImporter().importFile(write("catalog.jsonl", json), ImportFormat.JSON));
+    }
+
+    /**
+     * Tests that a file cut into many small chunks parsed in parallel yields the same rows, and
+     * that malformed rows anywhere in it are skipped and reported with their line numbers.
+     */
+    @Test
+    void importFile_ManyChunks_ReportsProblemsByLine() throws IOException {
+        StringBuilder csv = new StringBuilder("package,Festival,1000\n");
+        List<Long> badLines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            csv.append("destination,Festival,Stage ").append(i).append('\n');
+            csv.append("activity,Festival,Stage ").append(i).append(",Show,Live music,").append(i).append(".25,100\n");
+            if (i % 100 == 7) {
+                badLines.add(csv.chars().filter(c -> c == '\n').count() + 1);
+                csv.append("activity,Festival,Stage ").append(i).append(",Encore,Again,free,100\n");
+            }
+        }
+        csv.append("passenger,Festival,GOLD,Alice,1,50\n");
+        csv.append("passenger,Festival,GOLD,Alice Again,1,50\n"); // Duplicate number
+        csv.append("passenger,Festival,SILVER,Carol,3,50\n");
+        csv.append("activity,Nowhere,Stage 1,Show,Live music,10,100\n");
+        csv.append("destination,Festival\r\n");
+        long lines = csv.chars().filter(c -> c == '\n').count();
+        Path file = write("festival.csv", csv.toString());
+
+        ImportResult result = new CatalogImporter(ForkJoinPool.commonPool(), 256).importFile(file, ImportFormat.CSV);
+
+        TravelPackage festival = result.packages().get(0);
+        Assertions.assertEquals(500, festival.getItinerary().size());
+        Assertions.assertEquals(499.25, festival.getItinerary().get(499).getActivities().get(0).getCost());
+        Assertions.assertEquals(1, festival.getPassengers().size());
+        Assertions.assertEquals(1 + 1_000 + 1, result.rowCount());
+        List<ImportProblem> problems = result.problems();
+        Assertions.assertEquals(badLines, problems.subList(0, 5).stream().map(ImportProblem::line).toList());
+        Assertions.assertEquals("Invalid cost 'free'", problems.get(0).message());
+        Assertions.assertEquals(List.of(lines - 3, lines - 2, lines - 1, lines),
+                problems.subList(5, 9).stream().map(ImportProblem::line).toList());
+        Assertions.assertTrue(problems.get(5).message().startsWith("Passenger 1 cannot be added"));
+        Assertions.assertEquals("Unknown tier 'SILVER'", problems.get(6).message());
+        Assertions.assertEquals("Travel package not defined earlier in the file: Nowhere", problems.get(7).message());
+        Assertions.assertEquals("Expected 3 fields for destination but found 2", problems.get(8).message());
+    }
+}
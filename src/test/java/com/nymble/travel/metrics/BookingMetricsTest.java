@@ -0,0 +1,97 @@
+package com.nymble.travel.metrics;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link BookingMetrics}, verifying that sign-ups, package enrollments, contention and
+ * activity fill are recorded by the models once the metrics are installed as the default.
+ */
+class BookingMetricsTest {
+    private SimpleMeterRegistry registry;
+    private BookingMetrics previous; // The default before the test, installed by an application context
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        previous = BookingMetrics.getDefault();
+        BookingMetrics.setDefault(new BookingMetrics(registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        BookingMetrics.setDefault(previous);
+    }
+
+    private double signUps(PassengerTier tier, String status) {
+        return registry.get("travel.signups").tag("tier", tier.name()).tag("status", status).functionCounter().count();
+    }
+
+    /**
+     * Tests that each sign-up is counted by tier and outcome, and that a sample of them is timed
+     * for the passenger's tier.
+     */
+    @Test
+    void recordSignUp_CountsOutcomesAndSamplesLatencyPerTier() {
+        Activity activity = activity("Snorkelling", 100.0, 1);
+        PassengerTier.GOLD.newPassenger("Gold", 1, 500).enroll(activity);
+        PassengerTier.STANDARD.newPassenger("Full", 2, 500).enroll(activity);
+        PassengerTier.STANDARD.newPassenger("Broke", 3, 0).enroll(activity("Snorkelling", 100.0, 1));
+        Activity festival = activity("Snorkelling", 100.0, 20_000);
+        for (int i = 0; i < 20_000; i++) {
+            PassengerTier.PREMIUM.newPassenger("Fan " + i, 100 + i, 0).enroll(festival);
+        }
+
+        Assertions.assertEquals(1, signUps(PassengerTier.GOLD, "BOOKED"));
+        Assertions.assertEquals(1, signUps(PassengerTier.STANDARD, "NO_CAPACITY"));
+        Assertions.assertEquals(1, signUps(PassengerTier.STANDARD, "INSUFFICIENT_BALANCE"));
+        Assertions.assertEquals(20_000, signUps(PassengerTier.PREMIUM, "BOOKED"));
+        long timed = registry.get("travel.signup.latency").tag("tier", "PREMIUM").timer().count();
+        Assertions.assertTrue(timed > 0 && timed < 1_000, "About one sign-up in 256 is timed, got " + timed);
+        Assertions.assertTrue(registry.get("travel.signup.latency").tag("tier", "GOLD").timer().count() <= 1);
+    }
+
+    /**
+     * Tests the package enrollment counters and the fill gauge of a registered activity.
+     */
+    @Test
+    void registerActivity_PublishesFillAndPackageOutcomes() {
+        TravelPackage travelPackage = TravelPackage.builder().name("Goa Getaway").passengerCapacity(1).build();
+        Passenger asha = PassengerTier.STANDARD.newPassenger("Asha", 1, 500);
+        travelPackage.addPassenger(asha);
+        travelPackage.addPassenger(PassengerTier.STANDARD.newPassenger("Ravi", 2, 500));
+        Activity activity = activity("Snorkelling", 100.0, 4);
+        BookingMetrics.getDefault().registerActivity("Goa Getaway", "Goa", activity);
+        asha.enroll(activity);
+
+        Assertions.assertEquals(1, registry.get("travel.package.passengers").tag("outcome", "added").counter().count());
+        Assertions.assertEquals(1, registry.get("travel.package.passengers").tag("outcome", "rejected").counter().count());
+        Assertions.assertEquals(0.25, registry.get("travel.activity.fill").tag("activity", "Snorkelling").gauge().value());
+    }
+
+    /**
+     * Tests that lost compare-and-sets are published per resource, and that disabled metrics
+     * record nothing.
+     */
+    @Test
+    void recordRetries_PublishedPerResource() {
+        BookingMetrics metrics = BookingMetrics.getDefault();
+        metrics.recordSeatRetry();
+        metrics.recordSeatRetry();
+        metrics.recordBalanceRetry();
+        BookingMetrics.disabled().recordSeatRetry();
+
+        Assertions.assertEquals(2, registry.get("travel.contention.retries").tag("resource", "seats").functionCounter().count());
+        Assertions.assertEquals(1, registry.get("travel.contention.retries").tag("resource", "balance").functionCounter().count());
+        Assertions.assertEquals(0, BookingMetrics.disabled().startTime());
+    }
+}
@@ -2,6 +2,12 @@ package com.nymble.travel.models;
 
 import org.junit.jupiter.api.*;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Tests for the {@link Activity} class to ensure that passenger management behaves as expected.
  * This includes adding passengers to an activity, and handling cases where the activity is at full capacity.
@@ -56,4 +62,119 @@ class ActivityTest {
         Assertions.assertEquals(1, activity.getEnrolledPassengers(), "The enrolled passengers count should remain unchanged.");
         Assertions.assertFalse(actualResult, "The passenger should not be added due to full capacity.");
     }
+
+    /**
+     * Stress test to verify that concurrent calls to addPassenger never enroll more passengers
+     * than the activity's capacity, and that every successful call is reflected in the enrolled count.
+     */
+    @Test
+    public void addPassenger_concurrent_never_exceeds_capacity() throws InterruptedException {
+        Activity popularActivity = Activity.builder()
+                .name("Popular Excursion")
+                .capacity(500)
+                .cost(50.0)
+                .description("Everyone wants to go")
+                .build();
+        int threads = 32;
+        int attemptsPerThread = 100;
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int firstNumber = t * attemptsPerThread;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    Passenger passenger = StandardPassenger.builder()
+                            .passengerNumber(firstNumber + i)
+                            .balance(0)
+                            .name("Passenger " + (firstNumber + i))
+                            .build();
+                    if (popularActivity.addPassenger(passenger)) {
+                        successes.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assertions.assertEquals(500, successes.get(), "Exactly the capacity should be granted.");
+        Assertions.assertEquals(500, popularActivity.getEnrolledPassengers(), "The activity should be full but not oversold.");
+        Assertions.assertEquals(0, popularActivity.getAvailableSeats());
+        Assertions.assertEquals(500, popularActivity.getEnrolledPassengerNumbers().length, "Every seat should be on the roster.");
+    }
+
+    /**
+     * Test to verify that a passenger cannot take a second seat in the same activity, and that
+     * removing the passenger frees the seat and clears the enrollment on both sides.
+     */
+    @Test
+    public void addPassenger_same_passenger_twice_enrolled_once() {
+        Activity excursion = Activity.builder()
+                .name("Excursion")
+                .capacity(5)
+                .cost(20.0)
+                .description("Test Description")
+                .build();
+        Passenger passenger = StandardPassenger.builder()
+                .passengerNumber(4711)
+                .balance(100)
+                .name("Repeat")
+                .build();
+
+        Assertions.assertTrue(excursion.addPassenger(passenger));
+        Assertions.assertFalse(excursion.addPassenger(passenger), "The passenger already holds a seat.");
+        Assertions.assertEquals(1, excursion.getEnrolledPassengers());
+        Assertions.assertTrue(excursion.isEnrolled(4711));
+        Assertions.assertTrue(passenger.isEnrolledIn(excursion));
+
+        Assertions.assertTrue(excursion.removePassenger(passenger));
+        Assertions.assertFalse(excursion.removePassenger(passenger));
+        Assertions.assertEquals(0, excursion.getEnrolledPassengers());
+        Assertions.assertFalse(excursion.isEnrolled(4711));
+        Assertions.assertFalse(passenger.isEnrolledIn(excursion));
+    }
+
+    /**
+     * Test to verify that seat listeners run after the roster monitor is released, so a listener
+     * can wait for another thread reading the roster without deadlocking.
+     */
+    @Test
+    public void addPassenger_listeners_run_outside_roster_lock() throws Exception {
+        Activity tour = Activity.builder()
+                .name("Tour")
+                .capacity(2)
+                .cost(10.0)
+                .description("Test Description")
+                .build();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        AtomicInteger rosterSizes = new AtomicInteger();
+        tour.addListener(new CatalogListener() {
+            @Override
+            public void seatsChanged(Activity changed) {
+                try {
+                    rosterSizes.addAndGet(reader.submit(() -> changed.getEnrolledPassengerNumbers().length)
+                            .get(5, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    throw new AssertionError("The roster stayed locked while listeners ran", e);
+                }
+            }
+        });
+        Passenger passenger = StandardPassenger.builder().passengerNumber(1).balance(100).name("Listener").build();
+
+        try {
+            Assertions.assertTrue(tour.addPassenger(passenger));
+            Assertions.assertTrue(tour.removePassenger(passenger));
+        } finally {
+            reader.shutdownNow();
+        }
+        Assertions.assertEquals(1, rosterSizes.get(), "The listener saw the roster after each change.");
+    }
 }
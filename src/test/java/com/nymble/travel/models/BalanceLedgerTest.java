@@ -0,0 +1,93 @@
+package com.nymble.travel.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link BalanceLedger}, verifying that passengers with ledger accounts book and cancel
+ * like any other, that debits stay atomic off-heap, and that sweeps cover every open account.
+ */
+class BalanceLedgerTest {
+
+    /**
+     * Tests that a passenger whose wallet is a ledger account is charged and refunded in the ledger.
+     */
+    @Test
+    void open_PassengerWallet_BooksAgainstLedger() {
+        BalanceLedger ledger = new BalanceLedger();
+        Passenger passenger = PassengerTier.GOLD.newPassenger("Asha", 70_000, ledger.open(70_000, 10_000));
+        Activity activity = Activity.builder().name("Kayaking").description("River").cost(50.0).capacity(2).build();
+
+        Assertions.assertTrue(passenger.getWallet().isLedgerAccount());
+        Assertions.assertTrue(passenger.signUpForActivity(activity));
+        Assertions.assertEquals(55.0, passenger.getBalance(), "Gold passengers pay 45 for a 50 activity.");
+        Assertions.assertEquals(5_500, ledger.getTotalCents());
+        Assertions.assertTrue(passenger.cancel(activity));
+        Assertions.assertEquals(10_000, ledger.getTotalCents());
+        Assertions.assertTrue(ledger.isOpen(70_000));
+        Assertions.assertFalse(ledger.isOpen(1));
+        Assertions.assertThrows(IllegalStateException.class, () -> ledger.open(70_000, 0));
+    }
+
+    /**
+     * Tests that concurrent debits of one account never overdraw it while other accounts are opened.
+     */
+    @Test
+    void tryDebit_Concurrent_NeverOverdraws() throws Exception {
+        BalanceLedger ledger = new BalanceLedger();
+        Wallet wallet = ledger.open(3, 10_000);
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        if (wallet.tryDebit(7)) {
+                            successes.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int number = 100_000; number < 300_000; number += 1_000) {
+                    ledger.open(number, 1);
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(10_000 / 7, successes.get());
+        Assertions.assertEquals(10_000 % 7, wallet.getBalanceCents());
+        Assertions.assertEquals(201, ledger.getAccountCount());
+    }
+
+    /**
+     * Tests that a sweep updates every open account and that the audit total follows.
+     */
+    @Test
+    void updateAll_PaysInterestOnEveryAccount() {
+        BalanceLedger ledger = new BalanceLedger();
+        List<Wallet> wallets = new ArrayList<>();
+        for (int number = 0; number < 200_000; number += 7) {
+            wallets.add(ledger.open(number, 1_000));
+        }
+
+        ledger.updateAll(balance -> balance + balance / 100); // 1% interest, rounded down
+
+        Assertions.assertEquals(wallets.size() * 1_010L, ledger.getTotalCents());
+        wallets.forEach(wallet -> Assertions.assertEquals(1_010, wallet.getBalanceCents()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ledger.updateAll(balance -> -1));
+    }
+}
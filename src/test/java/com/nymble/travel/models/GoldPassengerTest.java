@@ -97,4 +97,24 @@ class GoldPassengerTest {
         Assertions.assertFalse(result, "Sign up should fail due to insufficient balance.");
         Assertions.assertEquals(250, goldPassenger.getBalance(), "The balance should remain unchanged after a failed sign-up attempt.");
     }
+
+    /**
+     * Tests that cancelling a sign-up releases the seat and refunds the discounted price the gold
+     * passenger paid, 90% of the cost.
+     */
+    @Test
+    void cancel_RefundsDiscountedPrice() {
+        Activity activity = Activity.builder()
+                .name("Test Name")
+                .capacity(1)
+                .cost(200.0)
+                .description("Test Description")
+                .build();
+        goldPassenger.signUpForActivity(activity);
+
+        Assertions.assertTrue(goldPassenger.cancel(activity));
+        Assertions.assertFalse(goldPassenger.cancel(activity), "A cancelled sign-up is refunded only once.");
+        Assertions.assertEquals(250, goldPassenger.getBalance(), "The refund should be 90% of 200.");
+        Assertions.assertEquals(1, activity.getAvailableSeats());
+    }
 }
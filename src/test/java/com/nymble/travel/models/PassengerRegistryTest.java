@@ -0,0 +1,120 @@
+package com.nymble.travel.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the {@link PassengerRegistry} class, covering ordered iteration across removals,
+ * the secondary indexes, renamed passengers, and duplicate rejection under concurrent inserts.
+ */
+class PassengerRegistryTest {
+
+    private static Passenger passenger(int number, String name) {
+        return StandardPassenger.builder().passengerNumber(number).name(name).balance(100).build();
+    }
+
+    /**
+     * Tests that insertion order is preserved after many removals trigger compaction,
+     * and that lookups still resolve to the right passengers afterwards.
+     */
+    @Test
+    void remove_ManyPassengers_OrderAndLookupPreserved() {
+        PassengerRegistry registry = new PassengerRegistry();
+        for (int i = 0; i < 1_000; i++) {
+            Assertions.assertTrue(registry.add(passenger(i * 31, "P" + i), Integer.MAX_VALUE));
+        }
+        for (int i = 0; i < 1_000; i += 3) {
+            Assertions.assertTrue(registry.remove(i * 31).isPresent());
+        }
+
+        List<Passenger> remaining = registry.asList();
+        Assertions.assertEquals(666, remaining.size());
+        int expected = 1;
+        for (Passenger passenger : remaining) {
+            Assertions.assertEquals(expected * 31, passenger.getPassengerNumber());
+            expected += expected % 3 == 2 ? 2 : 1;
+        }
+        Assertions.assertEquals("P500", registry.find(500 * 31).orElseThrow().getName());
+        Assertions.assertTrue(registry.find(999 * 31).isEmpty());
+    }
+
+    /**
+     * Tests the tier index and the name prefix index.
+     */
+    @Test
+    void secondaryIndexes() {
+        PassengerRegistry registry = new PassengerRegistry();
+        Passenger maya = passenger(1, "Maya");
+        Passenger mark = GoldPassenger.builder().passengerNumber(2).name("Mark").balance(10).build();
+        Passenger nina = PremiumPassenger.builder().passengerNumber(3).name("Nina").balance(10).build();
+        registry.add(maya, 10);
+        registry.add(mark, 10);
+        registry.add(nina, 10);
+
+        Assertions.assertEquals(List.of(mark, maya), registry.findByNamePrefix("Ma"));
+        Assertions.assertEquals(List.of(nina), registry.findByTier(PassengerTier.PREMIUM));
+
+        registry.remove(2);
+        Assertions.assertEquals(List.of(maya), registry.findByNamePrefix("Ma"));
+        Assertions.assertTrue(registry.findByTier(PassengerTier.GOLD).isEmpty());
+    }
+
+    /**
+     * Tests that a passenger renamed after registration stays indexed under the registered name
+     * and leaves no entry behind when removed.
+     */
+    @Test
+    void remove_RenamedPassenger_LeavesNoStaleNameEntry() {
+        PassengerRegistry registry = new PassengerRegistry();
+        Passenger maya = passenger(1, "Maya");
+        registry.add(maya, 10);
+        maya.setName("Nadia");
+
+        Assertions.assertEquals(List.of(maya), registry.findByNamePrefix("Maya"));
+        registry.remove(1);
+
+        Assertions.assertTrue(registry.findByNamePrefix("Maya").isEmpty());
+        Assertions.assertTrue(registry.findByNamePrefix("Nadia").isEmpty());
+    }
+
+    /**
+     * Tests that concurrent inserts of overlapping passenger numbers register each number exactly once
+     * and never exceed the capacity.
+     */
+    @Test
+    void add_Concurrent_RejectsDuplicatesAndRespectsCapacity() throws InterruptedException {
+        PassengerRegistry registry = new PassengerRegistry();
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 5_000; i++) {
+                    if (registry.add(passenger(i, "P" + i), 4_000)) {
+                        added.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assertions.assertEquals(4_000, added.get());
+        Assertions.assertEquals(4_000, registry.size());
+        Assertions.assertEquals(4_000, registry.asList().stream().mapToInt(Passenger::getPassengerNumber).distinct().count());
+    }
+}
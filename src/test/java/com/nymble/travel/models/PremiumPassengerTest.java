@@ -50,4 +50,24 @@ class PremiumPassengerTest {
         Assertions.assertEquals(premiumPassenger.getBalance(),250);
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that cancelling a premium passenger's sign-up frees the seat without refunding
+     * anything, since the activity was free for them.
+     */
+    @Test
+    void cancel_ReleasesSeatWithoutRefund() {
+        Activity activity = Activity.builder()
+                .name("Test Name")
+                .capacity(1)
+                .cost(200.0)
+                .description("Test Description")
+                .build();
+        premiumPassenger.signUpForActivity(activity);
+
+        Assertions.assertTrue(premiumPassenger.cancel(activity));
+        Assertions.assertEquals(250, premiumPassenger.getBalance());
+        Assertions.assertEquals(0, activity.getEnrolledPassengers());
+        Assertions.assertFalse(premiumPassenger.isEnrolledIn(activity));
+    }
+
+}
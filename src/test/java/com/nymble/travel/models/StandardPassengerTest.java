@@ -4,6 +4,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -77,4 +85,147 @@ class StandardPassengerTest {
         Assertions.assertFalse(result, "Sign up should fail due to insufficient balance.");
         Assertions.assertEquals(standardPassenger.getBalance(), 250, "The balance should remain unchanged after a failed sign-up attempt.");
     }
+
+    /**
+     * Tests concurrent sign-ups of a single passenger for many activities. The passenger can only
+     * afford some of them; the debited amount must match the successful sign-ups exactly, and every
+     * seat taken for a sign-up that could not be paid for must have been released again.
+     */
+    @Test
+    void signUpForActivity_Concurrent_BalanceAndSeatsConsistent() throws InterruptedException {
+        StandardPassenger passenger = StandardPassenger.builder()
+                .passengerNumber(42)
+                .name("Concurrent")
+                .balance(1_000)
+                .build();
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            activities.add(Activity.builder()
+                    .name("Activity " + i)
+                    .capacity(1)
+                    .cost(75.5)
+                    .description("Test Description")
+                    .build());
+        }
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (Activity activity : activities) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (passenger.signUpForActivity(activity)) {
+                    successes.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        int enrolled = activities.stream().mapToInt(Activity::getEnrolledPassengers).sum();
+        Assertions.assertEquals(13, successes.get(), "A balance of 1000 covers 13 activities at 75.5.");
+        Assertions.assertEquals(successes.get(), enrolled, "Unpaid seats must be released.");
+        Assertions.assertEquals(1_000 - 13 * 75.5, passenger.getBalance(), 1e-9);
+    }
+
+    /**
+     * Tests sign-ups and cancellations racing on one small activity. Every cancellation refunds
+     * the full cost exactly once, the activity is never oversold, and in the end the seats taken,
+     * the roster and the balances all agree.
+     */
+    @Test
+    void cancel_ConcurrentWithSignUps_SeatsAndRefundsConsistent() throws InterruptedException {
+        Activity activity = Activity.builder()
+                .name("Sunset Cruise")
+                .capacity(4)
+                .cost(25.0)
+                .description("Test Description")
+                .build();
+        List<StandardPassenger> passengers = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            passengers.add(StandardPassenger.builder().passengerNumber(i).name("Racer " + i).balance(100).build());
+        }
+        AtomicInteger oversold = new AtomicInteger();
+        AtomicInteger refunds = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (StandardPassenger passenger : passengers) {
+            for (int canceller = 0; canceller < 2; canceller++) { // Two threads per passenger, both cancelling
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 2_000; i++) {
+                        passenger.enroll(activity);
+                        if (activity.getEnrolledPassengers() > activity.getCapacity()) {
+                            oversold.incrementAndGet();
+                        }
+                        if (i % 3 != 2 && passenger.cancel(activity)) {
+                            refunds.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assertions.assertEquals(0, oversold.get(), "The activity must never be oversold.");
+        Assertions.assertTrue(refunds.get() > 0, "Some cancellations should have succeeded.");
+        int enrolled = 0;
+        for (StandardPassenger passenger : passengers) {
+            boolean seated = activity.isEnrolled(passenger.getPassengerNumber());
+            Assertions.assertEquals(seated, passenger.isEnrolledIn(activity));
+            Assertions.assertEquals(seated ? 75.0 : 100.0, passenger.getBalance(), 1e-9,
+                    "Each booking is charged once and each cancellation refunded once.");
+            enrolled += seated ? 1 : 0;
+        }
+        Assertions.assertEquals(enrolled, activity.getEnrolledPassengers());
+        Assertions.assertEquals(enrolled, activity.getEnrolledPassengerNumbers().length);
+    }
+
+    /**
+     * Tests that cancelling refunds what the sign-up was charged, not the current price, so a
+     * price change between booking and cancelling neither creates nor destroys money.
+     */
+    @Test
+    void cancel_AfterPriceChange_RefundsChargedAmount() {
+        Activity activity = Activity.builder().name("Safari").description("Game drive").cost(40.0).capacity(5).build();
+        StandardPassenger passenger = StandardPassenger.builder().passengerNumber(77).name("Refund").balance(100).build();
+
+        Assertions.assertTrue(passenger.signUpForActivity(activity));
+        activity.setCost(90.0);
+        Assertions.assertEquals(4_000, passenger.getChargeCents(activity));
+
+        Assertions.assertEquals(4_000, passenger.cancelAndRefund(activity));
+        Assertions.assertEquals(100.0, passenger.getBalance(), 1e-9);
+        Assertions.assertEquals(0, passenger.getChargeCents(activity));
+        Assertions.assertEquals(-1, passenger.cancelAndRefund(activity), "A cancelled sign-up is refunded only once.");
+    }
+
+    /**
+     * Tests that the name and passenger number set through the builder and setters are the ones
+     * the base class uses, so a renumbered passenger is looked up under its new number.
+     */
+    @Test
+    void setPassengerNumber_UsedByBaseClass() {
+        StandardPassenger passenger = StandardPassenger.builder().passengerNumber(1).name("Before").balance(10).build();
+        passenger.setPassengerNumber(2);
+        passenger.setName("After");
+
+        assertEquals(2, passenger.passengerNumber);
+        assertEquals("After", passenger.name);
+        TravelPackage travelPackage = TravelPackage.builder().name("Test Package").passengerCapacity(1).build();
+        assertTrue(travelPackage.addPassenger(passenger));
+        assertSame(passenger, travelPackage.findPassenger(2).orElseThrow());
+    }
 }
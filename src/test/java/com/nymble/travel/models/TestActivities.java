@@ -0,0 +1,22 @@
+package com.nymble.travel.models;
+
+/**
+ * Builds the activities the tests put into destinations and packages.
+ */
+public final class TestActivities {
+
+    private TestActivities() {
+    }
+
+    /**
+     * Builds an activity described by its name, with no seat taken.
+     *
+     * @param name The name of the activity.
+     * @param cost The cost of one seat.
+     * @param capacity The number of seats.
+     * @return the activity.
+     */
+    public static Activity activity(String name, double cost, int capacity) {
+        return Activity.builder().name(name).description(name).cost(cost).capacity(capacity).build();
+    }
+}
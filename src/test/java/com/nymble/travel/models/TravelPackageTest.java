@@ -41,9 +41,15 @@ class TravelPackageTest {
         travelPackage.addDestination(destination);
     }
 
+    private static Passenger mockPassenger(int passengerNumber) {
+        Passenger passenger = Mockito.mock(Passenger.class);
+        Mockito.when(passenger.getPassengerNumber()).thenReturn(passengerNumber);
+        return passenger;
+    }
+
     @Test
     void addPassenger_Success() {
-        Passenger passenger1 = Mockito.mock(Passenger.class);
+        Passenger passenger1 = mockPassenger(1);
         boolean result = travelPackage.addPassenger(passenger1);
         assertTrue(result, "Passenger should be added successfully");
         assertEquals(1, travelPackage.getPassengers().size(), "There should be one passenger in the list");
@@ -51,9 +57,9 @@ class TravelPackageTest {
 
     @Test
     void addPassenger_Failure() {
-        Passenger passenger1 = Mockito.mock(Passenger.class);
-        Passenger passenger2 = Mockito.mock(Passenger.class);
-        Passenger passenger3 = Mockito.mock(Passenger.class);
+        Passenger passenger1 = mockPassenger(1);
+        Passenger passenger2 = mockPassenger(2);
+        Passenger passenger3 = mockPassenger(3);
 
         travelPackage.addPassenger(passenger1); // 1st passenger
         travelPackage.addPassenger(passenger2); // 2nd passenger
@@ -63,6 +69,104 @@ class TravelPackageTest {
         assertEquals(2, travelPackage.getPassengers().size(), "There should be two passengers in the list");
     }
 
+    @Test
+    void addPassenger_Duplicate_Failure() {
+        boolean first = travelPackage.addPassenger(mockPassenger(7));
+        boolean duplicate = travelPackage.addPassenger(mockPassenger(7));
+        assertTrue(first, "First passenger should be added successfully");
+        assertFalse(duplicate, "A passenger with the same number should be rejected");
+        assertEquals(1, travelPackage.getPassengers().size(), "There should be one passenger in the list");
+    }
+
+    @Test
+    void findAndRemovePassenger_ByNumber() {
+        Passenger passenger1 = StandardPassenger.builder().name("Asha").passengerNumber(11).balance(200).build();
+        Passenger passenger2 = GoldPassenger.builder().name("Arjun").passengerNumber(12).balance(200).build();
+        travelPackage.addPassenger(passenger1);
+        travelPackage.addPassenger(passenger2);
+
+        assertEquals(passenger2, travelPackage.findPassenger(12).orElseThrow());
+        assertEquals(List.of(passenger2), travelPackage.getPassengersByTier(PassengerTier.GOLD));
+        assertEquals(List.of(passenger2, passenger1), travelPackage.findPassengersByNamePrefix("A"));
+
+        assertTrue(travelPackage.removePassenger(11), "Enrolled passenger should be removed");
+        assertFalse(travelPackage.containsPassenger(11));
+        assertEquals(List.of(passenger2), travelPackage.getPassengers());
+        assertTrue(travelPackage.addPassenger(passenger1), "Removal should free capacity");
+    }
+
+    @Test
+    void enrollments_QueryByPassengerAndActivity() {
+        travelPackage.setPassengerCapacity(3);
+        Passenger asha = StandardPassenger.builder().name("Asha").passengerNumber(11).balance(500).build();
+        Passenger arjun = GoldPassenger.builder().name("Arjun").passengerNumber(12).balance(500).build();
+        Passenger meera = StandardPassenger.builder().name("Meera").passengerNumber(13).balance(500).build();
+        travelPackage.addPassenger(asha);
+        travelPackage.addPassenger(arjun);
+        travelPackage.addPassenger(meera);
+        Activity redFort = travelPackage.getItinerary().get(0).getActivities().get(0);
+        Activity parliament = travelPackage.getItinerary().get(0).getActivities().get(1);
+        asha.signUpForActivity(redFort);
+        asha.signUpForActivity(parliament);
+        arjun.signUpForActivity(parliament);
+        meera.signUpForActivity(redFort);
+
+        assertEquals(List.of(redFort, parliament), travelPackage.getActivitiesOf(11));
+        assertEquals(List.of(parliament), travelPackage.getActivitiesOf(12));
+        assertEquals(List.of(asha, meera), travelPackage.getPassengersEnrolledIn(redFort));
+        assertEquals(List.of(asha), travelPackage.getPassengersEnrolledIn(redFort, parliament));
+        assertEquals(SignUpStatus.ALREADY_ENROLLED, asha.enroll(redFort));
+        assertEquals(2, redFort.getEnrolledPassengers(), "A repeated sign-up should not take another seat");
+    }
+
+    @Test
+    void cancelPassenger_ReleasesPlaceAndRefundsSignUps() {
+        Passenger asha = GoldPassenger.builder().name("Asha").passengerNumber(11).balance(500).build();
+        travelPackage.addPassenger(asha);
+        Activity redFort = travelPackage.getItinerary().get(0).getActivities().get(0);
+        Activity parliament = travelPackage.getItinerary().get(0).getActivities().get(1);
+        asha.signUpForActivity(redFort);
+        asha.signUpForActivity(parliament);
+        List<Passenger> removed = new ArrayList<>();
+        travelPackage.addListener(new CatalogListener() {
+            @Override
+            public void passengerRemoved(TravelPackage changed, Passenger passenger) {
+                removed.add(passenger);
+            }
+        });
+
+        assertEquals(asha, travelPackage.cancelPassenger(11).orElseThrow());
+        assertTrue(travelPackage.cancelPassenger(11).isEmpty());
+        assertEquals(500, asha.getBalance(), 1e-9, "Both sign-ups should be refunded at the gold rate");
+        assertEquals(0, redFort.getEnrolledPassengers());
+        assertEquals(0, parliament.getEnrolledPassengers());
+        assertFalse(travelPackage.containsPassenger(11));
+        assertEquals(List.of(asha), removed);
+    }
+
+    /**
+     * Tests that replacing the itinerary notifies listeners of the destinations it adds, and only
+     * of those.
+     */
+    @Test
+    void setItinerary_NotifiesAddedDestinations() {
+        Destination kept = Destination.builder().name("Kept").build();
+        Destination added = Destination.builder().name("Added").build();
+        travelPackage.addDestination(kept);
+        List<String> notified = new ArrayList<>();
+        travelPackage.addListener(new CatalogListener() {
+            @Override
+            public void destinationAdded(TravelPackage changed, Destination destination) {
+                notified.add(destination.getName());
+            }
+        });
+
+        travelPackage.setItinerary(List.of(kept, added));
+
+        assertEquals(List.of("Added"), notified);
+        assertEquals(List.of(kept, added), travelPackage.getItinerary());
+    }
+
     @Test
     void printItinerary_Output() {
         travelPackage.printItinerary();
@@ -0,0 +1,76 @@
+package com.nymble.travel.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the {@link Wallet} class, verifying fixed-point conversion, debits and credits,
+ * and that concurrent debits never overdraw the balance.
+ */
+class WalletTest {
+
+    /**
+     * Tests that decimal amounts are rounded to the nearest cent.
+     */
+    @Test
+    void of_RoundsToNearestCent() {
+        Wallet wallet = Wallet.of(10.005);
+        Assertions.assertEquals(1001, wallet.getBalanceCents());
+        Assertions.assertEquals(10.01, wallet.getBalance());
+    }
+
+    /**
+     * Tests that a debit larger than the balance is rejected and leaves the balance unchanged.
+     */
+    @Test
+    void tryDebit_InsufficientBalance_Unsuccessful() {
+        Wallet wallet = new Wallet(500);
+
+        Assertions.assertTrue(wallet.tryDebit(300));
+        Assertions.assertFalse(wallet.tryDebit(300), "Only 200 cents remain.");
+        Assertions.assertEquals(200, wallet.getBalanceCents());
+
+        wallet.credit(100);
+        Assertions.assertTrue(wallet.tryDebit(300));
+        Assertions.assertEquals(0, wallet.getBalanceCents());
+    }
+
+    /**
+     * Tests that concurrent debits are linearizable: the number of successful debits matches
+     * exactly what the balance can cover and the balance ends at zero.
+     */
+    @Test
+    void tryDebit_Concurrent_NeverOverdraws() throws InterruptedException {
+        Wallet wallet = new Wallet(10_000);
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (wallet.tryDebit(7)) {
+                        successes.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assertions.assertEquals(10_000 / 7, successes.get());
+        Assertions.assertEquals(10_000 % 7, wallet.getBalanceCents());
+    }
+}
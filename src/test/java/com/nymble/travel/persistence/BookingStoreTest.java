@@ -0,0 +1,313 @@
+package com.nymble.travel.persistence;
+
+import com.nymble.travel.importer.ImportFormat;
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.services.TravelService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Tests for {@link BookingStore}, covering recovery from the journal alone, from a snapshot plus
+ * the journal tail, from a journal with a torn last record, after concurrent sign-ups, and of
+ * imported packages.
+ */
+class BookingStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static void buildCatalog(TravelService service) {
+        service.createPackage("Island Hopping", 10);
+        service.addDestination("Island Hopping", "Bali");
+        service.addActivity("Island Hopping", "Bali", Activity.builder()
+                .name("Surfing").description("Catch some waves").cost(100.0).capacity(3).build());
+        service.addActivity("Island Hopping", "Bali", Activity.builder()
+                .name("Temple Tour").description(null).cost(40.0).capacity(5).build());
+        service.addPassenger("Island Hopping", PassengerTier.STANDARD, "Alice", 1, 500.0);
+        service.addPassenger("Island Hopping", PassengerTier.GOLD, "Bob", 2, 150.0);
+    }
+
+    private static Activity activity(TravelPackage travelPackage, int index) {
+        return travelPackage.getItinerary().get(0).getActivities().get(index);
+    }
+
+    /**
+     * Tests that packages, passengers, seats and balances survive a restart through the journal.
+     */
+    @Test
+    void recover_FromJournal_RestoresBookings() throws IOException {
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            buildCatalog(service);
+            Assertions.assertEquals(SignUpStatus.BOOKED, service.signUp("Island Hopping", 1, "Bali", "Surfing"));
+            Assertions.assertEquals(SignUpStatus.BOOKED, service.signUp("Island Hopping", 2, "Bali", "Surfing"));
+            Assertions.assertEquals(SignUpStatus.ALREADY_ENROLLED, service.signUp("Island Hopping", 2, "Bali", "Surfing"));
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelPackage recovered = new TravelService(store).getPackage("Island Hopping");
+
+            Assertions.assertEquals(10, recovered.getPassengerCapacity());
+            Assertions.assertEquals(2, activity(recovered, 0).getEnrolledPassengers());
+            Assertions.assertEquals(0, activity(recovered, 1).getEnrolledPassengers());
+            Assertions.assertNull(activity(recovered, 1).getDescription());
+            Assertions.assertEquals(400.0, recovered.findPassenger(1).orElseThrow().getBalance(), 0.001);
+            Passenger bob = recovered.findPassenger(2).orElseThrow();
+            Assertions.assertEquals(PassengerTier.GOLD, bob.getTier());
+            Assertions.assertEquals(60.0, bob.getBalance(), 0.001, "Gold passengers pay 90 for a 100 activity.");
+        }
+    }
+
+    /**
+     * Tests that packages imported in bulk survive a restart through the journal.
+     */
+    @Test
+    void recover_FromJournalAfterImport_RestoresImportedPackages() throws IOException {
+        Path catalog = Files.writeString(directory.resolve("catalog.csv"), """
+                package,Island Hopping,10
+                destination,Island Hopping,Bali
+                activity,Island Hopping,Bali,Surfing,Catch some waves,100,3
+                activity,Island Hopping,Bali,Temple Tour,,40,5
+                passenger,Island Hopping,STANDARD,Alice,1,500
+                """);
+        Path journals = directory.resolve("journals");
+        try (BookingStore store = BookingStore.open(journals, 1_000)) {
+            TravelService service = new TravelService(store);
+            Assertions.assertEquals(5, service.importCatalog(catalog, ImportFormat.CSV).rowCount());
+            Assertions.assertEquals(SignUpStatus.BOOKED, service.signUp("Island Hopping", 1, "Bali", "Surfing"));
+        }
+
+        try (BookingStore store = BookingStore.open(journals, 1_000)) {
+            TravelPackage recovered = new TravelService(store).getPackage("Island Hopping");
+
+            Assertions.assertEquals(2, recovered.getItinerary().get(0).getActivities().size());
+            Assertions.assertEquals(1, activity(recovered, 0).getEnrolledPassengers());
+            Assertions.assertEquals(400.0, recovered.findPassenger(1).orElseThrow().getBalance(), 0.001);
+        }
+    }
+
+    /**
+     * Tests that cancelled sign-ups and removed passengers stay cancelled and refunded after a
+     * restart through the journal.
+     */
+    @Test
+    void recover_FromJournalWithCancellations_RestoresRefunds() throws IOException {
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            buildCatalog(service);
+            service.signUp("Island Hopping", 1, "Bali", "Surfing");
+            service.signUp("Island Hopping", 1, "Bali", "Temple Tour");
+            service.signUp("Island Hopping", 2, "Bali", "Surfing");
+            service.cancelSignUp("Island Hopping", 1, "Bali", "Surfing");
+            service.cancelPassenger("Island Hopping", 2);
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelPackage recovered = new TravelService(store).getPackage("Island Hopping");
+
+            Assertions.assertEquals(0, activity(recovered, 0).getEnrolledPassengers());
+            Assertions.assertEquals(1, activity(recovered, 1).getEnrolledPassengers());
+            Assertions.assertEquals(460.0, recovered.findPassenger(1).orElseThrow().getBalance(), 0.001);
+            Assertions.assertTrue(recovered.findPassenger(2).isEmpty());
+        }
+    }
+
+    /**
+     * Tests that the sign-ups of a confirmed checkout survive a restart with the prices held.
+     */
+    @Test
+    void recover_FromJournalAfterCheckout_RestoresBookings() throws IOException {
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            buildCatalog(service);
+            Assertions.assertEquals(List.of(SignUpStatus.BOOKED, SignUpStatus.BOOKED), service.checkout("Island Hopping", 1,
+                    List.of(new TravelService.ActivityName("Bali", "Surfing"), new TravelService.ActivityName("Bali", "Temple Tour"))));
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            TravelPackage recovered = service.getPackage("Island Hopping");
+
+            Assertions.assertEquals(1, activity(recovered, 0).getEnrolledPassengers());
+            Assertions.assertEquals(1, activity(recovered, 1).getEnrolledPassengers());
+            Assertions.assertEquals(360.0, recovered.findPassenger(1).orElseThrow().getBalance(), 0.001);
+            Assertions.assertEquals(400.0, service.cancelSignUp("Island Hopping", 1, "Bali", "Temple Tour").getBalance(), 0.001);
+        }
+    }
+
+    /**
+     * Tests that closing the service fails the sign-ups still waiting, so a seat freed while the
+     * store closes is not booked and journaled behind it.
+     */
+    @Test
+    void close_WaitingSignUps_FailedAndNotJournaled() throws Exception {
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            buildCatalog(service);
+            service.addActivity("Island Hopping", "Bali", Activity.builder()
+                    .name("Diving").description(null).cost(50.0).capacity(1).build());
+            Assertions.assertEquals(SignUpStatus.BOOKED, service.signUp("Island Hopping", 1, "Bali", "Diving"));
+            CompletableFuture<SignUpStatus> waiting = service.waitlistSignUp("Island Hopping", 2, "Bali", "Diving");
+            Assertions.assertFalse(waiting.isDone());
+
+            service.close();
+            service.cancelSignUp("Island Hopping", 1, "Bali", "Diving");
+
+            Assertions.assertTrue(waiting.isCompletedExceptionally());
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelPackage recovered = new TravelService(store).getPackage("Island Hopping");
+
+            Assertions.assertEquals(0, activity(recovered, 2).getEnrolledPassengers());
+            Assertions.assertEquals(150.0, recovered.findPassenger(2).orElseThrow().getBalance(), 0.001);
+        }
+    }
+
+    /**
+     * Tests that recovery loads the snapshot and replays only the journal written after it, with
+     * the charge of every sign-up.
+     */
+    @Test
+    void recover_FromSnapshotAndJournalTail_RestoresBookings() throws IOException {
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            buildCatalog(service);
+            service.signUp("Island Hopping", 1, "Bali", "Surfing");
+            store.snapshot();
+            service.signUp("Island Hopping", 1, "Bali", "Temple Tour");
+            Assertions.assertEquals(1, store.getJournalRecordCount(), "Only the sign-up after the snapshot is journaled.");
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(List.of("journal-1.log", "snapshot-1.bin"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelPackage recovered = new TravelService(store).getPackage("Island Hopping");
+
+            Assertions.assertEquals(1, activity(recovered, 0).getEnrolledPassengers());
+            Assertions.assertEquals(1, activity(recovered, 1).getEnrolledPassengers());
+            Assertions.assertArrayEquals(new int[] {1}, activity(recovered, 0).getEnrolledPassengerNumbers());
+            Passenger alice = recovered.findPassenger(1).orElseThrow();
+            Assertions.assertEquals(360.0, alice.getBalance(), 0.001);
+            Assertions.assertEquals(10_000, alice.getChargeCents(activity(recovered, 0)), "Charge kept in the snapshot");
+            Assertions.assertEquals(4_000, alice.getChargeCents(activity(recovered, 1)), "Charge replayed from the journal");
+        }
+    }
+
+    /**
+     * Tests that an imported package survives a restart with its balances, the charges of its
+     * sign-ups and the seats it holds without a passenger.
+     */
+    @Test
+    void recover_ImportedPackage_RestoresChargesAndHeldSeats() throws IOException {
+        Activity surfing = Activity.builder().name("Surfing").description("Catch some waves").cost(100.0).capacity(3).build();
+        TravelPackage imported = TravelPackage.builder().name("Imported").passengerCapacity(5).build();
+        imported.addDestination(Destination.builder().name("Bali").activities(List.of(surfing)).build());
+        Passenger alice = PassengerTier.STANDARD.newPassenger("Alice", 1, 500.0);
+        imported.addPassenger(alice);
+        Assertions.assertTrue(alice.signUpForActivity(surfing));
+        surfing.reserveUpTo(1); // Held by a bulk booking
+        surfing.setCost(150.0);
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            new TravelService(store).importPackage(imported);
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            Activity recovered = activity(service.getPackage("Imported"), 0);
+            Passenger recoveredAlice = service.getPackage("Imported").findPassenger(1).orElseThrow();
+
+            Assertions.assertEquals(2, recovered.getEnrolledPassengers());
+            Assertions.assertArrayEquals(new int[] {1}, recovered.getEnrolledPassengerNumbers());
+            Assertions.assertEquals(400.0, recoveredAlice.getBalance(), 0.001);
+            Assertions.assertEquals(10_000, recoveredAlice.getChargeCents(recovered));
+            service.cancelSignUp("Imported", 1, "Bali", "Surfing");
+            Assertions.assertEquals(500.0, recoveredAlice.getBalance(), 0.001);
+        }
+    }
+
+    /**
+     * Tests that a record torn by a crash is discarded and later records are appended after the
+     * last intact one.
+     */
+    @Test
+    void recover_TornLastRecord_DiscardsIt() throws IOException {
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            buildCatalog(new TravelService(store));
+        }
+        Path journal = directory.resolve("journal-0.log");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {40, 0, 0, 0, 1, 2, 3, 4, 5})); // Header of a record never completed
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            TravelService service = new TravelService(store);
+            Assertions.assertEquals(2, service.getPackage("Island Hopping").getPassengers().size());
+            Assertions.assertEquals(SignUpStatus.BOOKED, service.signUp("Island Hopping", 1, "Bali", "Surfing"));
+        }
+        try (BookingStore store = BookingStore.open(directory, 1_000)) {
+            Assertions.assertEquals(1, activity(new TravelService(store).getPackage("Island Hopping"), 0).getEnrolledPassengers());
+        }
+    }
+
+    /**
+     * Tests that concurrent sign-ups, spread over automatic snapshots, are all recovered.
+     */
+    @Test
+    void recover_ConcurrentSignUpsWithSnapshots_RestoresEveryBooking() throws Exception {
+        int passengers = 200;
+        try (BookingStore store = BookingStore.open(directory, 50)) {
+            TravelService service = new TravelService(store);
+            service.createPackage("Festival", passengers);
+            service.addDestination("Festival", "Main Stage");
+            service.addActivity("Festival", "Main Stage", Activity.builder()
+                    .name("Front Row").description("Closest to the stage").cost(10.0).capacity(150).build());
+            for (int i = 0; i < passengers; i++) {
+                service.addPassenger("Festival", PassengerTier.STANDARD, "Fan " + i, i, 25.0);
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<SignUpStatus>> results = new ArrayList<>();
+                for (int i = 0; i < passengers; i++) {
+                    int passengerNumber = i;
+                    results.add(executor.submit(() -> service.signUp("Festival", passengerNumber, "Main Stage", "Front Row")));
+                }
+                for (Future<SignUpStatus> result : results) {
+                    result.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        try (BookingStore store = BookingStore.open(directory, 50)) {
+            TravelPackage recovered = new TravelService(store).getPackage("Festival");
+
+            Assertions.assertEquals(150, activity(recovered, 0).getEnrolledPassengers());
+            double totalBalance = recovered.getPassengers().stream().mapToDouble(Passenger::getBalance).sum();
+            Assertions.assertEquals(passengers * 25.0 - 150 * 10.0, totalBalance, 0.001);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.nymble.travel.planning;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.planning.ItineraryPlan.PlannedActivity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.nymble.travel.models.TestActivities.activity;
+
+/**
+ * Tests for {@link ItineraryPlanner}, checking plans against exhaustive search and verifying tier
+ * prices, free seats, enrollments and destination limits are respected.
+ */
+class ItineraryPlannerTest {
+
+    private static TravelPackage travelPackage(Destination... destinations) {
+        return TravelPackage.builder().name("Planner Package").passengerCapacity(100).itinerary(List.of(destinations)).build();
+    }
+
+    private static List<String> names(ItineraryPlan plan) {
+        return plan.activities().stream().map(planned -> planned.activity().getName()).toList();
+    }
+
+    /**
+     * Tests that the planner finds the best combination where picking greedily falls short.
+     */
+    @Test
+    void plan_BeatsGreedyChoice() {
+        TravelPackage travelPackage = travelPackage(Destination.builder().name("Goa").activities(List.of(
+                activity("Parasailing", 60, 5), activity("Snorkelling", 50, 5), activity("Kayaking", 50, 5))).build());
+        Passenger passenger = PassengerTier.STANDARD.newPassenger("Asha", 1, 100);
+
+        ItineraryPlan plan = ItineraryPlanner.builder().build().plan(travelPackage, passenger);
+
+        Assertions.assertEquals(List.of("Snorkelling", "Kayaking"), names(plan));
+        Assertions.assertEquals(10_000, plan.totalCents());
+        Assertions.assertTrue(plan.optimal());
+        Assertions.assertEquals(100, passenger.getBalance()); // Planning books nothing
+    }
+
+    /**
+     * Tests that tier prices stretch the budget and that full and already booked activities are left out.
+     */
+    @Test
+    void plan_UsesTierPricesAndFreeSeats() {
+        Activity full = activity("Scuba Diving", 10, 1);
+        Activity booked = activity("Beach Yoga", 10, 5);
+        TravelPackage travelPackage = travelPackage(Destination.builder().name("Goa").activities(List.of(
+                activity("Snorkelling", 50, 5), activity("Kayaking", 50, 5), full, booked)).build());
+        full.tryReserveSeats(1);
+        Passenger gold = PassengerTier.GOLD.newPassenger("Ravi", 2, 100);
+        Assertions.assertTrue(gold.signUpForActivity(booked));
+
+        ItineraryPlan plan = ItineraryPlanner.builder().build().plan(travelPackage, gold);
+
+        Assertions.assertEquals(List.of("Snorkelling", "Kayaking"), names(plan));
+        Assertions.assertEquals(9_000, plan.totalCents());
+        Assertions.assertEquals(10_000, plan.value());
+    }
+
+    /**
+     * Tests that no more than the allowed number of activities is chosen at any destination.
+     */
+    @Test
+    void plan_LimitPerDestination() {
+        TravelPackage travelPackage = travelPackage(
+                Destination.builder().name("Goa").activities(List.of(
+                        activity("Snorkelling", 30, 5), activity("Kayaking", 20, 5), activity("Parasailing", 40, 5))).build(),
+                Destination.builder().name("Delhi").activities(List.of(
+                        activity("Red Fort Visit", 10, 5), activity("Food Walk", 15, 5))).build());
+        Passenger passenger = PassengerTier.STANDARD.newPassenger("Asha", 1, 1_000);
+
+        ItineraryPlan plan = ItineraryPlanner.builder().maxPerDestination(1).build().plan(travelPackage, passenger);
+
+        Assertions.assertEquals(List.of("Parasailing", "Food Walk"), names(plan));
+        Assertions.assertTrue(plan.optimal());
+    }
+
+    /**
+     * Tests that plans for many passengers, computed in parallel, match an exhaustive search.
+     */
+    @Test
+    void planAll_MatchesExhaustiveSearch() {
+        Random random = new Random(7);
+        List<Destination> destinations = new ArrayList<>();
+        for (int d = 0; d < 3; d++) {
+            List<Activity> activities = new ArrayList<>();
+            for (int a = 0; a < 5; a++) {
+                activities.add(activity("Activity " + d + "-" + a, 5 + random.nextInt(9_500) / 100.0, 1 + random.nextInt(3)));
+            }
+            destinations.add(Destination.builder().name("Destination " + d).activities(activities).build());
+        }
+        TravelPackage travelPackage = travelPackage(destinations.toArray(new Destination[0]));
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            passengers.add(PassengerTier.values()[i % 2].newPassenger("Passenger " + i, i, 50 + random.nextInt(250)));
+        }
+
+        for (Integer limit : new Integer[] {null, 2}) {
+            ItineraryPlanner planner = ItineraryPlanner.builder().maxPerDestination(limit).build();
+            List<ItineraryPlan> plans = planner.planAll(travelPackage, passengers);
+            for (int i = 0; i < passengers.size(); i++) {
+                ItineraryPlan plan = plans.get(i);
+                Assertions.assertEquals(i, plan.passengerNumber());
+                Assertions.assertTrue(plan.optimal());
+                Assertions.assertTrue(plan.totalCents() <= passengers.get(i).getWallet().getBalanceCents());
+                Assertions.assertEquals(exhaustive(travelPackage, passengers.get(i), limit == null ? 15 : limit),
+                        plan.value());
+            }
+        }
+    }
+
+    private static long exhaustive(TravelPackage travelPackage, Passenger passenger, int limit) {
+        List<Activity> activities = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int d = 0; d < travelPackage.getItinerary().size(); d++) {
+            for (Activity activity : travelPackage.getItinerary().get(d).getActivities()) {
+                activities.add(activity);
+                owners.add(d);
+            }
+        }
+        long best = 0;
+        for (int subset = 0; subset < 1 << activities.size(); subset++) {
+            long price = 0;
+            long value = 0;
+            int[] perDestination = new int[travelPackage.getItinerary().size()];
+            boolean valid = true;
+            for (int i = 0; i < activities.size() && valid; i++) {
+                if ((subset & 1 << i) != 0) {
+                    price += passenger.quoteInCents(activities.get(i));
+                    value += Math.round(activities.get(i).getCost() * 100);
+                    valid = ++perDestination[owners.get(i)] <= limit;
+                }
+            }
+            if (valid && price <= passenger.getWallet().getBalanceCents()) {
+                best = Math.max(best, value);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,68 @@
+package com.nymble.travel.pricing;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.PassengerTier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Tests for {@link PricingEngine}, covering the standard tier rules, the global multiplier,
+ * per-activity overrides and incremental repricing when an activity's cost changes.
+ */
+class PricingEngineTest {
+    private PricingEngine engine;
+    private Activity activity;
+
+    @BeforeEach
+    void setUp() {
+        engine = PricingEngine.standard();
+        activity = Activity.builder().name("Snorkelling").description("Reef").cost(200.0).capacity(10).build();
+    }
+
+    @Test
+    void quote_StandardTierRules() {
+        Assertions.assertEquals(20_000, engine.quote(PassengerTier.STANDARD, activity));
+        Assertions.assertEquals(18_000, engine.quote(PassengerTier.GOLD, activity));
+        Assertions.assertEquals(0, engine.quote(PassengerTier.PREMIUM, activity));
+    }
+
+    @Test
+    void quote_CostChange_RepricesActivity() {
+        engine.quote(PassengerTier.GOLD, activity); // Registers the activity in the table
+
+        activity.setCost(270.0);
+
+        Assertions.assertEquals(24_300, engine.quote(PassengerTier.GOLD, activity));
+        Assertions.assertEquals(27_000, engine.quote(PassengerTier.STANDARD, activity));
+    }
+
+    @Test
+    void quote_MultiplierAndOverride() {
+        engine.quote(PassengerTier.STANDARD, activity);
+
+        engine.setMultiplier(12_500); // Peak season, 25% surcharge
+        Assertions.assertEquals(25_000, engine.quote(PassengerTier.STANDARD, activity));
+        Assertions.assertEquals(22_500, engine.quote(PassengerTier.GOLD, activity));
+
+        engine.setOverride(activity, PassengerTier.GOLD, 9_999);
+        Assertions.assertEquals(9_999, engine.quote(PassengerTier.GOLD, activity));
+        Assertions.assertEquals(25_000, engine.quote(PassengerTier.STANDARD, activity), "Overrides apply to one tier only.");
+
+        engine.clearOverride(activity, PassengerTier.GOLD);
+        Assertions.assertEquals(22_500, engine.quote(PassengerTier.GOLD, activity));
+    }
+
+    @Test
+    void setRules_CustomRuleChain() {
+        engine.setRules(List.of(
+                PricingRule.tierFactor(5_000, 8_000, 10_000),
+                (tier, a, price) -> Math.max(0, price - 1_000))); // Flat voucher after the tier discount
+
+        Assertions.assertEquals(9_000, engine.quote(PassengerTier.PREMIUM, activity));
+        Assertions.assertEquals(15_000, engine.quote(PassengerTier.GOLD, activity));
+        Assertions.assertEquals(19_000, engine.evaluate(PassengerTier.STANDARD, activity));
+    }
+}
@@ -0,0 +1,116 @@
+package com.nymble.travel.render;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tests for {@link TravelRenderer}, covering the JSON and CSV formats, escaping, and that
+ * character and byte targets receive identical output, including for manifests larger than
+ * the renderer's internal buffer, and the per-thread renderers.
+ */
+class TravelRendererTest {
+    private static final String NL = System.lineSeparator();
+
+    private TravelPackage travelPackage;
+    private Activity snorkelling;
+
+    @BeforeEach
+    void setUp() {
+        snorkelling = Activity.builder().name("Snorkelling").description("Reef, \"coral\" & fish").cost(80.0).capacity(2).build();
+        Destination goa = Destination.builder().name("Goa").build();
+        goa.addActivity(snorkelling);
+        travelPackage = TravelPackage.builder().name("Goa Getaway").passengerCapacity(100_000).build();
+        travelPackage.addDestination(goa);
+        travelPackage.addPassenger(PassengerTier.GOLD.newPassenger("Asha", 1, 100));
+    }
+
+    @Test
+    void renderItinerary_Json() throws IOException {
+        StringBuilder out = new StringBuilder();
+        new TravelRenderer(RenderFormat.JSON).renderItinerary(travelPackage, out);
+
+        Assertions.assertEquals("{\"name\":\"Goa Getaway\",\"destinations\":[{\"name\":\"Goa\",\"activities\":["
+                + "{\"name\":\"Snorkelling\",\"description\":\"Reef, \\\"coral\\\" & fish\",\"cost\":80.0,"
+                + "\"capacity\":2,\"availableSeats\":2}]}]}" + NL, out.toString());
+    }
+
+    @Test
+    void renderItinerary_Csv() throws IOException {
+        StringBuilder out = new StringBuilder();
+        new TravelRenderer(RenderFormat.CSV).renderItinerary(travelPackage, out);
+
+        Assertions.assertEquals("destination,activity,cost,capacity,description" + NL
+                + "Goa,Snorkelling,80.0,2,\"Reef, \"\"coral\"\" & fish\"" + NL, out.toString());
+    }
+
+    @Test
+    void renderPassengerList_JsonAndCsv() throws IOException {
+        StringBuilder json = new StringBuilder();
+        new TravelRenderer(RenderFormat.JSON).renderPassengerList(travelPackage, json);
+        StringBuilder csv = new StringBuilder();
+        new TravelRenderer(RenderFormat.CSV).renderPassengerList(travelPackage, csv);
+
+        Assertions.assertEquals("{\"name\":\"Goa Getaway\",\"passengerCapacity\":100000,\"enrolled\":1,"
+                + "\"passengers\":[{\"name\":\"Asha\",\"passengerNumber\":1,\"tier\":\"GOLD\"}]}" + NL, json.toString());
+        Assertions.assertEquals("name,passengerNumber,tier" + NL + "Asha,1,GOLD" + NL, csv.toString());
+    }
+
+    @Test
+    void renderAvailableActivities_SkipsFullActivities() throws IOException {
+        Activity full = Activity.builder().name("Full").description("No seats").cost(10.0).capacity(1).build();
+        full.tryReserveSeats(1);
+        StringBuilder out = new StringBuilder();
+        new TravelRenderer(RenderFormat.TEXT).renderAvailableActivities(List.of(full, snorkelling), out);
+
+        Assertions.assertEquals("Activity: Snorkelling" + NL + "    Spaces Available: 2" + NL + "    Cost: 80.0" + NL
+                + "    Description: Reef, \"coral\" & fish" + NL, out.toString());
+    }
+
+    @Test
+    void renderPassengerList_LargeManifest_ByteAndCharTargetsMatch() throws IOException {
+        for (int i = 2; i < 50_000; i++) {
+            travelPackage.addPassenger(PassengerTier.STANDARD.newPassenger("Pässenger " + i, i, 0));
+        }
+        TravelRenderer renderer = new TravelRenderer(RenderFormat.CSV);
+        StringBuilder chars = new StringBuilder();
+        renderer.renderPassengerList(travelPackage, chars);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        renderer.renderPassengerList(travelPackage, stream);
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        renderer.renderPassengerList(travelPackage, Channels.newChannel(channel));
+
+        String expected = chars.toString();
+        Assertions.assertTrue(expected.endsWith("Pässenger 49999,49999,STANDARD" + NL));
+        Assertions.assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(expected, channel.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that each thread reuses one renderer per format and never shares it with another thread.
+     */
+    @Test
+    void forCurrentThread_ReusedPerThreadAndFormat() throws IOException {
+        TravelRenderer text = TravelRenderer.forCurrentThread(RenderFormat.TEXT);
+
+        Assertions.assertSame(text, TravelRenderer.forCurrentThread(RenderFormat.TEXT));
+        Assertions.assertNotSame(text, TravelRenderer.forCurrentThread(RenderFormat.CSV));
+        Assertions.assertNotSame(text, CompletableFuture.supplyAsync(() -> TravelRenderer.forCurrentThread(RenderFormat.TEXT)).join());
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        text.renderPassengerList(travelPackage, first);
+        text.renderPassengerList(travelPackage, second);
+        Assertions.assertEquals(first.toString(), second.toString());
+    }
+}
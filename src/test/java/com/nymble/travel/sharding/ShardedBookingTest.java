@@ -0,0 +1,285 @@
+package com.nymble.travel.sharding;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.models.StandardPassenger;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.sharding.ShardedBooking.ActivityRef;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Tests for {@link ShardedBooking} on a local {@link ShardCluster}, covering routing to the
+ * owning shard, all-or-nothing sign-ups across shards and the recovery from failed commits.
+ */
+class ShardedBookingTest {
+    private final ShardCluster cluster = new ShardCluster(4);
+
+    @AfterEach
+    void tearDown() {
+        cluster.close();
+    }
+
+    private static TravelPackage travelPackage(int capacity) {
+        List<Destination> itinerary = new ArrayList<>();
+        for (String name : List.of("Bali", "Lisbon")) {
+            List<Activity> activities = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                activities.add(Activity.builder()
+                        .name("Activity " + i)
+                        .description("Test Description")
+                        .cost(10)
+                        .capacity(capacity)
+                        .build());
+            }
+            itinerary.add(Destination.builder().name(name).activities(activities).build());
+        }
+        return TravelPackage.builder().name("Sharded").passengerCapacity(1000).itinerary(itinerary).build();
+    }
+
+    private static Passenger passenger(int number, double balance) {
+        return StandardPassenger.builder().passengerNumber(number).name("Passenger " + number).balance(balance).build();
+    }
+
+    private static List<ActivityRef> acrossShards(ShardedBooking booking) {
+        ActivityRef first = new ActivityRef("Bali", "Activity 0");
+        for (int i = 1; i < 8; i++) {
+            if (booking.shardOf("Lisbon", "Activity " + i) != booking.shardOf(first.destination(), first.activity())) {
+                return List.of(first, new ActivityRef("Lisbon", "Activity " + i));
+            }
+        }
+        throw new AssertionError("All activities on one shard");
+    }
+
+    /**
+     * Tests that activities are spread over the nodes and each is owned by exactly one of them.
+     */
+    @Test
+    void distribute_ByActivity_EachActivityOwnedOnce() {
+        cluster.distribute(travelPackage(5), Partitioning.BY_ACTIVITY);
+
+        int owned = 0;
+        int busyNodes = 0;
+        for (int shard = 0; shard < cluster.getNodeCount(); shard++) {
+            owned += cluster.getNode(shard).getActivityCount();
+            busyNodes += cluster.getNode(shard).getActivityCount() > 0 ? 1 : 0;
+        }
+        Assertions.assertEquals(16, owned);
+        Assertions.assertTrue(busyNodes > 1);
+    }
+
+    /**
+     * Tests that a single sign-up is seated by the owner and charged once, up to the capacity.
+     */
+    @Test
+    void signUp_RoutedToOwner_ChargesAndRespectsCapacity() {
+        ShardedBooking booking = cluster.distribute(travelPackage(1), Partitioning.BY_DESTINATION);
+        Passenger alice = passenger(1, 100);
+        Passenger bob = passenger(2, 100);
+
+        Assertions.assertEquals(SignUpStatus.BOOKED, booking.signUp(alice, "Bali", "Activity 3").join());
+        Assertions.assertEquals(SignUpStatus.ALREADY_ENROLLED, booking.signUp(alice, "Bali", "Activity 3").join());
+        Assertions.assertEquals(SignUpStatus.NO_CAPACITY, booking.signUp(bob, "Bali", "Activity 3").join());
+
+        Assertions.assertEquals(90, alice.getBalance());
+        Assertions.assertEquals(100, bob.getBalance());
+        Assertions.assertEquals(0, booking.availableSeats("Bali", "Activity 3").join());
+        Assertions.assertTrue(cluster.getNode(booking.shardOf("Bali", "Activity 3"))
+                .isEnrolled(1, ShardedBooking.key("Bali", "Activity 3")));
+
+        Assertions.assertTrue(booking.cancel(alice, "Bali", "Activity 3").join());
+        Assertions.assertEquals(100, alice.getBalance());
+        Assertions.assertEquals(1, booking.availableSeats("Bali", "Activity 3").join());
+    }
+
+    /**
+     * Tests that a cancellation refunds what the sign-up was charged after the price changed,
+     * including for sign-ups made before the package was distributed.
+     */
+    @Test
+    void cancel_AfterPriceChange_RefundsChargedAmount() {
+        TravelPackage travelPackage = travelPackage(5);
+        Activity earlier = travelPackage.getItinerary().get(0).getActivities().get(1);
+        Passenger bob = passenger(2, 100);
+        travelPackage.addPassenger(bob);
+        Assertions.assertTrue(bob.signUpForActivity(earlier));
+        ShardedBooking booking = cluster.distribute(travelPackage, Partitioning.BY_ACTIVITY);
+        Passenger alice = passenger(1, 100);
+        Assertions.assertEquals(SignUpStatus.BOOKED, booking.signUp(alice, "Bali", "Activity 3").join());
+
+        travelPackage.getItinerary().get(0).getActivities().get(3).setCost(50);
+        earlier.setCost(50);
+
+        Assertions.assertTrue(booking.cancel(alice, "Bali", "Activity 3").join());
+        Assertions.assertEquals(100, alice.getBalance());
+        Assertions.assertFalse(booking.cancel(alice, "Bali", "Activity 3").join());
+        Assertions.assertEquals(100, alice.getBalance());
+        Assertions.assertTrue(booking.cancel(bob, "Bali", "Activity 1").join());
+        Assertions.assertEquals(100, bob.getBalance());
+    }
+
+    /**
+     * Tests that a sign-up across shards either holds every seat or releases all of them.
+     */
+    @Test
+    void signUpAll_AcrossShards_AllOrNothing() {
+        ShardedBooking booking = cluster.distribute(travelPackage(1), Partitioning.BY_ACTIVITY);
+        List<ActivityRef> refs = acrossShards(booking);
+        ActivityRef second = refs.get(1);
+        Passenger alice = passenger(1, 100);
+        Passenger bob = passenger(2, 100);
+        Assertions.assertEquals(SignUpStatus.BOOKED, booking.signUp(bob, second.destination(), second.activity()).join());
+
+        List<SignUpStatus> statuses = booking.signUpAll(alice, refs).join();
+
+        Assertions.assertEquals(List.of(SignUpStatus.ABORTED, SignUpStatus.NO_CAPACITY), statuses);
+        Assertions.assertEquals(100, alice.getBalance());
+        Assertions.assertEquals(1, booking.availableSeats(refs.get(0).destination(), refs.get(0).activity()).join());
+
+        Assertions.assertTrue(booking.cancel(bob, second.destination(), second.activity()).join());
+        Assertions.assertEquals(List.of(SignUpStatus.BOOKED, SignUpStatus.BOOKED), booking.signUpAll(alice, refs).join());
+        Assertions.assertEquals(80, alice.getBalance());
+        for (int shard = 0; shard < cluster.getNodeCount(); shard++) {
+            Assertions.assertEquals(0, cluster.getNode(shard).getHoldCount());
+        }
+    }
+
+    /**
+     * Tests that a passenger who cannot pay the total is not seated on any shard.
+     */
+    @Test
+    void signUpAll_CannotPayTotal_NothingHeld() {
+        ShardedBooking booking = cluster.distribute(travelPackage(1), Partitioning.BY_ACTIVITY);
+        List<ActivityRef> refs = acrossShards(booking);
+        Passenger poor = passenger(1, 15);
+
+        Assertions.assertEquals(List.of(SignUpStatus.INSUFFICIENT_BALANCE, SignUpStatus.INSUFFICIENT_BALANCE),
+                booking.signUpAll(poor, refs).join());
+        for (ActivityRef ref : refs) {
+            Assertions.assertEquals(1, booking.availableSeats(ref.destination(), ref.activity()).join());
+        }
+        Assertions.assertEquals(15, poor.getBalance());
+    }
+
+    /**
+     * Tests that concurrent sign-ups across shards never sell more seats than an activity has.
+     */
+    @Test
+    void signUpAll_Concurrent_NeverOverbooks() {
+        ShardedBooking booking = cluster.distribute(travelPackage(50), Partitioning.BY_ACTIVITY);
+        List<ActivityRef> refs = acrossShards(booking);
+        List<Passenger> passengers = new ArrayList<>();
+        List<CompletableFuture<List<SignUpStatus>>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            passengers.add(passenger(i, 100));
+            results.add(booking.signUpAll(passengers.get(i), refs));
+        }
+
+        long booked = results.stream().map(CompletableFuture::join)
+                .filter(statuses -> statuses.get(0) == SignUpStatus.BOOKED)
+                .count();
+
+        Assertions.assertEquals(50, booked);
+        Assertions.assertEquals(50 * 80 + 150 * 100, passengers.stream().mapToDouble(Passenger::getBalance).sum());
+        for (ActivityRef ref : refs) {
+            Assertions.assertEquals(0, booking.availableSeats(ref.destination(), ref.activity()).join());
+        }
+    }
+
+    /**
+     * Tests that a node rejects a second prepare of the same transaction and keeps the first hold.
+     */
+    @Test
+    void prepare_DuplicateTransaction_Rejected() {
+        ShardedBooking booking = cluster.distribute(travelPackage(2), Partitioning.BY_DESTINATION);
+        ShardNode node = cluster.getNode(booking.shardOf("Bali", "Activity 0"));
+        String first = ShardedBooking.key("Bali", "Activity 0");
+        String second = ShardedBooking.key("Bali", "Activity 1");
+        UUID transactionId = UUID.randomUUID();
+
+        Assertions.assertEquals(List.of(SignUpStatus.BOOKED), node.prepare(transactionId, 1, List.of(first), List.of(1_000L)));
+        Assertions.assertThrows(IllegalStateException.class, () -> node.prepare(transactionId, 2, List.of(second), List.of(1_000L)));
+
+        Assertions.assertEquals(2, node.getAvailableSeats(second));
+        Assertions.assertFalse(node.isEnrolled(2, second));
+        Assertions.assertTrue(node.commit(transactionId));
+        Assertions.assertTrue(node.isEnrolled(1, first));
+    }
+
+    /**
+     * Tests that a sign-up whose commit fails on one shard is refunded and releases its seats on
+     * every shard, both where the hold was confirmed and where it was not.
+     */
+    @Test
+    void signUpAll_CommitFails_RefundedAndReleased() {
+        TravelPackage travelPackage = travelPackage(1);
+        ShardedBooking healthy = cluster.distribute(travelPackage, Partitioning.BY_ACTIVITY);
+        List<ActivityRef> refs = acrossShards(healthy);
+        int failing = healthy.shardOf(refs.get(1).destination(), refs.get(1).activity());
+        List<ShardClient> clients = new ArrayList<>();
+        for (int shard = 0; shard < cluster.getNodeCount(); shard++) {
+            ShardClient client = new LocalShardClient(cluster.getNode(shard), Runnable::run);
+            clients.add(shard == failing ? new LostCommits(client) : client);
+        }
+        ShardedBooking booking = new ShardedBooking(travelPackage, clients, Partitioning.BY_ACTIVITY);
+        Passenger alice = passenger(1, 100);
+
+        Assertions.assertThrows(CompletionException.class, () -> booking.signUpAll(alice, refs).join());
+
+        Assertions.assertEquals(100, alice.getBalance());
+        for (ActivityRef ref : refs) {
+            Assertions.assertEquals(1, healthy.availableSeats(ref.destination(), ref.activity()).join());
+            Assertions.assertFalse(cluster.getNode(healthy.shardOf(ref.destination(), ref.activity()))
+                    .isEnrolled(1, ShardedBooking.key(ref.destination(), ref.activity())));
+        }
+        for (int shard = 0; shard < cluster.getNodeCount(); shard++) {
+            Assertions.assertEquals(0, cluster.getNode(shard).getHoldCount());
+        }
+    }
+
+    /**
+     * A client whose commit messages never reach the node, leaving the hold in place.
+     */
+    private record LostCommits(ShardClient delegate) implements ShardClient {
+
+        @Override
+        public CompletableFuture<SignUpStatus> book(int passengerNumber, String key, long priceCents) {
+            return delegate.book(passengerNumber, key, priceCents);
+        }
+
+        @Override
+        public CompletableFuture<List<SignUpStatus>> prepare(UUID transactionId, int passengerNumber, List<String> keys,
+                                                             List<Long> pricesCents) {
+            return delegate.prepare(transactionId, passengerNumber, keys, pricesCents);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> commit(UUID transactionId) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Shard unreachable"));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> abort(UUID transactionId) {
+            return delegate.abort(transactionId);
+        }
+
+        @Override
+        public CompletableFuture<Long> cancel(int passengerNumber, String key) {
+            return delegate.cancel(passengerNumber, key);
+        }
+
+        @Override
+        public CompletableFuture<Integer> availableSeats(String key) {
+            return delegate.availableSeats(key);
+        }
+    }
+}
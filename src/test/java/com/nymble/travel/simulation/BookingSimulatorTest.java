@@ -0,0 +1,94 @@
+package com.nymble.travel.simulation;
+
+import com.nymble.travel.models.SignUpStatus;
+import com.nymble.travel.simulation.SimulationReport.PhaseReport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Tests for {@link BookingSimulator}, covering reproducible runs, consistency of the package under
+ * concurrent load and paced arrivals.
+ */
+class BookingSimulatorTest {
+
+    private static SimulationConfig.SimulationConfigBuilder small() {
+        return SimulationConfig.builder()
+                .destinations(4)
+                .activitiesPerDestination(10)
+                .passengerCapacity(600)
+                .initialPassengers(300)
+                .phase(TrafficPhase.steadyBrowsing(3_000, 0))
+                .phase(TrafficPhase.flashSale(2_000, 0, 3))
+                .phase(TrafficPhase.cancellations(1_000, 0));
+    }
+
+    /**
+     * Tests that two single-threaded runs with the same seed have identical outcomes, and that
+     * another seed gives a different workload.
+     */
+    @Test
+    void run_SameSeed_SameOutcome() {
+        SimulationReport first = new BookingSimulator(small().concurrency(1).build()).run();
+        SimulationReport second = new BookingSimulator(small().concurrency(1).build()).run();
+        SimulationReport other = new BookingSimulator(small().concurrency(1).seed(7).build()).run();
+
+        for (int p = 0; p < first.phases().size(); p++) {
+            PhaseReport a = first.phases().get(p);
+            PhaseReport b = second.phases().get(p);
+            Assertions.assertEquals(a.signUps(), b.signUps());
+            Assertions.assertEquals(a.rejectedJoins(), b.rejectedJoins());
+            Assertions.assertEquals(a.missedCancellations(), b.missedCancellations());
+            for (Operation operation : Operation.values()) {
+                Assertions.assertEquals(a.latencies().get(operation).getTotalCount(),
+                        b.latencies().get(operation).getTotalCount());
+            }
+        }
+        Assertions.assertNotEquals(first.phases().get(0).signUps(), other.phases().get(0).signUps());
+    }
+
+    /**
+     * Tests that a concurrent run with a flash sale oversells nothing, keeps the seat counts and
+     * balances consistent, and accounts for every operation.
+     */
+    @Test
+    void run_Concurrent_StaysConsistent() {
+        SimulationReport report = new BookingSimulator(small().concurrency(4).build()).run();
+
+        Assertions.assertTrue(report.isConsistent(), report::format);
+        Assertions.assertEquals(List.of("steady browsing", "flash sale", "cancellations"),
+                report.phases().stream().map(PhaseReport::name).toList());
+        for (PhaseReport phase : report.phases()) {
+            long recorded = 0;
+            for (Operation operation : Operation.values()) {
+                recorded += phase.latencies().get(operation).getTotalCount();
+            }
+            Assertions.assertEquals(phase.operations(), recorded);
+            Assertions.assertTrue(phase.throughput() > 0);
+        }
+        PhaseReport sale = report.phases().get(1);
+        Assertions.assertTrue(sale.signUps().getOrDefault(SignUpStatus.NO_CAPACITY, 0L) > 0);
+        Assertions.assertTrue(sale.rejectionRate(Operation.SIGN_UP) > 0.5);
+        Assertions.assertTrue(report.format().contains("flash sale"));
+    }
+
+    /**
+     * Tests that a paced phase follows its arrival rate rather than running as fast as possible.
+     */
+    @Test
+    void run_PacedArrivals_FollowRate() {
+        SimulationReport report = new BookingSimulator(SimulationConfig.builder()
+                .destinations(2)
+                .activitiesPerDestination(5)
+                .passengerCapacity(100)
+                .initialPassengers(50)
+                .phase(TrafficPhase.steadyBrowsing(200, 2_000))
+                .build()).run();
+
+        PhaseReport phase = report.phases().get(0);
+        Assertions.assertTrue(phase.elapsedNanos() > 50_000_000L, "200 arrivals at 2,000/s take about 100 ms");
+        Assertions.assertTrue(phase.throughput() < 4_000);
+        Assertions.assertTrue(report.isConsistent());
+    }
+}
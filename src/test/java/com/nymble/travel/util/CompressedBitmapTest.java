@@ -0,0 +1,81 @@
+package com.nymble.travel.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Tests for {@link CompressedBitmap}, comparing it against a {@link BitSet} across sparse and dense
+ * chunks, and checking the footprint of sparse rosters.
+ */
+class CompressedBitmapTest {
+
+    private static CompressedBitmap randomBitmap(Random random, BitSet reference, int values, int bound) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < values; i++) {
+            int value = random.nextInt(bound);
+            Assertions.assertEquals(!reference.get(value), bitmap.add(value));
+            reference.set(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Tests adds, removes and membership checks while chunks switch between array and bitmap form.
+     */
+    @Test
+    void addRemoveContains_MatchesBitSet() {
+        Random random = new Random(7);
+        BitSet reference = new BitSet();
+        CompressedBitmap bitmap = randomBitmap(random, reference, 60_000, 200_000); // Dense chunks
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(200_000);
+            Assertions.assertEquals(reference.get(value), bitmap.remove(value));
+            reference.clear(value);
+        }
+
+        Assertions.assertEquals(reference.cardinality(), bitmap.cardinality());
+        for (int value = 0; value < 200_000; value++) {
+            Assertions.assertEquals(reference.get(value), bitmap.contains(value));
+        }
+        Assertions.assertArrayEquals(reference.stream().toArray(), bitmap.toArray());
+    }
+
+    /**
+     * Tests intersections of sparse and dense sets against the reference.
+     */
+    @Test
+    void and_MatchesBitSet() {
+        Random random = new Random(11);
+        BitSet sparseReference = new BitSet();
+        BitSet denseReference = new BitSet();
+        CompressedBitmap sparse = randomBitmap(random, sparseReference, 3_000, 300_000);
+        CompressedBitmap dense = randomBitmap(random, denseReference, 150_000, 300_000);
+
+        BitSet expected = (BitSet) sparseReference.clone();
+        expected.and(denseReference);
+        Assertions.assertArrayEquals(expected.stream().toArray(), sparse.and(dense).toArray());
+        Assertions.assertEquals(expected.cardinality(), dense.andCardinality(sparse));
+
+        BitSet denseSquared = (BitSet) denseReference.clone();
+        denseSquared.and(denseReference);
+        Assertions.assertArrayEquals(denseSquared.stream().toArray(), dense.and(dense.copy()).toArray());
+    }
+
+    /**
+     * Tests that a roster of 100 passengers numbered up to 100,000 stays far below a plain bitmap.
+     */
+    @Test
+    void sizeInBytes_SparseRosterStaysSmall() {
+        CompressedBitmap roster = new CompressedBitmap();
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            roster.add(random.nextInt(100_000));
+        }
+
+        Assertions.assertTrue(roster.sizeInBytes() < 512, "Got " + roster.sizeInBytes() + " bytes");
+        Assertions.assertTrue(roster.sizeInBytes() < 100_000 / 8);
+    }
+}
@@ -0,0 +1,42 @@
+package com.nymble.travel.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests for {@link IntLongHashMap}, checked against a {@link HashMap} through growth and removals.
+ */
+class IntLongHashMapTest {
+
+    /**
+     * Tests that puts, replacements and removals agree with a boxed map, including removals that
+     * shift colliding entries back and values beyond the int range.
+     */
+    @Test
+    void putAndRemove_MatchesHashMap() {
+        IntLongHashMap map = new IntLongHashMap();
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                Assertions.assertEquals(removed == null ? IntLongHashMap.NO_VALUE : removed, map.remove(key));
+            } else {
+                long value = random.nextLong() >>> 1;
+                Long previous = expected.put(key, value);
+                Assertions.assertEquals(previous == null ? IntLongHashMap.NO_VALUE : previous, map.put(key, value));
+            }
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 500; key++) {
+            Assertions.assertEquals(expected.getOrDefault(key, IntLongHashMap.NO_VALUE), map.get(key));
+            Assertions.assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(1, -5));
+    }
+}
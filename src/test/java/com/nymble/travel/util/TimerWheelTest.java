@@ -0,0 +1,89 @@
+package com.nymble.travel.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link TimerWheel}, driven by an explicit clock.
+ */
+class TimerWheelTest {
+
+    /**
+     * Tests that timeouts fire in the tick they are due in, never early, including timeouts
+     * more than one turn of the wheel away.
+     */
+    @Test
+    void advance_FiresDueTimeouts() {
+        TimerWheel wheel = new TimerWheel(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(() -> fired.add("soon"), 25);
+        wheel.schedule(() -> fired.add("later"), 55);
+        wheel.schedule(() -> fired.add("next turn"), 205);
+
+        Assertions.assertEquals(0, wheel.advance(29));
+        Assertions.assertEquals(1, wheel.advance(30));
+        Assertions.assertEquals(List.of("soon"), fired);
+        Assertions.assertEquals(1, wheel.advance(100));
+        Assertions.assertEquals(1, wheel.size());
+        Assertions.assertEquals(0, wheel.advance(209));
+        Assertions.assertEquals(1, wheel.advance(210));
+        Assertions.assertEquals(List.of("soon", "later", "next turn"), fired);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Tests that cancelled timeouts never fire and that a timeout cannot be cancelled after it fired.
+     */
+    @Test
+    void cancel_PreventsFiring() {
+        TimerWheel wheel = new TimerWheel(10, 4, 0);
+        List<Integer> fired = new ArrayList<>();
+        List<TimerWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int id = i;
+            timeouts.add(wheel.schedule(() -> fired.add(id), i * 3L));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            Assertions.assertTrue(timeouts.get(i).cancel());
+        }
+        Assertions.assertFalse(timeouts.get(0).cancel());
+
+        Assertions.assertEquals(50, wheel.advance(1_000)); // A long pause visits every bucket once
+        Assertions.assertEquals(50, fired.size());
+        Assertions.assertTrue(fired.stream().allMatch(id -> id % 2 == 1));
+        Assertions.assertFalse(timeouts.get(1).cancel());
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Tests that a throwing task is reported without keeping the other due tasks from running,
+     * and that the wheel keeps firing afterwards.
+     */
+    @Test
+    void advance_TaskThrows_OthersStillRun() {
+        TimerWheel wheel = new TimerWheel(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        List<Throwable> reported = new ArrayList<>();
+        wheel.schedule(() -> {
+            throw new IllegalStateException("Cannot release 1 seats, only 0 enrolled");
+        }, 15);
+        wheel.schedule(() -> fired.add("same tick"), 15);
+        wheel.schedule(() -> fired.add("next tick"), 25);
+
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+        try {
+            Assertions.assertEquals(2, wheel.advance(20));
+            Assertions.assertEquals(1, wheel.advance(30));
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+        Assertions.assertEquals(List.of("same tick", "next tick"), fired);
+        Assertions.assertEquals(1, reported.size());
+        Assertions.assertInstanceOf(IllegalStateException.class, reported.get(0));
+    }
+}
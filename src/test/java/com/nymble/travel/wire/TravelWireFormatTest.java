@@ -0,0 +1,193 @@
+package com.nymble.travel.wire;
+
+import com.nymble.travel.models.Activity;
+import com.nymble.travel.models.Destination;
+import com.nymble.travel.models.Passenger;
+import com.nymble.travel.models.PassengerTier;
+import com.nymble.travel.models.TravelPackage;
+import com.nymble.travel.persistence.ModelSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link TravelWireFormat}, covering round trips of every part of a package, reads
+ * from direct buffers, the size against the snapshot format, and corrupt input.
+ */
+class TravelWireFormatTest {
+
+    private static TravelPackage travelPackage() {
+        TravelPackage travelPackage = TravelPackage.builder().name("Rajasthan Circuit").passengerCapacity(10).build();
+        for (String city : List.of("Jaipur", "Udaipur")) {
+            Destination destination = Destination.builder().name(city).build();
+            destination.addActivity(Activity.builder().name("Fort walk").description("Guided tour").cost(25.5).capacity(3).build());
+            destination.addActivity(Activity.builder().name("Cooking class").description(null).cost(1.0 / 3).capacity(2).build());
+            travelPackage.addDestination(destination);
+        }
+        travelPackage.addPassenger(PassengerTier.PREMIUM.newPassenger("Meera", 7, 0));
+        travelPackage.addPassenger(PassengerTier.GOLD.newPassenger("Arjun", 300, 120.25));
+        travelPackage.addPassenger(PassengerTier.STANDARD.newPassenger("Zoya", 70_000, 80));
+        return travelPackage;
+    }
+
+    /**
+     * Tests that a decoded package has the same itinerary, passengers of the same tiers and
+     * balances, rosters with what each passenger was charged, and seats held without a passenger.
+     */
+    @Test
+    void decode_RestoresEncodedPackage() {
+        TravelPackage original = travelPackage();
+        Activity fortWalk = original.getItinerary().get(0).getActivities().get(0);
+        Activity cookingClass = original.getItinerary().get(1).getActivities().get(1);
+        for (Passenger passenger : original.getPassengers()) {
+            Assertions.assertTrue(passenger.signUpForActivity(fortWalk));
+        }
+        original.findPassenger(300).orElseThrow().signUpForActivity(cookingClass);
+        cookingClass.reserveUpTo(1); // A seat held by a bulk booking
+
+        TravelPackage copy = TravelWireFormat.decode(ByteBuffer.wrap(TravelWireFormat.encode(original)));
+
+        Assertions.assertEquals("Rajasthan Circuit", copy.getName());
+        Assertions.assertEquals(10, copy.getPassengerCapacity());
+        Assertions.assertEquals(original.getItinerary(), copy.getItinerary());
+        Assertions.assertNull(copy.getItinerary().get(0).getActivities().get(1).getDescription());
+        Assertions.assertEquals(1.0 / 3, copy.getItinerary().get(0).getActivities().get(1).getCost());
+        Assertions.assertEquals(PassengerTier.PREMIUM, copy.findPassenger(7).orElseThrow().getTier());
+        Assertions.assertEquals(PassengerTier.GOLD, copy.findPassenger(300).orElseThrow().getTier());
+        Assertions.assertEquals(PassengerTier.STANDARD, copy.findPassenger(70_000).orElseThrow().getTier());
+        for (Passenger passenger : original.getPassengers()) {
+            Passenger decoded = copy.findPassenger(passenger.getPassengerNumber()).orElseThrow();
+            Assertions.assertEquals(passenger.getName(), decoded.getName());
+            Assertions.assertEquals(passenger.getWallet().getBalanceCents(), decoded.getWallet().getBalanceCents());
+            Assertions.assertEquals(passenger.getActivityIds().length, decoded.getActivityIds().length);
+            Assertions.assertEquals(passenger.getChargeCents(fortWalk),
+                    decoded.getChargeCents(copy.getItinerary().get(0).getActivities().get(0)));
+        }
+        Activity decodedFortWalk = copy.getItinerary().get(0).getActivities().get(0);
+        Activity decodedCookingClass = copy.getItinerary().get(1).getActivities().get(1);
+        Assertions.assertArrayEquals(new int[] {7, 300, 70_000}, decodedFortWalk.getEnrolledPassengerNumbers());
+        Assertions.assertArrayEquals(new int[] {300}, decodedCookingClass.getEnrolledPassengerNumbers());
+        Assertions.assertEquals(2, decodedCookingClass.getEnrolledPassengers());
+    }
+
+    /**
+     * Tests that decoding from a direct buffer at an offset reads the package and leaves the
+     * position after it.
+     */
+    @Test
+    void decode_DirectBuffer_AdvancesPastPackage() {
+        byte[] encoded = TravelWireFormat.encode(travelPackage());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length + 5);
+        buffer.put((byte) 42).put(encoded).put(new byte[4]).flip().position(1);
+
+        TravelPackage copy = TravelWireFormat.decode(buffer);
+
+        Assertions.assertEquals(travelPackage().getItinerary(), copy.getItinerary());
+        Assertions.assertEquals(1 + encoded.length, buffer.position());
+    }
+
+    /**
+     * Tests that repeated strings are written once, so a package with many similar activities is
+     * far smaller than its snapshot image.
+     */
+    @Test
+    void encode_RepeatedStrings_WrittenOnce() {
+        TravelPackage travelPackage = TravelPackage.builder().name("Large").passengerCapacity(0).build();
+        for (int d = 0; d < 20; d++) {
+            Destination destination = Destination.builder().name("Destination " + d).build();
+            for (int a = 0; a < 50; a++) {
+                destination.addActivity(Activity.builder()
+                        .name("Activity " + a)
+                        .description("An activity offered at every destination of the package")
+                        .cost(a * 2.5)
+                        .capacity(20)
+                        .build());
+            }
+            travelPackage.addDestination(destination);
+        }
+
+        int wire = TravelWireFormat.encode(travelPackage).length;
+        int snapshot = ModelSnapshot.encode(List.of(travelPackage)).length;
+
+        Assertions.assertTrue(wire * 5 < snapshot, wire + " bytes on the wire against " + snapshot + " in a snapshot");
+    }
+
+    /**
+     * Tests that truncated, foreign or inconsistent input is rejected rather than half decoded.
+     */
+    @Test
+    void decode_CorruptInput_Rejected() {
+        byte[] encoded = TravelWireFormat.encode(travelPackage());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 3))));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(new byte[] {'{', '}'})));
+        TravelPackage small = TravelPackage.builder().name("P").passengerCapacity(1).build();
+        small.addPassenger(PassengerTier.PREMIUM.newPassenger("N", 1, 0));
+        byte[] unknownTier = TravelWireFormat.encode(small);
+        unknownTier[13] = 9; // After the header, the dictionary of "P" and "N", the name, capacity and count
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(unknownTier)));
+
+        TravelPackage seated = TravelPackage.builder().name("P").passengerCapacity(2).build();
+        Activity activity = Activity.builder().name("A").description(null).cost(10).capacity(2).build();
+        seated.addDestination(Destination.builder().name("D").activities(List.of(activity)).build());
+        for (int number = 1; number <= 2; number++) {
+            Passenger passenger = PassengerTier.STANDARD.newPassenger("N", number, 100);
+            seated.addPassenger(passenger);
+            passenger.signUpForActivity(activity);
+        }
+        byte[] seatedTwice = TravelWireFormat.encode(seated);
+        seatedTwice[seatedTwice.length - 3] = 0; // The roster ends with gap 1 and charge 1,000, then passenger 2 the same way
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(seatedTwice)));
+    }
+
+    /**
+     * Tests that input naming nothing, pricing an activity below zero or beyond any number, or
+     * with a negative capacity is rejected, so a decoded activity is never free to book.
+     */
+    @Test
+    void decode_InvalidValues_Rejected() {
+        TravelPackage small = TravelPackage.builder().name("P").passengerCapacity(1).build();
+        byte[] unnamed = TravelWireFormat.encode(small);
+        unnamed[8] = 0; // After the header and the dictionary of "P", the name refers to null
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(unnamed)));
+        byte[] negativePackage = splice(TravelWireFormat.encode(small), 9, 1);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(negativePackage)));
+
+        TravelPackage priced = TravelPackage.builder().name("P").passengerCapacity(1).build();
+        Activity activity = Activity.builder().name("A").description(null).cost(0.1 + 0.2).capacity(0).build();
+        priced.addDestination(Destination.builder().name("D").activities(List.of(activity)).build());
+        byte[] encoded = TravelWireFormat.encode(priced);
+        Assertions.assertEquals(0.1 + 0.2, TravelWireFormat.decode(ByteBuffer.wrap(encoded))
+                .getItinerary().get(0).getActivities().get(0).getCost());
+        for (double cost : new double[] {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -1}) {
+            byte[] invalidCost = encoded.clone();
+            ByteBuffer.wrap(invalidCost).putDouble(encoded.length - 11, cost); // Before capacity, held seats and roster
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> TravelWireFormat.decode(ByteBuffer.wrap(invalidCost)), "Cost " + cost);
+        }
+        byte[] negativeActivity = splice(encoded, encoded.length - 3, 1);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> TravelWireFormat.decode(ByteBuffer.wrap(negativeActivity)));
+    }
+
+    /**
+     * Replaces the varint of the given length at the offset with the five byte varint of -1.
+     */
+    private static byte[] splice(byte[] encoded, int offset, int length) {
+        byte[] negative = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[] spliced = new byte[encoded.length - length + negative.length];
+        System.arraycopy(encoded, 0, spliced, 0, offset);
+        System.arraycopy(negative, 0, spliced, offset, negative.length);
+        System.arraycopy(encoded, offset + length, spliced, offset + negative.length, encoded.length - offset - length);
+        return spliced;
+    }
+}